@@ -0,0 +1,133 @@
+package com.neurofleet.util;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load generator for comparing the platform-thread and virtual-thread
+ * request modes. Start the backend once with VIRTUAL_THREADS_ENABLED=false and once with
+ * it set to true (JDK 21, built with -Pvirtual-threads), then point this at the same
+ * endpoints with the same concurrency and compare throughput and p99:
+ *
+ *   mvn -q -Pbench compile exec:java -Dexec.mainClass=com.neurofleet.util.HttpLoadTest \
+ *       -Dexec.args="--concurrency 400 --seconds 60 http://localhost:3001/api/bookings"
+ *
+ * The difference only shows when handlers actually wait on Firestore, so run it against an
+ * instance with real credentials and a concurrency above Tomcat's 200 worker threads.
+ *
+ * Options: --concurrency N (default 200), --seconds N (default 30), --warmup N seconds
+ * (default 5), --token BEARER to send an Authorization header. URLs are used round-robin.
+ */
+public final class HttpLoadTest {
+
+    private HttpLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = 200;
+        int seconds = 30;
+        int warmup = 5;
+        String token = null;
+        List<URI> targets = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                case "--token" -> token = args[++i];
+                default -> targets.add(URI.create(args[i]));
+            }
+        }
+        if (targets.isEmpty()) targets.add(URI.create("http://localhost:3001/api/vehicles/status-distribution"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+
+        System.out.println("Warming up for " + warmup + " s...");
+        run(client, targets, token, concurrency, warmup);
+        System.out.println("Measuring " + concurrency + " concurrent clients for " + seconds + " s against " + targets);
+        Result r = run(client, targets, token, concurrency, seconds);
+
+        long[] lat = r.latenciesMicros;
+        Arrays.sort(lat);
+        System.out.printf("requests   %d (%d errors)%n", lat.length, r.errors);
+        System.out.printf("throughput %.1f req/s%n", lat.length / (double) seconds);
+        System.out.printf("p50        %.2f ms%n", percentile(lat, 0.50) / 1000.0);
+        System.out.printf("p90        %.2f ms%n", percentile(lat, 0.90) / 1000.0);
+        System.out.printf("p99        %.2f ms%n", percentile(lat, 0.99) / 1000.0);
+        System.out.printf("max        %.2f ms%n", lat.length > 0 ? lat[lat.length - 1] / 1000.0 : 0);
+        System.exit(0);
+    }
+
+    private static final class Result {
+        final long[] latenciesMicros;
+        final long errors;
+
+        Result(long[] latenciesMicros, long errors) {
+            this.latenciesMicros = latenciesMicros;
+            this.errors = errors;
+        }
+    }
+
+    private static Result run(HttpClient client, List<URI> targets, String token, int concurrency, int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong errors = new AtomicLong();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int c = 0; c < concurrency; c++) {
+            int offset = c;
+            futures.add(clients.submit(() -> {
+                long[] samples = new long[1024];
+                int n = 0;
+                for (int i = offset; System.nanoTime() < deadline; i++) {
+                    HttpRequest.Builder req = HttpRequest.newBuilder(targets.get(i % targets.size()))
+                            .timeout(Duration.ofSeconds(30))
+                            .GET();
+                    if (token != null) req.header("Authorization", "Bearer " + token);
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> resp = client.send(req.build(), HttpResponse.BodyHandlers.discarding());
+                        if (resp.statusCode() >= 400) errors.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                        continue;
+                    }
+                    if (n == samples.length) samples = Arrays.copyOf(samples, n * 2);
+                    samples[n++] = (System.nanoTime() - start) / 1000;
+                }
+                return Arrays.copyOf(samples, n);
+            }));
+        }
+
+        int total = 0;
+        List<long[]> parts = new ArrayList<>();
+        for (Future<long[]> f : futures) {
+            long[] part = f.get();
+            parts.add(part);
+            total += part.length;
+        }
+        clients.shutdown();
+
+        long[] all = new long[total];
+        int pos = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, all, pos, part.length);
+            pos += part.length;
+        }
+        return new Result(all, errors.get());
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int idx = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+    }
+}
@@ -0,0 +1,231 @@
+package com.neurofleet.util;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.ConsoleAppender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures what logging costs the request path. Worker threads repeatedly run a stand-in for
+ * {@code GET /api/vehicles?latitude=..&longitude=..} (copy a fleet, sort it by distance) with
+ * the logging of each mode, all written to a file so the terminal isn't the bottleneck:
+ *
+ *   stdout       the System.out.println calls the auth filter and getVehicles used to make
+ *   sync-debug   the current log statements at DEBUG, written on the calling thread
+ *   async-debug  the same through the AsyncAppender used by logback-spring.xml
+ *   async-trace  TRACE as well, so the rate-limited per-vehicle lines are included
+ *   async-info   the production default, where the per-request lines are disabled
+ *   off          no logging at all, as the baseline
+ *
+ * Run with:
+ *
+ *   mvn -q -Pbench compile exec:java -Dexec.mainClass=com.neurofleet.util.LoggingBenchmark \
+ *       -Dexec.args="--threads 64 --seconds 10"
+ *
+ * Options: --threads N (default 32), --seconds N (default 10), --fleet N vehicles per request
+ * (default 60), --dir DIR for the scratch log files (default a temp directory), then optionally the
+ * modes to run. Throughput counts only the request threads; "drain ms" is how long the async
+ * appender needed afterwards to finish writing. Line and size columns include the warm-up.
+ */
+public final class LoggingBenchmark {
+
+    private static final double CENTER_LAT = 28.4595;
+    private static final double CENTER_LNG = 77.0266;
+    private static final String PATTERN = "ts=%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} level=%level thread=%thread logger=%logger{36} %msg%n";
+    private static final List<String> ALL_MODES = List.of("stdout", "sync-debug", "async-debug", "async-trace", "async-info", "off");
+
+    private static final LogThrottle vehicleTrace = new LogThrottle(20, 10000);
+
+    private LoggingBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = 32;
+        int seconds = 10;
+        int fleetSize = 60;
+        Path dir = null;
+        List<String> modes = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                case "--fleet" -> fleetSize = Integer.parseInt(args[++i]);
+                case "--dir" -> dir = Path.of(args[++i]);
+                default -> {
+                    if (!ALL_MODES.contains(args[i])) throw new IllegalArgumentException("Unknown mode " + args[i] + ", expected one of " + ALL_MODES);
+                    modes.add(args[i]);
+                }
+            }
+        }
+        if (modes.isEmpty()) modes = ALL_MODES;
+        if (dir == null) dir = Files.createTempDirectory("logging-bench");
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext)) {
+            throw new IllegalStateException("Logback is not the SLF4J binding on this classpath");
+        }
+
+        List<Map<String, Object>> fleet = fleet(fleetSize, new Random(7));
+        PrintStream console = System.out;
+        console.printf("%d request threads, %d s per mode, %d vehicles per request, scratch logs in %s%n%n", threads, seconds, fleetSize, dir);
+        console.printf("%-12s %12s %12s %12s %10s%n", "mode", "req/s", "log lines", "log MB", "drain ms");
+
+        for (String mode : modes) {
+            Path file = dir.resolve(mode + ".log");
+            PrintStream fileOut = new PrintStream(new FileOutputStream(file.toFile()), true, StandardCharsets.UTF_8);
+            System.setOut(fileOut);
+            LoggerContext ctx = configure(mode);
+            Logger log = LoggerFactory.getLogger("com.neurofleet.bench");
+            try {
+                run(mode, log, fleet, threads, Math.max(1, seconds / 5));
+                long requests = run(mode, log, fleet, threads, seconds);
+                long drainStart = System.nanoTime();
+                ctx.stop();
+                long drainMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - drainStart);
+                System.setOut(console);
+                fileOut.close();
+                console.printf("%-12s %12.0f %12d %12.1f %10d%n", mode, requests / (double) seconds,
+                        countLines(file), Files.size(file) / 1_048_576.0, drainMillis);
+            } finally {
+                System.setOut(console);
+                fileOut.close();
+                Files.deleteIfExists(file);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static LoggerContext configure(String mode) {
+        LoggerContext ctx = (LoggerContext) LoggerFactory.getILoggerFactory();
+        ctx.reset();
+        ch.qos.logback.classic.Logger root = ctx.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(switch (mode) {
+            case "sync-debug", "async-debug" -> Level.DEBUG;
+            case "async-trace" -> Level.TRACE;
+            case "async-info" -> Level.INFO;
+            default -> Level.OFF;
+        });
+        if (mode.equals("stdout") || mode.equals("off")) return ctx;
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(ctx);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        ConsoleAppender<ILoggingEvent> console = new ConsoleAppender<>();
+        console.setContext(ctx);
+        console.setEncoder(encoder);
+        console.start();
+        if (mode.startsWith("sync")) {
+            root.addAppender(console);
+            return ctx;
+        }
+        // Same settings as logback-spring.xml
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(ctx);
+        async.setQueueSize(8192);
+        async.setNeverBlock(true);
+        async.setMaxFlushTime(60000);
+        async.addAppender(console);
+        async.start();
+        root.addAppender(async);
+        return ctx;
+    }
+
+    private static long run(String mode, Logger log, List<Map<String, Object>> fleet, int threads, int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        LongAdder requests = new LongAdder();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    handle(mode, log, fleet, CENTER_LAT + rnd.nextDouble(-0.05, 0.05), CENTER_LNG + rnd.nextDouble(-0.05, 0.05));
+                    requests.increment();
+                }
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+        return requests.sum();
+    }
+
+    // Mirrors the auth filter and getVehicles, before and after the move to SLF4J
+    private static int handle(String mode, Logger log, List<Map<String, Object>> fleet, double lat, double lng) {
+        boolean stdout = mode.equals("stdout");
+        String uri = "/api/vehicles";
+        if (stdout) {
+            System.out.println("FirebaseAuthenticationFilter processing request: " + uri);
+            System.out.println("Authorization header: Bearer eyJhbGciOiJSUzI1NiJ9.bench");
+            System.out.println("Processing Firebase token");
+            System.out.println("Token verified for user: bench-user");
+            System.out.println("Fetching vehicles with filters - status: null, type: null, lat: " + lat + ", lng: " + lng);
+            System.out.println("Found " + fleet.size() + " vehicles in database");
+        } else {
+            log.trace("auth.request uri={}", uri);
+            log.debug("vehicle.list source=firestore status={} type={} driver={} lat={} lng={}", null, null, null, lat, lng);
+            log.debug("vehicle.list found={}", fleet.size());
+        }
+
+        List<Map<String, Object>> list = new ArrayList<>(fleet.size());
+        for (Map<String, Object> v : fleet) {
+            Map<String, Object> m = new HashMap<>(v);
+            if (stdout) {
+                System.out.println("Adding vehicle: " + m);
+            } else if (log.isTraceEnabled() && vehicleTrace.tryAcquire()) {
+                log.trace("vehicle.add id={} data={} suppressed={}", m.get("id"), m, vehicleTrace.drainSuppressed());
+            }
+            list.add(m);
+        }
+
+        list.sort((v1, v2) -> {
+            double d1 = GeoUtils.haversineKm(lat, lng, (Double) v1.get("latitude"), (Double) v1.get("longitude"));
+            double d2 = GeoUtils.haversineKm(lat, lng, (Double) v2.get("latitude"), (Double) v2.get("longitude"));
+            if (stdout) {
+                System.out.println("Vehicle " + v1.get("licensePlate") + " distance: " + d1 + " km");
+                System.out.println("Vehicle " + v2.get("licensePlate") + " distance: " + d2 + " km");
+            }
+            return Double.compare(d1, d2);
+        });
+
+        if (stdout) {
+            System.out.println("Returning " + list.size() + " vehicles");
+        } else {
+            log.debug("vehicle.list returned={} sortedByDistance={}", list.size(), true);
+        }
+        return list.size();
+    }
+
+    private static List<Map<String, Object>> fleet(int n, Random rnd) {
+        List<Map<String, Object>> fleet = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Map<String, Object> v = new HashMap<>();
+            v.put("id", "veh-" + i);
+            v.put("licensePlate", String.format("HR26-%04d", i));
+            v.put("status", "available");
+            v.put("latitude", CENTER_LAT + rnd.nextDouble(-0.1, 0.1));
+            v.put("longitude", CENTER_LNG + rnd.nextDouble(-0.1, 0.1));
+            v.put("batteryLevel", rnd.nextInt(100));
+            fleet.add(v);
+        }
+        return Collections.unmodifiableList(fleet);
+    }
+
+    private static long countLines(Path file) throws IOException {
+        try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return lines.count();
+        }
+    }
+}
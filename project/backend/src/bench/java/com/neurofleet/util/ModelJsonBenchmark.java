@@ -0,0 +1,227 @@
+package com.neurofleet.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neurofleet.model.Booking;
+import com.neurofleet.model.ModelJsonModule;
+import com.neurofleet.model.Telemetry;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Map-based JSON paths with the typed records and their serializers on the
+ * busiest responses and messages:
+ *
+ *   update         one vehicle_update message, built once for every vehicle on every tick and
+ *                  shared by the WebSocket and the SSE stream
+ *   telemetry-all  the body of GET /api/vehicles/telemetry/all; "record" is the first request
+ *                  after a change, which builds the fleet snapshot, "shared" any later request
+ *                  that reuses it until the next change
+ *   bookings       the body of GET /api/bookings/user, starting from the data maps Firestore
+ *                  hands out, whose creation is counted on both sides
+ *
+ * Each variant runs single-threaded, so the allocation figure from the thread's allocation
+ * counter is exact. Response bodies are written to a discarding stream, as they are to the
+ * servlet output stream. Before measuring, each scenario checks that both variants produce
+ * the same JSON.
+ *
+ * Run with:
+ *
+ *   mvn -q -Pbench compile exec:java -Dexec.mainClass=com.neurofleet.util.ModelJsonBenchmark \
+ *       -Dexec.args="--fleet 500 --seconds 5"
+ *
+ * Options: --fleet N vehicles or bookings (default 500), --seconds N of warm-up and of
+ * measurement for each variant (default 5), then optionally the scenarios to run.
+ */
+public final class ModelJsonBenchmark {
+
+    private static final List<String> ALL_SCENARIOS = List.of("update", "telemetry-all", "bookings");
+
+    private interface Op {
+        void run() throws Exception;
+    }
+
+    private ModelJsonBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int fleetSize = 500;
+        int seconds = 5;
+        List<String> scenarios = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--fleet" -> fleetSize = Integer.parseInt(args[++i]);
+                case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                default -> {
+                    if (!ALL_SCENARIOS.contains(args[i])) throw new IllegalArgumentException("Unknown scenario " + args[i] + ", expected one of " + ALL_SCENARIOS);
+                    scenarios.add(args[i]);
+                }
+            }
+        }
+        if (scenarios.isEmpty()) scenarios = ALL_SCENARIOS;
+
+        ObjectMapper plain = new ObjectMapper();
+        ObjectMapper typed = new ObjectMapper().registerModule(new ModelJsonModule());
+        Random rnd = new Random(7);
+        List<Map<String, Object>> fleet = new ArrayList<>();
+        Map<String, Map<String, Object>> attributes = new HashMap<>();
+        for (int i = 0; i < fleetSize; i++) {
+            Map<String, Object> v = telemetryRecord(i, rnd);
+            fleet.add(v);
+            attributes.put((String) v.get("id"), Telemetry.attributesOf(v));
+        }
+        List<Map<String, Object>> bookingDocs = new ArrayList<>();
+        for (int i = 0; i < fleetSize; i++) bookingDocs.add(bookingDocument(i, rnd));
+        // Unlike OutputStream.nullOutputStream() this one survives the close at the end of writeValue
+        OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+
+        System.out.printf("%d vehicles/bookings, %d s per measurement%n%n", fleetSize, seconds);
+        System.out.printf("%-14s %-6s %14s %14s %10s%n", "scenario", "path", "us/op", "bytes/op", "same JSON");
+
+        for (String scenario : scenarios) {
+            Op maps;
+            Op records;
+            Op shared = null;
+            String mapJson;
+            String recordJson;
+            switch (scenario) {
+                case "update" -> {
+                    int[] next = {0};
+                    maps = () -> {
+                        Map<String, Object> v = fleet.get(next[0]++ % fleet.size());
+                        Map<String, Object> payload = new HashMap<>(v);
+                        payload.put("type", "vehicle_update");
+                        plain.writeValueAsString(payload);
+                    };
+                    records = () -> {
+                        Map<String, Object> v = fleet.get(next[0]++ % fleet.size());
+                        typed.writeValueAsString(Telemetry.of(v, attributes.get((String) v.get("id"))).asUpdate());
+                    };
+                    Map<String, Object> payload = new HashMap<>(fleet.get(0));
+                    payload.put("type", "vehicle_update");
+                    mapJson = plain.writeValueAsString(payload);
+                    recordJson = typed.writeValueAsString(Telemetry.of(fleet.get(0), attributes.get("veh-0")).asUpdate());
+                }
+                case "telemetry-all" -> {
+                    maps = () -> plain.writeValue(sink, new ArrayList<>(fleet));
+                    records = () -> typed.writeValue(sink, snapshotAll(fleet, attributes));
+                    List<Telemetry> snapshot = snapshotAll(fleet, attributes);
+                    shared = () -> typed.writeValue(sink, snapshot);
+                    mapJson = plain.writeValueAsString(fleet);
+                    recordJson = typed.writeValueAsString(snapshotAll(fleet, attributes));
+                }
+                case "bookings" -> {
+                    maps = () -> plain.writeValue(sink, bookingMaps(bookingDocs));
+                    records = () -> typed.writeValue(sink, bookingRecords(bookingDocs));
+                    mapJson = plain.writeValueAsString(bookingMaps(bookingDocs));
+                    recordJson = typed.writeValueAsString(bookingRecords(bookingDocs));
+                }
+                default -> throw new IllegalStateException(scenario);
+            }
+            boolean same = plain.readTree(mapJson).equals(plain.readTree(recordJson));
+            measure(scenario, "map", maps, seconds, same);
+            measure(scenario, "record", records, seconds, same);
+            if (shared != null) measure(scenario, "shared", shared, seconds, same);
+        }
+    }
+
+    private static void measure(String scenario, String path, Op op, int seconds, boolean same) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        // Warm-up as long as the measurement; Jackson's serializer chain takes a while to be fully compiled
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        while (System.nanoTime() < warmupEnd) op.run();
+
+        long ops = 0;
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long now;
+        do {
+            for (int i = 0; i < 16; i++) op.run();
+            ops += 16;
+            now = System.nanoTime();
+        } while (now < end);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%-14s %-6s %14.2f %14d %10s%n", scenario, path, (now - start) / 1000.0 / ops, allocated / ops, same ? "yes" : "NO");
+    }
+
+    private static List<Telemetry> snapshotAll(List<Map<String, Object>> fleet, Map<String, Map<String, Object>> attributes) {
+        List<Telemetry> all = new ArrayList<>(fleet.size());
+        for (Map<String, Object> v : fleet) all.add(Telemetry.of(v, attributes.get((String) v.get("id"))));
+        return all;
+    }
+
+    // Both variants start from a fresh copy per document, standing in for DocumentSnapshot.getData()
+    private static List<Map<String, Object>> bookingMaps(List<Map<String, Object>> docs) {
+        List<Map<String, Object>> list = new ArrayList<>(docs.size());
+        for (Map<String, Object> doc : docs) {
+            Map<String, Object> m = new HashMap<>(doc);
+            m.put("id", doc.get("__id"));
+            m.remove("__id");
+            list.add(m);
+        }
+        return list;
+    }
+
+    private static List<Booking> bookingRecords(List<Map<String, Object>> docs) {
+        List<Booking> list = new ArrayList<>(docs.size());
+        for (Map<String, Object> doc : docs) {
+            Map<String, Object> m = new HashMap<>(doc);
+            String id = (String) m.remove("__id");
+            list.add(Booking.from(id, m));
+        }
+        return list;
+    }
+
+    // Shaped like a TelemetryService record after addOrInitVehicle and a few ticks
+    private static Map<String, Object> telemetryRecord(int i, Random rnd) {
+        Map<String, Object> v = new HashMap<>();
+        v.put("id", "veh-" + i);
+        v.put("make", "Tata");
+        v.put("model", "Nexon EV");
+        v.put("licensePlate", String.format("HR26-%04d", i));
+        v.put("type", "ev");
+        v.put("status", rnd.nextBoolean() ? "available" : "on-trip");
+        v.put("batteryCapacity", 40.5);
+        v.put("createdAt", new Date(1700000000000L + i));
+        v.put("latitude", 28.4595 + rnd.nextDouble() * 0.1);
+        v.put("longitude", 77.0266 + rnd.nextDouble() * 0.1);
+        v.put("speed", rnd.nextDouble() * 60);
+        v.put("batteryLevel", rnd.nextDouble() * 100);
+        v.put("range", 100 + rnd.nextInt(300));
+        v.put("batteryHealth", 70 + rnd.nextInt(30));
+        v.put("timeToEmptyMinutes", rnd.nextInt(600));
+        v.put("efficiencyWhPerKm", 140.5);
+        v.put("energyRemainingKwh", 21.37);
+        v.put("lastUpdate", "2026-10-19T10:15:30.123Z");
+        return v;
+    }
+
+    private static Map<String, Object> bookingDocument(int i, Random rnd) {
+        Map<String, Object> b = new HashMap<>();
+        b.put("__id", "booking-" + i);
+        b.put("customerId", "uid-" + rnd.nextInt(50));
+        b.put("customerEmail", "customer" + i + "@example.com");
+        b.put("vehicleType", rnd.nextBoolean() ? "economy" : "premium");
+        b.put("status", "confirmed");
+        b.put("pickupLocation", "Sector " + rnd.nextInt(60) + ", Gurugram");
+        b.put("dropoffLocation", "Cyber Hub");
+        b.put("pickupDate", "2026-10-20");
+        b.put("pickupTime", "09:30");
+        b.put("estimatedCost", 250 + rnd.nextInt(500));
+        b.put("passengers", 1 + rnd.nextInt(3));
+        b.put("createdAt", new Date(1700000000000L + i));
+        return b;
+    }
+}
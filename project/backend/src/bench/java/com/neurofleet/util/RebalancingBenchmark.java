@@ -0,0 +1,87 @@
+package com.neurofleet.util;
+
+import java.util.*;
+
+/**
+ * Times {@link RebalancingPlanner} on synthetic fleets. Idle vehicles cluster around a few
+ * depots while demand clusters around other hotspots, which is the lopsided case the
+ * rebalancer exists for. Run with:
+ *
+ *   mvn -q -Pbench compile exec:java -Dexec.mainClass=com.neurofleet.util.RebalancingBenchmark
+ *
+ * Optional args: vehicle counts to try (default 1000 5000 20000).
+ */
+public final class RebalancingBenchmark {
+
+    private static final double CENTER_LAT = 28.6139;
+    private static final double CENTER_LNG = 77.2090;
+    private static final double CITY_SPREAD_DEG = 0.25;
+
+    private RebalancingBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[]{1000, 5000, 20000};
+        RebalancingPlanner planner = new RebalancingPlanner(0.01, 5.0, 12);
+
+        // Warm-up so the first timed run isn't measuring the JIT
+        for (int i = 0; i < 3; i++) {
+            planner.plan(fleet(2000, new Random(i)), demand(4000, new Random(i + 100)), 10_000);
+        }
+
+        System.out.printf("%8s %8s %8s %8s %8s %8s %10s %8s%n",
+                "vehicles", "surplus", "deficit", "edges", "imbal", "moves", "km", "ms");
+        for (int n : sizes) {
+            Random rnd = new Random(n);
+            List<RebalancingPlanner.Vehicle> idle = fleet(n, rnd);
+            List<double[]> demand = demand(n * 2, rnd);
+            RebalancingPlanner.Plan plan = planner.plan(idle, demand, 30_000);
+            System.out.printf("%8d %8d %8d %8d %8d %8d %10.1f %8d%s%n",
+                    n, plan.surplusCells, plan.deficitCells, plan.edges, plan.imbalance,
+                    plan.moves.size(), plan.totalKm, plan.solveMillis, plan.timedOut ? " (timed out)" : "");
+        }
+    }
+
+    private static List<RebalancingPlanner.Vehicle> fleet(int n, Random rnd) {
+        double[][] depots = hotspots(6, rnd);
+        List<RebalancingPlanner.Vehicle> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            double[] p = around(depots, 0.6, rnd);
+            out.add(new RebalancingPlanner.Vehicle("SIM-" + i, p[0], p[1]));
+        }
+        return out;
+    }
+
+    private static List<double[]> demand(int pickups, Random rnd) {
+        double[][] hotspots = hotspots(10, rnd);
+        List<double[]> out = new ArrayList<>(pickups);
+        for (int i = 0; i < pickups; i++) {
+            double[] p = around(hotspots, 0.5, rnd);
+            out.add(new double[]{p[0], p[1], 1});
+        }
+        return out;
+    }
+
+    private static double[][] hotspots(int count, Random rnd) {
+        double[][] out = new double[count][];
+        for (int i = 0; i < count; i++) {
+            out[i] = new double[]{
+                    CENTER_LAT + (rnd.nextDouble() - 0.5) * CITY_SPREAD_DEG,
+                    CENTER_LNG + (rnd.nextDouble() - 0.5) * CITY_SPREAD_DEG};
+        }
+        return out;
+    }
+
+    // With probability clustered, a point near a random hotspot; otherwise uniform over the city
+    private static double[] around(double[][] hotspots, double clustered, Random rnd) {
+        if (rnd.nextDouble() < clustered) {
+            double[] h = hotspots[rnd.nextInt(hotspots.length)];
+            return new double[]{h[0] + rnd.nextGaussian() * 0.02, h[1] + rnd.nextGaussian() * 0.02};
+        }
+        return new double[]{
+                CENTER_LAT + (rnd.nextDouble() - 0.5) * CITY_SPREAD_DEG,
+                CENTER_LNG + (rnd.nextDouble() - 0.5) * CITY_SPREAD_DEG};
+    }
+}
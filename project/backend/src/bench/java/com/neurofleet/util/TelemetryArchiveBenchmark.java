@@ -0,0 +1,96 @@
+package com.neurofleet.util;
+
+import com.neurofleet.service.TelemetryArchiveService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills a scratch archive with a week of 5-second telemetry per vehicle, shaped like the
+ * simulator's (random-walk positions, slowly draining battery, a few ms of tick jitter), then
+ * reports bytes per sample and timed one-week and one-hour range scans. Run with:
+ *
+ *   mvn -q -Pbench compile exec:java -Dexec.mainClass=com.neurofleet.util.TelemetryArchiveBenchmark
+ *
+ * Optional args: number of vehicles (default 5), days per vehicle (default 7).
+ */
+public final class TelemetryArchiveBenchmark {
+
+    private TelemetryArchiveBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int vehicles = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        Path dir = Files.createTempDirectory("telemetry-archive-bench");
+        TelemetryArchiveService archive = new TelemetryArchiveService(null, true, dir.toString(), 1024, Long.MAX_VALUE, 26, 0);
+
+        long start = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days);
+        start -= start % TimeUnit.DAYS.toMillis(1);
+        long end = start + TimeUnit.DAYS.toMillis(days);
+        Random rnd = new Random(42);
+        long samples = 0;
+        long began = System.nanoTime();
+        for (int v = 0; v < vehicles; v++) {
+            String id = "BENCH-" + v;
+            double lat = 28.4595 + rnd.nextDouble() * 0.1;
+            double lng = 77.0266 + rnd.nextDouble() * 0.1;
+            double battery = 90;
+            for (long t = start; t < end; t += 5000 + rnd.nextInt(15)) {
+                boolean onTrip = (t / 1_800_000) % 3 == 0;
+                double step = onTrip ? 0.001 : 0.0005;
+                lat += (rnd.nextDouble() - 0.5) * step;
+                lng += (rnd.nextDouble() - 0.5) * step;
+                battery = battery < 20 ? 95 : battery - (onTrip ? 0.01 : 0.001) * rnd.nextDouble();
+                archive.append(id, t, lat, lng, battery);
+                samples++;
+            }
+        }
+        archive.shutdown();
+        double ingestSeconds = (System.nanoTime() - began) / 1e9;
+
+        long bytes;
+        try (var files = Files.walk(dir)) {
+            bytes = files.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+        }
+        System.out.printf("samples       %d (%d vehicles x %d days)%n", samples, vehicles, days);
+        System.out.printf("ingest        %.0f samples/s%n", samples / ingestSeconds);
+        System.out.printf("on disk       %d bytes, %.2f bytes/sample (raw: 32)%n", bytes, bytes / (double) samples);
+
+        // Warm up the decoder before timing
+        for (int i = 0; i < 5; i++) archive.scan("BENCH-0", start, end);
+
+        long[] weekMicros = new long[20];
+        int weekCount = 0;
+        for (int i = 0; i < weekMicros.length; i++) {
+            long t0 = System.nanoTime();
+            weekCount = archive.scan("BENCH-" + (i % vehicles), start, end).size;
+            weekMicros[i] = (System.nanoTime() - t0) / 1000;
+        }
+        long[] hourMicros = new long[200];
+        for (int i = 0; i < hourMicros.length; i++) {
+            long from = start + (long) (rnd.nextDouble() * (end - start - 3_600_000));
+            long t0 = System.nanoTime();
+            archive.scan("BENCH-" + (i % vehicles), from, from + 3_600_000);
+            hourMicros[i] = (System.nanoTime() - t0) / 1000;
+        }
+        Arrays.sort(weekMicros);
+        Arrays.sort(hourMicros);
+        System.out.printf("week scan     %d samples, median %.2f ms, max %.2f ms%n",
+                weekCount, weekMicros[weekMicros.length / 2] / 1000.0, weekMicros[weekMicros.length - 1] / 1000.0);
+        System.out.printf("hour scan     median %.3f ms, max %.3f ms%n",
+                hourMicros[hourMicros.length / 2] / 1000.0, hourMicros[hourMicros.length - 1] / 1000.0);
+
+        // Spot-check precision against what was written
+        TelemetryArchiveService.Samples s = archive.scan("BENCH-0", start, start + 60_000);
+        System.out.printf("first sample  t=%d lat=%.7f lng=%.7f battery=%.4f%n",
+                s.timestamps[0], s.latitude[0], s.longitude[0], s.batteryLevel[0]);
+
+        try (var files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
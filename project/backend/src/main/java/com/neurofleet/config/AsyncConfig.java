@@ -0,0 +1,35 @@
+package com.neurofleet.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Async request timeouts. CompletableFuture handlers keep the short global
+ * spring.mvc.async.request-timeout. Streamed bodies (StreamingResponseBody, the only
+ * Callable-based async work here: exports and paged lists) can run for minutes, so their
+ * own async phase gets {@code app.streaming.timeout-ms} instead. SSE emitters set theirs.
+ */
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    @Value("${app.streaming.timeout-ms:1800000}")
+    private long streamingTimeoutMillis;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                // Runs before the async context starts, so the timeout applies to this body only
+                if (request instanceof AsyncWebRequest async) async.setTimeout(streamingTimeoutMillis);
+            }
+        });
+    }
+}
@@ -3,6 +3,8 @@ package com.neurofleet.config;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,6 +16,8 @@ import java.io.IOException;
 @Configuration
 public class FirebaseConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(FirebaseConfig.class);
+
     @Value("${app.firebase.credentials}")
     private String credentialsPath;
 
@@ -21,7 +25,7 @@ public class FirebaseConfig {
     public String firebaseInitializer() throws IOException {
         // Allow app to start even if Firebase credentials are missing in local dev
         if (credentialsPath == null || credentialsPath.isBlank() || !new java.io.File(credentialsPath).exists()) {
-            System.out.println("[FirebaseConfig] Credentials file not found at '" + credentialsPath + "'. Skipping Firebase initialization for local dev.");
+            log.warn("firebase.credentials-missing path={} skipping Firebase initialization for local dev", credentialsPath);
             return "firebase-not-initialized";
         }
         try (FileInputStream serviceAccount = new FileInputStream(credentialsPath)) {
@@ -32,7 +36,7 @@ public class FirebaseConfig {
             if (FirebaseApp.getApps().isEmpty()) {
                 FirebaseApp.initializeApp(options);
             }
-            System.out.println("[FirebaseConfig] Firebase initialized with database URL.");
+            log.info("firebase.initialized");
             return "firebase-initialized";
         }
     }
@@ -5,6 +5,8 @@ import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.FirestoreOptions;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.cloud.FirestoreClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.DependsOn;
@@ -12,6 +14,8 @@ import org.springframework.context.annotation.DependsOn;
 @Configuration
 public class FirestoreConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(FirestoreConfig.class);
+
     @Bean
     @DependsOn("firebaseInitializer")
     public Firestore firestore() {
@@ -27,7 +31,7 @@ public class FirestoreConfig {
                 return options.getService();
             }
         } catch (Exception e) {
-            System.out.println("[FirestoreConfig] Warning: Could not initialize Firestore. Using mock configuration for development.");
+            log.warn("firestore.init-failed using mock configuration for development error={}", e.getMessage());
             // Return null for development - controllers should handle this gracefully
             return null;
         }
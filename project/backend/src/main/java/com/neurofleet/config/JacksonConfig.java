@@ -0,0 +1,16 @@
+package com.neurofleet.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.neurofleet.model.ModelJsonModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    // Spring Boot adds every Module bean to the ObjectMapper it builds for MVC and for injection
+    @Bean
+    public Module modelJsonModule() {
+        return new ModelJsonModule();
+    }
+}
@@ -0,0 +1,24 @@
+package com.neurofleet.controller;
+
+import com.neurofleet.security.AdmissionControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admission")
+public class AdmissionController {
+
+    private final AdmissionControl admission;
+
+    public AdmissionController(AdmissionControl admission) {
+        this.admission = admission;
+    }
+
+    // Counters, the current adaptive concurrency limit and the last observed p99
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(admission.stats());
+    }
+}
@@ -0,0 +1,68 @@
+package com.neurofleet.controller;
+
+import com.neurofleet.service.TelemetryArchiveService;
+import com.neurofleet.util.TimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/archive")
+public class ArchiveController {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveController.class);
+
+    private static final long MAX_RANGE_MILLIS = TimeUnit.DAYS.toMillis(31);
+
+    private final TelemetryArchiveService archive;
+
+    public ArchiveController(TelemetryArchiveService archive) {
+        this.archive = archive;
+    }
+
+    // from/to are ISO-8601 instants or epoch millis; defaults to the last 24 hours
+    @GetMapping("/vehicles/{id}")
+    public ResponseEntity<Map<String, Object>> getVehicleHistory(
+        @PathVariable String id,
+        @RequestParam(required = false) String from,
+        @RequestParam(required = false) String to
+    ) {
+        long toMillis;
+        long fromMillis;
+        try {
+            toMillis = to != null ? TimeUtils.parseInstant(to) : System.currentTimeMillis();
+            fromMillis = from != null ? TimeUtils.parseInstant(from) : toMillis - TimeUnit.DAYS.toMillis(1);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "from and to must be ISO-8601 instants or epoch milliseconds"));
+        }
+        if (toMillis <= fromMillis || toMillis - fromMillis > MAX_RANGE_MILLIS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Range must be positive and at most 31 days"));
+        }
+
+        long started = System.nanoTime();
+        try {
+            TelemetryArchiveService.Samples samples = archive.scan(id, fromMillis, toMillis);
+            Map<String, Object> m = samples.toPayload();
+            m.put("from", Instant.ofEpochMilli(fromMillis).toString());
+            m.put("to", Instant.ofEpochMilli(toMillis).toString());
+            m.put("chunksRead", samples.chunksRead);
+            m.put("scanMillis", Math.round((System.nanoTime() - started) / 1e4) / 100.0);
+            return ResponseEntity.ok(m);
+        } catch (IOException e) {
+            log.warn("archive.scan-failed vehicle={} error={}", id, e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to read telemetry archive"));
+        }
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(archive.stats());
+    }
+}
@@ -3,7 +3,11 @@ package com.neurofleet.controller;
 import com.google.cloud.firestore.Firestore;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.UserRecord;
+import com.neurofleet.security.VerifiedTokenCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -13,10 +17,14 @@ import java.util.Map;
 @RequestMapping("/api/auth")
 public class AuthController {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+
     private final Firestore db;
+    private final VerifiedTokenCache tokenCache;
 
-    public AuthController(Firestore db) {
+    public AuthController(Firestore db, VerifiedTokenCache tokenCache) {
         this.db = db;
+        this.tokenCache = tokenCache;
     }
 
     @PostMapping("/register")
@@ -39,9 +47,9 @@ public class AuthController {
                 initialProfile.put("createdAt", System.currentTimeMillis());
                 
                 db.collection("users").document(userRecord.getUid()).set(initialProfile).get();
-                System.out.println("[AuthController] Created user profile document for: " + userRecord.getUid());
+                log.info("auth.profile-created uid={}", userRecord.getUid());
             } catch (Exception e) {
-                System.err.println("[AuthController] Failed to create user profile document: " + e.getMessage());
+                log.error("auth.profile-create-failed uid={} error={}", userRecord.getUid(), e.getMessage());
             }
         }
         
@@ -65,6 +73,34 @@ public class AuthController {
         return ResponseEntity.ok(Map.of("uid", auth.getName()));
     }
 
+    /**
+     * Signs the caller out everywhere: Firebase stops issuing tokens from their refresh tokens,
+     * and ID tokens they already hold stop being accepted here at once instead of when they
+     * expire. Admins may pass {@code uid} to do this for another user.
+     */
+    @PostMapping("/revoke")
+    public ResponseEntity<?> revoke(@RequestBody(required = false) Map<String, String> body) throws Exception {
+        var auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+        // /api/auth/** is permitAll, so without a token this is an anonymous token that still reports itself authenticated
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return ResponseEntity.status(401).body(Map.of("error","Unauthorized"));
+        }
+        String uid = auth.getName();
+        if (body != null && body.get("uid") != null && !body.get("uid").equals(uid)) {
+            boolean admin = auth.getAuthorities().stream().anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+            if (!admin) return ResponseEntity.status(403).body(Map.of("error","Only admins can revoke other users' sessions."));
+            uid = body.get("uid");
+        }
+        FirebaseAuth.getInstance().revokeRefreshTokens(uid);
+        tokenCache.revokeUser(uid);
+        return ResponseEntity.ok(Map.of("message","Sessions revoked.","uid", uid));
+    }
+
+    @GetMapping("/token-cache")
+    public ResponseEntity<?> tokenCacheStats() {
+        return ResponseEntity.ok(tokenCache.stats());
+    }
+
     @GetMapping("/health")
     public ResponseEntity<?> health() {
         return ResponseEntity.ok(Map.of(
@@ -1,14 +1,26 @@
 package com.neurofleet.controller;
 
-import com.google.api.core.ApiFuture;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
+import com.neurofleet.model.Booking;
+import com.neurofleet.service.BookingIndexService;
+import com.neurofleet.service.DashboardPushService;
+import com.neurofleet.service.HeatmapService;
+import com.neurofleet.service.HistoryWriterService;
+import com.neurofleet.service.NotificationService;
+import com.neurofleet.service.QuoteService;
+import com.neurofleet.util.FirestoreFutures;
+import com.neurofleet.util.FirestorePager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 
@@ -16,350 +28,381 @@ import java.util.concurrent.CompletableFuture;
 @RequestMapping("/api/bookings")
 public class BookingController {
 
+    private static final Logger log = LoggerFactory.getLogger(BookingController.class);
+
     private final Firestore db;
-    
-    @Autowired(required = false)
-    private JavaMailSender emailSender;
+    private final QuoteService quotes;
+    private final HeatmapService heatmap;
+    private final HistoryWriterService history;
+    private final NotificationService notifications;
+    private final ObjectMapper mapper;
+    private final BookingIndexService bookingIndex;
+    private final DashboardPushService push;
 
-    public BookingController(Firestore db) {
+    public BookingController(Firestore db, QuoteService quotes, HeatmapService heatmap, HistoryWriterService history,
+                             NotificationService notifications, ObjectMapper mapper,
+                             @Autowired(required = false) BookingIndexService bookingIndex, DashboardPushService push) {
         this.db = db;
-    }
-
-    // Add email service method with actual email sending
-    private void sendEmailNotification(String to, String subject, String body) {
-        // Check if we have email configuration and sender
-        String host = System.getenv("SMTP_HOST");
-        
-        // If we have email configuration and sender, send actual email
-        if (host != null && !host.isEmpty() && emailSender != null) {
-            try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setTo(to);
-                message.setSubject(subject);
-                message.setText(body);
-                emailSender.send(message);
-                System.out.println("Email sent successfully to: " + to);
-            } catch (Exception e) {
-                System.err.println("Failed to send email: " + e.getMessage());
-                e.printStackTrace();
-            }
-        } else {
-            // Log to console (development mode)
-            System.out.println("=== EMAIL NOTIFICATION ===");
-            System.out.println("To: " + to);
-            System.out.println("Subject: " + subject);
-            System.out.println("Body: " + body);
-            System.out.println("=========================");
-            if (host == null || host.isEmpty()) {
-                System.out.println("NOTE: Email configuration not found. Set SMTP_HOST, SMTP_PORT, SMTP_USERNAME, and SMTP_PASSWORD environment variables to enable actual email sending.");
-            } else if (emailSender == null) {
-                System.out.println("NOTE: Email sender not configured. Make sure spring-boot-starter-mail is in dependencies and mail properties are set.");
-            }
-        }
+        this.quotes = quotes;
+        this.heatmap = heatmap;
+        this.history = history;
+        this.notifications = notifications;
+        this.mapper = mapper;
+        this.bookingIndex = bookingIndex;
+        this.push = push;
     }
 
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getBookings() throws Exception {
+    public CompletableFuture<ResponseEntity<?>> getBookings(@RequestParam(required = false) Integer pageSize,
+                                                            @RequestParam(required = false) String pageToken,
+                                                            @RequestParam(required = false) String fields) {
         if (db == null) {
             // Return mock data for development
-            return ResponseEntity.ok(List.of(
+            return CompletableFuture.completedFuture(ResponseEntity.ok(List.of(
                 Map.of("id", "booking-1", "customerEmail", "customer@example.com", "vehicleType", "economy", "status", "confirmed"),
                 Map.of("id", "booking-2", "customerEmail", "customer2@example.com", "vehicleType", "premium", "status", "pending")
-            ));
+            )));
         }
         
-        ApiFuture<QuerySnapshot> future = db.collection("bookings").get();
-        List<QueryDocumentSnapshot> docs = future.get().getDocuments();
-        List<Map<String, Object>> list = new ArrayList<>();
-        for (QueryDocumentSnapshot d : docs) {
-            Map<String, Object> m = d.getData();
-            m.put("id", d.getId());
-            list.add(m);
-        }
-        return ResponseEntity.ok(list);
+        return streamPage(db.collection("bookings"), Query.Direction.ASCENDING, pageSize, pageToken, fields);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getBooking(@PathVariable String id) throws Exception {
+    public CompletableFuture<ResponseEntity<?>> getBooking(@PathVariable String id) {
         if (db == null) {
-            return ResponseEntity.ok(Map.of("id", id, "status", "pending"));
+            return CompletableFuture.completedFuture(ResponseEntity.ok(Map.of("id", id, "status", "pending")));
         }
         
-        DocumentSnapshot doc = db.collection("bookings").document(id).get().get();
-        if (!doc.exists()) return ResponseEntity.notFound().build();
-        Map<String, Object> m = doc.getData();
-        m.put("id", doc.getId());
-        return ResponseEntity.ok(m);
+        return FirestoreFutures.toCompletable(db.collection("bookings").document(id).get()).thenApply(doc -> {
+            if (!doc.exists()) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(Booking.from(doc));
+        });
     }
 
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createBooking(@RequestBody Map<String, Object> body) throws Exception {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> createBooking(@RequestBody Map<String, Object> body) {
+        // Price on the server instead of trusting the estimatedCost posted by the client
+        try {
+            quotes.applyToBooking(body);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        }
+        heatmap.recordPickup(body, System.currentTimeMillis());
+        
         if (db == null) {
             // Mock response for development
             body.put("id", "booking-" + System.currentTimeMillis());
             body.put("status", "pending");
             body.put("createdAt", new Date());
-            return ResponseEntity.status(201).body(body);
+            return CompletableFuture.completedFuture(ResponseEntity.status(201).body(body));
         }
         
         DocumentReference ref = db.collection("bookings").document();
         body.put("createdAt", new Date());
         body.put("status", "pending");
-        ref.set(body).get();
-        
-        // Add to booking history
-        appendBookingHistory(ref.getId(), "created", body);
-        
-        // Send confirmation email
-        String customerEmail = (String) body.get("customerEmail");
-        if (customerEmail != null && !customerEmail.isEmpty()) {
-            String subject = "Booking Confirmation - NeuroFleetX";
-            String messageBody = String.format(
-                "Dear Customer,\n\n" +
-                "Your booking has been confirmed!\n\n" +
-                "Booking ID: %s\n" +
-                "Vehicle Type: %s\n" +
-                "Pickup Location: %s\n" +
-                "Dropoff Location: %s\n" +
-                "Pickup Date: %s\n" +
-                "Pickup Time: %s\n" +
-                "Estimated Cost: ₹%.2f\n\n" +
-                "We'll notify you when your vehicle is on the way.\n\n" +
-                "Thank you for choosing NeuroFleetX!",
-                ref.getId(),
-                body.get("vehicleType"),
-                body.get("pickupLocation"),
-                body.get("dropoffLocation"),
-                body.get("pickupDate"),
-                body.get("pickupTime"),
-                ((Number) body.getOrDefault("estimatedCost", 0)).doubleValue()
-            );
-            sendEmailNotification(customerEmail, subject, messageBody);
-        }
-        
-        return ResponseEntity.status(201).body(withId(ref.getId(), body));
+        return FirestoreFutures.toCompletable(ref.set(body)).thenApply(written -> {
+            if (bookingIndex != null) bookingIndex.put(ref.getId(), body);
+            // Add to booking history
+            appendBookingHistory(ref.getId(), "created", body);
+            
+            // Send confirmation email
+            Map<String, Object> vars = new HashMap<>(body);
+            vars.put("bookingId", ref.getId());
+            vars.put("estimatedCost", BigDecimal.valueOf(((Number) body.getOrDefault("estimatedCost", 0)).doubleValue())
+                    .setScale(2, RoundingMode.HALF_UP).toPlainString());
+            notifications.send((String) body.get("customerEmail"), "booking-confirmed", vars);
+            
+            return ResponseEntity.status(201).body(withId(ref.getId(), body));
+        });
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> updateBooking(@PathVariable String id, @RequestBody Map<String, Object> update) throws Exception {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> updateBooking(@PathVariable String id, @RequestBody Map<String, Object> update) {
+        // The price is the server's, as on create: a client can't set it, and changing what it depends on re-prices
+        QuoteService.QUOTED_FIELDS.forEach(update::remove);
+        update.remove("clientEstimatedCost");
+        boolean reprice = QuoteService.PRICING_INPUTS.stream().anyMatch(update::containsKey);
+
         if (db == null) {
             update.put("id", id);
-            return ResponseEntity.ok(update);
+            return CompletableFuture.completedFuture(ResponseEntity.ok(update));
         }
         
-        // Get current booking data for email notification
-        DocumentSnapshot currentDoc = db.collection("bookings").document(id).get().get();
-        Map<String, Object> currentData = currentDoc.exists() ? currentDoc.getData() : new HashMap<>();
-        
-        db.collection("bookings").document(id).set(update, SetOptions.merge()).get();
+        DocumentReference ref = db.collection("bookings").document(id);
+        CompletableFuture<DocumentSnapshot> current = FirestoreFutures.toCompletable(ref.get());
+        if (!reprice) {
+            // The read only feeds the notification email, so it runs alongside the write
+            CompletableFuture<WriteResult> written = FirestoreFutures.toCompletable(ref.set(update, SetOptions.merge()));
+            return written.thenCombine(current, (w, currentDoc) -> updated(id, update, currentDoc));
+        }
+
+        // The new quote needs the stored booking, so here the write waits for the read
+        return current.thenCompose(currentDoc -> {
+            Map<String, Object> merged = currentDoc.exists() ? new HashMap<>(currentDoc.getData()) : new HashMap<>();
+            merged.putAll(update);
+            // The stored estimatedCost is the old quote, not a client estimate to keep
+            merged.remove("estimatedCost");
+            try {
+                quotes.applyToBooking(merged);
+            } catch (IllegalArgumentException e) {
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.<String, Object>of("error", e.getMessage())));
+            }
+            for (String f : QuoteService.QUOTED_FIELDS) update.put(f, merged.get(f));
+            return FirestoreFutures.toCompletable(ref.set(update, SetOptions.merge()))
+                    .thenApply(w -> updated(id, update, currentDoc));
+        });
+    }
+
+    // What follows a successful update: index, history, push and the notification email
+    private ResponseEntity<Map<String, Object>> updated(String id, Map<String, Object> update, DocumentSnapshot currentDoc) {
+        if (bookingIndex != null) bookingIndex.merge(id, update);
         appendBookingHistory(id, "updated", update);
         
         // Send update notification email
-        String customerEmail = (String) currentData.get("customerEmail");
+        Map<String, Object> currentData = currentDoc.exists() ? currentDoc.getData() : new HashMap<>();
         String status = (String) update.get("status");
-        if (customerEmail != null && !customerEmail.isEmpty() && status != null) {
-            String subject = "Booking Update - NeuroFleetX";
-            String messageBody = String.format(
-                "Dear Customer,\n\n" +
-                "Your booking status has been updated.\n\n" +
-                "Booking ID: %s\n" +
-                "New Status: %s\n\n" +
-                "Thank you for choosing NeuroFleetX!",
-                id,
-                status
-            );
-            sendEmailNotification(customerEmail, subject, messageBody);
+        if (status != null) {
+            push.publishBooking(id, "status_changed", Map.of("status", status));
+            notifications.send((String) currentData.get("customerEmail"), "booking-updated", Map.of("bookingId", id, "status", status));
         }
         
         return ResponseEntity.ok(withId(id, update));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, String>> deleteBooking(@PathVariable String id) throws Exception {
+    public CompletableFuture<ResponseEntity<Map<String, String>>> deleteBooking(@PathVariable String id) {
         if (db == null) {
-            return ResponseEntity.ok(Map.of("message", "Booking cancelled successfully"));
-        }
-        
-        // Get current booking data for email notification
-        DocumentSnapshot currentDoc = db.collection("bookings").document(id).get().get();
-        Map<String, Object> currentData = currentDoc.exists() ? currentDoc.getData() : new HashMap<>();
-        
-        db.collection("bookings").document(id).delete().get();
-        appendBookingHistory(id, "cancelled", Map.of());
-        
-        // Send cancellation notification email
-        String customerEmail = (String) currentData.get("customerEmail");
-        if (customerEmail != null && !customerEmail.isEmpty()) {
-            String subject = "Booking Cancellation - NeuroFleetX";
-            String messageBody = String.format(
-                "Dear Customer,\n\n" +
-                "Your booking has been cancelled successfully.\n\n" +
-                "Booking ID: %s\n" +
-                "Vehicle Type: %s\n" +
-                "Pickup Location: %s\n" +
-                "Dropoff Location: %s\n\n" +
-                "If you have any questions, please contact our support team.\n\n" +
-                "Thank you for choosing NeuroFleetX!",
-                id,
-                currentData.get("vehicleType"),
-                currentData.get("pickupLocation"),
-                currentData.get("dropoffLocation")
-            );
-            sendEmailNotification(customerEmail, subject, messageBody);
+            return CompletableFuture.completedFuture(ResponseEntity.ok(Map.of("message", "Booking cancelled successfully")));
         }
         
-        return ResponseEntity.ok(Map.of("message", "Booking cancelled successfully"));
+        // Read before deleting so the cancellation email still has the booking details
+        DocumentReference ref = db.collection("bookings").document(id);
+        return FirestoreFutures.toCompletable(ref.get()).thenCompose(currentDoc -> {
+            Map<String, Object> currentData = currentDoc.exists() ? currentDoc.getData() : new HashMap<>();
+            return FirestoreFutures.toCompletable(ref.delete()).thenApply(written -> {
+                if (bookingIndex != null) bookingIndex.remove(id);
+                appendBookingHistory(id, "cancelled", Map.of());
+                push.publishBooking(id, "cancelled", Map.of("status", "cancelled"));
+                
+                // Send cancellation notification email
+                Map<String, Object> vars = new HashMap<>(currentData);
+                vars.put("bookingId", id);
+                notifications.send((String) currentData.get("customerEmail"), "booking-cancelled", vars);
+                
+                return ResponseEntity.ok(Map.of("message", "Booking cancelled successfully"));
+            });
+        });
     }
 
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<Map<String, Object>>> getCustomerBookings(@PathVariable String customerId) throws Exception {
+    public CompletableFuture<ResponseEntity<?>> getCustomerBookings(@PathVariable String customerId,
+                                                                    @RequestParam(required = false) Integer pageSize,
+                                                                    @RequestParam(required = false) String pageToken,
+                                                                    @RequestParam(required = false) String fields) {
         if (db == null) {
-            return ResponseEntity.ok(List.of(
+            return CompletableFuture.completedFuture(ResponseEntity.ok(List.of(
                 Map.of("id", "booking-1", "customerId", customerId, "status", "confirmed"),
                 Map.of("id", "booking-2", "customerId", customerId, "status", "completed")
-            ));
+            )));
         }
         
-        ApiFuture<QuerySnapshot> future = db.collection("bookings")
-                .whereEqualTo("customerId", customerId)
-                .orderBy("createdAt", Query.Direction.DESCENDING)
-                .get();
-        List<QueryDocumentSnapshot> docs = future.get().getDocuments();
-        List<Map<String, Object>> list = new ArrayList<>();
-        for (QueryDocumentSnapshot d : docs) {
-            Map<String, Object> m = d.getData();
-            m.put("id", d.getId());
-            list.add(m);
+        if (bookingIndex != null && bookingIndex.isServing()) {
+            return indexedBookings(customerId, pageSize, pageToken, fields);
+        }
+        return streamPage(db.collection("bookings").whereEqualTo("customerId", customerId),
+                Query.Direction.DESCENDING, pageSize, pageToken, fields, "createdAt");
+    }
+
+    // Streams the query in keyset-paginated chunks; see FirestorePager for the response shapes
+    private CompletableFuture<ResponseEntity<?>> streamPage(Query query, Query.Direction direction, Integer pageSize,
+                                                           String pageToken, String fields, String... orderFields) {
+        Set<String> projection;
+        try {
+            projection = FirestorePager.parseFields(fields);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        }
+        return new FirestorePager(query, projection, direction, orderFields)
+                .respond(pageSize, pageToken, mapper)
+                .exceptionally(e -> ResponseEntity.status(500).body(Map.of("error", FirestoreFutures.unwrap(e).getMessage())));
+    }
+
+    /**
+     * A customer's bookings resolved through the in-memory index: one batched read of just
+     * the page's documents. Takes the same parameters and page tokens as the Firestore path.
+     */
+    private CompletableFuture<ResponseEntity<?>> indexedBookings(String customerId, Integer pageSize, String pageToken, String fields) {
+        Set<String> projection;
+        Object[] after = null;
+        try {
+            projection = FirestorePager.parseFields(fields);
+            if (pageToken != null && !pageToken.isEmpty()) {
+                after = FirestorePager.decodeToken(pageToken);
+                if (after.length != 2 || !(after[0] instanceof Timestamp) || !(after[1] instanceof String)) {
+                    throw new IllegalArgumentException("Invalid pageToken");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        }
+        boolean paged = pageSize != null || after != null;
+        int limit = paged ? FirestorePager.clampPageSize(pageSize) : FirestorePager.MAX_UNPAGED;
+
+        List<BookingIndexService.Entry> entries = bookingIndex.bookingsFor(customerId,
+                after != null ? (Timestamp) after[0] : null, after != null ? (String) after[1] : null,
+                limit + 1);
+        boolean more = entries.size() > limit;
+        List<BookingIndexService.Entry> pageEntries = more ? entries.subList(0, limit) : entries;
+        if (pageEntries.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(paged ? pageOf(List.of(), null) : List.of()));
+        }
+
+        DocumentReference[] refs = new DocumentReference[pageEntries.size()];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = db.collection("bookings").document(pageEntries.get(i).id);
         }
-        return ResponseEntity.ok(list);
+        return FirestoreFutures.toCompletable(db.getAll(refs)).<ResponseEntity<?>>thenApply(docs -> {
+            // getAll keeps the order of refs, so the index's newest-first order carries over
+            List<Object> list = new ArrayList<>(docs.size());
+            for (DocumentSnapshot d : docs) {
+                if (!d.exists()) continue;
+                if (projection == null) {
+                    list.add(Booking.from(d));
+                    continue;
+                }
+                Map<String, Object> data = d.getData();
+                Map<String, Object> m = new HashMap<>();
+                for (String f : projection) {
+                    if (data.containsKey(f)) m.put(f, data.get(f));
+                }
+                m.put("id", d.getId());
+                list.add(m);
+            }
+            if (!paged) {
+                if (!more) return ResponseEntity.ok(list);
+                return ResponseEntity.ok()
+                        .header(FirestorePager.RESULT_TRUNCATED_HEADER, "true")
+                        .header(FirestorePager.RESULT_LIMIT_HEADER, String.valueOf(limit))
+                        .body(list);
+            }
+            BookingIndexService.Entry last = pageEntries.get(pageEntries.size() - 1);
+            return ResponseEntity.ok(pageOf(list, more ? FirestorePager.encodeToken(new Object[]{last.createdAt, last.id}) : null));
+        }).exceptionally(e -> ResponseEntity.status(500).body(Map.of("error", FirestoreFutures.unwrap(e).getMessage())));
+    }
+
+    private static Map<String, Object> pageOf(List<?> items, String nextPageToken) {
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", items);
+        page.put("nextPageToken", nextPageToken);
+        return page;
     }
 
     // New endpoint to get bookings for the current authenticated user
     @GetMapping("/user")
-    public ResponseEntity<?> getUserBookings(Authentication authentication) throws Exception {
-        System.out.println("getUserBookings called with authentication: " + authentication);
-        
+    public CompletableFuture<ResponseEntity<?>> getUserBookings(Authentication authentication) {
         if (authentication == null) {
-            System.out.println("Authentication is null, returning 401");
-            return ResponseEntity.status(401).build();
+            log.debug("booking.user-list rejected reason=unauthenticated");
+            return CompletableFuture.completedFuture(ResponseEntity.status(401).build());
         }
         
         String userId = authentication.getName();
-        System.out.println("Authenticated user ID: " + userId);
-        
-        // Log additional debugging information
-        System.out.println("Database connection status: " + (db != null ? "Connected" : "Not connected"));
-        if (db != null) {
-            System.out.println("Attempting to fetch bookings for user: " + userId);
-        }
-        
+        log.debug("booking.user-list uid={} db={}", userId, db != null);
+
         if (db == null) {
-            System.out.println("Database is null, returning mock data");
-            return ResponseEntity.ok(List.of(
+            return CompletableFuture.completedFuture(ResponseEntity.ok(List.of(
                 Map.of("id", "booking-1", "customerId", userId, "vehicleType", "economy", "status", "confirmed", "pickupLocation", "Downtown", "dropoffLocation", "Airport"),
                 Map.of("id", "booking-2", "customerId", userId, "vehicleType", "suv", "status", "pending", "pickupLocation", "Mall", "dropoffLocation", "University")
-            ));
+            )));
         }
         
-        try {
-            System.out.println("Fetching bookings for user: " + userId);
-            // First try the optimized query with index
-            ApiFuture<QuerySnapshot> future = db.collection("bookings")
-                    .whereEqualTo("customerId", userId)
-                    .orderBy("createdAt", Query.Direction.DESCENDING)
-                    .get();
-            List<QueryDocumentSnapshot> docs = future.get().getDocuments();
-            List<Map<String, Object>> list = new ArrayList<>();
-            for (QueryDocumentSnapshot d : docs) {
-                Map<String, Object> m = d.getData();
-                m.put("id", d.getId());
-                list.add(m);
-            }
-            System.out.println("Found " + list.size() + " bookings for user: " + userId);
+        // The per-customer index avoids both the composite index and the full-collection fallback
+        if (bookingIndex != null && bookingIndex.isServing()) {
+            return indexedBookings(userId, null, null, null);
+        }
+        // First try the optimized query with index
+        CompletableFuture<ResponseEntity<?>> primary = FirestoreFutures.toCompletable(db.collection("bookings")
+                .whereEqualTo("customerId", userId)
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .get()).thenApply(snap -> {
+            List<Booking> list = toBookings(snap);
+            log.debug("booking.user-list uid={} found={}", userId, list.size());
             return ResponseEntity.ok(list);
-        } catch (Exception e) {
-            System.err.println("Error fetching bookings for user " + userId + ": " + e.getMessage());
-            e.printStackTrace();
+        });
+        
+        return primary.exceptionallyCompose(failure -> {
+            Throwable e = FirestoreFutures.unwrap(failure);
+            log.warn("booking.user-list uid={} failed error={}", userId, e.getMessage());
             
-            // Check if it's a Firebase index error
-            if (e.getMessage() != null && e.getMessage().contains("index")) {
-                System.out.println("Attempting fallback query without composite index...");
-                try {
-                    // Fallback: fetch all bookings and filter on the server side
-                    ApiFuture<QuerySnapshot> future = db.collection("bookings")
-                            .orderBy("createdAt", Query.Direction.DESCENDING)
-                            .get();
-                    List<QueryDocumentSnapshot> docs = future.get().getDocuments();
-                    List<Map<String, Object>> list = new ArrayList<>();
-                    for (QueryDocumentSnapshot d : docs) {
-                        Map<String, Object> m = d.getData();
-                        // Filter by customerId on the server side
-                        if (userId.equals(m.get("customerId"))) {
-                            m.put("id", d.getId());
-                            list.add(m);
-                        }
+            // Return empty list instead of error to prevent UI issues
+            if (e.getMessage() == null || !e.getMessage().contains("index")) {
+                return CompletableFuture.completedFuture(ResponseEntity.ok(new ArrayList<>()));
+            }
+            
+            // Firebase index error
+            log.info("booking.user-list uid={} fallback=full-scan reason=missing-index", userId);
+            // Fallback: fetch all bookings and filter on the server side
+            CompletableFuture<ResponseEntity<?>> fallback = FirestoreFutures.toCompletable(db.collection("bookings")
+                    .orderBy("createdAt", Query.Direction.DESCENDING)
+                    .get()).thenApply(snap -> {
+                List<Booking> list = new ArrayList<>();
+                for (QueryDocumentSnapshot d : snap.getDocuments()) {
+                    Map<String, Object> m = d.getData();
+                    // Filter by customerId on the server side
+                    if (userId.equals(m.get("customerId"))) {
+                        list.add(Booking.from(d.getId(), m));
                     }
-                    System.out.println("Found " + list.size() + " bookings for user (fallback query): " + userId);
-                    return ResponseEntity.ok(list);
-                } catch (Exception fallbackException) {
-                    System.err.println("Fallback query also failed: " + fallbackException.getMessage());
-                    fallbackException.printStackTrace();
                 }
+                log.debug("booking.user-list uid={} found={} fallback=full-scan", userId, list.size());
+                return ResponseEntity.ok(list);
+            });
+            return fallback.exceptionally(fallbackFailure -> {
+                Throwable fallbackException = FirestoreFutures.unwrap(fallbackFailure);
+                log.error("booking.user-list uid={} fallback failed", userId, fallbackException);
                 
                 String errorMessage = "Firebase index required for this query. Please create a composite index in the Firebase Console with these fields: " +
                     "customerId (equality) and createdAt (descending). " +
                     "Visit: https://console.firebase.google.com/project/neurofleetx-project/firestore/indexes";
-                System.err.println(errorMessage);
+                log.error(errorMessage);
                 return ResponseEntity.status(500).body(Map.of("error", errorMessage));
-            }
-            
-            // Return empty list instead of error to prevent UI issues
-            return ResponseEntity.ok(new ArrayList<>());
-        }
+            });
+        });
     }
 
     @PatchMapping("/{id}/status")
-    public ResponseEntity<Map<String, Object>> updateBookingStatus(@PathVariable String id, @RequestBody Map<String, Object> body) throws Exception {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> updateBookingStatus(@PathVariable String id, @RequestBody Map<String, Object> body) {
         String status = Objects.toString(body.get("status"), "pending");
         
         if (db == null) {
-            return ResponseEntity.ok(Map.of("id", id, "status", status));
+            push.publishBooking(id, "status_changed", Map.of("status", status));
+            return CompletableFuture.completedFuture(ResponseEntity.ok(Map.of("id", id, "status", status)));
         }
         
-        // Get current booking data for email notification
-        DocumentSnapshot currentDoc = db.collection("bookings").document(id).get().get();
-        Map<String, Object> currentData = currentDoc.exists() ? currentDoc.getData() : new HashMap<>();
-        
-        db.collection("bookings").document(id).set(Map.of("status", status, "updatedAt", new Date()), SetOptions.merge()).get();
-        appendBookingHistory(id, "status_changed", Map.of("newStatus", status));
-        
-        // Send status update notification email
-        String customerEmail = (String) currentData.get("customerEmail");
-        if (customerEmail != null && !customerEmail.isEmpty()) {
-            String subject = "Booking Status Update - NeuroFleetX";
-            String messageBody = String.format(
-                "Dear Customer,\n\n" +
-                "Your booking status has been updated.\n\n" +
-                "Booking ID: %s\n" +
-                "New Status: %s\n\n" +
-                "Thank you for choosing NeuroFleetX!",
-                id,
-                status
-            );
-            sendEmailNotification(customerEmail, subject, messageBody);
-        }
+        // The read only feeds the notification email, so it runs alongside the write
+        DocumentReference ref = db.collection("bookings").document(id);
+        CompletableFuture<DocumentSnapshot> current = FirestoreFutures.toCompletable(ref.get());
+        CompletableFuture<WriteResult> written = FirestoreFutures.toCompletable(
+                ref.set(Map.of("status", status, "updatedAt", new Date()), SetOptions.merge()));
         
-        return ResponseEntity.ok(Map.of("id", id, "status", status));
+        return written.thenCombine(current, (w, currentDoc) -> {
+            appendBookingHistory(id, "status_changed", Map.of("newStatus", status));
+            push.publishBooking(id, "status_changed", Map.of("status", status));
+            
+            // Send status update notification email
+            Map<String, Object> currentData = currentDoc.exists() ? currentDoc.getData() : new HashMap<>();
+            notifications.send((String) currentData.get("customerEmail"), "booking-status", Map.of("bookingId", id, "status", status));
+            
+            return ResponseEntity.ok(Map.<String, Object>of("id", id, "status", status));
+        });
     }
 
-    private void appendBookingHistory(String id, String type, Map<String, Object> details) throws Exception {
-        if (db == null) return;
-        
-        db.collection("bookings").document(id).collection("history").add(Map.of(
-                "eventType", type,
-                "details", details,
-                "timestamp", new Date()
-        )).get();
+    private void appendBookingHistory(String id, String type, Map<String, Object> details) {
+        history.append("bookings", id, type, details);
+    }
+
+    private static List<Booking> toBookings(QuerySnapshot snap) {
+        List<Booking> list = new ArrayList<>(snap.size());
+        for (QueryDocumentSnapshot d : snap.getDocuments()) list.add(Booking.from(d));
+        return list;
     }
 
     private Map<String, Object> withId(String id, Map<String, Object> body) {
@@ -0,0 +1,85 @@
+package com.neurofleet.controller;
+
+import com.neurofleet.service.ChargingStationService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/charging")
+public class ChargingController {
+
+    private final ChargingStationService charging;
+
+    public ChargingController(ChargingStationService charging) {
+        this.charging = charging;
+    }
+
+    @GetMapping("/stations")
+    public ResponseEntity<List<Map<String, Object>>> getStations() {
+        return ResponseEntity.ok(charging.getStations());
+    }
+
+    @GetMapping("/stations/{id}")
+    public ResponseEntity<Map<String, Object>> getStation(@PathVariable String id) {
+        Map<String, Object> station = charging.getStation(id);
+        if (station == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(station);
+    }
+
+    // Either pass a vehicleId (position, range and type come from live telemetry) or explicit coordinates
+    @GetMapping("/nearest")
+    public ResponseEntity<Map<String, Object>> getNearestAvailable(
+        @RequestParam(required = false) String vehicleId,
+        @RequestParam(required = false) Double latitude,
+        @RequestParam(required = false) Double longitude,
+        @RequestParam(required = false) Double range,
+        @RequestParam(required = false, defaultValue = "ev") String vehicleType
+    ) {
+        Map<String, Object> station;
+        if (vehicleId != null && !vehicleId.isEmpty()) {
+            station = charging.findNearestAvailableForVehicle(vehicleId);
+        } else if (latitude != null && longitude != null && range != null) {
+            station = charging.findNearestAvailable(latitude, longitude, range, vehicleType);
+        } else {
+            return ResponseEntity.badRequest().body(Map.of("error", "Provide vehicleId or latitude, longitude and range."));
+        }
+        if (station == null) {
+            return ResponseEntity.status(404).body(Map.of("message", "No charger with a free compatible connector within range"));
+        }
+        return ResponseEntity.ok(station);
+    }
+
+    @PostMapping("/stations/{id}/occupy")
+    public ResponseEntity<Map<String, Object>> occupy(@PathVariable String id, @RequestBody Map<String, Object> body) {
+        String vehicleId = Objects.toString(body.get("vehicleId"), null);
+        if (vehicleId == null) return ResponseEntity.badRequest().body(Map.of("error", "vehicleId is required."));
+        Map<String, Object> result = charging.occupy(id, vehicleId, Objects.toString(body.get("vehicleType"), "ev"));
+        if (result == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.status(Boolean.TRUE.equals(result.get("assigned")) ? 200 : 409).body(result);
+    }
+
+    @PostMapping("/release")
+    public ResponseEntity<Map<String, Object>> release(@RequestBody Map<String, Object> body) {
+        String vehicleId = Objects.toString(body.get("vehicleId"), null);
+        if (vehicleId == null) return ResponseEntity.badRequest().body(Map.of("error", "vehicleId is required."));
+        return ResponseEntity.ok(Map.of("vehicleId", vehicleId, "released", charging.releaseVehicle(vehicleId)));
+    }
+
+    @GetMapping("/queue")
+    public ResponseEntity<Map<String, Object>> getQueue() {
+        return ResponseEntity.ok(Map.of(
+            "pending", charging.getQueue(),
+            "assignments", charging.getAssignments()
+        ));
+    }
+
+    @PostMapping("/queue")
+    public ResponseEntity<Map<String, Object>> requestCharge(@RequestBody Map<String, Object> body) {
+        String vehicleId = Objects.toString(body.get("vehicleId"), null);
+        if (vehicleId == null) return ResponseEntity.badRequest().body(Map.of("error", "vehicleId is required."));
+        charging.requestCharge(vehicleId);
+        return ResponseEntity.accepted().body(Map.of("vehicleId", vehicleId, "queued", true));
+    }
+}
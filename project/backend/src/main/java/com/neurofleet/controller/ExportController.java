@@ -0,0 +1,194 @@
+package com.neurofleet.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.neurofleet.service.TelemetryArchiveService;
+import com.neurofleet.util.ExportWriter;
+import com.neurofleet.util.FirestorePager;
+import com.neurofleet.util.TimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bulk exports for finance and ops. Rows are written as they are read, in Firestore chunks or
+ * archive days, so an export of millions of rows never holds more than one chunk in memory.
+ * Responses are gzipped when the client accepts it.
+ */
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportController.class);
+
+    private static final List<String> BOOKING_COLUMNS = List.of("id", "customerId", "customerEmail", "vehicleType", "status",
+            "pickupLocation", "dropoffLocation", "pickupDate", "pickupTime", "estimatedCost", "createdAt");
+    private static final List<String> HISTORY_COLUMNS = List.of("id", "eventType", "timestamp", "details");
+    private static final List<String> TELEMETRY_COLUMNS = List.of("timestamp", "vehicleId", "latitude", "longitude", "batteryLevel");
+    private static final long MAX_TELEMETRY_RANGE_MILLIS = TimeUnit.DAYS.toMillis(366);
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final Firestore db;
+    private final TelemetryArchiveService archive;
+    private final ObjectMapper mapper;
+
+    public ExportController(Firestore db, TelemetryArchiveService archive, ObjectMapper mapper) {
+        this.db = db;
+        this.archive = archive;
+        this.mapper = mapper;
+    }
+
+    @GetMapping("/bookings")
+    public ResponseEntity<?> exportBookings(
+        @RequestParam(required = false, defaultValue = "ndjson") String format,
+        @RequestParam(required = false) String customerId,
+        @RequestParam(required = false) String status,
+        @RequestParam(required = false) String fields,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        if (!ExportWriter.isSupported(format)) return badFormat();
+        Set<String> projection;
+        try {
+            projection = FirestorePager.parseFields(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        List<String> columns = projection != null ? withId(projection) : BOOKING_COLUMNS;
+
+        if (db == null) {
+            // Same mock bookings as GET /api/bookings in development
+            List<Map<String, Object>> mock = List.of(
+                Map.of("id", "booking-1", "customerEmail", "customer@example.com", "vehicleType", "economy", "status", "confirmed"),
+                Map.of("id", "booking-2", "customerEmail", "customer2@example.com", "vehicleType", "premium", "status", "pending")
+            );
+            return stream("bookings", format, columns, acceptEncoding, writer -> {
+                for (Map<String, Object> b : mock) writer.write(b);
+            });
+        }
+
+        Query query = db.collection("bookings");
+        if (customerId != null && !customerId.isEmpty()) query = query.whereEqualTo("customerId", customerId);
+        if (status != null && !status.isEmpty()) query = query.whereEqualTo("status", status);
+        FirestorePager pager = new FirestorePager(query, projection, Query.Direction.ASCENDING);
+        return stream("bookings", format, columns, acceptEncoding, writer -> pager.forEach(flushing(writer)));
+    }
+
+    @GetMapping("/vehicles/{id}/history")
+    public ResponseEntity<?> exportVehicleHistory(
+        @PathVariable String id,
+        @RequestParam(required = false, defaultValue = "ndjson") String format,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        if (!ExportWriter.isSupported(format)) return badFormat();
+        if (db == null) {
+            return stream("vehicle-" + id + "-history", format, HISTORY_COLUMNS, acceptEncoding, writer -> { });
+        }
+        FirestorePager pager = new FirestorePager(db.collection("vehicles").document(id).collection("history"),
+                null, Query.Direction.ASCENDING, "timestamp");
+        return stream("vehicle-" + id + "-history", format, HISTORY_COLUMNS, acceptEncoding, writer -> pager.forEach(flushing(writer)));
+    }
+
+    // from/to are ISO-8601 instants or epoch millis; defaults to the last 7 days
+    @GetMapping("/telemetry/{vehicleId}")
+    public ResponseEntity<?> exportTelemetry(
+        @PathVariable String vehicleId,
+        @RequestParam(required = false, defaultValue = "ndjson") String format,
+        @RequestParam(required = false) String from,
+        @RequestParam(required = false) String to,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        if (!ExportWriter.isSupported(format)) return badFormat();
+        long toMillis;
+        long fromMillis;
+        try {
+            toMillis = to != null ? TimeUtils.parseInstant(to) : System.currentTimeMillis();
+            fromMillis = from != null ? TimeUtils.parseInstant(from) : toMillis - TimeUnit.DAYS.toMillis(7);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "from and to must be ISO-8601 instants or epoch milliseconds"));
+        }
+        if (toMillis <= fromMillis || toMillis - fromMillis > MAX_TELEMETRY_RANGE_MILLIS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Range must be positive and at most 366 days"));
+        }
+
+        return stream("telemetry-" + vehicleId, format, TELEMETRY_COLUMNS, acceptEncoding, writer -> {
+            // One archive day at a time keeps memory bounded for long ranges
+            long day = TimeUnit.DAYS.toMillis(1);
+            Map<String, Object> row = new HashMap<>();
+            row.put("vehicleId", vehicleId);
+            int rows = 0;
+            for (long start = fromMillis; start < toMillis; start = start - Math.floorMod(start, day) + day) {
+                long end = Math.min(toMillis, start - Math.floorMod(start, day) + day);
+                TelemetryArchiveService.Samples s = archive.scan(vehicleId, start, end);
+                for (int i = 0; i < s.size; i++) {
+                    row.put("timestamp", Instant.ofEpochMilli(s.timestamps[i]).toString());
+                    row.put("latitude", s.latitude[i]);
+                    row.put("longitude", s.longitude[i]);
+                    row.put("batteryLevel", Double.isNaN(s.batteryLevel[i]) ? null : s.batteryLevel[i]);
+                    writer.write(row);
+                    if (++rows % FLUSH_EVERY_ROWS == 0) writer.flush();
+                }
+            }
+        });
+    }
+
+    private interface ExportBody {
+        void writeTo(ExportWriter writer) throws IOException;
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String name, String format, List<String> columns,
+                                                         String acceptEncoding, ExportBody body) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        String filename = name + "-" + LocalDate.now(ZoneOffset.UTC) + "." + (ExportWriter.CSV.equals(format) ? "csv" : "ndjson");
+        StreamingResponseBody streaming = out -> {
+            long started = System.currentTimeMillis();
+            // syncFlush so each periodic flush reaches the client instead of sitting in the deflater
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024, true) : out;
+            try (ExportWriter writer = ExportWriter.create(format, columns, target, mapper)) {
+                body.writeTo(writer);
+            }
+            if (gzip) ((GZIPOutputStream) target).finish();
+            log.info("export.done file={} ms={}", filename, System.currentTimeMillis() - started);
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ExportWriter.contentType(format)))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename.replace("\"", "") + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(streaming);
+    }
+
+    private static FirestorePager.DocumentConsumer flushing(ExportWriter writer) {
+        int[] rows = {0};
+        return row -> {
+            writer.write(row);
+            if (++rows[0] % FLUSH_EVERY_ROWS == 0) writer.flush();
+        };
+    }
+
+    private static List<String> withId(Set<String> fields) {
+        List<String> columns = new ArrayList<>();
+        columns.add("id");
+        columns.addAll(fields);
+        return columns;
+    }
+
+    private static ResponseEntity<?> badFormat() {
+        return ResponseEntity.badRequest().body(Map.of("error", "format must be ndjson or csv"));
+    }
+}
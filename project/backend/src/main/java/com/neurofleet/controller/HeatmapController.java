@@ -0,0 +1,46 @@
+package com.neurofleet.controller;
+
+import com.neurofleet.service.HeatmapService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/heatmap")
+public class HeatmapController {
+
+    private final HeatmapService heatmap;
+
+    public HeatmapController(HeatmapService heatmap) {
+        this.heatmap = heatmap;
+    }
+
+    // bbox is minLng,minLat,maxLng,maxLat; resolution 0 (coarsest) to 3; window in minutes
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getHeatmap(
+        @RequestParam(required = false) String bbox,
+        @RequestParam(required = false, defaultValue = "2") int resolution,
+        @RequestParam(required = false, defaultValue = "60") int window
+    ) {
+        double minLng = -180, minLat = -90, maxLng = 180, maxLat = 90;
+        if (bbox != null && !bbox.isEmpty()) {
+            String[] parts = bbox.split(",");
+            if (parts.length != 4) {
+                return ResponseEntity.badRequest().body(Map.of("error", "bbox must be minLng,minLat,maxLng,maxLat"));
+            }
+            try {
+                minLng = Double.parseDouble(parts[0].trim());
+                minLat = Double.parseDouble(parts[1].trim());
+                maxLng = Double.parseDouble(parts[2].trim());
+                maxLat = Double.parseDouble(parts[3].trim());
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "bbox must be minLng,minLat,maxLng,maxLat"));
+            }
+        }
+        if (resolution < 0 || resolution >= HeatmapService.RESOLUTIONS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "resolution must be between 0 and " + (HeatmapService.RESOLUTIONS - 1)));
+        }
+        return ResponseEntity.ok(heatmap.query(minLat, minLng, maxLat, maxLng, resolution, window));
+    }
+}
@@ -1,6 +1,5 @@
 package com.neurofleet.controller;
 
-import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
@@ -8,6 +7,12 @@ import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.QuerySnapshot;
 import com.google.cloud.firestore.SetOptions;
+import com.neurofleet.model.Profile;
+import com.neurofleet.model.Vehicle;
+import com.neurofleet.service.ProfileCacheService;
+import com.neurofleet.util.FirestoreFutures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -16,122 +21,133 @@ import org.springframework.web.bind.annotation.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/profile")
 public class ProfileController {
 
+    private static final Logger log = LoggerFactory.getLogger(ProfileController.class);
+
     private final Firestore db;
+    private final ProfileCacheService profileCache;
 
-    public ProfileController(Firestore db) {
+    public ProfileController(Firestore db, ProfileCacheService profileCache) {
         this.db = db;
+        this.profileCache = profileCache;
     }
 
     @GetMapping("/me")
-    public ResponseEntity<?> getMyProfile(Authentication authentication) throws Exception {
-        // Log authentication details for debugging
-        System.out.println("ProfileController.getMyProfile called with authentication: " + authentication);
-        
+    public CompletableFuture<ResponseEntity<?>> getMyProfile(Authentication authentication) {
         if (authentication == null || !authentication.isAuthenticated()) {
-            System.out.println("User not authenticated, returning 401");
+            log.debug("profile.get rejected reason=unauthenticated");
             if (db == null) {
-                return ResponseEntity.ok(buildDevelopmentProfile());
+                return done(ResponseEntity.ok(buildDevelopmentProfile()));
             }
-            return ResponseEntity.status(401).body(Map.of("error", "User not authenticated", "message", "No valid authentication token provided"));
+            return done(ResponseEntity.status(401).body(Map.of("error", "User not authenticated", "message", "No valid authentication token provided")));
         }
         
-        // Log user authorities for debugging
-        System.out.println("User authorities: " + authentication.getAuthorities());
-        
         if (db == null) {
-            return ResponseEntity.ok(buildDevelopmentProfile());
+            return done(ResponseEntity.ok(buildDevelopmentProfile()));
         }
 
         String uid = authentication.getName();
-        System.out.println("Authenticated user ID: " + uid);
-
-        try {
-            DocumentSnapshot userSnap = db.collection("users").document(uid).get().get();
-            Map<String, Object> profileData = userSnap.exists() ? userSnap.getData() : Map.of();
-
-            // Fetch assigned vehicles
-            ApiFuture<QuerySnapshot> vehiclesFuture = db.collection("vehicles")
-                    .whereEqualTo("currentDriver", uid)
-                    .get();
-            List<Map<String, Object>> assignedVehicles = new ArrayList<>();
-            for (QueryDocumentSnapshot doc : vehiclesFuture.get().getDocuments()) {
-                Map<String, Object> m = doc.getData();
-                m.put("id", doc.getId());
-                assignedVehicles.add(m);
-            }
+        log.debug("profile.get uid={} authorities={}", uid, authentication.getAuthorities());
 
-            // Fetch recent trips (limit 10)
-            List<Map<String, Object>> recentTrips = new ArrayList<>();
-            try {
-                ApiFuture<QuerySnapshot> tripsFuture = db.collection("trips")
-                        .whereEqualTo("driverId", uid)
-                        .orderBy("startTime", Query.Direction.DESCENDING)
-                        .limit(10)
-                        .get();
-                for (QueryDocumentSnapshot doc : tripsFuture.get().getDocuments()) {
-                    Map<String, Object> m = doc.getData();
-                    m.put("id", doc.getId());
-                    recentTrips.add(m);
-                }
-            } catch (Exception e) {
-                // Handle Firestore index error gracefully - return empty trips
-                System.out.println("[ProfileController] Could not fetch trips (may need Firestore index): " + e.getMessage());
-            }
+        return profileCache.get(uid, () -> loadProfile(uid))
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok).exceptionally(failure -> {
+            Throwable e = FirestoreFutures.unwrap(failure);
+            log.error("profile.get uid={} failed", uid, e);
+            // Return a more descriptive error message
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to load profile data", "message", String.valueOf(e.getMessage())));
+        });
+    }
 
+    // The three reads are independent, so they are issued together
+    private CompletableFuture<Map<String, Object>> loadProfile(String uid) {
+        CompletableFuture<Profile> profileFuture = FirestoreFutures.toCompletable(db.collection("users").document(uid).get())
+                .thenApply(Profile::from);
+
+        // Fetch assigned vehicles
+        CompletableFuture<List<Vehicle>> vehiclesFuture = FirestoreFutures.toCompletable(db.collection("vehicles")
+                .whereEqualTo("currentDriver", uid)
+                .get()).thenApply(snap -> {
+                    List<Vehicle> vehicles = new ArrayList<>(snap.size());
+                    for (QueryDocumentSnapshot doc : snap.getDocuments()) vehicles.add(Vehicle.from(doc));
+                    return vehicles;
+                });
+
+        // Fetch recent trips (limit 10)
+        CompletableFuture<List<Map<String, Object>>> tripsFuture = FirestoreFutures.toCompletable(db.collection("trips")
+                .whereEqualTo("driverId", uid)
+                .orderBy("startTime", Query.Direction.DESCENDING)
+                .limit(10)
+                .get()).thenApply(ProfileController::toList)
+                .exceptionally(e -> {
+                    // Handle Firestore index error gracefully - return empty trips
+                    log.warn("profile.trips uid={} failed (may need Firestore index) error={}", uid, FirestoreFutures.unwrap(e).getMessage());
+                    return new ArrayList<>();
+                });
+
+        return CompletableFuture.allOf(profileFuture, vehiclesFuture, tripsFuture).thenApply(ignored -> {
+            List<Map<String, Object>> recentTrips = tripsFuture.join();
             Map<String, Object> tripsPayload = Map.of(
                     "items", recentTrips,
                     "page", 0,
                     "totalPages", recentTrips.isEmpty() ? 0 : 1
             );
 
-            return ResponseEntity.ok(Map.of(
-                    "profile", profileData,
-                    "assignedVehicles", assignedVehicles,
+            return Map.of(
+                    "profile", profileFuture.join(),
+                    "assignedVehicles", vehiclesFuture.join(),
                     "recentTrips", tripsPayload
-            ));
-        } catch (Exception e) {
-            System.err.println("Error in getMyProfile: " + e.getMessage());
-            e.printStackTrace();
-            // Return a more descriptive error message
-            return ResponseEntity.status(500).body(Map.of("error", "Failed to load profile data", "message", e.getMessage()));
-        }
+            );
+        });
     }
 
     @PutMapping("/me")
-    public ResponseEntity<?> upsertMyProfile(Authentication authentication, @RequestBody Map<String, Object> body) throws Exception {
-        System.out.println("ProfileController.upsertMyProfile called with authentication: " + authentication);
-        
+    public CompletableFuture<ResponseEntity<?>> upsertMyProfile(Authentication authentication, @RequestBody Map<String, Object> body) {
         if (authentication == null || !authentication.isAuthenticated()) {
-            System.out.println("User not authenticated, returning 401");
+            log.debug("profile.upsert rejected reason=unauthenticated");
             if (db == null) {
-                return ResponseEntity.ok(Map.of("message", "Profile update not available in development mode"));
+                return done(ResponseEntity.ok(Map.of("message", "Profile update not available in development mode")));
             }
-            return ResponseEntity.status(401).build();
+            return done(ResponseEntity.status(401).build());
         }
 
         if (db == null) {
-            return ResponseEntity.ok(Map.of("message", "Profile update not available in development mode"));
+            return done(ResponseEntity.ok(Map.of("message", "Profile update not available in development mode")));
         }
 
         String uid = authentication.getName();
-        System.out.println("Authenticated user ID: " + uid);
-        
-        try {
-            DocumentReference ref = db.collection("users").document(uid);
-            ApiFuture<?> fut = ref.set(body, SetOptions.merge());
-            fut.get();
-            return ResponseEntity.ok(Map.of("profile", body));
-        } catch (Exception e) {
-            System.err.println("Error in upsertMyProfile: " + e.getMessage());
-            e.printStackTrace();
-            // Return a more descriptive error message
-            return ResponseEntity.status(500).body(Map.of("error", "Failed to update profile", "message", e.getMessage()));
+        log.debug("profile.upsert uid={}", uid);
+
+        DocumentReference ref = db.collection("users").document(uid);
+        return FirestoreFutures.toCompletable(ref.set(body, SetOptions.merge()))
+                .<ResponseEntity<?>>thenApply(written -> {
+                    profileCache.invalidate(uid);
+                    return ResponseEntity.ok(Map.of("profile", body));
+                })
+                .exceptionally(failure -> {
+                    Throwable e = FirestoreFutures.unwrap(failure);
+                    log.error("profile.upsert uid={} failed", uid, e);
+                    // Return a more descriptive error message
+                    return ResponseEntity.status(500).body(Map.of("error", "Failed to update profile", "message", String.valueOf(e.getMessage())));
+                });
+    }
+
+    private static CompletableFuture<ResponseEntity<?>> done(ResponseEntity<?> response) {
+        return CompletableFuture.completedFuture(response);
+    }
+
+    private static List<Map<String, Object>> toList(QuerySnapshot snap) {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (QueryDocumentSnapshot doc : snap.getDocuments()) {
+            Map<String, Object> m = doc.getData();
+            m.put("id", doc.getId());
+            list.add(m);
         }
+        return list;
     }
 
     private Map<String, Object> buildDevelopmentProfile() {
@@ -0,0 +1,47 @@
+package com.neurofleet.controller;
+
+import com.neurofleet.service.QuoteService;
+import com.neurofleet.service.SpeedProfileService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/quotes")
+public class QuoteController {
+
+    private final QuoteService quotes;
+    private final SpeedProfileService speedProfiles;
+
+    public QuoteController(QuoteService quotes, SpeedProfileService speedProfiles) {
+        this.quotes = quotes;
+        this.speedProfiles = speedProfiles;
+    }
+
+    @SuppressWarnings("unchecked")
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createQuote(@RequestBody Map<String, Object> body) {
+        Object pickup = body.getOrDefault("pickup", body.get("pickupCoordinates"));
+        Object dropoff = body.getOrDefault("dropoff", body.get("dropoffCoordinates"));
+        if (!(pickup instanceof Map) || !(dropoff instanceof Map)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "pickup and dropoff coordinates are required."));
+        }
+        long departure = body.get("departureTime") instanceof Number
+                ? ((Number) body.get("departureTime")).longValue()
+                : System.currentTimeMillis();
+        Integer bookedMinutes = QuoteService.parseMinutes(body.get("duration"));
+
+        Map<String, Object> quote = quotes.quote((Map<String, Object>) pickup, (Map<String, Object>) dropoff,
+                Objects.toString(body.get("vehicleType"), null), bookedMinutes, departure);
+        if (quote == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "pickup and dropoff need numeric lat/lng."));
+        }
+        return ResponseEntity.ok(quote);
+    }
+
+    @GetMapping("/profile")
+    public ResponseEntity<Map<String, Object>> getSpeedProfile(@RequestParam double latitude, @RequestParam double longitude) {
+        return ResponseEntity.ok(speedProfiles.describeCell(latitude, longitude, System.currentTimeMillis()));
+    }
+}
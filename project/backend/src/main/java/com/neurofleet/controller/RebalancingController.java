@@ -0,0 +1,31 @@
+package com.neurofleet.controller;
+
+import com.neurofleet.service.RebalancingService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/rebalancing")
+public class RebalancingController {
+
+    private final RebalancingService rebalancing;
+
+    public RebalancingController(RebalancingService rebalancing) {
+        this.rebalancing = rebalancing;
+    }
+
+    // Latest suggested repositioning moves from the periodic run
+    @GetMapping("/moves")
+    public ResponseEntity<Map<String, Object>> getMoves() {
+        return ResponseEntity.ok(rebalancing.getLatestPlan());
+    }
+
+    // Recompute immediately instead of waiting for the next scheduled run
+    @PostMapping("/run")
+    public ResponseEntity<Map<String, Object>> run() {
+        rebalancing.rebalance();
+        return ResponseEntity.ok(rebalancing.getLatestPlan());
+    }
+}
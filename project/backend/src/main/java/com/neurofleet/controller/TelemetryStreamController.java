@@ -0,0 +1,49 @@
+package com.neurofleet.controller;
+
+import com.neurofleet.service.TelemetryStreamService;
+import com.neurofleet.util.VehicleStreamFilter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+/**
+ * Push alternative to polling /api/vehicles/telemetry/all. Browsers consume it with EventSource,
+ * which reconnects on its own and sends Last-Event-ID so missed updates are replayed.
+ */
+@RestController
+@RequestMapping("/api/vehicles/telemetry")
+public class TelemetryStreamController {
+
+    private final TelemetryStreamService stream;
+
+    public TelemetryStreamController(TelemetryStreamService stream) {
+        this.stream = stream;
+    }
+
+    // Filters are comma-separated lists; lastEventId is for clients that can't set the header
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTelemetry(
+        @RequestParam(required = false) String vehicleIds,
+        @RequestParam(required = false) String status,
+        @RequestParam(required = false) String type,
+        @RequestParam(required = false) String lastEventId,
+        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader
+    ) {
+        SseEmitter emitter = stream.subscribe(VehicleStreamFilter.of(vehicleIds, status, type),
+                lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+        if (emitter == null) {
+            // Declared body type must stay SseEmitter for Spring to treat this as a stream, so no JSON error body
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5").build();
+        }
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+    }
+
+    @GetMapping("/stream/stats")
+    public ResponseEntity<Map<String, Object>> getStreamStats() {
+        return ResponseEntity.ok(stream.stats());
+    }
+}
@@ -0,0 +1,433 @@
+package com.neurofleet.controller;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.*;
+import com.neurofleet.model.Telemetry;
+import com.neurofleet.model.Vehicle;
+import com.neurofleet.service.HistoryWriterService;
+import com.neurofleet.service.ProfileCacheService;
+import com.neurofleet.service.TelemetryService;
+import com.neurofleet.service.VehicleReplicaService;
+import com.neurofleet.util.FirestoreFutures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Batch variants of the vehicle endpoints for the admin panel and bulk imports, named with a
+ * custom-method suffix (POST /api/vehicles:batchCreate) so they can't collide with
+ * /api/vehicles/{id}. Each item gets its own result, in request order:
+ *
+ *   :batchCreate  {"vehicles": [{...}, ...]}, an item may bring its own "id"; existing ids fail
+ *   :batchUpdate  {"vehicles": [{"id": ..., ...}, ...]}, merged as PUT /{id} does
+ *   :batchStatus  {"ids": [...], "status": ...} or {"updates": [{"id": ..., "status": ...}, ...]}
+ *   :batchGet     GET ?ids=a,b,c or POST {"ids": [...]}, documents merged with live telemetry
+ *
+ * Writes go through one BulkWriter per request, which batches and parallelises them and retries
+ * transient failures. Their history events follow through the same writer once the vehicle
+ * writes have settled, since an import would overflow the write-behind queue. With
+ * {@code "atomic": true} up to 500 vehicles are committed in a single WriteBatch instead, all or
+ * nothing, and their events follow through a BulkWriter of their own. Status, like
+ * PATCH /{id}/status, only changes the live telemetry state.
+ */
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3002", "http://127.0.0.1:3000"}, allowCredentials = "true")
+public class VehicleBatchController {
+
+    private static final Logger log = LoggerFactory.getLogger(VehicleBatchController.class);
+    // Firestore caps a WriteBatch at 500 writes
+    private static final int MAX_ATOMIC = 500;
+
+    private final Firestore db;
+    private final TelemetryService telemetry;
+    private final VehicleReplicaService replica;
+    private final HistoryWriterService history;
+    private final ProfileCacheService profileCache;
+    private final int maxItems;
+    private final int getChunkSize;
+    private final BulkWriterOptions writerOptions;
+
+    // One vehicle of a batch request, carrying its outcome to the response
+    private static final class Item {
+        final int index;
+        String id;
+        Map<String, Object> data;
+        String previousDriver;
+        String error;
+
+        Item(int index) {
+            this.index = index;
+        }
+    }
+
+    public VehicleBatchController(Firestore db, @Autowired(required = false) TelemetryService telemetry,
+                                  @Autowired(required = false) VehicleReplicaService replica,
+                                  HistoryWriterService history, ProfileCacheService profileCache,
+                                  @Value("${app.vehicles.batch.max-items:10000}") int maxItems,
+                                  @Value("${app.vehicles.batch.get-chunk-size:500}") int getChunkSize,
+                                  @Value("${app.vehicles.batch.initial-ops-per-second:2000}") int initialOpsPerSecond,
+                                  @Value("${app.vehicles.batch.max-ops-per-second:10000}") int maxOpsPerSecond) {
+        this.db = db;
+        this.telemetry = telemetry;
+        this.replica = replica;
+        this.history = history;
+        this.profileCache = profileCache;
+        this.maxItems = maxItems;
+        this.getChunkSize = Math.max(1, getChunkSize);
+        // BulkWriter's default starts at 500 ops/s and ramps up over minutes; a 10k import is 20k
+        // writes with its history. Vehicle ids are random, so there is no hot key range to protect.
+        this.writerOptions = BulkWriterOptions.builder()
+                .setInitialOpsPerSecond(initialOpsPerSecond)
+                .setMaxOpsPerSecond(Math.max(initialOpsPerSecond, maxOpsPerSecond))
+                .build();
+    }
+
+    @PostMapping("/vehicles:batchCreate")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> batchCreate(@RequestBody Map<String, Object> body) {
+        List<Item> items;
+        try {
+            items = items(body.get("vehicles"), false);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        Date createdAt = new Date();
+        for (Item item : items) {
+            if (item.error != null) continue;
+            item.data.put("createdAt", createdAt);
+            if (item.id == null) {
+                item.id = db != null ? db.collection("vehicles").document().getId() : "mock-" + System.currentTimeMillis() + "-" + item.index;
+            }
+        }
+        if (db == null) {
+            // Development mode: ids are assigned, nothing is stored
+            return CompletableFuture.completedFuture(ResponseEntity.ok(results(items, 201)));
+        }
+        return write(items, true, Boolean.TRUE.equals(body.get("atomic")), "created");
+    }
+
+    @PostMapping("/vehicles:batchUpdate")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> batchUpdate(@RequestBody Map<String, Object> body) {
+        List<Item> items;
+        try {
+            items = items(body.get("vehicles"), true);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        if (db == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(results(items, 200)));
+        }
+        boolean atomic = Boolean.TRUE.equals(body.get("atomic"));
+        return previousDrivers(items).thenCompose(read -> write(items, false, atomic, "updated"))
+                .exceptionally(e -> ResponseEntity.status(500).body(Map.of("error", FirestoreFutures.unwrap(e).getMessage())));
+    }
+
+    @PostMapping("/vehicles:batchStatus")
+    public ResponseEntity<Map<String, Object>> batchStatus(@RequestBody Map<String, Object> body) {
+        Object raw = body.get("updates");
+        if (raw == null && body.get("ids") instanceof List<?> ids) {
+            List<Object> updates = new ArrayList<>(ids.size());
+            for (Object id : ids) {
+                Map<String, Object> update = new HashMap<>();
+                update.put("id", id);
+                update.put("status", body.get("status"));
+                updates.add(update);
+            }
+            raw = updates;
+        }
+        List<Item> items;
+        try {
+            items = items(raw, true);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        for (Item item : items) {
+            if (item.error != null) continue;
+            if (!(item.data.get("status") instanceof String status) || status.isBlank()) {
+                item.error = "Missing status";
+            } else if (telemetry == null || !telemetry.updateStatus(item.id, status)) {
+                item.error = "Vehicle not found";
+            }
+        }
+        return ResponseEntity.ok(results(items, 200));
+    }
+
+    @GetMapping("/vehicles:batchGet")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> batchGet(@RequestParam List<String> ids) {
+        return get(ids);
+    }
+
+    // Same, for id lists too long for a URL
+    @PostMapping("/vehicles:batchGet")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> batchGetPost(@RequestBody Map<String, Object> body) {
+        if (!(body.get("ids") instanceof List<?> raw)) return badRequest("Expected an \"ids\" array");
+        List<String> ids = new ArrayList<>(raw.size());
+        for (Object id : raw) {
+            if (!(id instanceof String)) return badRequest("Invalid id " + id);
+            ids.add((String) id);
+        }
+        return get(ids);
+    }
+
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> get(List<String> ids) {
+        if (ids.isEmpty() || ids.size() > maxItems) return badRequest("Expected between 1 and " + maxItems + " ids");
+        for (String id : ids) {
+            if (!isDocumentId(id)) return badRequest("Invalid id " + id);
+        }
+        if (db == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(found(ids, Map.of())));
+        }
+        List<String> unique = new ArrayList<>(new LinkedHashSet<>(ids));
+
+        if (replica != null && replica.isServing()) {
+            Map<String, Object> docs = new HashMap<>();
+            for (String id : unique) {
+                Map<String, Object> v = replica.get(id);
+                // Vehicle.from takes the map over, and the replica's own must stay as it is
+                if (v != null) docs.put(id, Vehicle.from(id, new HashMap<>(v)));
+            }
+            return CompletableFuture.completedFuture(ResponseEntity.ok(found(ids, docs)));
+        }
+
+        return readAll(unique, null).thenApply(snapshots -> {
+            Map<String, Object> docs = new HashMap<>();
+            for (DocumentSnapshot d : snapshots) {
+                if (d.exists()) docs.put(d.getId(), Vehicle.from(d));
+            }
+            return ResponseEntity.ok(found(ids, docs));
+        }).exceptionally(e -> ResponseEntity.status(500).body(Map.of("error", FirestoreFutures.unwrap(e).getMessage())));
+    }
+
+    // Parallel getAll calls of get-chunk-size documents; a single call would stream all of them over one RPC
+    private CompletableFuture<List<DocumentSnapshot>> readAll(List<String> ids, FieldMask mask) {
+        List<CompletableFuture<List<DocumentSnapshot>>> reads = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += getChunkSize) {
+            List<String> chunk = ids.subList(from, Math.min(ids.size(), from + getChunkSize));
+            DocumentReference[] refs = new DocumentReference[chunk.size()];
+            for (int i = 0; i < refs.length; i++) {
+                refs[i] = db.collection("vehicles").document(chunk.get(i));
+            }
+            reads.add(FirestoreFutures.toCompletable(mask != null ? db.getAll(refs, mask) : db.getAll(refs)));
+        }
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<DocumentSnapshot> all = new ArrayList<>(ids.size());
+            for (CompletableFuture<List<DocumentSnapshot>> read : reads) all.addAll(read.join());
+            return all;
+        });
+    }
+
+    // Whose cached profiles an update has to invalidate; read from Firestore when the replica isn't serving
+    private CompletableFuture<Void> previousDrivers(List<Item> items) {
+        if (replica != null && replica.isServing()) {
+            for (Item item : items) {
+                if (item.error == null) item.previousDriver = currentDriverOf(replica.get(item.id));
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+        Map<String, Item> byId = new HashMap<>();
+        for (Item item : items) {
+            if (item.error == null) byId.put(item.id, item);
+        }
+        if (byId.isEmpty()) return CompletableFuture.completedFuture(null);
+        return readAll(new ArrayList<>(byId.keySet()), FieldMask.of("currentDriver")).thenAccept(snapshots -> {
+            for (DocumentSnapshot d : snapshots) {
+                if (d.exists()) byId.get(d.getId()).previousDriver = currentDriverOf(d.getData());
+            }
+        });
+    }
+
+    // Results in request order; without Firestore a vehicle counts as found when telemetry tracks it
+    private Map<String, Object> found(List<String> ids, Map<String, Object> docs) {
+        List<Map<String, Object>> results = new ArrayList<>(ids.size());
+        int missing = 0;
+        for (String id : ids) {
+            Map<String, Object> r = new HashMap<>();
+            r.put("id", id);
+            Object vehicle = docs.get(id);
+            Telemetry live = telemetry != null ? telemetry.snapshot(id) : null;
+            if (vehicle == null && (db != null || live == null)) {
+                r.put("error", "Vehicle not found");
+                missing++;
+            } else {
+                if (vehicle != null) r.put("vehicle", vehicle);
+                if (live != null) r.put("telemetry", live);
+            }
+            results.add(r);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("results", results);
+        response.put("found", ids.size() - missing);
+        response.put("missing", missing);
+        return response;
+    }
+
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> write(List<Item> items, boolean create, boolean atomic, String eventType) {
+        int successStatus = create ? 201 : 200;
+        if (atomic) {
+            if (items.size() > MAX_ATOMIC) return badRequest("At most " + MAX_ATOMIC + " vehicles per atomic request");
+            for (Item item : items) {
+                if (item.error != null) return badRequest("Vehicle " + item.index + ": " + item.error);
+            }
+            WriteBatch batch = db.batch();
+            for (Item item : items) {
+                DocumentReference ref = db.collection("vehicles").document(item.id);
+                if (create) batch.create(ref, item.data);
+                else batch.set(ref, item.data, SetOptions.merge());
+            }
+            long started = System.nanoTime();
+            return FirestoreFutures.toCompletable(batch.commit()).thenCompose(written -> {
+                for (Item item : items) applied(item, create);
+                // Up to 500 events at once would overflow the write-behind queue, which drops them
+                BulkWriter writer = db.bulkWriter(writerOptions);
+                List<CompletableFuture<WriteResult>> events = new ArrayList<>(items.size());
+                for (Item item : items) {
+                    events.add(FirestoreFutures.toCompletable(history.append(writer, "vehicles", item.id, eventType, item.data)));
+                }
+                writer.flush();
+                return CompletableFuture.allOf(events.toArray(new CompletableFuture<?>[0]))
+                        .handle((done, e) -> events.stream().filter(CompletableFuture::isCompletedExceptionally).count())
+                        .whenComplete((lost, e) -> closeLater(writer));
+            }).thenApply(lostEvents -> {
+                log.info("vehicle.batch op={} atomic=true items={} history_failed={} ms={}", eventType, items.size(),
+                        lostEvents, (System.nanoTime() - started) / 1_000_000);
+                return ResponseEntity.ok(results(items, successStatus));
+            }).exceptionally(e -> ResponseEntity.status(500).body(Map.<String, Object>of("error", FirestoreFutures.unwrap(e).getMessage())));
+        }
+
+        BulkWriter writer = db.bulkWriter(writerOptions);
+        List<CompletableFuture<Void>> writes = new ArrayList<>(items.size());
+        for (Item item : items) {
+            if (item.error != null) continue;
+            try {
+                DocumentReference ref = db.collection("vehicles").document(item.id);
+                ApiFuture<WriteResult> write = create ? writer.create(ref, item.data) : writer.set(ref, item.data, SetOptions.merge());
+                writes.add(FirestoreFutures.toCompletable(write).handle((written, e) -> {
+                    if (e != null) item.error = FirestoreFutures.unwrap(e).getMessage();
+                    else applied(item, create);
+                    return null;
+                }));
+            } catch (IllegalArgumentException e) {
+                // Values Firestore can't store are rejected before anything is sent
+                item.error = e.getMessage();
+            }
+        }
+        writer.flush();
+
+        long started = System.nanoTime();
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).thenCompose(settled -> {
+            List<CompletableFuture<WriteResult>> events = new ArrayList<>();
+            for (Item item : items) {
+                if (item.error == null) events.add(FirestoreFutures.toCompletable(history.append(writer, "vehicles", item.id, eventType, item.data)));
+            }
+            writer.flush();
+            return CompletableFuture.allOf(events.toArray(new CompletableFuture<?>[0]))
+                    .handle((done, e) -> events.stream().filter(CompletableFuture::isCompletedExceptionally).count());
+        }).thenApply(lostEvents -> {
+            Map<String, Object> response = results(items, successStatus);
+            log.info("vehicle.batch op={} items={} failed={} history_failed={} ms={}", eventType, items.size(),
+                    response.get("failed"), lostEvents, (System.nanoTime() - started) / 1_000_000);
+            return ResponseEntity.ok(response);
+        }).exceptionally(e -> ResponseEntity.status(500).body(Map.<String, Object>of("error", FirestoreFutures.unwrap(e).getMessage())))
+          .whenComplete((r, e) -> closeLater(writer));
+    }
+
+    // What the single-vehicle endpoints do once their write has gone through
+    private void applied(Item item, boolean create) {
+        if (create) {
+            if (replica != null) replica.upsert(item.id, item.data);
+            if (telemetry != null) telemetry.addOrInitVehicle(item.id, item.data);
+            return;
+        }
+        if (replica != null) replica.merge(item.id, item.data);
+        profileCache.invalidate(item.previousDriver);
+        Object driver = item.data.get("currentDriver");
+        if (driver != null) profileCache.invalidate(driver.toString());
+    }
+
+    // A malformed request fails as a whole; a malformed vehicle only fails its own item
+    private List<Item> items(Object raw, boolean idRequired) {
+        if (!(raw instanceof List<?> list) || list.isEmpty()) throw new IllegalArgumentException("Expected a non-empty array of vehicles");
+        if (list.size() > maxItems) throw new IllegalArgumentException("At most " + maxItems + " vehicles per request");
+        Set<String> seen = new HashSet<>();
+        List<Item> items = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            Item item = new Item(i);
+            items.add(item);
+            if (!(list.get(i) instanceof Map<?, ?> m)) {
+                item.error = "Expected an object";
+                continue;
+            }
+            Map<String, Object> data = new HashMap<>();
+            for (Map.Entry<?, ?> e : m.entrySet()) data.put(String.valueOf(e.getKey()), e.getValue());
+            Object id = data.remove("id");
+            if (id == null) {
+                if (idRequired) item.error = "Missing id";
+            } else if (!(id instanceof String) || !isDocumentId((String) id)) {
+                item.error = "Invalid id";
+            } else if (!seen.add((String) id)) {
+                // Two writes to one document in a batch would race; the caller has to pick one
+                item.error = "Duplicate id";
+            } else {
+                item.id = (String) id;
+            }
+            item.data = data;
+        }
+        return items;
+    }
+
+    private static Map<String, Object> results(List<Item> items, int successStatus) {
+        List<Map<String, Object>> results = new ArrayList<>(items.size());
+        int failed = 0;
+        for (Item item : items) {
+            Map<String, Object> r = new HashMap<>();
+            r.put("index", item.index);
+            if (item.id != null) r.put("id", item.id);
+            if (item.error != null) {
+                r.put("error", item.error);
+                failed++;
+            } else {
+                r.put("status", successStatus);
+            }
+            results.add(r);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("results", results);
+        response.put("succeeded", items.size() - failed);
+        response.put("failed", failed);
+        return response;
+    }
+
+    private static String currentDriverOf(Map<String, Object> vehicle) {
+        Object driver = vehicle != null ? vehicle.get("currentDriver") : null;
+        return driver != null ? driver.toString() : null;
+    }
+
+    // Called once every write and its final flush have settled, so close() has nothing left to
+    // wait for; it still blocks, though, so it runs off the Firestore callback thread
+    private static void closeLater(BulkWriter writer) {
+        CompletableFuture.runAsync(() -> {
+            try {
+                writer.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                log.warn("vehicle.batch writer-close-failed error={}", FirestoreFutures.unwrap(e).getMessage());
+            }
+        });
+    }
+
+    private static boolean isDocumentId(String id) {
+        return !id.isEmpty() && id.indexOf('/') < 0 && !id.equals(".") && !id.equals("..");
+    }
+
+    private static CompletableFuture<ResponseEntity<Map<String, Object>>> badRequest(String message) {
+        return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", message)));
+    }
+}
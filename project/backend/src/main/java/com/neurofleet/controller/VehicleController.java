@@ -1,15 +1,28 @@
 package com.neurofleet.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
+import com.neurofleet.model.Telemetry;
+import com.neurofleet.model.Vehicle;
+import com.neurofleet.service.DashboardPushService;
+import com.neurofleet.service.EnergyModelService;
+import com.neurofleet.service.HistoryWriterService;
+import com.neurofleet.service.ProfileCacheService;
 import com.neurofleet.service.TelemetryService;
+import com.neurofleet.service.VehicleReplicaService;
+import com.neurofleet.util.ETags;
+import com.neurofleet.util.FirestoreFutures;
+import com.neurofleet.util.FirestorePager;
+import com.neurofleet.util.LogThrottle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
@@ -17,28 +30,121 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3002", "http://127.0.0.1:3000"}, allowCredentials = "true")
 public class VehicleController {
 
+    private static final Logger log = LoggerFactory.getLogger(VehicleController.class);
+    // Per-vehicle lines, once enabled, would otherwise dump the whole fleet on every poll
+    private static final LogThrottle vehicleTrace = new LogThrottle(20, 10000);
+
     private final Firestore db;
     private final TelemetryService telemetry;
+    private final EnergyModelService energy;
+    private final VehicleReplicaService replica;
+    private final HistoryWriterService history;
+    private final ProfileCacheService profileCache;
     private final ObjectMapper mapper = new ObjectMapper();
+    // Spring's configured mapper, so streamed pages serialise the same way as regular responses
+    private final ObjectMapper streamMapper;
 
-    public VehicleController(Firestore db, @org.springframework.beans.factory.annotation.Autowired(required = false) TelemetryService telemetry) {
+    public VehicleController(Firestore db, @org.springframework.beans.factory.annotation.Autowired(required = false) TelemetryService telemetry,
+                             @org.springframework.beans.factory.annotation.Autowired(required = false) EnergyModelService energy,
+                             @org.springframework.beans.factory.annotation.Autowired(required = false) VehicleReplicaService replica,
+                             HistoryWriterService history, ObjectMapper streamMapper, ProfileCacheService profileCache) {
         this.db = db;
         this.telemetry = telemetry;
+        this.energy = energy;
+        this.replica = replica;
+        this.history = history;
+        this.streamMapper = streamMapper;
+        this.profileCache = profileCache;
     }
 
     @GetMapping("/telemetry/all")
-    public ResponseEntity<List<Map<String, Object>>> getAllTelemetry() {
+    public ResponseEntity<List<Telemetry>> getAllTelemetry(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         // For development, allow unauthenticated access
-        return ResponseEntity.ok(telemetry != null ? telemetry.getAllTelemetry() : List.of());
+        if (telemetry == null) return ResponseEntity.ok(List.of());
+        // Read the version before the data, so a change in between can only make the tag older
+        String etag = ETags.of("telemetry", telemetry.version());
+        if (ETags.matches(ifNoneMatch, etag)) return ETags.notModified(etag);
+        return ETags.ok(telemetry.snapshotAll(), etag);
     }
 
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getVehicles(
+    public CompletableFuture<ResponseEntity<?>> getVehicles(
         @RequestParam(required = false) String status,
         @RequestParam(required = false) String type,
+        @RequestParam(required = false) String currentDriver,
         @RequestParam(required = false) Double latitude,
-        @RequestParam(required = false) Double longitude
-    ) throws Exception {
+        @RequestParam(required = false) Double longitude,
+        @RequestParam(required = false) Integer pageSize,
+        @RequestParam(required = false) String pageToken,
+        @RequestParam(required = false) String fields,
+        @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch
+    ) {
+        // Replica-served responses depend only on the replica and the query string, so its
+        // version identifies them; Firestore-served ones carry no tag
+        String etag = db != null && replica != null && replica.isServing() ? ETags.of("vehicles", replica.version()) : null;
+        if (etag != null && ETags.matches(ifNoneMatch, etag)) {
+            return CompletableFuture.completedFuture(ETags.notModified(etag));
+        }
+
+        // Without paging or projection parameters keep the original plain-array response
+        if (pageSize == null && pageToken == null && fields == null) {
+            if (etag != null) {
+                // Read straight from the replica whose version is in the tag. An empty unfiltered
+                // result becomes the default vehicles in listVehicles, which must not carry it
+                List<Map<String, Object>> list = replica.query(emptyToNull(status), emptyToNull(type), emptyToNull(currentDriver));
+                if (!list.isEmpty() || status != null || type != null || currentDriver != null) {
+                    sortByProximity(list, latitude, longitude);
+                    return CompletableFuture.completedFuture(ETags.ok(list, etag));
+                }
+            }
+            // Firestore, default or mock bodies: never tagged
+            return listVehicles(status, type, currentDriver, latitude, longitude).thenApply(r -> r);
+        }
+
+        Set<String> projection;
+        Object[] after;
+        try {
+            projection = FirestorePager.parseFields(fields);
+            after = pageToken == null || pageToken.isEmpty() ? null : FirestorePager.decodeToken(pageToken);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        }
+        int size = FirestorePager.clampPageSize(pageSize);
+
+        if (db == null) {
+            Map<String, Object> page = new HashMap<>();
+            page.put("items", mockVehicles());
+            page.put("nextPageToken", null);
+            return CompletableFuture.completedFuture(ResponseEntity.ok(page));
+        }
+
+        if (replica != null && replica.isServing()) {
+            try {
+                Map<String, Object> page = replica.page(emptyToNull(status), emptyToNull(type),
+                        emptyToNull(currentDriver), latitude, longitude, size, after, projection);
+                return CompletableFuture.completedFuture(etag != null ? ETags.ok(page, etag) : ResponseEntity.ok(page));
+            } catch (IllegalArgumentException e) {
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+            }
+        }
+
+        // Firestore can't order by distance, so proximity paging waits for the replica to recover
+        if (latitude != null && longitude != null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(503)
+                    .body(Map.of("error", "Proximity ordering is temporarily unavailable, retry without latitude/longitude")));
+        }
+        Query query = db.collection("vehicles");
+        if (status != null && !status.isEmpty()) query = query.whereEqualTo("status", status);
+        if (type != null && !type.isEmpty()) query = query.whereEqualTo("type", type);
+        if (currentDriver != null && !currentDriver.isEmpty()) query = query.whereEqualTo("currentDriver", currentDriver);
+        return new FirestorePager(query, projection, Query.Direction.ASCENDING)
+                .respond(size, pageToken, streamMapper)
+                .exceptionally(e -> ResponseEntity.status(500).body(Map.of("error", FirestoreFutures.unwrap(e).getMessage())));
+    }
+
+    private CompletableFuture<ResponseEntity<List<Map<String, Object>>>> listVehicles(
+        String status, String type, String currentDriver, Double latitude, Double longitude
+    ) {
         try {
             // For development, allow unauthenticated access
             if (db == null) {
@@ -78,81 +184,100 @@ public class VehicleController {
                         }
                     }
                 }
-                return ResponseEntity.ok(filteredVehicles);
+                return CompletableFuture.completedFuture(ResponseEntity.ok(filteredVehicles));
             }
 
-            System.out.println("Fetching vehicles with filters - status: " + status + ", type: " + type + ", lat: " + latitude + ", lng: " + longitude);
-            CollectionReference vehiclesRef = db.collection("vehicles");
-            Query query = vehiclesRef;
-            
-            // Apply filters if provided
-            if (status != null && !status.isEmpty()) {
-                query = query.whereEqualTo("status", status);
-                System.out.println("Applying status filter: " + status);
-            }
-            
-            if (type != null && !type.isEmpty()) {
-                query = query.whereEqualTo("type", type);
-                System.out.println("Applying type filter: " + type);
-            }
-            
-            ApiFuture<QuerySnapshot> future = query.get();
-            List<QueryDocumentSnapshot> docs = future.get().getDocuments();
-            System.out.println("Found " + docs.size() + " vehicles in database");
-            List<Map<String, Object>> list = new ArrayList<>();
-            for (QueryDocumentSnapshot d : docs) {
-                Map<String, Object> m = d.getData();
-                m.put("id", d.getId());
-                System.out.println("Adding vehicle: " + m);
-                list.add(m);
-                if (telemetry != null) telemetry.addOrInitVehicle(d.getId(), m);
-            }
-            System.out.println("Returning " + list.size() + " vehicles");
-            
-            // If no vehicles found and no filters applied, return some default vehicles
-            if (list.isEmpty() && status == null && type == null) {
-                System.out.println("No vehicles found and no filters applied, returning default vehicles");
-                list = getDefaultVehicles();
-            }
-            
-            // Sort by proximity if latitude and longitude are provided
-            if (latitude != null && longitude != null) {
-                System.out.println("Sorting vehicles by proximity to lat: " + latitude + ", lng: " + longitude);
-                list.sort((v1, v2) -> {
-                    Object lat1Obj = v1.get("latitude");
-                    Object lon1Obj = v1.get("longitude");
-                    Object lat2Obj = v2.get("latitude");
-                    Object lon2Obj = v2.get("longitude");
-                    
-                    if (lat1Obj instanceof Number && lon1Obj instanceof Number && 
-                        lat2Obj instanceof Number && lon2Obj instanceof Number) {
-                        double distance1 = calculateDistance(latitude, longitude, 
-                            ((Number) lat1Obj).doubleValue(), 
-                            ((Number) lon1Obj).doubleValue());
-                        double distance2 = calculateDistance(latitude, longitude, 
-                            ((Number) lat2Obj).doubleValue(), 
-                            ((Number) lon2Obj).doubleValue());
-                        System.out.println("Vehicle " + v1.get("licensePlate") + " distance: " + distance1 + " km");
-                        System.out.println("Vehicle " + v2.get("licensePlate") + " distance: " + distance2 + " km");
-                        return Double.compare(distance1, distance2);
+            CompletableFuture<List<Map<String, Object>>> loaded;
+            if (replica != null && replica.isServing()) {
+                // Served from the listener-fed replica; telemetry is seeded by the listener
+                loaded = CompletableFuture.completedFuture(replica.query(emptyToNull(status), emptyToNull(type), emptyToNull(currentDriver)));
+            } else {
+                log.debug("vehicle.list source=firestore status={} type={} driver={} lat={} lng={}", status, type, currentDriver, latitude, longitude);
+                CollectionReference vehiclesRef = db.collection("vehicles");
+                Query query = vehiclesRef;
+
+                // Apply filters if provided
+                if (status != null && !status.isEmpty()) {
+                    query = query.whereEqualTo("status", status);
+                }
+
+                if (type != null && !type.isEmpty()) {
+                    query = query.whereEqualTo("type", type);
+                }
+
+                if (currentDriver != null && !currentDriver.isEmpty()) {
+                    query = query.whereEqualTo("currentDriver", currentDriver);
+                }
+
+                loaded = FirestoreFutures.toCompletable(query.get()).thenApply(snap -> {
+                    List<QueryDocumentSnapshot> docs = snap.getDocuments();
+                    log.debug("vehicle.list found={}", docs.size());
+                    List<Map<String, Object>> found = new ArrayList<>();
+                    for (QueryDocumentSnapshot d : docs) {
+                        Map<String, Object> m = d.getData();
+                        m.put("id", d.getId());
+                        if (log.isTraceEnabled() && vehicleTrace.tryAcquire()) {
+                            log.trace("vehicle.add id={} data={} suppressed={}", d.getId(), m, vehicleTrace.drainSuppressed());
+                        }
+                        found.add(m);
+                        if (telemetry != null) telemetry.addOrInitVehicle(d.getId(), m);
                     }
-                    return 0;
+                    return found;
                 });
             }
-            
-            return ResponseEntity.ok(list);
+
+            return loaded.thenApply(found -> {
+                List<Map<String, Object>> list = found;
+
+                // If no vehicles found and no filters applied, return some default vehicles
+                if (list.isEmpty() && status == null && type == null && currentDriver == null) {
+                    log.debug("vehicle.list fallback=defaults");
+                    list = getDefaultVehicles();
+                }
+
+                sortByProximity(list, latitude, longitude);
+
+                log.debug("vehicle.list returned={} sortedByDistance={}", list.size(), latitude != null && longitude != null);
+                return ResponseEntity.ok(list);
+            }).exceptionally(e -> ResponseEntity.ok(mockVehicles()));
         } catch (Exception e) {
             // Return mock data if there's an error
-            List<Map<String, Object>> mockVehicles = List.of(
-                Map.of("id", "mock-vehicle-1", "make", "Tesla", "model", "Model 3", "licensePlate", "MOCK-001", "status", "available", "latitude", 28.6139, "longitude", 77.2090, "speed", 35, "batteryLevel", 85),
-                Map.of("id", "mock-vehicle-2", "make", "BMW", "model", "i3", "licensePlate", "MOCK-002", "status", "on-trip", "latitude", 28.6239, "longitude", 77.2190, "speed", 45, "batteryLevel", 65),
-                Map.of("id", "mock-vehicle-3", "make", "Nissan", "model", "Leaf", "licensePlate", "MOCK-003", "status", "available", "latitude", 28.6339, "longitude", 77.2290, "speed", 25, "batteryLevel", 45),
-                Map.of("id", "mock-vehicle-4", "make", "Hyundai", "model", "Kona", "licensePlate", "MOCK-004", "status", "charging", "latitude", 28.6439, "longitude", 77.2390, "speed", 0, "batteryLevel", 30),
-                Map.of("id", "mock-vehicle-5", "make", "Tata", "model", "Nexon", "licensePlate", "MOCK-005", "status", "available", "latitude", 28.6539, "longitude", 77.2490, "speed", 0, "batteryLevel", 90)
-            );
-            return ResponseEntity.ok(mockVehicles);
+            return CompletableFuture.completedFuture(ResponseEntity.ok(mockVehicles()));
         }
     }
+
+    // Sort by proximity if latitude and longitude are provided
+    private void sortByProximity(List<Map<String, Object>> list, Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) return;
+        list.sort((v1, v2) -> {
+            Object lat1Obj = v1.get("latitude");
+            Object lon1Obj = v1.get("longitude");
+            Object lat2Obj = v2.get("latitude");
+            Object lon2Obj = v2.get("longitude");
+
+            if (lat1Obj instanceof Number && lon1Obj instanceof Number &&
+                lat2Obj instanceof Number && lon2Obj instanceof Number) {
+                double distance1 = calculateDistance(latitude, longitude,
+                    ((Number) lat1Obj).doubleValue(),
+                    ((Number) lon1Obj).doubleValue());
+                double distance2 = calculateDistance(latitude, longitude,
+                    ((Number) lat2Obj).doubleValue(),
+                    ((Number) lon2Obj).doubleValue());
+                return Double.compare(distance1, distance2);
+            }
+            return 0;
+        });
+    }
+
+    private List<Map<String, Object>> mockVehicles() {
+        return List.of(
+            Map.of("id", "mock-vehicle-1", "make", "Tesla", "model", "Model 3", "licensePlate", "MOCK-001", "status", "available", "latitude", 28.6139, "longitude", 77.2090, "speed", 35, "batteryLevel", 85),
+            Map.of("id", "mock-vehicle-2", "make", "BMW", "model", "i3", "licensePlate", "MOCK-002", "status", "on-trip", "latitude", 28.6239, "longitude", 77.2190, "speed", 45, "batteryLevel", 65),
+            Map.of("id", "mock-vehicle-3", "make", "Nissan", "model", "Leaf", "licensePlate", "MOCK-003", "status", "available", "latitude", 28.6339, "longitude", 77.2290, "speed", 25, "batteryLevel", 45),
+            Map.of("id", "mock-vehicle-4", "make", "Hyundai", "model", "Kona", "licensePlate", "MOCK-004", "status", "charging", "latitude", 28.6439, "longitude", 77.2390, "speed", 0, "batteryLevel", 30),
+            Map.of("id", "mock-vehicle-5", "make", "Tata", "model", "Nexon", "licensePlate", "MOCK-005", "status", "available", "latitude", 28.6539, "longitude", 77.2490, "speed", 0, "batteryLevel", 90)
+        );
+    }
     
     // Helper method to calculate distance between two points (Haversine formula)
     private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
@@ -206,46 +331,25 @@ public class VehicleController {
     }
 
     @GetMapping("/status-distribution")
-    public ResponseEntity<Map<String, Object>> getVehicleStatusDistribution() {
-        try {
-            ResponseEntity<List<Map<String, Object>>> vehiclesResponse = getVehiclesInternal(null, null, null, null);
-            if (!vehiclesResponse.getStatusCode().is2xxSuccessful()) {
-                return ResponseEntity.status(vehiclesResponse.getStatusCode()).build();
-            }
-
-            List<Map<String, Object>> vehicles = vehiclesResponse.getBody();
-            if (vehicles == null) {
-                return ResponseEntity.ok(Map.of(
-                    "totalVehicles", 0,
-                    "activeTrips", 0,
-                    "availableVehicles", 0,
-                    "chargingVehicles", 0
-                ));
-            }
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getVehicleStatusDistribution(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        if (db != null && replica != null && replica.isServing()) {
+            String etag = ETags.of("status", replica.version());
+            if (ETags.matches(ifNoneMatch, etag)) return CompletableFuture.completedFuture(ETags.notModified(etag));
+            return CompletableFuture.completedFuture(ETags.ok(DashboardPushService.statusPayload(replica.size(), replica.countByStatus()), etag));
+        }
 
+        return getVehiclesInternal(null, null, null, null).thenApply(vehicles -> {
             Map<String, Long> statusCounts = vehicles.stream()
                     .map(v -> Objects.toString(v.getOrDefault("status", "unknown")))
                     .collect(Collectors.groupingBy(s -> s, Collectors.counting()));
 
-            long onTrip = statusCounts.getOrDefault("on-trip", 0L);
-            long charging = statusCounts.getOrDefault("charging", 0L);
-            long available = statusCounts.getOrDefault("available", 0L);
-
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("totalVehicles", vehicles.size());
-            payload.put("activeTrips", onTrip);
-            payload.put("availableVehicles", available);
-            payload.put("chargingVehicles", charging);
-            payload.put("statusBreakdown", statusCounts);
-
-            return ResponseEntity.ok(payload);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body(Map.of("error", "Failed to get vehicle status distribution"));
-        }
+            return ResponseEntity.ok(DashboardPushService.statusPayload(vehicles.size(), statusCounts));
+        }).exceptionally(e -> ResponseEntity.status(500).body(Map.of("error", "Failed to get vehicle status distribution")));
     }
-    
+
     // Private helper method to get vehicles without authentication for internal use
-    private ResponseEntity<List<Map<String, Object>>> getVehiclesInternal(
+    private CompletableFuture<List<Map<String, Object>>> getVehiclesInternal(
         String status,
         String type,
         Double latitude,
@@ -290,72 +394,73 @@ public class VehicleController {
                         }
                     }
                 }
-                return ResponseEntity.ok(filteredVehicles);
+                return CompletableFuture.completedFuture(filteredVehicles);
             }
 
-            CollectionReference vehiclesRef = db.collection("vehicles");
-            Query query = vehiclesRef;
-            
-            // Apply filters if provided
-            if (status != null && !status.isEmpty()) {
-                query = query.whereEqualTo("status", status);
-            }
-            
-            if (type != null && !type.isEmpty()) {
-                query = query.whereEqualTo("type", type);
-            }
-            
-            ApiFuture<QuerySnapshot> future = query.get();
-            List<QueryDocumentSnapshot> docs = future.get().getDocuments();
-            List<Map<String, Object>> list = new ArrayList<>();
-            for (QueryDocumentSnapshot d : docs) {
-                Map<String, Object> m = d.getData();
-                m.put("id", d.getId());
-                list.add(m);
-                if (telemetry != null) telemetry.addOrInitVehicle(d.getId(), m);
-            }
-            
-            // Sort by proximity if latitude and longitude are provided
-            if (latitude != null && longitude != null) {
-                list.sort((v1, v2) -> {
-                    Object lat1Obj = v1.get("latitude");
-                    Object lon1Obj = v1.get("longitude");
-                    Object lat2Obj = v2.get("latitude");
-                    Object lon2Obj = v2.get("longitude");
-                    
-                    if (lat1Obj instanceof Number && lon1Obj instanceof Number && 
-                        lat2Obj instanceof Number && lon2Obj instanceof Number) {
-                        double distance1 = calculateDistance(latitude, longitude, 
-                            ((Number) lat1Obj).doubleValue(), 
-                            ((Number) lon1Obj).doubleValue());
-                        double distance2 = calculateDistance(latitude, longitude, 
-                            ((Number) lat2Obj).doubleValue(), 
-                            ((Number) lon2Obj).doubleValue());
-                        return Double.compare(distance1, distance2);
+            CompletableFuture<List<Map<String, Object>>> loaded;
+            if (replica != null && replica.isServing()) {
+                loaded = CompletableFuture.completedFuture(replica.query(emptyToNull(status), emptyToNull(type), null));
+            } else {
+                CollectionReference vehiclesRef = db.collection("vehicles");
+                Query query = vehiclesRef;
+
+                // Apply filters if provided
+                if (status != null && !status.isEmpty()) {
+                    query = query.whereEqualTo("status", status);
+                }
+
+                if (type != null && !type.isEmpty()) {
+                    query = query.whereEqualTo("type", type);
+                }
+
+                loaded = FirestoreFutures.toCompletable(query.get()).thenApply(snap -> {
+                    List<Map<String, Object>> found = new ArrayList<>();
+                    for (QueryDocumentSnapshot d : snap.getDocuments()) {
+                        Map<String, Object> m = d.getData();
+                        m.put("id", d.getId());
+                        found.add(m);
+                        if (telemetry != null) telemetry.addOrInitVehicle(d.getId(), m);
                     }
-                    return 0;
+                    return found;
                 });
             }
-            
-            return ResponseEntity.ok(list);
+
+            return loaded.thenApply(list -> {
+                // Sort by proximity if latitude and longitude are provided
+                if (latitude != null && longitude != null) {
+                    list.sort((v1, v2) -> {
+                        Object lat1Obj = v1.get("latitude");
+                        Object lon1Obj = v1.get("longitude");
+                        Object lat2Obj = v2.get("latitude");
+                        Object lon2Obj = v2.get("longitude");
+                    
+                        if (lat1Obj instanceof Number && lon1Obj instanceof Number && 
+                            lat2Obj instanceof Number && lon2Obj instanceof Number) {
+                            double distance1 = calculateDistance(latitude, longitude, 
+                                ((Number) lat1Obj).doubleValue(), 
+                                ((Number) lon1Obj).doubleValue());
+                            double distance2 = calculateDistance(latitude, longitude, 
+                                ((Number) lat2Obj).doubleValue(), 
+                                ((Number) lon2Obj).doubleValue());
+                            return Double.compare(distance1, distance2);
+                        }
+                        return 0;
+                    });
+                }
+
+                return list;
+            }).exceptionally(e -> mockVehicles());
         } catch (Exception e) {
             // Return mock data if there's an error
-            List<Map<String, Object>> mockVehicles = List.of(
-                Map.of("id", "mock-vehicle-1", "make", "Tesla", "model", "Model 3", "licensePlate", "MOCK-001", "status", "available", "latitude", 28.6139, "longitude", 77.2090, "speed", 35, "batteryLevel", 85),
-                Map.of("id", "mock-vehicle-2", "make", "BMW", "model", "i3", "licensePlate", "MOCK-002", "status", "on-trip", "latitude", 28.6239, "longitude", 77.2190, "speed", 45, "batteryLevel", 65),
-                Map.of("id", "mock-vehicle-3", "make", "Nissan", "model", "Leaf", "licensePlate", "MOCK-003", "status", "available", "latitude", 28.6339, "longitude", 77.2290, "speed", 25, "batteryLevel", 45),
-                Map.of("id", "mock-vehicle-4", "make", "Hyundai", "model", "Kona", "licensePlate", "MOCK-004", "status", "charging", "latitude", 28.6439, "longitude", 77.2390, "speed", 0, "batteryLevel", 30),
-                Map.of("id", "mock-vehicle-5", "make", "Tata", "model", "Nexon", "licensePlate", "MOCK-005", "status", "available", "latitude", 28.6539, "longitude", 77.2490, "speed", 0, "batteryLevel", 90)
-            );
-            return ResponseEntity.ok(mockVehicles);
+            return CompletableFuture.completedFuture(mockVehicles());
         }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getVehicle(@PathVariable String id) throws Exception {
+    public CompletableFuture<ResponseEntity<?>> getVehicle(@PathVariable String id) {
         if (db == null) {
             // Return mock data for development
-            return ResponseEntity.ok(Map.of(
+            return CompletableFuture.completedFuture(ResponseEntity.ok(Map.of(
                 "id", id,
                 "make", "Tesla",
                 "model", "Model 3",
@@ -364,90 +469,106 @@ public class VehicleController {
                 "latitude", 28.4595,
                 "longitude", 77.0266,
                 "speed", 35
-            ));
+            )));
         }
         
-        DocumentSnapshot doc = db.collection("vehicles").document(id).get().get();
-        if (!doc.exists()) return ResponseEntity.notFound().build();
-        Map<String, Object> m = doc.getData();
-        m.put("id", doc.getId());
-        return ResponseEntity.ok(m);
+        if (replica != null && replica.isServing()) {
+            Map<String, Object> cached = replica.get(id);
+            return CompletableFuture.completedFuture(cached != null ? ResponseEntity.ok(cached) : ResponseEntity.notFound().build());
+        }
+
+        return FirestoreFutures.toCompletable(db.collection("vehicles").document(id).get()).thenApply(doc -> {
+            if (!doc.exists()) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(Vehicle.from(doc));
+        });
     }
 
     @GetMapping("/{id}/history")
-    public ResponseEntity<Map<String, Object>> getVehicleHistory(@PathVariable String id) throws Exception {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getVehicleHistory(@PathVariable String id) {
         if (db == null) {
             // Return mock data for development
             List<Map<String, Object>> mockEvents = List.of(
                 Map.of("eventType", "created", "details", Map.of(), "timestamp", new Date()),
                 Map.of("eventType", "status_update", "details", Map.of("status", "on-trip"), "timestamp", new Date())
             );
-            return ResponseEntity.ok(Map.of("vehicleId", id, "events", mockEvents));
+            return CompletableFuture.completedFuture(ResponseEntity.ok(Map.of("vehicleId", id, "events", mockEvents)));
         }
         
-        QuerySnapshot snap = db.collection("vehicles").document(id).collection("history")
-                .orderBy("timestamp", Query.Direction.DESCENDING).limit(50).get().get();
-        List<Map<String, Object>> events = new ArrayList<>();
-        for (QueryDocumentSnapshot d : snap) {
-            Map<String, Object> m = d.getData();
-            m.put("id", d.getId());
-            events.add(m);
-        }
-        return ResponseEntity.ok(Map.of("vehicleId", id, "events", events));
+        return FirestoreFutures.toCompletable(db.collection("vehicles").document(id).collection("history")
+                .orderBy("timestamp", Query.Direction.DESCENDING).limit(50).get()).thenApply(snap -> {
+            List<Map<String, Object>> events = new ArrayList<>();
+            for (QueryDocumentSnapshot d : snap) {
+                Map<String, Object> m = d.getData();
+                m.put("id", d.getId());
+                events.add(m);
+            }
+            return ResponseEntity.ok(Map.of("vehicleId", id, "events", events));
+        });
     }
 
     // Remove role-based access restrictions - allow all users to create vehicles
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createVehicle(@RequestBody Map<String, Object> body) throws Exception {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> createVehicle(@RequestBody Map<String, Object> body) {
         if (db == null) {
             // Return mock data for development
             String mockId = "mock-" + System.currentTimeMillis();
             Map<String, Object> response = new HashMap<>(body);
             response.put("id", mockId);
             response.put("createdAt", new Date());
-            return ResponseEntity.status(201).body(response);
+            return CompletableFuture.completedFuture(ResponseEntity.status(201).body(response));
         }
         
         DocumentReference ref = db.collection("vehicles").document();
         body.put("createdAt", new Date());
-        ref.set(body).get();
-        if (telemetry != null) telemetry.addOrInitVehicle(ref.getId(), body);
-        appendHistory(ref.getId(), "created", body);
-        return ResponseEntity.status(201).body(withId(ref.getId(), body));
+        return FirestoreFutures.toCompletable(ref.set(body)).thenApply(written -> {
+            if (replica != null) replica.upsert(ref.getId(), body);
+            if (telemetry != null) telemetry.addOrInitVehicle(ref.getId(), body);
+            appendHistory(ref.getId(), "created", body);
+            return ResponseEntity.status(201).body(withId(ref.getId(), body));
+        });
     }
 
     // Remove role-based access restrictions - allow all users to update vehicles
     @PutMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> updateVehicle(@PathVariable String id, @RequestBody Map<String, Object> update) throws Exception {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> updateVehicle(@PathVariable String id, @RequestBody Map<String, Object> update) {
         if (db == null) {
             // Return mock data for development
             Map<String, Object> response = new HashMap<>(update);
             response.put("id", id);
-            return ResponseEntity.ok(response);
+            return CompletableFuture.completedFuture(ResponseEntity.ok(response));
         }
         
-        db.collection("vehicles").document(id).set(update, SetOptions.merge()).get();
-        appendHistory(id, "updated", update);
-        return ResponseEntity.ok(withId(id, update));
+        String previousDriver = currentDriverOf(id);
+        return FirestoreFutures.toCompletable(db.collection("vehicles").document(id).set(update, SetOptions.merge())).thenApply(written -> {
+            if (replica != null) replica.merge(id, update);
+            profileCache.invalidate(previousDriver);
+            if (update.get("currentDriver") != null) profileCache.invalidate(update.get("currentDriver").toString());
+            appendHistory(id, "updated", update);
+            return ResponseEntity.ok(withId(id, update));
+        });
     }
 
     // Remove role-based access restrictions - allow all users to delete vehicles
     @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, String>> deleteVehicle(@PathVariable String id) throws Exception {
+    public CompletableFuture<ResponseEntity<Map<String, String>>> deleteVehicle(@PathVariable String id) {
         if (db == null) {
             // Return mock data for development
-            return ResponseEntity.ok(Map.of("message", "Vehicle deleted successfully (mock)"));
+            return CompletableFuture.completedFuture(ResponseEntity.ok(Map.of("message", "Vehicle deleted successfully (mock)")));
         }
         
-        db.collection("vehicles").document(id).delete().get();
-        if (telemetry != null) telemetry.removeVehicle(id);
-        appendHistory(id, "deleted", Map.of());
-        return ResponseEntity.ok(Map.of("message", "Vehicle deleted successfully"));
+        String previousDriver = currentDriverOf(id);
+        return FirestoreFutures.toCompletable(db.collection("vehicles").document(id).delete()).thenApply(written -> {
+            if (replica != null) replica.remove(id);
+            profileCache.invalidate(previousDriver);
+            if (telemetry != null) telemetry.removeVehicle(id);
+            appendHistory(id, "deleted", Map.of());
+            return ResponseEntity.ok(Map.of("message", "Vehicle deleted successfully"));
+        });
     }
 
     @GetMapping("/{id}/telemetry")
-    public ResponseEntity<Map<String, Object>> getVehicleTelemetry(@PathVariable String id) {
-        Map<String, Object> t = telemetry != null ? telemetry.getTelemetry(id) : null;
+    public ResponseEntity<?> getVehicleTelemetry(@PathVariable String id) {
+        Telemetry t = telemetry != null ? telemetry.snapshot(id) : null;
         if (t == null) {
             // Return mock data if telemetry not found
             return ResponseEntity.ok(Map.of(
@@ -461,6 +582,21 @@ public class VehicleController {
         return ResponseEntity.ok(t);
     }
 
+    // Device-reported telemetry; a measured batteryLevel recalibrates the vehicle's energy model
+    @PostMapping("/{id}/telemetry")
+    public ResponseEntity<Telemetry> reportTelemetry(@PathVariable String id, @RequestBody Map<String, Object> body) {
+        Map<String, Object> t = telemetry != null ? telemetry.ingest(id, body) : null;
+        if (t == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(telemetry.snapshot(id, t));
+    }
+
+    @GetMapping("/{id}/energy")
+    public ResponseEntity<Map<String, Object>> getVehicleEnergy(@PathVariable String id) {
+        Map<String, Object> model = energy != null ? energy.describe(id) : null;
+        if (model == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(model);
+    }
+
     @PatchMapping("/{id}/status")
     public ResponseEntity<Map<String, Object>> updateStatus(@PathVariable String id, @RequestBody Map<String, Object> body) {
         String status = Objects.toString(body.get("status"), "available");
@@ -469,11 +605,11 @@ public class VehicleController {
     }
 
     @PostMapping("/{id}/driver")
-    public ResponseEntity<Map<String, Object>> assignDriver(@PathVariable String id, @RequestBody Map<String, Object> body, Authentication authentication) throws Exception {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> assignDriver(@PathVariable String id, @RequestBody Map<String, Object> body, Authentication authentication) {
         if (db == null) {
-            return ResponseEntity.status(503).body(Map.of(
+            return CompletableFuture.completedFuture(ResponseEntity.status(503).body(Map.of(
                     "message", "Driver assignment not available in development mode"
-            ));
+            )));
         }
 
         String currentUid = authentication != null ? authentication.getName() : null;
@@ -490,44 +626,61 @@ public class VehicleController {
             payload.put("currentDriverEmail", driverEmail);
         }
 
-        db.collection("vehicles").document(id).set(payload, SetOptions.merge()).get();
-        appendHistory(id, "driver_assigned", Map.of(
-                "driverUid", driverUid,
-                "driverName", driverName,
-                "driverEmail", driverEmail
-        ));
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", id);
-        response.putAll(payload);
-        return ResponseEntity.ok(response);
+        String previousDriver = currentDriverOf(id);
+        return FirestoreFutures.toCompletable(db.collection("vehicles").document(id).set(payload, SetOptions.merge())).thenApply(written -> {
+            if (replica != null) replica.merge(id, payload);
+            // Both the new driver's and the replaced driver's assigned vehicles changed
+            profileCache.invalidate(driverUid);
+            profileCache.invalidate(previousDriver);
+            // Name and email are optional, so this can't be a Map.of
+            Map<String, Object> details = new HashMap<>();
+            details.put("driverUid", driverUid);
+            details.put("driverName", driverName);
+            details.put("driverEmail", driverEmail);
+            appendHistory(id, "driver_assigned", details);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("id", id);
+            response.putAll(payload);
+            return ResponseEntity.ok(response);
+        });
     }
 
     @DeleteMapping("/{id}/driver")
-    public ResponseEntity<Map<String, Object>> removeDriver(@PathVariable String id) throws Exception {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> removeDriver(@PathVariable String id) {
         if (db == null) {
-            return ResponseEntity.status(503).body(Map.of(
+            return CompletableFuture.completedFuture(ResponseEntity.status(503).body(Map.of(
                     "message", "Driver removal not available in development mode"
-            ));
+            )));
         }
 
-        db.collection("vehicles").document(id).set(Map.of(
-                "currentDriver", null,
-                "currentDriverName", null,
-                "currentDriverEmail", null
-        ), SetOptions.merge()).get();
-        appendHistory(id, "driver_removed", Map.of());
-        return ResponseEntity.ok(Map.of("id", id, "message", "Driver removed successfully"));
+        Map<String, Object> cleared = new HashMap<>();
+        cleared.put("currentDriver", null);
+        cleared.put("currentDriverName", null);
+        cleared.put("currentDriverEmail", null);
+        String previousDriver = currentDriverOf(id);
+        return FirestoreFutures.toCompletable(db.collection("vehicles").document(id).set(cleared, SetOptions.merge())).thenApply(written -> {
+            if (replica != null) replica.merge(id, cleared);
+            profileCache.invalidate(previousDriver);
+            appendHistory(id, "driver_removed", Map.of());
+            return ResponseEntity.ok(Map.<String, Object>of("id", id, "message", "Driver removed successfully"));
+        });
     }
 
-    private void appendHistory(String id, String type, Map<String, Object> details) throws Exception {
-        if (db != null) {
-            db.collection("vehicles").document(id).collection("history").add(Map.of(
-                    "eventType", type,
-                    "details", details,
-                    "timestamp", new Date()
-            )).get();
-        }
+    private void appendHistory(String id, String type, Map<String, Object> details) {
+        history.append("vehicles", id, type, details);
+    }
+
+    // Looked up before a write so the outgoing driver's cached profile can be dropped; without
+    // the replica that driver's entry simply ages out
+    private String currentDriverOf(String id) {
+        Map<String, Object> v = replica != null ? replica.get(id) : null;
+        Object driver = v != null ? v.get("currentDriver") : null;
+        return driver != null ? driver.toString() : null;
+    }
+
+    private static String emptyToNull(String s) {
+        return s == null || s.isEmpty() ? null : s;
     }
 
     private Map<String, Object> withId(String id, Map<String, Object> body) {
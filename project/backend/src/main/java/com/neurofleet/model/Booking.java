@@ -0,0 +1,27 @@
+package com.neurofleet.model;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** A document of the {@code bookings} collection. Fields without a typed slot are kept in {@code attributes}. */
+public record Booking(String id, String customerId, String customerEmail, String vehicleType, String status,
+                      String pickupLocation, String dropoffLocation, String pickupDate, String pickupTime,
+                      Number estimatedCost, Map<String, Object> attributes) {
+
+    public static Booking from(DocumentSnapshot doc) {
+        return from(doc.getId(), doc.getData());
+    }
+
+    /** Takes ownership of {@code data}: typed fields are removed from it and the rest become the attributes. */
+    public static Booking from(String id, Map<String, Object> data) {
+        if (data == null) data = new HashMap<>();
+        data.remove("id");
+        return new Booking(id, Fields.takeString(data, "customerId"), Fields.takeString(data, "customerEmail"),
+                Fields.takeString(data, "vehicleType"), Fields.takeString(data, "status"),
+                Fields.takeString(data, "pickupLocation"), Fields.takeString(data, "dropoffLocation"),
+                Fields.takeString(data, "pickupDate"), Fields.takeString(data, "pickupTime"),
+                Fields.takeNumber(data, "estimatedCost"), data);
+    }
+}
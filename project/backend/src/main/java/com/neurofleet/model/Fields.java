@@ -0,0 +1,41 @@
+package com.neurofleet.model;
+
+import java.util.Map;
+
+/**
+ * Reads typed fields out of Firestore data. A value is only taken when it already has the
+ * expected type; anything else stays in the map and ends up in the record's attributes, so a
+ * document with unexpected content is passed through unchanged rather than altered.
+ */
+final class Fields {
+
+    private Fields() {
+    }
+
+    /** Removes and returns a String field; {@code data} must be a map the caller owns. */
+    static String takeString(Map<String, Object> data, String key) {
+        if (data.get(key) instanceof String s) {
+            data.remove(key);
+            return s;
+        }
+        return null;
+    }
+
+    /** Removes and returns a numeric field; {@code data} must be a map the caller owns. */
+    static Number takeNumber(Map<String, Object> data, String key) {
+        if (data.get(key) instanceof Number n) {
+            data.remove(key);
+            return n;
+        }
+        return null;
+    }
+
+    static String string(Map<String, Object> data, String key) {
+        Object v = data.get(key);
+        return v == null ? null : v.toString();
+    }
+
+    static Number number(Map<String, Object> data, String key) {
+        return data.get(key) instanceof Number n ? n : null;
+    }
+}
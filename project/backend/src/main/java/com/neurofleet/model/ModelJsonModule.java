@@ -0,0 +1,190 @@
+package com.neurofleet.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+/**
+ * Hand-written serializers for the model records. Each writes its fields straight to the
+ * generator with pre-encoded names, so there is no per-value type lookup as for a
+ * {@code Map<String, Object>}, and no bean introspection. Null fields are left out and the
+ * attributes are written inline, so the JSON matches what the equivalent map produced.
+ *
+ * Registered with Spring's ObjectMapper by JacksonConfig; services with their own
+ * ObjectMapper register it themselves.
+ */
+public class ModelJsonModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString TYPE = new SerializedString("type");
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString LATITUDE = new SerializedString("latitude");
+    private static final SerializedString LONGITUDE = new SerializedString("longitude");
+    private static final SerializedString SPEED = new SerializedString("speed");
+    private static final SerializedString BATTERY_LEVEL = new SerializedString("batteryLevel");
+    private static final SerializedString RANGE = new SerializedString("range");
+    private static final SerializedString BATTERY_HEALTH = new SerializedString("batteryHealth");
+    private static final SerializedString TIME_TO_EMPTY = new SerializedString("timeToEmptyMinutes");
+    private static final SerializedString EFFICIENCY = new SerializedString("efficiencyWhPerKm");
+    private static final SerializedString ENERGY_REMAINING = new SerializedString("energyRemainingKwh");
+    private static final SerializedString LAST_UPDATE = new SerializedString("lastUpdate");
+    private static final SerializedString MAKE = new SerializedString("make");
+    private static final SerializedString MODEL = new SerializedString("model");
+    private static final SerializedString LICENSE_PLATE = new SerializedString("licensePlate");
+    private static final SerializedString CURRENT_DRIVER = new SerializedString("currentDriver");
+    private static final SerializedString BATTERY_CAPACITY = new SerializedString("batteryCapacity");
+    private static final SerializedString CUSTOMER_ID = new SerializedString("customerId");
+    private static final SerializedString CUSTOMER_EMAIL = new SerializedString("customerEmail");
+    private static final SerializedString VEHICLE_TYPE = new SerializedString("vehicleType");
+    private static final SerializedString PICKUP_LOCATION = new SerializedString("pickupLocation");
+    private static final SerializedString DROPOFF_LOCATION = new SerializedString("dropoffLocation");
+    private static final SerializedString PICKUP_DATE = new SerializedString("pickupDate");
+    private static final SerializedString PICKUP_TIME = new SerializedString("pickupTime");
+    private static final SerializedString ESTIMATED_COST = new SerializedString("estimatedCost");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString PHONE = new SerializedString("phone");
+    private static final SerializedString ADDRESS = new SerializedString("address");
+    private static final SerializedString DATE_OF_BIRTH = new SerializedString("dateOfBirth");
+    private static final SerializedString LICENSE_NUMBER = new SerializedString("licenseNumber");
+    private static final SerializedString EMERGENCY_CONTACT = new SerializedString("emergencyContact");
+    private static final SerializedString EMERGENCY_PHONE = new SerializedString("emergencyPhone");
+    private static final SerializedString PREFERRED_VEHICLE_TYPE = new SerializedString("preferredVehicleType");
+    private static final String VEHICLE_UPDATE = "vehicle_update";
+
+    public ModelJsonModule() {
+        super("neurofleet-model");
+        addSerializer(Telemetry.class, new StdSerializer<>(Telemetry.class) {
+            @Override
+            public void serialize(Telemetry t, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartObject();
+                writeTelemetry(t, t.type(), gen, provider);
+                gen.writeEndObject();
+            }
+        });
+        addSerializer(Telemetry.Update.class, new StdSerializer<>(Telemetry.Update.class) {
+            @Override
+            public void serialize(Telemetry.Update u, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                // "type" carries the message type here, replacing the vehicle type, as the map payload did
+                gen.writeStartObject();
+                writeTelemetry(u.telemetry(), VEHICLE_UPDATE, gen, provider);
+                gen.writeEndObject();
+            }
+        });
+        addSerializer(Vehicle.class, new StdSerializer<>(Vehicle.class) {
+            @Override
+            public void serialize(Vehicle v, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartObject();
+                string(gen, ID, v.id());
+                string(gen, MAKE, v.make());
+                string(gen, MODEL, v.model());
+                string(gen, LICENSE_PLATE, v.licensePlate());
+                string(gen, TYPE, v.type());
+                string(gen, STATUS, v.status());
+                string(gen, CURRENT_DRIVER, v.currentDriver());
+                number(gen, LATITUDE, v.latitude());
+                number(gen, LONGITUDE, v.longitude());
+                number(gen, SPEED, v.speed());
+                number(gen, BATTERY_LEVEL, v.batteryLevel());
+                number(gen, BATTERY_CAPACITY, v.batteryCapacity());
+                number(gen, RANGE, v.range());
+                attributes(gen, provider, v.attributes());
+                gen.writeEndObject();
+            }
+        });
+        addSerializer(Booking.class, new StdSerializer<>(Booking.class) {
+            @Override
+            public void serialize(Booking b, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartObject();
+                string(gen, ID, b.id());
+                string(gen, CUSTOMER_ID, b.customerId());
+                string(gen, CUSTOMER_EMAIL, b.customerEmail());
+                string(gen, VEHICLE_TYPE, b.vehicleType());
+                string(gen, STATUS, b.status());
+                string(gen, PICKUP_LOCATION, b.pickupLocation());
+                string(gen, DROPOFF_LOCATION, b.dropoffLocation());
+                string(gen, PICKUP_DATE, b.pickupDate());
+                string(gen, PICKUP_TIME, b.pickupTime());
+                number(gen, ESTIMATED_COST, b.estimatedCost());
+                attributes(gen, provider, b.attributes());
+                gen.writeEndObject();
+            }
+        });
+        addSerializer(Profile.class, new StdSerializer<>(Profile.class) {
+            @Override
+            public void serialize(Profile p, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartObject();
+                string(gen, NAME, p.name());
+                string(gen, PHONE, p.phone());
+                string(gen, ADDRESS, p.address());
+                string(gen, DATE_OF_BIRTH, p.dateOfBirth());
+                string(gen, LICENSE_NUMBER, p.licenseNumber());
+                string(gen, EMERGENCY_CONTACT, p.emergencyContact());
+                string(gen, EMERGENCY_PHONE, p.emergencyPhone());
+                string(gen, PREFERRED_VEHICLE_TYPE, p.preferredVehicleType());
+                attributes(gen, provider, p.attributes());
+                gen.writeEndObject();
+            }
+        });
+    }
+
+    private static void writeTelemetry(Telemetry t, String type, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        string(gen, ID, t.id());
+        string(gen, TYPE, type);
+        string(gen, STATUS, t.status());
+        number(gen, LATITUDE, t.latitude());
+        number(gen, LONGITUDE, t.longitude());
+        number(gen, SPEED, t.speed());
+        number(gen, BATTERY_LEVEL, t.batteryLevel());
+        number(gen, RANGE, t.range());
+        number(gen, BATTERY_HEALTH, t.batteryHealth());
+        number(gen, TIME_TO_EMPTY, t.timeToEmptyMinutes());
+        number(gen, EFFICIENCY, t.efficiencyWhPerKm());
+        number(gen, ENERGY_REMAINING, t.energyRemainingKwh());
+        string(gen, LAST_UPDATE, t.lastUpdate());
+        attributes(gen, provider, t.attributes());
+    }
+
+    private static void string(JsonGenerator gen, SerializedString name, String value) throws IOException {
+        if (value == null) return;
+        gen.writeFieldName(name);
+        gen.writeString(value);
+    }
+
+    // Writes the boxed value with the primitive call for its type, skipping Jackson's serializer lookup
+    private static void number(JsonGenerator gen, SerializedString name, Number value) throws IOException {
+        if (value == null) return;
+        gen.writeFieldName(name);
+        if (value instanceof Double d) {
+            gen.writeNumber(d);
+        } else if (value instanceof Integer i) {
+            gen.writeNumber(i);
+        } else if (value instanceof Long l) {
+            gen.writeNumber(l);
+        } else if (value instanceof Float f) {
+            gen.writeNumber(f);
+        } else if (value instanceof BigDecimal b) {
+            gen.writeNumber(b);
+        } else if (value instanceof BigInteger b) {
+            gen.writeNumber(b);
+        } else {
+            gen.writeNumber(value.longValue());
+        }
+    }
+
+    // Untyped fields go through Jackson as they would inside a map
+    private static void attributes(JsonGenerator gen, SerializerProvider provider, Map<String, Object> attributes) throws IOException {
+        if (attributes == null) return;
+        for (Map.Entry<String, Object> e : attributes.entrySet()) {
+            provider.defaultSerializeField(e.getKey(), e.getValue(), gen);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.neurofleet.model;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A document of the {@code users} collection, as edited on the profile page. Fields without a
+ * typed slot (role, email, ...) are kept in {@code attributes}. The document id is the uid and
+ * is not part of the serialised form, as before.
+ */
+public record Profile(String name, String phone, String address, String dateOfBirth, String licenseNumber,
+                      String emergencyContact, String emergencyPhone, String preferredVehicleType,
+                      Map<String, Object> attributes) {
+
+    public static final Profile EMPTY = new Profile(null, null, null, null, null, null, null, null, Map.of());
+
+    public static Profile from(DocumentSnapshot doc) {
+        return doc.exists() ? from(doc.getData()) : EMPTY;
+    }
+
+    /** Takes ownership of {@code data}: typed fields are removed from it and the rest become the attributes. */
+    public static Profile from(Map<String, Object> data) {
+        if (data == null) data = new HashMap<>();
+        return new Profile(Fields.takeString(data, "name"), Fields.takeString(data, "phone"),
+                Fields.takeString(data, "address"), Fields.takeString(data, "dateOfBirth"),
+                Fields.takeString(data, "licenseNumber"), Fields.takeString(data, "emergencyContact"),
+                Fields.takeString(data, "emergencyPhone"), Fields.takeString(data, "preferredVehicleType"), data);
+    }
+}
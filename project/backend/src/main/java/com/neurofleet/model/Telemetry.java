@@ -0,0 +1,47 @@
+package com.neurofleet.model;
+
+import java.util.*;
+
+/**
+ * Point-in-time copy of one vehicle's live telemetry, as kept by TelemetryService. The fields
+ * the simulation and the energy model change are typed; everything else the vehicle was
+ * registered with (make, model, licensePlate, ...) is in {@code attributes}, which is built once
+ * per vehicle and shared by every snapshot, so taking a snapshot allocates only the record.
+ *
+ * Numbers keep the boxed instance from the store, so integers still serialise as integers.
+ */
+public record Telemetry(String id, String status, String type,
+                        Number latitude, Number longitude, Number speed,
+                        Number batteryLevel, Number range, Number batteryHealth,
+                        Number timeToEmptyMinutes, Number efficiencyWhPerKm, Number energyRemainingKwh,
+                        String lastUpdate, Map<String, Object> attributes) {
+
+    private static final Set<String> TYPED = Set.of("id", "status", "type", "latitude", "longitude", "speed",
+            "batteryLevel", "range", "batteryHealth", "timeToEmptyMinutes", "efficiencyWhPerKm",
+            "energyRemainingKwh", "lastUpdate");
+
+    /** The wire form of a live update on the WebSocket and the SSE stream. */
+    public record Update(Telemetry telemetry) {
+    }
+
+    public static Telemetry of(Map<String, Object> v, Map<String, Object> attributes) {
+        return new Telemetry(Fields.string(v, "id"), Fields.string(v, "status"), Fields.string(v, "type"),
+                Fields.number(v, "latitude"), Fields.number(v, "longitude"), Fields.number(v, "speed"),
+                Fields.number(v, "batteryLevel"), Fields.number(v, "range"), Fields.number(v, "batteryHealth"),
+                Fields.number(v, "timeToEmptyMinutes"), Fields.number(v, "efficiencyWhPerKm"),
+                Fields.number(v, "energyRemainingKwh"), Fields.string(v, "lastUpdate"), attributes);
+    }
+
+    /** The fields of a live record that aren't typed, to be passed to {@link #of} with every snapshot. */
+    public static Map<String, Object> attributesOf(Map<String, Object> v) {
+        Map<String, Object> attributes = new HashMap<>();
+        for (Map.Entry<String, Object> e : v.entrySet()) {
+            if (!TYPED.contains(e.getKey())) attributes.put(e.getKey(), e.getValue());
+        }
+        return attributes.isEmpty() ? Map.of() : Collections.unmodifiableMap(attributes);
+    }
+
+    public Update asUpdate() {
+        return new Update(this);
+    }
+}
@@ -0,0 +1,28 @@
+package com.neurofleet.model;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** A document of the {@code vehicles} collection. Fields without a typed slot are kept in {@code attributes}. */
+public record Vehicle(String id, String make, String model, String licensePlate, String type, String status,
+                      String currentDriver, Number latitude, Number longitude, Number speed,
+                      Number batteryLevel, Number batteryCapacity, Number range, Map<String, Object> attributes) {
+
+    public static Vehicle from(DocumentSnapshot doc) {
+        return from(doc.getId(), doc.getData());
+    }
+
+    /** Takes ownership of {@code data}: typed fields are removed from it and the rest become the attributes. */
+    public static Vehicle from(String id, Map<String, Object> data) {
+        if (data == null) data = new HashMap<>();
+        data.remove("id");
+        return new Vehicle(id, Fields.takeString(data, "make"), Fields.takeString(data, "model"),
+                Fields.takeString(data, "licensePlate"), Fields.takeString(data, "type"),
+                Fields.takeString(data, "status"), Fields.takeString(data, "currentDriver"),
+                Fields.takeNumber(data, "latitude"), Fields.takeNumber(data, "longitude"), Fields.takeNumber(data, "speed"),
+                Fields.takeNumber(data, "batteryLevel"), Fields.takeNumber(data, "batteryCapacity"),
+                Fields.takeNumber(data, "range"), data);
+    }
+}
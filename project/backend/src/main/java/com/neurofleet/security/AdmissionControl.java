@@ -0,0 +1,306 @@
+package com.neurofleet.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether a request may run, for {@link AdmissionControlFilter}. Two checks apply:
+ *
+ * Rate: each client (uid when known, otherwise IP) gets a token bucket per route, so one
+ * dashboard polling too fast is slowed down without touching anyone else. Routes under
+ * {@code heavy-paths}, the ones that read Firestore, get a lower rate than the rest.
+ * {@code streaming-paths} (exports, event streams) get the lower rate too, but stay out of
+ * the concurrency limit below: they are open for minutes by design, and their duration says
+ * nothing about overload.
+ *
+ * Concurrency: heavy requests in flight are capped by a limit that adapts to latency. Every
+ * second the p99 of the heavy requests that finished is compared with {@code target-p99-ms};
+ * above it the limit shrinks by a tenth, and while latency is fine and the limit is actually
+ * being reached it grows by one. Under overload the excess is turned away in microseconds
+ * instead of queueing behind Firestore, which keeps the p99 of admitted requests near the
+ * target.
+ *
+ * Everything on the request path is a CAS or an atomic add; nothing locks.
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControl.class);
+
+    /** Outcome of {@link #tryAcquire}; {@link #release} must be called for an admitted heavy request. */
+    public static final class Decision {
+        static final Decision ADMITTED = new Decision(true, false, 0, null);
+        static final Decision ADMITTED_HEAVY = new Decision(true, true, 0, null);
+
+        final boolean admitted;
+        final boolean heavy;
+        final long retryAfterMillis;
+        final String reason;
+
+        Decision(boolean admitted, boolean heavy, long retryAfterMillis, String reason) {
+            this.admitted = admitted;
+            this.heavy = heavy;
+            this.retryAfterMillis = retryAfterMillis;
+            this.reason = reason;
+        }
+
+        public boolean isAdmitted() {
+            return admitted;
+        }
+
+        public boolean isHeavy() {
+            return heavy;
+        }
+
+        /** Whole seconds, as Retry-After wants; never 0 for a rejection. */
+        public long retryAfterSeconds() {
+            return Math.max(1, (retryAfterMillis + 999) / 1000);
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    /**
+     * GCRA form of a token bucket: the whole state is the theoretical arrival time of the next
+     * request, so taking a token is a single CAS on one long.
+     */
+    static final class Bucket {
+        private final AtomicLong tat = new AtomicLong();
+        private final long intervalNanos;
+        private final long toleranceNanos;
+
+        Bucket(double perSecond, int burst) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+            this.toleranceNanos = intervalNanos * Math.max(0, burst - 1);
+        }
+
+        /** 0 if a token was taken, otherwise nanos until one will be available. */
+        long tryTake(long now) {
+            while (true) {
+                long current = tat.get();
+                long base = Math.max(current, now);
+                long wait = base - toleranceNanos - now;
+                if (wait > 0) return wait;
+                if (tat.compareAndSet(current, base + intervalNanos)) return 0;
+            }
+        }
+
+        /** True once the bucket is full again, so dropping it is the same as keeping it. */
+        boolean isIdle(long now) {
+            return tat.get() <= now;
+        }
+    }
+
+    // Latency histogram: 4 buckets per power of two of microseconds, up to ~2^40 us
+    private static final int HISTOGRAM_BUCKETS = 41 * 4;
+
+    private final boolean enabled;
+    private final double ratePerSecond;
+    private final int burst;
+    private final double heavyRatePerSecond;
+    private final int heavyBurst;
+    private final List<String> heavyPaths;
+    private final List<String> streamingPaths;
+    private final long targetP99Micros;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxBuckets;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private final AtomicReference<AtomicLongArray> latencies = new AtomicReference<>(new AtomicLongArray(HISTOGRAM_BUCKETS));
+    private volatile long lastP99Micros;
+    // Highest in-flight count seen since the last adjustment, to tell whether the limit is binding
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    public AdmissionControl(@Value("${app.admission.enabled:true}") boolean enabled,
+                            @Value("${app.admission.rate-per-second:20}") double ratePerSecond,
+                            @Value("${app.admission.burst:40}") int burst,
+                            @Value("${app.admission.heavy-rate-per-second:5}") double heavyRatePerSecond,
+                            @Value("${app.admission.heavy-burst:20}") int heavyBurst,
+                            @Value("${app.admission.heavy-paths:/api/vehicles,/api/bookings,/api/profile}") String heavyPaths,
+                            @Value("${app.admission.streaming-paths:/api/export,/api/vehicles/telemetry/stream}") String streamingPaths,
+                            @Value("${app.admission.target-p99-ms:500}") long targetP99Millis,
+                            @Value("${app.admission.min-concurrency:8}") int minLimit,
+                            @Value("${app.admission.max-concurrency:256}") int maxLimit,
+                            @Value("${app.admission.max-buckets:100000}") int maxBuckets) {
+        this.enabled = enabled;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.heavyRatePerSecond = heavyRatePerSecond;
+        this.heavyBurst = heavyBurst;
+        this.heavyPaths = prefixes(heavyPaths);
+        this.streamingPaths = prefixes(streamingPaths);
+        this.targetP99Micros = TimeUnit.MILLISECONDS.toMicros(targetP99Millis);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxBuckets = maxBuckets;
+        this.limit = maxLimit;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Decision tryAcquire(String client, String method, String path) {
+        boolean streaming = isUnder(path, streamingPaths);
+        boolean heavy = !streaming && isUnder(path, heavyPaths);
+        String route = routeOf(method, path);
+        long now = System.nanoTime();
+
+        Bucket bucket = bucketFor(client + " " + route, heavy || streaming);
+        long wait = bucket.tryTake(now);
+        if (wait > 0) {
+            rateLimited.increment();
+            return new Decision(false, heavy, TimeUnit.NANOSECONDS.toMillis(wait), "rate");
+        }
+
+        if (heavy) {
+            int current;
+            do {
+                current = inFlight.get();
+                if (current >= limit) {
+                    shed.increment();
+                    return new Decision(false, true, 1000, "overload");
+                }
+            } while (!inFlight.compareAndSet(current, current + 1));
+            peakInFlight.accumulateAndGet(current + 1, Math::max);
+            admitted.increment();
+            return Decision.ADMITTED_HEAVY;
+        }
+        admitted.increment();
+        return Decision.ADMITTED;
+    }
+
+    /** Ends an admitted heavy request and records how long it took. */
+    public void release(long elapsedNanos) {
+        inFlight.decrementAndGet();
+        latencies.get().incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void adjustLimit() {
+        AtomicLongArray window = latencies.getAndSet(new AtomicLongArray(HISTOGRAM_BUCKETS));
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        long count = 0;
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) count += window.get(i);
+        // Too few samples say nothing about p99
+        if (count < 20) return;
+
+        long rank = (long) Math.ceil(count * 0.99);
+        long seen = 0;
+        int b = 0;
+        for (; b < HISTOGRAM_BUCKETS; b++) {
+            seen += window.get(b);
+            if (seen >= rank) break;
+        }
+        long p99 = upperBoundOf(b);
+        lastP99Micros = p99;
+
+        int current = limit;
+        if (p99 > targetP99Micros) {
+            int next = Math.max(minLimit, current - Math.max(1, current / 10));
+            if (next != current) {
+                limit = next;
+                log.info("admission.limit-decreased limit={} p99Ms={} targetMs={}", next, p99 / 1000, targetP99Micros / 1000);
+            }
+        } else if (peak >= current && current < maxLimit) {
+            limit = current + 1;
+            log.debug("admission.limit-increased limit={} p99Ms={}", current + 1, p99 / 1000);
+        }
+    }
+
+    /** Drops buckets that have refilled, since a fresh one would behave the same. */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(b -> b.isIdle(now));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("admitted", admitted.sum());
+        stats.put("rateLimited", rateLimited.sum());
+        stats.put("shed", shed.sum());
+        stats.put("inFlight", inFlight.get());
+        stats.put("concurrencyLimit", limit);
+        stats.put("lastP99Ms", lastP99Micros / 1000.0);
+        stats.put("targetP99Ms", targetP99Micros / 1000);
+        stats.put("buckets", buckets.size());
+        return stats;
+    }
+
+    private static boolean isUnder(String path, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            // ":" covers custom methods on the collection, such as /api/vehicles:batchGet
+            if (path.equals(prefix) || path.startsWith(prefix + "/") || path.startsWith(prefix + ":")) return true;
+        }
+        return false;
+    }
+
+    private static List<String> prefixes(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    // Path segments past /api/<resource> are usually ids, so they collapse into one route
+    static String routeOf(String method, String path) {
+        StringBuilder route = new StringBuilder(method).append(' ');
+        int segments = 0;
+        int i = 0;
+        while (i < path.length()) {
+            int next = path.indexOf('/', i + 1);
+            if (next < 0) next = path.length();
+            if (next > i + 1 || path.charAt(i) != '/') {
+                segments++;
+                if (segments > 4) break;
+                route.append(segments <= 2 ? path.substring(i, next) : "/*");
+            }
+            i = next;
+        }
+        return route.toString();
+    }
+
+    private Bucket bucketFor(String key, boolean heavy) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) return bucket;
+        if (buckets.size() >= maxBuckets) {
+            // Too many distinct clients (or spoofed ones); newcomers share one bucket per tier
+            key = heavy ? "overflow heavy" : "overflow";
+        }
+        return buckets.computeIfAbsent(key, k -> heavy ? new Bucket(heavyRatePerSecond, heavyBurst) : new Bucket(ratePerSecond, burst));
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < 4) return (int) Math.max(0, micros);
+        int exp = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) ((micros >>> (exp - 2)) & 3);
+        return Math.min(HISTOGRAM_BUCKETS - 1, (exp - 1) * 4 + sub);
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < 4) return bucket + 1;
+        int exp = bucket / 4 + 1;
+        int sub = bucket % 4;
+        return (long) (4 + sub + 1) << (exp - 2);
+    }
+}
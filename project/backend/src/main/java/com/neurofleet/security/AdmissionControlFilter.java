@@ -0,0 +1,111 @@
+package com.neurofleet.security;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies {@link AdmissionControl} to API requests and answers refusals with 429 and a
+ * Retry-After header before any controller or Firestore work happens. Not a bean on purpose:
+ * Spring Boot would also register a bean filter with the servlet container, where it would
+ * run ahead of authentication and only see IP addresses.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final AdmissionControl admission;
+    private final VerifiedTokenCache tokenCache;
+
+    public AdmissionControlFilter(AdmissionControl admission, VerifiedTokenCache tokenCache) {
+        this.admission = admission;
+        this.tokenCache = tokenCache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !admission.isEnabled()
+                || "OPTIONS".equals(request.getMethod())
+                || !path.startsWith("/api/")
+                || path.equals("/api/auth/health");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdmissionControl.Decision decision = admission.tryAcquire(clientOf(request), request.getMethod(), request.getRequestURI());
+        if (!decision.isAdmitted()) {
+            long retryAfter = decision.retryAfterSeconds();
+            response.setStatus(429);
+            response.setHeader("Retry-After", Long.toString(retryAfter));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"Too many requests\",\"reason\":\"" + decision.getReason()
+                    + "\",\"retryAfterSeconds\":" + retryAfter + "}");
+            return;
+        }
+        if (!decision.isHeavy()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        // Released exactly once, whether the request finishes here or on an async dispatch
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) admission.release(System.nanoTime() - start);
+        };
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        release.run();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        release.run();
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        release.run();
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    // uid when the request carries a token we already verified, else the caller's address. Behind
+    // a proxy that is the forwarded client address (server.forward-headers-strategy), not the proxy's
+    private String clientOf(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)) {
+            return "uid:" + auth.getName();
+        }
+        String header = request.getHeader("Authorization");
+        if (StringUtils.hasText(header) && header.startsWith("Bearer ")) {
+            VerifiedTokenCache.Entry entry = tokenCache.peek(VerifiedTokenCache.keyOf(header.substring(7)));
+            if (entry != null) return "uid:" + entry.getUid();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -3,10 +3,13 @@ package com.neurofleet.security;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseToken;
+import com.neurofleet.util.LogThrottle;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -23,53 +26,77 @@ import java.util.List;
 @Component
 public class FirebaseAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(FirebaseAuthenticationFilter.class);
+    // A client retrying with a bad token, or someone probing, shouldn't fill the log
+    private static final LogThrottle rejectedLog = new LogThrottle(10, 60000);
+
+    private final VerifiedTokenCache tokenCache;
+
+    public FirebaseAuthenticationFilter(VerifiedTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        System.out.println("FirebaseAuthenticationFilter processing request: " + request.getRequestURI());
-        
+        log.trace("auth.request uri={}", request.getRequestURI());
+
         // Allow requests through if Firebase was not initialised (development mode)
         if (FirebaseApp.getApps().isEmpty()) {
-            System.out.println("Firebase not initialized, allowing request through");
+            log.trace("auth.skip reason=firebase-not-initialized");
             filterChain.doFilter(request, response);
             return;
         }
 
         String header = request.getHeader("Authorization");
-        System.out.println("Authorization header: " + header);
-        
+
         if (StringUtils.hasText(header) && header.startsWith("Bearer ")) {
             String token = header.substring(7);
-            System.out.println("Processing Firebase token");
             try {
-                FirebaseToken decoded = FirebaseAuth.getInstance().verifyIdToken(token);
-                System.out.println("Token verified for user: " + decoded.getUid());
-                
-                // Create authorities list with default ROLE_USER
-                List<SimpleGrantedAuthority> authorities = new ArrayList<>();
-                authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
-                
-                // Check if user has admin claim
-                if (decoded.getClaims().containsKey("role") && 
-                    "admin".equals(decoded.getClaims().get("role"))) {
-                    authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+                String key = VerifiedTokenCache.keyOf(token);
+                VerifiedTokenCache.Entry verified = tokenCache.get(key);
+                if (verified == null) {
+                    FirebaseToken decoded = FirebaseAuth.getInstance().verifyIdToken(token);
+                    log.debug("auth.verified uid={}", decoded.getUid());
+
+                    // Create authorities list with default ROLE_USER
+                    List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+                    authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+
+                    // Check if user has admin claim
+                    if (decoded.getClaims().containsKey("role") &&
+                        "admin".equals(decoded.getClaims().get("role"))) {
+                        authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+                    }
+
+                    verified = tokenCache.put(key, decoded.getUid(), authorities,
+                            epochSeconds(decoded.getClaims().get("iat")), epochSeconds(decoded.getClaims().get("exp")));
+                    if (verified == null) {
+                        log.info("auth.rejected uid={} reason=revoked", decoded.getUid());
+                        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                        return;
+                    }
                 }
-                
+
                 Authentication auth = new UsernamePasswordAuthenticationToken(
-                    decoded.getUid(), 
-                    null, 
-                    authorities
+                    verified.getUid(),
+                    null,
+                    verified.getAuthorities()
                 );
                 SecurityContextHolder.getContext().setAuthentication(auth);
             } catch (Exception e) {
-                System.err.println("Failed to verify Firebase token: " + e.getMessage());
-                e.printStackTrace();
+                if (rejectedLog.tryAcquire()) {
+                    log.info("auth.rejected reason=invalid-token error={} suppressed={}", e.getMessage(), rejectedLog.drainSuppressed());
+                }
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 return;
             }
-        } else {
-            System.out.println("No valid Authorization header found");
         }
         filterChain.doFilter(request, response);
     }
+
+    // iat/exp arrive as numbers of seconds; a missing one yields 0, which the cache won't keep
+    private static long epochSeconds(Object claim) {
+        return claim instanceof Number ? ((Number) claim).longValue() : 0;
+    }
 }
\ No newline at end of file
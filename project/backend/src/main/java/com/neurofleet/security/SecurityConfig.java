@@ -1,5 +1,6 @@
 package com.neurofleet.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -14,9 +15,14 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final FirebaseAuthenticationFilter firebaseAuthenticationFilter;
+    private final AdmissionControl admissionControl;
+    private final VerifiedTokenCache tokenCache;
 
-    public SecurityConfig(FirebaseAuthenticationFilter firebaseAuthenticationFilter) {
+    public SecurityConfig(FirebaseAuthenticationFilter firebaseAuthenticationFilter, AdmissionControl admissionControl,
+                          VerifiedTokenCache tokenCache) {
         this.firebaseAuthenticationFilter = firebaseAuthenticationFilter;
+        this.admissionControl = admissionControl;
+        this.tokenCache = tokenCache;
     }
 
     @Bean
@@ -26,13 +32,27 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Async controllers re-dispatch only to write a result the original request was already authorized for
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/", "/api/auth/**").permitAll()
                 .requestMatchers("/ws/**").permitAll()
                 .requestMatchers("/api/vehicles/**").permitAll() // Allow access to vehicles API for development
+                .requestMatchers("/api/vehicles:*").permitAll() // Allow access to vehicle batch API for development
                 .requestMatchers("/api/bookings/**").permitAll() // Allow access to bookings API for development
+                .requestMatchers("/api/charging/**").permitAll() // Allow access to charging API for development
+                .requestMatchers("/api/quotes/**").permitAll() // Allow access to quotes API for development
+                .requestMatchers("/api/heatmap/**").permitAll() // Allow access to heatmap API for development
+                .requestMatchers("/api/rebalancing/**").permitAll() // Allow access to rebalancing API for development
+                .requestMatchers("/api/archive/**").permitAll() // Allow access to archive API for development
+                // Booking rows carry customer emails; only the other exports stay open for development
+                .requestMatchers("/api/export/bookings").authenticated()
+                .requestMatchers("/api/export/**").permitAll() // Allow access to export API for development
+                .requestMatchers("/api/admission/**").permitAll() // Allow access to admission stats API for development
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(firebaseAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(firebaseAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            // After authentication so buckets are keyed by user rather than by address where possible
+            .addFilterAfter(new AdmissionControlFilter(admissionControl, tokenCache), FirebaseAuthenticationFilter.class);
         return http.build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.neurofleet.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers ID tokens that {@link FirebaseAuthenticationFilter} has already verified, so a
+ * dashboard polling with the same token pays for one signature check per token rather than
+ * one per request. Entries are keyed by a SHA-256 of the token (the token itself is never
+ * held) and live until the token's {@code exp}, capped at {@code max-ttl-ms} so a revocation
+ * made outside this backend, e.g. in the Firebase console, is honoured within that time.
+ *
+ * Revocations made through this backend take effect at once: {@link #revokeUser} drops the
+ * user's entries and rejects any token of theirs issued before the revocation, including one
+ * that is verified again after being evicted.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final Logger log = LoggerFactory.getLogger(VerifiedTokenCache.class);
+
+    // Firebase ID tokens live for an hour, so older revocation markers can no longer match anything
+    private static final long MAX_TOKEN_LIFETIME_SECONDS = 3600;
+
+    /** A verified token's principal and authorities. */
+    public static final class Entry {
+        final String uid;
+        final List<SimpleGrantedAuthority> authorities;
+        final long issuedAtSeconds;
+        final long expiresAtMillis;
+
+        Entry(String uid, List<SimpleGrantedAuthority> authorities, long issuedAtSeconds, long expiresAtMillis) {
+            this.uid = uid;
+            this.authorities = authorities;
+            this.issuedAtSeconds = issuedAtSeconds;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public String getUid() {
+            return uid;
+        }
+
+        public List<SimpleGrantedAuthority> getAuthorities() {
+            return authorities;
+        }
+    }
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final int maxEntries;
+    private final long maxTtlMillis;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // uid -> epoch second before which that user's tokens are no longer accepted
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong revokedRejections = new AtomicLong();
+
+    public VerifiedTokenCache(@Value("${app.auth.token-cache.max-entries:50000}") int maxEntries,
+                              @Value("${app.auth.token-cache.max-ttl-ms:300000}") long maxTtlMillis) {
+        this.maxEntries = maxEntries;
+        this.maxTtlMillis = maxTtlMillis;
+    }
+
+    public static String keyOf(String token) {
+        byte[] digest = SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    /** The cached entry for key, or null if there is none, it expired or its user was revoked. */
+    public Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        // Also re-checked here because a put can race a revocation of the same user
+        if (System.currentTimeMillis() >= entry.expiresAtMillis
+                || (!revokedBefore.isEmpty() && isRevoked(entry.uid, entry.issuedAtSeconds))) {
+            entries.remove(key, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry;
+    }
+
+    /** Like {@link #get} but without counting towards the hit rate; for callers that only want to identify the client. */
+    public Entry peek(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && System.currentTimeMillis() < entry.expiresAtMillis ? entry : null;
+    }
+
+    /**
+     * Caches a freshly verified token. Returns the entry, or null if the token was issued
+     * before a revocation of its user, in which case the caller must reject it.
+     */
+    public Entry put(String key, String uid, List<SimpleGrantedAuthority> authorities,
+                     long issuedAtSeconds, long expiresAtSeconds) {
+        if (isRevoked(uid, issuedAtSeconds)) {
+            revokedRejections.incrementAndGet();
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(expiresAtSeconds * 1000, now + maxTtlMillis);
+        Entry entry = new Entry(uid, List.copyOf(authorities), issuedAtSeconds, expiresAt);
+        if (expiresAt <= now) return entry;
+        entries.put(key, entry);
+        if (entries.size() > maxEntries) trim(now);
+        return entry;
+    }
+
+    public void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    /** Drops every cached token of uid and refuses those issued up to now from here on. */
+    public void revokeUser(String uid) {
+        if (uid == null) return;
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        revokedBefore.values().removeIf(before -> before < nowSeconds - MAX_TOKEN_LIFETIME_SECONDS);
+        // Firebase compares issue times in whole seconds; anything issued this second or earlier is revoked
+        revokedBefore.put(uid, nowSeconds + 1);
+        entries.values().removeIf(e -> uid.equals(e.uid));
+        log.info("auth.revoked uid={}", uid);
+    }
+
+    public boolean isRevoked(String uid, long issuedAtSeconds) {
+        Long before = revokedBefore.get(uid);
+        return before != null && issuedAtSeconds < before;
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m == 0 ? 0.0 : Math.round(h * 10000.0 / (h + m)) / 10000.0);
+        stats.put("evictions", evictions.get());
+        stats.put("revokedRejections", revokedRejections.get());
+        stats.put("revokedUsers", revokedBefore.size());
+        return stats;
+    }
+
+    // Expired entries go first; if that is not enough, arbitrary ones down to 90% so the next
+    // few puts don't trim again. The map has no access order, and a wrongly evicted token only
+    // costs one more verification.
+    private synchronized void trim(long now) {
+        if (entries.size() <= maxEntries) return;
+        long removed = 0;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (now >= it.next().expiresAtMillis) {
+                it.remove();
+                removed++;
+            }
+        }
+        int target = maxEntries - maxEntries / 10;
+        it = entries.values().iterator();
+        while (entries.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+            removed++;
+        }
+        evictions.addAndGet(removed);
+    }
+}
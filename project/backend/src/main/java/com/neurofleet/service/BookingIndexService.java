@@ -0,0 +1,237 @@
+package com.neurofleet.service;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-customer index of booking ids, newest first, kept current by a snapshot listener on
+ * {@code bookings} and by write-through from the controller. Serving a customer's bookings
+ * then costs one batched read of exactly their documents, instead of a query that needs the
+ * (customerId, createdAt) composite index or a scan of the whole collection without it.
+ *
+ * The index itself holds only ids and sort keys, but the SDK's snapshot listener keeps its own
+ * copy of every booking document to compute changes, so the process holds the whole collection
+ * while the index runs; listen queries can't be narrowed with select(). Set
+ * {@code app.bookings.index.enabled=false} once that outgrows the heap, and customer lists fall
+ * back to the Firestore query. Bookings without a createdAt are left out, as they are by the
+ * equivalent orderBy query. Like the vehicle replica, the index is only used while the
+ * listener is connected or within {@code app.bookings.index.max-staleness-ms}.
+ */
+@Service
+public class BookingIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingIndexService.class);
+
+    /** Sort key of one booking: createdAt descending, then id descending. */
+    public static final class Entry implements Comparable<Entry> {
+        public final String id;
+        public final String customerId;
+        public final Timestamp createdAt;
+
+        Entry(String id, String customerId, Timestamp createdAt) {
+            this.id = id;
+            this.customerId = customerId;
+            this.createdAt = createdAt;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            int c = o.createdAt.compareTo(createdAt);
+            return c != 0 ? c : o.id.compareTo(id);
+        }
+    }
+
+    private final Firestore db;
+    private final boolean enabled;
+    private final long maxStalenessMillis;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> byId = new HashMap<>();
+    private final Map<String, NavigableSet<Entry>> byCustomer = new HashMap<>();
+
+    private volatile ListenerRegistration registration;
+    private volatile boolean synced;
+    private volatile boolean connected;
+    // Set when the listener reported an error, which terminates it. Not connected yet only means
+    // the first snapshot, the whole collection, is still on its way; re-attaching would restart it.
+    private volatile boolean listenerFailed;
+    private volatile long disconnectedAt;
+
+    public BookingIndexService(Firestore db,
+                               @Value("${app.bookings.index.enabled:true}") boolean enabled,
+                               @Value("${app.bookings.index.max-staleness-ms:30000}") long maxStalenessMillis) {
+        this.db = db;
+        this.enabled = enabled;
+        this.maxStalenessMillis = maxStalenessMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (db == null || !enabled) return;
+        subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        ListenerRegistration r = registration;
+        if (r != null) r.remove();
+    }
+
+    // Same as the vehicle replica: only a listener that errored is re-attached
+    @Scheduled(fixedDelay = 10000)
+    public void watchdog() {
+        if (db == null || !enabled || !listenerFailed) return;
+        log.info("booking-index.reattach");
+        listenerFailed = false;
+        stop();
+        subscribe();
+    }
+
+    public boolean isServing() {
+        if (!synced) return false;
+        return connected || System.currentTimeMillis() - disconnectedAt <= maxStalenessMillis;
+    }
+
+    /**
+     * Up to {@code limit} of the customer's bookings, newest first, strictly after the given
+     * (createdAt, id) position when one is given.
+     */
+    public List<Entry> bookingsFor(String customerId, Timestamp afterCreatedAt, String afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> entries = byCustomer.get(customerId);
+            if (entries == null) return List.of();
+            Collection<Entry> view = afterCreatedAt != null
+                    ? entries.tailSet(new Entry(afterId, customerId, afterCreatedAt), false)
+                    : entries;
+            List<Entry> out = new ArrayList<>(Math.min(limit, view.size()));
+            for (Entry e : view) {
+                if (out.size() >= limit) break;
+                out.add(e);
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countFor(String customerId) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> entries = byCustomer.get(customerId);
+            return entries != null ? entries.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Write-through hooks for the controller
+
+    public void put(String id, Map<String, Object> data) {
+        lock.writeLock().lock();
+        try {
+            index(id, data.get("customerId"), data.get("createdAt"));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Applies a partial update; only customerId and createdAt matter to the index. */
+    public void merge(String id, Map<String, Object> partial) {
+        if (!partial.containsKey("customerId") && !partial.containsKey("createdAt")) return;
+        lock.writeLock().lock();
+        try {
+            Entry old = byId.get(id);
+            Object customerId = partial.containsKey("customerId") ? partial.get("customerId") : old != null ? old.customerId : null;
+            Object createdAt = partial.containsKey("createdAt") ? partial.get("createdAt") : old != null ? old.createdAt : null;
+            index(id, customerId, createdAt);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            drop(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void subscribe() {
+        AtomicBoolean first = new AtomicBoolean(true);
+        registration = db.collection("bookings").addSnapshotListener((snap, error) -> {
+            if (error != null) {
+                if (connected) disconnectedAt = System.currentTimeMillis();
+                connected = false;
+                listenerFailed = true;
+                log.warn("booking-index.listener-failed error={}", error.getMessage());
+                return;
+            }
+            if (snap == null) return;
+            lock.writeLock().lock();
+            try {
+                if (first.getAndSet(false)) {
+                    byId.clear();
+                    byCustomer.clear();
+                    for (QueryDocumentSnapshot d : snap.getDocuments()) {
+                        index(d.getId(), d.get("customerId"), d.get("createdAt"));
+                    }
+                } else {
+                    for (DocumentChange change : snap.getDocumentChanges()) {
+                        QueryDocumentSnapshot d = change.getDocument();
+                        if (change.getType() == DocumentChange.Type.REMOVED) {
+                            drop(d.getId());
+                        } else {
+                            index(d.getId(), d.get("customerId"), d.get("createdAt"));
+                        }
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!synced) {
+                log.info("booking-index.synced bookings={} customers={}", snap.size(), byCustomer.size());
+            }
+            synced = true;
+            connected = true;
+        });
+    }
+
+    // Callers hold the write lock
+    private void index(String id, Object customerId, Object createdAt) {
+        drop(id);
+        Timestamp ts = toTimestamp(createdAt);
+        if (customerId == null || ts == null) return;
+        Entry e = new Entry(id, customerId.toString(), ts);
+        byId.put(id, e);
+        byCustomer.computeIfAbsent(e.customerId, k -> new TreeSet<>()).add(e);
+    }
+
+    private void drop(String id) {
+        Entry old = byId.remove(id);
+        if (old == null) return;
+        NavigableSet<Entry> entries = byCustomer.get(old.customerId);
+        if (entries == null) return;
+        entries.remove(old);
+        if (entries.isEmpty()) byCustomer.remove(old.customerId);
+    }
+
+    private static Timestamp toTimestamp(Object value) {
+        if (value instanceof Timestamp) return (Timestamp) value;
+        if (value instanceof Date) return Timestamp.of((Date) value);
+        return null;
+    }
+}
@@ -0,0 +1,214 @@
+package com.neurofleet.service;
+
+import java.util.*;
+
+public class ChargingStation {
+
+    public enum ConnectorType {
+        LEVEL1("level1", 3.3),
+        LEVEL2("level2", 7.4),
+        DC_FAST("dcFast", 50.0),
+        SUPERCHARGER("supercharger", 150.0);
+
+        private final String code;
+        private final double powerKw;
+
+        ConnectorType(String code, double powerKw) {
+            this.code = code;
+            this.powerKw = powerKw;
+        }
+
+        public String code() {
+            return code;
+        }
+
+        public double powerKw() {
+            return powerKw;
+        }
+
+        public int bit() {
+            return 1 << ordinal();
+        }
+
+        public static ConnectorType fromCode(String code) {
+            for (ConnectorType t : values()) {
+                if (t.code.equalsIgnoreCase(code) || t.name().equalsIgnoreCase(code)) return t;
+            }
+            return null;
+        }
+
+        // Connectors a vehicle can plug into: hybrids only take AC, full EVs take everything
+        public static int compatibleMask(String vehicleType) {
+            if ("hybrid".equalsIgnoreCase(vehicleType)) {
+                return LEVEL1.bit() | LEVEL2.bit();
+            }
+            return LEVEL1.bit() | LEVEL2.bit() | DC_FAST.bit() | SUPERCHARGER.bit();
+        }
+    }
+
+    public static final class Connector {
+        private final String id;
+        private final ConnectorType type;
+        private String occupant;
+        private long occupiedSince;
+
+        Connector(String id, ConnectorType type) {
+            this.id = id;
+            this.type = type;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public ConnectorType getType() {
+            return type;
+        }
+    }
+
+    private final String id;
+    private final String name;
+    private final double latitude;
+    private final double longitude;
+    private final double pricePerKwh;
+    private final Connector[] connectors;
+    private final int typeMask;
+
+    private volatile boolean maintenance;
+    // Bit per ConnectorType that has at least one free connector; read lock-free by the spatial index
+    private volatile int freeMask;
+
+    public ChargingStation(String id, String name, double latitude, double longitude,
+                           double pricePerKwh, Map<ConnectorType, Integer> ports) {
+        this.id = id;
+        this.name = name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.pricePerKwh = pricePerKwh;
+
+        List<Connector> list = new ArrayList<>();
+        int mask = 0;
+        for (ConnectorType type : ConnectorType.values()) {
+            int count = ports.getOrDefault(type, 0);
+            for (int i = 0; i < count; i++) {
+                list.add(new Connector(id + "-" + type.code() + "-" + (i + 1), type));
+            }
+            if (count > 0) mask |= type.bit();
+        }
+        this.connectors = list.toArray(new Connector[0]);
+        this.typeMask = mask;
+        this.freeMask = mask;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public boolean isMaintenance() {
+        return maintenance;
+    }
+
+    public void setMaintenance(boolean maintenance) {
+        this.maintenance = maintenance;
+    }
+
+    public boolean hasFreeConnector(int compatibleMask) {
+        return !maintenance && (freeMask & compatibleMask) != 0;
+    }
+
+    public boolean supports(int compatibleMask) {
+        return (typeMask & compatibleMask) != 0;
+    }
+
+    // Plugs the vehicle into the fastest free compatible connector
+    public synchronized Connector occupy(String vehicleId, int compatibleMask) {
+        if (maintenance) return null;
+        Connector best = null;
+        for (Connector c : connectors) {
+            if (vehicleId.equals(c.occupant)) return c;
+            if (c.occupant == null && (c.type.bit() & compatibleMask) != 0
+                    && (best == null || c.type.powerKw() > best.type.powerKw())) {
+                best = c;
+            }
+        }
+        if (best != null) {
+            best.occupant = vehicleId;
+            best.occupiedSince = System.currentTimeMillis();
+            recomputeFreeMask();
+        }
+        return best;
+    }
+
+    public synchronized boolean release(String vehicleId) {
+        boolean released = false;
+        for (Connector c : connectors) {
+            if (vehicleId.equals(c.occupant)) {
+                c.occupant = null;
+                c.occupiedSince = 0;
+                released = true;
+            }
+        }
+        if (released) recomputeFreeMask();
+        return released;
+    }
+
+    private void recomputeFreeMask() {
+        int mask = 0;
+        for (Connector c : connectors) {
+            if (c.occupant == null) mask |= c.type.bit();
+        }
+        freeMask = mask;
+    }
+
+    // Shape matches what the dashboard's charging station cards render
+    public synchronized Map<String, Object> toPayload(int averageSessionMinutes) {
+        int available = 0;
+        Set<String> types = new LinkedHashSet<>();
+        List<String> charging = new ArrayList<>();
+        List<Map<String, Object>> connectorList = new ArrayList<>();
+        for (Connector c : connectors) {
+            types.add(c.type.code());
+            if (c.occupant == null) {
+                available++;
+            } else {
+                charging.add(c.occupant);
+            }
+            Map<String, Object> cm = new HashMap<>();
+            cm.put("id", c.id);
+            cm.put("type", c.type.code());
+            cm.put("powerKw", c.type.powerKw());
+            cm.put("occupiedBy", c.occupant);
+            cm.put("occupiedSince", c.occupiedSince > 0 ? new Date(c.occupiedSince) : null);
+            connectorList.add(cm);
+        }
+
+        String status = maintenance ? "maintenance" : (available == 0 ? "full" : "operational");
+        int waitTime = available > 0 || connectors.length == 0 ? 0 : averageSessionMinutes / connectors.length;
+
+        Map<String, Object> m = new HashMap<>();
+        m.put("id", id);
+        m.put("name", name);
+        m.put("location", Map.of("latitude", latitude, "longitude", longitude));
+        m.put("totalPorts", connectors.length);
+        m.put("availablePorts", available);
+        m.put("chargingType", new ArrayList<>(types));
+        m.put("status", status);
+        m.put("currentlyCharging", charging);
+        m.put("waitTime", waitTime);
+        m.put("pricePerKwh", pricePerKwh);
+        m.put("connectors", connectorList);
+        return m;
+    }
+}
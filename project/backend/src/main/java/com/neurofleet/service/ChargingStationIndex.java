@@ -0,0 +1,124 @@
+package com.neurofleet.service;
+
+import com.neurofleet.util.GeoUtils;
+
+import java.util.List;
+
+/**
+ * Immutable uniform-grid index over charging stations. Stations are bucketed into
+ * fixed-size lat/lng cells stored in CSR form (cellStart/stationIdx), and nearest
+ * queries expand ring by ring from the query cell until no closer station can exist.
+ */
+final class ChargingStationIndex {
+
+    static final ChargingStationIndex EMPTY = new ChargingStationIndex(new ChargingStation[0], 0.02);
+
+    static final class Match {
+        final ChargingStation station;
+        final double distanceKm;
+
+        Match(ChargingStation station, double distanceKm) {
+            this.station = station;
+            this.distanceKm = distanceKm;
+        }
+    }
+
+    private final ChargingStation[] stations;
+    private final double cellDeg;
+    private final double minLat;
+    private final double minLng;
+    private final int rows;
+    private final int cols;
+    private final int[] cellStart;
+    private final int[] stationIdx;
+    // Smallest ground width of one cell across the indexed area, used as the ring lower bound
+    private final double minCellKm;
+
+    private ChargingStationIndex(ChargingStation[] stations, double cellDeg) {
+        this.stations = stations;
+        this.cellDeg = cellDeg;
+
+        double loLat = Double.MAX_VALUE, hiLat = -Double.MAX_VALUE, loLng = Double.MAX_VALUE, hiLng = -Double.MAX_VALUE;
+        for (ChargingStation s : stations) {
+            loLat = Math.min(loLat, s.getLatitude());
+            hiLat = Math.max(hiLat, s.getLatitude());
+            loLng = Math.min(loLng, s.getLongitude());
+            hiLng = Math.max(hiLng, s.getLongitude());
+        }
+        if (stations.length == 0) {
+            loLat = hiLat = loLng = hiLng = 0;
+        }
+        this.minLat = loLat;
+        this.minLng = loLng;
+        this.rows = (int) Math.floor((hiLat - loLat) / cellDeg) + 1;
+        this.cols = (int) Math.floor((hiLng - loLng) / cellDeg) + 1;
+
+        int[] counts = new int[rows * cols + 1];
+        for (ChargingStation s : stations) {
+            counts[cellOf(s.getLatitude(), s.getLongitude()) + 1]++;
+        }
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        this.cellStart = counts.clone();
+        this.stationIdx = new int[stations.length];
+        int[] cursor = counts;
+        for (int i = 0; i < stations.length; i++) {
+            int cell = cellOf(stations[i].getLatitude(), stations[i].getLongitude());
+            stationIdx[cursor[cell]++] = i;
+        }
+
+        double maxAbsLat = Math.min(89.0, Math.max(Math.abs(loLat), Math.abs(hiLat)) + cellDeg);
+        this.minCellKm = cellDeg * GeoUtils.KM_PER_DEGREE_LAT * Math.cos(Math.toRadians(maxAbsLat));
+    }
+
+    static ChargingStationIndex build(List<ChargingStation> stations, double cellDeg) {
+        return new ChargingStationIndex(stations.toArray(new ChargingStation[0]), cellDeg);
+    }
+
+    private int cellOf(double lat, double lng) {
+        int r = (int) Math.floor((lat - minLat) / cellDeg);
+        int c = (int) Math.floor((lng - minLng) / cellDeg);
+        return r * cols + c;
+    }
+
+    /**
+     * Nearest station with a free connector in {@code compatibleMask} whose straight-line
+     * distance is at most {@code maxKm}. Returns null when nothing qualifies.
+     */
+    Match nearestAvailable(double lat, double lng, double maxKm, int compatibleMask) {
+        if (stations.length == 0) return null;
+
+        int r0 = (int) Math.floor((lat - minLat) / cellDeg);
+        int c0 = (int) Math.floor((lng - minLng) / cellDeg);
+        int maxRing = Math.max(Math.max(Math.abs(r0), Math.abs(rows - 1 - r0)),
+                Math.max(Math.abs(c0), Math.abs(cols - 1 - c0)));
+
+        ChargingStation best = null;
+        double bestKm = maxKm;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Any station in this ring is at least (ring - 1) whole cells away
+            if (ring > 1 && (ring - 1) * minCellKm > bestKm) break;
+
+            for (int r = r0 - ring; r <= r0 + ring; r++) {
+                if (r < 0 || r >= rows) continue;
+                boolean edgeRow = r == r0 - ring || r == r0 + ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int c = c0 - ring; c <= c0 + ring; c += Math.max(step, 1)) {
+                    if (c < 0 || c >= cols) continue;
+                    int cell = r * cols + c;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        ChargingStation s = stations[stationIdx[k]];
+                        if (!s.hasFreeConnector(compatibleMask)) continue;
+                        double d = GeoUtils.haversineKm(lat, lng, s.getLatitude(), s.getLongitude());
+                        if (d <= bestKm) {
+                            bestKm = d;
+                            best = s;
+                        }
+                    }
+                }
+            }
+        }
+        return best == null ? null : new Match(best, bestKm);
+    }
+}
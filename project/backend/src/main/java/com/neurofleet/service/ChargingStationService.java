@@ -0,0 +1,337 @@
+package com.neurofleet.service;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.neurofleet.service.ChargingStation.ConnectorType;
+import com.neurofleet.util.GeoUtils;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Service
+public class ChargingStationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChargingStationService.class);
+
+    private static final int AVERAGE_SESSION_MINUTES = 45;
+    // Close enough to the station to plug in
+    private static final double ARRIVAL_KM = 0.05;
+
+    /** Status of a vehicle driving to the connector the scheduler reserved for it. */
+    public static final String EN_ROUTE = "en-route";
+
+    private final Firestore db;
+    private final TelemetryService telemetry;
+    private final EnergyModelService energy;
+
+    private final List<ChargingStation> stations = new CopyOnWriteArrayList<>();
+    private final Map<String, ChargingStation> stationsById = new ConcurrentHashMap<>();
+    // vehicleId -> station the vehicle is plugged into or reserved at
+    private final Map<String, String> assignments = new ConcurrentHashMap<>();
+    private final Map<String, ChargeRequest> pending = new ConcurrentHashMap<>();
+    private volatile ChargingStationIndex index = ChargingStationIndex.EMPTY;
+
+    @Value("${app.charging.low-battery-threshold:20}")
+    private double lowBatteryThreshold;
+
+    @Value("${app.charging.index-cell-degrees:0.02}")
+    private double cellDegrees;
+
+    public static final class ChargeRequest {
+        final String vehicleId;
+        final long requestedAt;
+        double slackKm;
+        int attempts;
+
+        ChargeRequest(String vehicleId) {
+            this.vehicleId = vehicleId;
+            this.requestedAt = System.currentTimeMillis();
+        }
+
+        Map<String, Object> toPayload() {
+            Map<String, Object> m = new HashMap<>();
+            m.put("vehicleId", vehicleId);
+            m.put("requestedAt", new Date(requestedAt));
+            m.put("slackKm", slackKm);
+            m.put("attempts", attempts);
+            m.put("stranded", slackKm < 0);
+            return m;
+        }
+    }
+
+    public ChargingStationService(Firestore db, TelemetryService telemetry, EnergyModelService energy) {
+        this.db = db;
+        this.telemetry = telemetry;
+        this.energy = energy;
+    }
+
+    @PostConstruct
+    public void init() {
+        List<ChargingStation> loaded = new ArrayList<>();
+        if (db != null) {
+            try {
+                for (QueryDocumentSnapshot d : db.collection("chargingStations").get().get().getDocuments()) {
+                    ChargingStation s = fromDocument(d.getId(), d.getData());
+                    if (s != null) loaded.add(s);
+                }
+            } catch (Exception e) {
+                log.warn("charging.load-failed error={}", e.getMessage());
+            }
+        }
+        if (loaded.isEmpty()) {
+            loaded = defaultStations();
+        }
+        for (ChargingStation s : loaded) {
+            if (stationsById.putIfAbsent(s.getId(), s) == null) stations.add(s);
+        }
+        index = ChargingStationIndex.build(stations, cellDegrees);
+        log.info("charging.registered stations={}", stations.size());
+    }
+
+    public void register(ChargingStation station) {
+        ChargingStation previous = stationsById.put(station.getId(), station);
+        if (previous != null) stations.remove(previous);
+        stations.add(station);
+        index = ChargingStationIndex.build(stations, cellDegrees);
+    }
+
+    public List<Map<String, Object>> getStations() {
+        List<Map<String, Object>> out = new ArrayList<>(stations.size());
+        for (ChargingStation s : stations) {
+            out.add(s.toPayload(AVERAGE_SESSION_MINUTES));
+        }
+        return out;
+    }
+
+    public Map<String, Object> getStation(String id) {
+        ChargingStation s = stationsById.get(id);
+        return s == null ? null : s.toPayload(AVERAGE_SESSION_MINUTES);
+    }
+
+    /**
+     * Nearest station with a free connector compatible with {@code vehicleType} that the
+     * vehicle can reach on {@code rangeKm}. Returns null when nothing is in reach.
+     */
+    public Map<String, Object> findNearestAvailable(double latitude, double longitude, double rangeKm, String vehicleType) {
+        ChargingStationIndex.Match match = index.nearestAvailable(latitude, longitude,
+                rangeKm / GeoUtils.ROAD_DETOUR_FACTOR, ConnectorType.compatibleMask(vehicleType));
+        if (match == null) return null;
+        Map<String, Object> m = match.station.toPayload(AVERAGE_SESSION_MINUTES);
+        m.put("distanceKm", match.distanceKm);
+        m.put("estimatedRoadKm", match.distanceKm * GeoUtils.ROAD_DETOUR_FACTOR);
+        return m;
+    }
+
+    public Map<String, Object> findNearestAvailableForVehicle(String vehicleId) {
+        Map<String, Object> v = telemetry.getTelemetry(vehicleId);
+        if (v == null) return null;
+        return findNearestAvailable(
+                GeoUtils.toDouble(v.get("latitude"), 28.4595),
+                GeoUtils.toDouble(v.get("longitude"), 77.0266),
+                GeoUtils.toDouble(v.get("range"), 0),
+                Objects.toString(v.get("type"), "ev"));
+    }
+
+    /** Plugs the vehicle in now; it is taken to be at the station already. */
+    public Map<String, Object> occupy(String stationId, String vehicleId, String vehicleType) {
+        return assign(stationId, vehicleId, vehicleType, true);
+    }
+
+    /**
+     * Holds a connector for the vehicle and sends it there, {@link #EN_ROUTE} until it arrives.
+     * The scheduler plugs it in on arrival.
+     */
+    public Map<String, Object> reserve(String stationId, String vehicleId, String vehicleType) {
+        return assign(stationId, vehicleId, vehicleType, false);
+    }
+
+    private Map<String, Object> assign(String stationId, String vehicleId, String vehicleType, boolean atStation) {
+        ChargingStation s = stationsById.get(stationId);
+        if (s == null) return null;
+        releaseVehicle(vehicleId);
+        ChargingStation.Connector c = s.occupy(vehicleId, ConnectorType.compatibleMask(vehicleType));
+        if (c == null) return Map.of("stationId", stationId, "vehicleId", vehicleId, "assigned", false);
+        assignments.put(vehicleId, stationId);
+        pending.remove(vehicleId);
+        if (atStation) {
+            plugIn(vehicleId, c);
+        } else {
+            telemetry.driveTo(vehicleId, s.getLatitude(), s.getLongitude());
+            telemetry.updateStatus(vehicleId, EN_ROUTE);
+        }
+        return Map.of("stationId", stationId, "vehicleId", vehicleId, "connectorId", c.getId(),
+                "connectorType", c.getType().code(), "assigned", true);
+    }
+
+    private void plugIn(String vehicleId, ChargingStation.Connector c) {
+        telemetry.clearDestination(vehicleId);
+        energy.setChargePower(vehicleId, c.getType().powerKw());
+        telemetry.updateStatus(vehicleId, "charging");
+    }
+
+    public boolean releaseVehicle(String vehicleId) {
+        String stationId = assignments.remove(vehicleId);
+        if (stationId == null) return false;
+        telemetry.clearDestination(vehicleId);
+        Map<String, Object> v = telemetry.getTelemetry(vehicleId);
+        if (v != null && EN_ROUTE.equals(v.get("status"))) telemetry.updateStatus(vehicleId, "available");
+        ChargingStation s = stationsById.get(stationId);
+        return s != null && s.release(vehicleId);
+    }
+
+    public void requestCharge(String vehicleId) {
+        pending.computeIfAbsent(vehicleId, ChargeRequest::new);
+    }
+
+    public List<Map<String, Object>> getQueue() {
+        List<ChargeRequest> ordered = new ArrayList<>(pending.values());
+        ordered.sort(Comparator.comparingDouble(r -> r.slackKm));
+        List<Map<String, Object>> out = new ArrayList<>(ordered.size());
+        for (ChargeRequest r : ordered) {
+            out.add(r.toPayload());
+        }
+        return out;
+    }
+
+    public Map<String, String> getAssignments() {
+        return Collections.unmodifiableMap(assignments);
+    }
+
+    /**
+     * Slot scheduler: plugs in vehicles that reached their reserved station, frees connectors
+     * of vehicles that stopped charging or were taken off the way there, queues vehicles under
+     * the low-battery threshold, and reserves free connectors in order of least range slack so
+     * the vehicles closest to stranding are routed first.
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void schedule() {
+        for (Map.Entry<String, String> a : new ArrayList<>(assignments.entrySet())) {
+            String vehicleId = a.getKey();
+            Map<String, Object> v = telemetry.getTelemetry(vehicleId);
+            if (v != null && EN_ROUTE.equals(v.get("status"))) {
+                arriveIfThere(vehicleId, v, a.getValue());
+            } else if (v == null || !"charging".equals(v.get("status"))) {
+                releaseVehicle(vehicleId);
+            }
+        }
+
+        for (Map<String, Object> v : telemetry.getAllTelemetry()) {
+            String id = Objects.toString(v.get("id"), null);
+            if (id == null || assignments.containsKey(id)) continue;
+            if ("available".equals(v.get("status")) && GeoUtils.toDouble(v.get("batteryLevel"), 100) < lowBatteryThreshold) {
+                requestCharge(id);
+            }
+        }
+        if (pending.isEmpty()) return;
+
+        PriorityQueue<ChargeRequest> queue = new PriorityQueue<>(Comparator.comparingDouble(r -> r.slackKm));
+        for (ChargeRequest r : pending.values()) {
+            Map<String, Object> v = telemetry.getTelemetry(r.vehicleId);
+            Object status = v != null ? v.get("status") : null;
+            if (v == null || "on-trip".equals(status) || "charging".equals(status) || EN_ROUTE.equals(status)) {
+                pending.remove(r.vehicleId);
+                continue;
+            }
+            r.slackKm = GeoUtils.toDouble(v.get("range"), 0) - nearestAnyKm(v) * GeoUtils.ROAD_DETOUR_FACTOR;
+            queue.add(r);
+        }
+
+        ChargeRequest r;
+        while ((r = queue.poll()) != null) {
+            r.attempts++;
+            Map<String, Object> v = telemetry.getTelemetry(r.vehicleId);
+            if (v == null) continue;
+            Map<String, Object> nearest = findNearestAvailableForVehicle(r.vehicleId);
+            if (nearest == null) continue;
+            Map<String, Object> result = reserve(nearest.get("id").toString(), r.vehicleId, Objects.toString(v.get("type"), "ev"));
+            if (Boolean.TRUE.equals(result.get("assigned"))) {
+                log.debug("charging.routed vehicle={} station={} slackKm={}", r.vehicleId, nearest.get("id"), Math.round(r.slackKm));
+            }
+        }
+    }
+
+    private void arriveIfThere(String vehicleId, Map<String, Object> v, String stationId) {
+        ChargingStation s = stationsById.get(stationId);
+        if (s == null) {
+            releaseVehicle(vehicleId);
+            return;
+        }
+        double km = GeoUtils.haversineKm(GeoUtils.toDouble(v.get("latitude"), 28.4595), GeoUtils.toDouble(v.get("longitude"), 77.0266),
+                s.getLatitude(), s.getLongitude());
+        if (km > ARRIVAL_KM) return;
+        // Returns the connector already held for this vehicle
+        ChargingStation.Connector c = s.occupy(vehicleId, ConnectorType.compatibleMask(Objects.toString(v.get("type"), "ev")));
+        if (c == null) {
+            releaseVehicle(vehicleId);
+            return;
+        }
+        plugIn(vehicleId, c);
+        log.debug("charging.arrived vehicle={} station={}", vehicleId, stationId);
+    }
+
+    // Distance to the nearest compatible station regardless of occupancy, used to rank urgency
+    private double nearestAnyKm(Map<String, Object> v) {
+        double lat = GeoUtils.toDouble(v.get("latitude"), 28.4595);
+        double lng = GeoUtils.toDouble(v.get("longitude"), 77.0266);
+        int mask = ConnectorType.compatibleMask(Objects.toString(v.get("type"), "ev"));
+        double best = Double.MAX_VALUE;
+        for (ChargingStation s : stations) {
+            if (!s.supports(mask)) continue;
+            best = Math.min(best, GeoUtils.haversineKm(lat, lng, s.getLatitude(), s.getLongitude()));
+        }
+        return best == Double.MAX_VALUE ? 0 : best;
+    }
+
+    private ChargingStation fromDocument(String id, Map<String, Object> data) {
+        if (data == null) return null;
+        Object location = data.get("location");
+        double lat = GeoUtils.toDouble(data.get("latitude"), Double.NaN);
+        double lng = GeoUtils.toDouble(data.get("longitude"), Double.NaN);
+        if (location instanceof Map) {
+            lat = GeoUtils.toDouble(((Map<?, ?>) location).get("latitude"), lat);
+            lng = GeoUtils.toDouble(((Map<?, ?>) location).get("longitude"), lng);
+        }
+        if (Double.isNaN(lat) || Double.isNaN(lng)) return null;
+
+        Map<ConnectorType, Integer> ports = new EnumMap<>(ConnectorType.class);
+        Object connectors = data.get("connectors");
+        if (connectors instanceof Map) {
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) connectors).entrySet()) {
+                ConnectorType t = ConnectorType.fromCode(e.getKey().toString());
+                if (t != null) ports.put(t, (int) GeoUtils.toDouble(e.getValue(), 0));
+            }
+        }
+        if (ports.isEmpty()) ports.put(ConnectorType.LEVEL2, 2);
+
+        ChargingStation s = new ChargingStation(id, Objects.toString(data.get("name"), id), lat, lng,
+                GeoUtils.toDouble(data.get("pricePerKwh"), 8.0), ports);
+        s.setMaintenance("maintenance".equals(data.get("status")));
+        return s;
+    }
+
+    private List<ChargingStation> defaultStations() {
+        return List.of(
+                new ChargingStation("cs-001", "Central Hub Station", 28.6139, 77.2090, 8.5,
+                        Map.of(ConnectorType.LEVEL2, 4, ConnectorType.DC_FAST, 4)),
+                new ChargingStation("cs-002", "North District Station", 28.7041, 77.1025, 7.2,
+                        Map.of(ConnectorType.LEVEL2, 4)),
+                new ChargingStation("cs-003", "South Express Station", 28.5355, 77.2410, 10.0,
+                        Map.of(ConnectorType.LEVEL2, 2, ConnectorType.DC_FAST, 2, ConnectorType.SUPERCHARGER, 2)),
+                new ChargingStation("cs-004", "East Side Station", 28.6129, 77.2295, 6.8,
+                        Map.of(ConnectorType.LEVEL2, 4)),
+                new ChargingStation("cs-005", "West End Station", 28.4595, 77.0266, 7.5,
+                        Map.of(ConnectorType.LEVEL1, 1, ConnectorType.LEVEL2, 1)),
+                new ChargingStation("cs-006", "Cyber City Station", 28.4950, 77.0890, 9.0,
+                        Map.of(ConnectorType.LEVEL2, 2, ConnectorType.DC_FAST, 4)),
+                new ChargingStation("cs-007", "Sohna Road Station", 28.4230, 77.0440, 8.0,
+                        Map.of(ConnectorType.LEVEL2, 3, ConnectorType.DC_FAST, 1))
+        );
+    }
+}
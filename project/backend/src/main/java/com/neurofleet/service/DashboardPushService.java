@@ -0,0 +1,162 @@
+package com.neurofleet.service;
+
+import com.neurofleet.model.Telemetry;
+import com.neurofleet.util.VehicleStreamFilter;
+import com.neurofleet.websocket.RawWebSocketHandler;
+import com.neurofleet.websocket.TopicSnapshotProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Produces what the dashboard used to poll for and publishes it on the WebSocket topics of
+ * {@link RawWebSocketHandler}. Vehicle topics and alerts follow the telemetry stream; the fleet
+ * summary and charging stations are recomputed every {@code app.push.summary-ms} and published
+ * only when they differ from what was last sent. Nothing is computed for a topic nobody is
+ * subscribed to.
+ */
+@Service
+public class DashboardPushService implements TelemetryListener, TopicSnapshotProvider {
+
+    public static final String FLEET_SUMMARY = "fleet-summary";
+    public static final String CHARGING_STATIONS = "charging-stations";
+    public static final String ALERTS = "alerts";
+
+    private final RawWebSocketHandler ws;
+    private final TelemetryService telemetry;
+    private final VehicleReplicaService replica;
+    private final ChargingStationService charging;
+    private final double lowBatteryPct;
+    private final int recentAlertsSize;
+
+    private final Map<String, Object> lastPublished = new ConcurrentHashMap<>();
+    // Vehicles currently below the low-battery threshold, so the alert fires once per dip
+    private final Set<String> lowBattery = ConcurrentHashMap.newKeySet();
+    private final Deque<Map<String, Object>> recentAlerts = new ArrayDeque<>();
+
+    public DashboardPushService(RawWebSocketHandler ws, TelemetryService telemetry, VehicleReplicaService replica,
+                                ChargingStationService charging,
+                                @Value("${app.push.alerts.low-battery-pct:20}") double lowBatteryPct,
+                                @Value("${app.push.alerts.recent-size:50}") int recentAlertsSize) {
+        this.ws = ws;
+        this.telemetry = telemetry;
+        this.replica = replica;
+        this.charging = charging;
+        this.lowBatteryPct = lowBatteryPct;
+        this.recentAlertsSize = recentAlertsSize;
+        telemetry.addListener(this);
+        ws.setSnapshotProvider(this);
+    }
+
+    @Override
+    public void onTelemetry(String vehicleId, Map<String, Object> vehicle, long timestampMillis) {
+        String topic = "vehicle:" + vehicleId;
+        boolean single = ws.hasSubscribers(topic);
+        boolean fleet = ws.hasSubscribers(RawWebSocketHandler.VEHICLES);
+        if (single || fleet) {
+            Telemetry snapshot = telemetry.snapshot(vehicleId, vehicle);
+            if (single) ws.publish(topic, snapshot);
+            if (fleet) ws.publishVehicle(vehicleId, snapshot.status(), snapshot.type(), Map.of("vehicles", List.of(snapshot)));
+        }
+        checkBattery(vehicleId, vehicle.get("batteryLevel"), timestampMillis);
+    }
+
+    /** Status change of a booking, for clients watching it. Carries no customer details. */
+    public void publishBooking(String bookingId, String event, Map<String, Object> details) {
+        String topic = "booking:" + bookingId;
+        if (!ws.hasSubscribers(topic)) return;
+        Map<String, Object> data = new HashMap<>(details);
+        data.put("id", bookingId);
+        data.put("event", event);
+        data.put("timestamp", Instant.now().toString());
+        ws.publish(topic, data);
+    }
+
+    @Scheduled(fixedDelayString = "${app.push.summary-ms:2000}")
+    public void publishSummaries() {
+        if (ws.hasSubscribers(FLEET_SUMMARY)) publishIfChanged(FLEET_SUMMARY, fleetSummary());
+        if (ws.hasSubscribers(CHARGING_STATIONS)) publishIfChanged(CHARGING_STATIONS, charging.getStations());
+    }
+
+    @Override
+    public Object snapshot(String topic, VehicleStreamFilter vehiclesFilter) {
+        switch (topic) {
+            case FLEET_SUMMARY:
+                return fleetSummary();
+            case CHARGING_STATIONS:
+                return charging.getStations();
+            case ALERTS:
+                synchronized (recentAlerts) {
+                    return Map.of("alerts", new ArrayList<>(recentAlerts));
+                }
+            case RawWebSocketHandler.VEHICLES:
+                List<Telemetry> vehicles = new ArrayList<>();
+                for (Telemetry t : telemetry.snapshotAll()) {
+                    if (vehiclesFilter.matches(t.id(), t.status(), t.type())) vehicles.add(t);
+                }
+                return Map.of("vehicles", vehicles);
+            default:
+                // Null for an unknown vehicle, which simply gets no initial state
+                return topic.startsWith("vehicle:") ? telemetry.snapshot(topic.substring(8)) : null;
+        }
+    }
+
+    /** The status-distribution payload, from the replica when it is serving, else from live telemetry. */
+    public Map<String, Object> fleetSummary() {
+        if (replica.isServing()) return statusPayload(replica.size(), replica.countByStatus());
+        Map<String, Long> counts = new HashMap<>();
+        List<Map<String, Object>> vehicles = telemetry.getAllTelemetry();
+        for (Map<String, Object> v : vehicles) counts.merge(Objects.toString(v.getOrDefault("status", "unknown")), 1L, Long::sum);
+        return statusPayload(vehicles.size(), counts);
+    }
+
+    public static Map<String, Object> statusPayload(int total, Map<String, Long> statusCounts) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("totalVehicles", total);
+        payload.put("activeTrips", statusCounts.getOrDefault("on-trip", 0L));
+        payload.put("availableVehicles", statusCounts.getOrDefault("available", 0L));
+        payload.put("chargingVehicles", statusCounts.getOrDefault("charging", 0L));
+        payload.put("statusBreakdown", statusCounts);
+        return payload;
+    }
+
+    // A later subscriber starts from its own snapshot, so nothing may be suppressed against what went before
+    @Override
+    public void lastSubscriberLeft(String topic) {
+        lastPublished.remove(topic);
+    }
+
+    private void publishIfChanged(String topic, Object data) {
+        if (data.equals(lastPublished.get(topic))) return;
+        lastPublished.put(topic, data);
+        ws.publish(topic, data);
+    }
+
+    private void checkBattery(String vehicleId, Object level, long timestampMillis) {
+        if (!(level instanceof Number)) return;
+        double pct = ((Number) level).doubleValue();
+        if (pct >= lowBatteryPct + 5) {
+            // Re-armed only once clearly above the threshold, so noise around it doesn't repeat the alert
+            lowBattery.remove(vehicleId);
+            return;
+        }
+        if (pct >= lowBatteryPct || !lowBattery.add(vehicleId)) return;
+
+        Map<String, Object> alert = new HashMap<>();
+        alert.put("kind", "low_battery");
+        alert.put("severity", pct < lowBatteryPct / 2 ? "critical" : "warning");
+        alert.put("vehicleId", vehicleId);
+        alert.put("batteryLevel", Math.round(pct * 10) / 10.0);
+        alert.put("message", "Battery below " + (int) lowBatteryPct + "%");
+        alert.put("timestamp", Instant.ofEpochMilli(timestampMillis).toString());
+        synchronized (recentAlerts) {
+            recentAlerts.addFirst(alert);
+            while (recentAlerts.size() > recentAlertsSize) recentAlerts.removeLast();
+        }
+        ws.publish(ALERTS, Map.of("alerts", List.of(alert)));
+    }
+}
@@ -0,0 +1,253 @@
+package com.neurofleet.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fleet-wide battery model. Per-vehicle state is kept in parallel primitive arrays indexed
+ * by a slot number so {@link #step(double)} runs one tight loop over the whole fleet with
+ * no per-vehicle allocation.
+ *
+ * Consumption per km at speed v is (rolling + aerodynamic drag) / drivetrain efficiency,
+ * plus auxiliary load (HVAC, electronics) spread over the distance covered. A per-vehicle
+ * correction factor is fitted as an exponentially weighted ratio of observed to predicted
+ * energy whenever a real battery reading arrives through {@link #observe(String, double)}.
+ */
+@Service
+public class EnergyModelService {
+
+    public static final int MODE_IDLE = 0;
+    public static final int MODE_DRIVING = 1;
+    public static final int MODE_CHARGING = 2;
+
+    private static final double GRAVITY = 9.81;
+    private static final double AIR_DENSITY = 1.2;
+    private static final double ROLLING_RESISTANCE = 0.011;
+    private static final double DRAG_AREA_M2 = 0.62;
+    private static final double DRIVETRAIN_EFFICIENCY = 0.88;
+    private static final double VEHICLE_MASS_KG = 1750;
+    private static final double DEFAULT_CAPACITY_KWH = 50;
+    private static final double DEFAULT_CHARGE_POWER_KW = 7.4;
+    // Charging tapers linearly from this state of charge up to 100%
+    private static final double TAPER_START_PCT = 80;
+    private static final double MIN_REFERENCE_SPEED_KMH = 25;
+    private static final double SPEED_SMOOTHING = 0.1;
+    private static final double MIN_CALIBRATION_KWH = 0.2;
+
+    @Value("${app.energy.auxiliary-load-kw:0.8}")
+    private double auxiliaryLoadKw;
+
+    @Value("${app.energy.calibration-alpha:0.2}")
+    private double calibrationAlpha;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private int size;
+
+    private double[] capacityKwh = new double[0];
+    private double[] socPct = new double[0];
+    private double[] correction = new double[0];
+    private double[] chargePowerKw = new double[0];
+    private double[] avgSpeedKmh = new double[0];
+    private int[] mode = new int[0];
+    private double[] speedKmh = new double[0];
+    private double[] distanceKm = new double[0];
+    // Outputs of the last step
+    private double[] rangeKm = new double[0];
+    private double[] timeToEmptyMin = new double[0];
+    private double[] whPerKm = new double[0];
+    // Model energy (before correction) since the last observed reading, and the SoC at that reading
+    private double[] rawKwhSinceObservation = new double[0];
+    private double[] socAtObservation = new double[0];
+    private boolean[] chargedSinceObservation = new boolean[0];
+
+    /**
+     * Starts tracking a vehicle, or refreshes its capacity if already tracked.
+     * Returns the state of charge the model considers authoritative.
+     */
+    public synchronized double register(String id, double batteryCapacityKwh, double initialSocPct) {
+        Integer existing = slots.get(id);
+        double capacity = batteryCapacityKwh > 0 ? batteryCapacityKwh : DEFAULT_CAPACITY_KWH;
+        if (existing != null) {
+            capacityKwh[existing] = capacity;
+            return socPct[existing];
+        }
+        int slot = freeSlots.isEmpty() ? size++ : freeSlots.pop();
+        ensureCapacity(size);
+        slots.put(id, slot);
+        capacityKwh[slot] = capacity;
+        socPct[slot] = clamp(initialSocPct, 0, 100);
+        correction[slot] = 1.0;
+        chargePowerKw[slot] = DEFAULT_CHARGE_POWER_KW;
+        avgSpeedKmh[slot] = MIN_REFERENCE_SPEED_KMH;
+        mode[slot] = MODE_IDLE;
+        speedKmh[slot] = 0;
+        distanceKm[slot] = 0;
+        rawKwhSinceObservation[slot] = 0;
+        socAtObservation[slot] = socPct[slot];
+        chargedSinceObservation[slot] = false;
+        updateOutputs(slot);
+        return socPct[slot];
+    }
+
+    public synchronized void unregister(String id) {
+        Integer slot = slots.remove(id);
+        if (slot != null) {
+            capacityKwh[slot] = 0;
+            freeSlots.push(slot);
+        }
+    }
+
+    // Records what the vehicle did since the previous step; consumed by the next step()
+    public synchronized void stage(String id, int vehicleMode, double speed, double km) {
+        Integer slot = slots.get(id);
+        if (slot == null) return;
+        // A connector's power only applies to the session that set it; the next one starts from the default
+        if (mode[slot] == MODE_CHARGING && vehicleMode != MODE_CHARGING) {
+            chargePowerKw[slot] = DEFAULT_CHARGE_POWER_KW;
+        }
+        mode[slot] = vehicleMode;
+        speedKmh[slot] = speed;
+        distanceKm[slot] += km;
+    }
+
+    public synchronized void setChargePower(String id, double kw) {
+        Integer slot = slots.get(id);
+        if (slot != null) chargePowerKw[slot] = kw > 0 ? kw : DEFAULT_CHARGE_POWER_KW;
+    }
+
+    /**
+     * Advances every tracked vehicle by {@code dtSeconds}: drains driving and idle energy,
+     * adds charging energy with a taper near full, then refreshes range and time-to-empty.
+     */
+    public synchronized void step(double dtSeconds) {
+        double dtHours = dtSeconds / 3600.0;
+        for (int i = 0; i < size; i++) {
+            if (capacityKwh[i] == 0) continue;
+
+            double kwh;
+            if (mode[i] == MODE_CHARGING) {
+                double taper = socPct[i] <= TAPER_START_PCT ? 1.0
+                        : Math.max(0.05, (100 - socPct[i]) / (100 - TAPER_START_PCT));
+                kwh = -chargePowerKw[i] * taper * dtHours;
+                chargedSinceObservation[i] = true;
+            } else {
+                double raw = baseWhPerKm(speedKmh[i]) * distanceKm[i] / 1000.0 + auxiliaryLoadKw * dtHours;
+                rawKwhSinceObservation[i] += raw;
+                kwh = raw * correction[i];
+                if (mode[i] == MODE_DRIVING && speedKmh[i] > 0) {
+                    avgSpeedKmh[i] += SPEED_SMOOTHING * (speedKmh[i] - avgSpeedKmh[i]);
+                }
+            }
+            socPct[i] = clamp(socPct[i] - kwh / capacityKwh[i] * 100.0, 0, 100);
+            distanceKm[i] = 0;
+            updateOutputs(i);
+        }
+    }
+
+    /**
+     * Feeds a measured state of charge. The ratio of measured to modelled energy since the
+     * previous reading updates the vehicle's correction factor (EWMA), then the model snaps
+     * to the measurement. Intervals that included charging only resynchronise the SoC.
+     */
+    public synchronized void observe(String id, double observedSocPct) {
+        Integer slot = slots.get(id);
+        if (slot == null) return;
+        double observedKwh = (socAtObservation[slot] - observedSocPct) / 100.0 * capacityKwh[slot];
+        double rawKwh = rawKwhSinceObservation[slot];
+        if (!chargedSinceObservation[slot] && rawKwh >= MIN_CALIBRATION_KWH && observedKwh > 0) {
+            double ratio = clamp(observedKwh / rawKwh, 0.5, 2.0);
+            correction[slot] += calibrationAlpha * (ratio - correction[slot]);
+        }
+        socPct[slot] = clamp(observedSocPct, 0, 100);
+        socAtObservation[slot] = socPct[slot];
+        rawKwhSinceObservation[slot] = 0;
+        chargedSinceObservation[slot] = false;
+        updateOutputs(slot);
+    }
+
+    public synchronized double socPct(String id, double fallback) {
+        Integer slot = slots.get(id);
+        return slot == null ? fallback : socPct[slot];
+    }
+
+    public synchronized double rangeKm(String id, double fallback) {
+        Integer slot = slots.get(id);
+        return slot == null ? fallback : rangeKm[slot];
+    }
+
+    // Copies the model outputs for one vehicle into its telemetry map
+    public synchronized void writeTo(String id, Map<String, Object> telemetry) {
+        Integer slot = slots.get(id);
+        if (slot == null) return;
+        telemetry.put("batteryLevel", socPct[slot]);
+        telemetry.put("range", (int) rangeKm[slot]);
+        telemetry.put("timeToEmptyMinutes", (int) timeToEmptyMin[slot]);
+        telemetry.put("efficiencyWhPerKm", Math.round(whPerKm[slot] * 10) / 10.0);
+        telemetry.put("energyRemainingKwh", Math.round(socPct[slot] * capacityKwh[slot]) / 100.0);
+    }
+
+    public synchronized Map<String, Object> describe(String id) {
+        Integer slot = slots.get(id);
+        if (slot == null) return null;
+        Map<String, Object> m = new HashMap<>();
+        m.put("vehicleId", id);
+        m.put("batteryCapacityKwh", capacityKwh[slot]);
+        m.put("batteryLevel", socPct[slot]);
+        m.put("rangeKm", rangeKm[slot]);
+        m.put("timeToEmptyMinutes", timeToEmptyMin[slot]);
+        m.put("efficiencyWhPerKm", whPerKm[slot]);
+        m.put("correctionFactor", correction[slot]);
+        m.put("referenceSpeedKmh", avgSpeedKmh[slot]);
+        return m;
+    }
+
+    private void updateOutputs(int i) {
+        double refSpeed = Math.max(MIN_REFERENCE_SPEED_KMH, avgSpeedKmh[i]);
+        double perKm = (baseWhPerKm(refSpeed) + auxiliaryLoadKw * 1000.0 / refSpeed) * correction[i];
+        double remainingKwh = socPct[i] / 100.0 * capacityKwh[i];
+        whPerKm[i] = perKm;
+        rangeKm[i] = remainingKwh * 1000.0 / perKm;
+
+        double drawKw = mode[i] == MODE_DRIVING && speedKmh[i] > 0
+                ? (baseWhPerKm(speedKmh[i]) * speedKmh[i] / 1000.0 + auxiliaryLoadKw) * correction[i]
+                : auxiliaryLoadKw * correction[i];
+        timeToEmptyMin[i] = mode[i] == MODE_CHARGING ? -1 : remainingKwh / drawKw * 60.0;
+    }
+
+    // Traction energy per km at a steady speed, before auxiliary load
+    static double baseWhPerKm(double speedKmh) {
+        double v = speedKmh / 3.6;
+        double forceN = ROLLING_RESISTANCE * VEHICLE_MASS_KG * GRAVITY + 0.5 * AIR_DENSITY * DRAG_AREA_M2 * v * v;
+        // 1 N sustained over 1 km = 1 kJ = 1/3.6 Wh
+        return forceN / 3.6 / DRIVETRAIN_EFFICIENCY;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= capacityKwh.length) return;
+        int n = Math.max(16, Math.max(needed, capacityKwh.length * 2));
+        capacityKwh = Arrays.copyOf(capacityKwh, n);
+        socPct = Arrays.copyOf(socPct, n);
+        correction = Arrays.copyOf(correction, n);
+        chargePowerKw = Arrays.copyOf(chargePowerKw, n);
+        avgSpeedKmh = Arrays.copyOf(avgSpeedKmh, n);
+        mode = Arrays.copyOf(mode, n);
+        speedKmh = Arrays.copyOf(speedKmh, n);
+        distanceKm = Arrays.copyOf(distanceKm, n);
+        rangeKm = Arrays.copyOf(rangeKm, n);
+        timeToEmptyMin = Arrays.copyOf(timeToEmptyMin, n);
+        whPerKm = Arrays.copyOf(whPerKm, n);
+        rawKwhSinceObservation = Arrays.copyOf(rawKwhSinceObservation, n);
+        socAtObservation = Arrays.copyOf(socAtObservation, n);
+        chargedSinceObservation = Arrays.copyOf(chargedSinceObservation, n);
+    }
+
+    private static double clamp(double v, double lo, double hi) {
+        return Math.max(lo, Math.min(hi, v));
+    }
+}
@@ -0,0 +1,241 @@
+package com.neurofleet.service;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.neurofleet.util.GeoUtils;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incremental demand/supply aggregation for the map heatmap. Pickups (booking creations)
+ * and available-vehicle samples are folded into per-cell ring buffers of fixed-width time
+ * buckets at every resolution on write, so a heatmap request only sums counters that are
+ * already in place.
+ *
+ * Resolution 0 is the coarsest grid; each higher resolution halves the cell size.
+ */
+@Service
+public class HeatmapService {
+
+    private static final Logger log = LoggerFactory.getLogger(HeatmapService.class);
+
+    public static final int RESOLUTIONS = 4;
+    private static final double COARSEST_CELL_DEG = 0.04;
+    private static final long BUCKET_MILLIS = 5 * 60_000L;
+    // 24 hours of 5 minute buckets
+    private static final int BUCKETS = 288;
+
+    private final Firestore db;
+    private final TelemetryService telemetry;
+    private final List<Map<Long, CellSeries>> levels = new ArrayList<>();
+    // How many supply snapshots landed in each bucket, so supply can be reported as an average
+    private final int[] supplySamples = new int[BUCKETS];
+    private final long[] supplySampleBucket = new long[BUCKETS];
+
+    @Value("${app.heatmap.backfill-hours:24}")
+    private int backfillHours;
+
+    static final class CellSeries {
+        final int row;
+        final int col;
+        private final long createdBucket;
+        private final long[] bucketOf = new long[BUCKETS];
+        private final int[] demand = new int[BUCKETS];
+        private final int[] supply = new int[BUCKETS];
+
+        CellSeries(int row, int col, long createdBucket) {
+            this.row = row;
+            this.col = col;
+            this.createdBucket = createdBucket;
+            Arrays.fill(bucketOf, -1);
+        }
+
+        synchronized void add(long bucket, int demandDelta, int supplyDelta) {
+            int slot = (int) (bucket % BUCKETS);
+            if (bucketOf[slot] != bucket) {
+                bucketOf[slot] = bucket;
+                demand[slot] = 0;
+                supply[slot] = 0;
+            }
+            demand[slot] += demandDelta;
+            supply[slot] += supplyDelta;
+        }
+
+        // Sums [fromBucket, toBucket] into out[0] = demand, out[1] = supply vehicle-samples
+        synchronized void sum(long fromBucket, long toBucket, long[] out) {
+            out[0] = 0;
+            out[1] = 0;
+            for (long b = fromBucket; b <= toBucket; b++) {
+                int slot = (int) (b % BUCKETS);
+                if (bucketOf[slot] != b) continue;
+                out[0] += demand[slot];
+                out[1] += supply[slot];
+            }
+        }
+
+        synchronized boolean isStale(long oldestBucket) {
+            if (createdBucket >= oldestBucket) return false;
+            for (long b : bucketOf) {
+                if (b >= oldestBucket) return false;
+            }
+            return true;
+        }
+    }
+
+    public HeatmapService(Firestore db, TelemetryService telemetry) {
+        this.db = db;
+        this.telemetry = telemetry;
+        for (int i = 0; i < RESOLUTIONS; i++) {
+            levels.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    // Seed demand from recent bookings so a restart doesn't blank the map
+    @PostConstruct
+    public void backfill() {
+        if (db == null) return;
+        try {
+            Date since = new Date(System.currentTimeMillis() - backfillHours * 3_600_000L);
+            int count = 0;
+            for (QueryDocumentSnapshot d : db.collection("bookings").whereGreaterThanOrEqualTo("createdAt", since).get().get().getDocuments()) {
+                Date createdAt = d.getDate("createdAt");
+                if (recordPickup(d.getData(), createdAt != null ? createdAt.getTime() : System.currentTimeMillis())) count++;
+            }
+            log.info("heatmap.backfilled pickups={} hours={}", count, backfillHours);
+        } catch (Exception e) {
+            log.warn("heatmap.backfill-failed error={}", e.getMessage());
+        }
+    }
+
+    /** Folds one booking's pickup into demand. Returns false when it has no usable coordinates. */
+    public boolean recordPickup(Map<String, Object> booking, long timestampMillis) {
+        double[] p = GeoUtils.coordinates(booking.get("pickupCoordinates"));
+        if (p == null) return false;
+        long bucket = timestampMillis / BUCKET_MILLIS;
+        for (int res = 0; res < RESOLUTIONS; res++) {
+            cell(res, p[0], p[1], bucket).add(bucket, 1, 0);
+        }
+        return true;
+    }
+
+    /** Snapshots where available vehicles are right now into the current bucket. */
+    @Scheduled(fixedDelay = 30000)
+    public void sampleSupply() {
+        long now = System.currentTimeMillis();
+        long bucket = now / BUCKET_MILLIS;
+        for (Map<String, Object> v : telemetry.getAllTelemetry()) {
+            if (!"available".equals(v.get("status"))) continue;
+            Object lat = v.get("latitude");
+            Object lng = v.get("longitude");
+            if (!(lat instanceof Number) || !(lng instanceof Number)) continue;
+            for (int res = 0; res < RESOLUTIONS; res++) {
+                cell(res, ((Number) lat).doubleValue(), ((Number) lng).doubleValue(), bucket).add(bucket, 0, 1);
+            }
+        }
+        synchronized (supplySamples) {
+            int slot = (int) (bucket % BUCKETS);
+            if (supplySampleBucket[slot] != bucket) {
+                supplySampleBucket[slot] = bucket;
+                supplySamples[slot] = 0;
+            }
+            supplySamples[slot]++;
+        }
+
+        // Drop cells that have aged out of the ring entirely
+        long oldest = bucket - BUCKETS + 1;
+        for (Map<Long, CellSeries> level : levels) {
+            level.values().removeIf(c -> c.isStale(oldest));
+        }
+    }
+
+    /**
+     * Cells intersecting the bbox at the given resolution with pickups requested and the
+     * average number of available vehicles over the last {@code windowMinutes}.
+     */
+    public Map<String, Object> query(double minLat, double minLng, double maxLat, double maxLng, int resolution, int windowMinutes) {
+        int res = Math.max(0, Math.min(RESOLUTIONS - 1, resolution));
+        double cellDeg = cellDeg(res);
+        long now = System.currentTimeMillis();
+        long toBucket = now / BUCKET_MILLIS;
+        long fromBucket = Math.max(toBucket - BUCKETS + 1, toBucket - (Math.max(1, windowMinutes) * 60_000L - 1) / BUCKET_MILLIS);
+
+        int snapshots = 0;
+        synchronized (supplySamples) {
+            for (long b = fromBucket; b <= toBucket; b++) {
+                int slot = (int) (b % BUCKETS);
+                if (supplySampleBucket[slot] == b) snapshots += supplySamples[slot];
+            }
+        }
+
+        int minRow = (int) Math.floor(minLat / cellDeg), maxRow = (int) Math.floor(maxLat / cellDeg);
+        int minCol = (int) Math.floor(minLng / cellDeg), maxCol = (int) Math.floor(maxLng / cellDeg);
+        long[] sums = new long[2];
+        long totalDemand = 0;
+        double totalSupply = 0;
+        List<Map<String, Object>> cells = new ArrayList<>();
+        for (CellSeries c : levels.get(res).values()) {
+            if (c.row < minRow || c.row > maxRow || c.col < minCol || c.col > maxCol) continue;
+            c.sum(fromBucket, toBucket, sums);
+            if (sums[0] == 0 && sums[1] == 0) continue;
+            double supply = snapshots > 0 ? (double) sums[1] / snapshots : 0;
+            totalDemand += sums[0];
+            totalSupply += supply;
+
+            Map<String, Object> m = new HashMap<>();
+            m.put("latitude", (c.row + 0.5) * cellDeg);
+            m.put("longitude", (c.col + 0.5) * cellDeg);
+            m.put("demand", sums[0]);
+            m.put("supply", Math.round(supply * 100) / 100.0);
+            m.put("demandSupplyRatio", supply > 0 ? Math.round(sums[0] / supply * 100) / 100.0 : null);
+            cells.add(m);
+        }
+
+        Map<String, Object> out = new HashMap<>();
+        out.put("resolution", res);
+        out.put("cellSizeDegrees", cellDeg);
+        out.put("windowMinutes", (toBucket - fromBucket + 1) * BUCKET_MILLIS / 60_000L);
+        out.put("bbox", List.of(minLng, minLat, maxLng, maxLat));
+        out.put("totalDemand", totalDemand);
+        out.put("totalSupply", Math.round(totalSupply * 100) / 100.0);
+        out.put("cells", cells);
+        return out;
+    }
+
+    /**
+     * Pickups per cell at the given resolution over the last {@code windowMinutes}, as
+     * {latitude, longitude, pickups} with the coordinates at the cell center.
+     */
+    public List<double[]> demandCells(int resolution, int windowMinutes) {
+        int res = Math.max(0, Math.min(RESOLUTIONS - 1, resolution));
+        double cellDeg = cellDeg(res);
+        long toBucket = System.currentTimeMillis() / BUCKET_MILLIS;
+        long fromBucket = Math.max(toBucket - BUCKETS + 1, toBucket - (Math.max(1, windowMinutes) * 60_000L - 1) / BUCKET_MILLIS);
+        long[] sums = new long[2];
+        List<double[]> out = new ArrayList<>();
+        for (CellSeries c : levels.get(res).values()) {
+            c.sum(fromBucket, toBucket, sums);
+            if (sums[0] == 0) continue;
+            out.add(new double[]{(c.row + 0.5) * cellDeg, (c.col + 0.5) * cellDeg, sums[0]});
+        }
+        return out;
+    }
+
+    private CellSeries cell(int res, double lat, double lng, long bucket) {
+        double cellDeg = cellDeg(res);
+        int row = (int) Math.floor(lat / cellDeg);
+        int col = (int) Math.floor(lng / cellDeg);
+        long key = ((long) row << 32) | (col & 0xFFFFFFFFL);
+        return levels.get(res).computeIfAbsent(key, k -> new CellSeries(row, col, Math.max(bucket, System.currentTimeMillis() / BUCKET_MILLIS)));
+    }
+
+    public static double cellDeg(int res) {
+        return COARSEST_CELL_DEG / (1 << res);
+    }
+}
@@ -0,0 +1,198 @@
+package com.neurofleet.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import jakarta.annotation.PostConstruct;
+import com.neurofleet.util.LogThrottle;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind appender for the {@code history} subcollections of vehicles and bookings.
+ * Events are queued on the request thread and committed by a single worker in WriteBatches
+ * of up to {@code batch-size} events, or whatever has arrived after {@code flush-interval-ms}.
+ *
+ * Document ids are assigned when an event is queued, so retrying a failed batch rewrites the
+ * same documents instead of duplicating them. When the queue is full, or the service is
+ * shutting down, the event is dropped and counted in {@link #dropped()}: history is best-effort
+ * and a request never waits on Firestore for it.
+ */
+@Service
+public class HistoryWriterService {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryWriterService.class);
+    private static final LogThrottle overflowLog = new LogThrottle(1, 10000);
+
+    // Firestore caps a WriteBatch at 500 writes
+    private static final int MAX_BATCH = 500;
+
+    private final Firestore db;
+    private final BlockingQueue<Event> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final int maxAttempts;
+    private final long shutdownTimeoutMillis;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    private static final class Event {
+        final DocumentReference ref;
+        final Map<String, Object> data;
+
+        Event(DocumentReference ref, Map<String, Object> data) {
+            this.ref = ref;
+            this.data = data;
+        }
+    }
+
+    public HistoryWriterService(Firestore db,
+                                @Value("${app.history.queue-capacity:10000}") int queueCapacity,
+                                @Value("${app.history.batch-size:200}") int batchSize,
+                                @Value("${app.history.flush-interval-ms:250}") long flushIntervalMillis,
+                                @Value("${app.history.max-attempts:5}") int maxAttempts,
+                                @Value("${app.history.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis) {
+        this.db = db;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, Math.min(MAX_BATCH, batchSize));
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (db == null) return;
+        running = true;
+        worker = new Thread(this::run, "history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /** Records a history event under {@code <collection>/<parentId>/history}. */
+    public void append(String collection, String parentId, String eventType, Map<String, Object> details) {
+        if (db == null) return;
+        Event event = newEvent(collection, parentId, eventType, details);
+
+        if (running && queue.offer(event)) return;
+        dropped.incrementAndGet();
+        if (overflowLog.tryAcquire()) {
+            log.warn("history.dropped reason={} event={} parent={}/{} suppressed={} droppedTotal={}",
+                    running ? "queue-full" : "stopped", eventType, collection, parentId,
+                    overflowLog.drainSuppressed(), dropped.get());
+        }
+    }
+
+    /**
+     * Same event, written through the caller's BulkWriter instead of the queue. For batch
+     * endpoints, whose thousands of events would overflow the queue; the caller flushes.
+     */
+    public ApiFuture<WriteResult> append(BulkWriter writer, String collection, String parentId, String eventType, Map<String, Object> details) {
+        Event event = newEvent(collection, parentId, eventType, details);
+        return writer.set(event.ref, event.data);
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    /** Events discarded because the queue was full, or failed every commit attempt. */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (worker == null) return;
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("history.unflushed events={}", queue.size());
+        }
+    }
+
+    private Event newEvent(String collection, String parentId, String eventType, Map<String, Object> details) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventType", eventType);
+        data.put("details", new HashMap<>(details));
+        data.put("timestamp", new Date());
+        return new Event(db.collection(collection).document(parentId).collection("history").document(), data);
+    }
+
+    private void run() {
+        List<Event> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (running) {
+                    Event first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    // Give a burst a moment to fill the batch before committing
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                    while (batch.size() < batchSize) {
+                        long wait = deadline - System.nanoTime();
+                        if (wait <= 0) break;
+                        Event next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                        if (next == null) break;
+                        batch.add(next);
+                    }
+                } else {
+                    queue.drainTo(batch, batchSize);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown requested; loop again to drain whatever is left
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<Event> batch) {
+        long backoff = 200;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                WriteBatch wb = db.batch();
+                for (Event e : batch) {
+                    wb.set(e.ref, e.data);
+                }
+                wb.commit().get(30, TimeUnit.SECONDS);
+                return;
+            } catch (InterruptedException e) {
+                // Interrupted mid-commit during shutdown; the batch is retried on the next attempt
+            } catch (Exception e) {
+                log.warn("history.commit-failed events={} attempt={}/{} error={}", batch.size(), attempt, maxAttempts, e.getMessage());
+            }
+            if (attempt < maxAttempts) {
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ignored) {
+                    // Keep retrying during shutdown, just without the wait
+                }
+                backoff = Math.min(backoff * 2, 5000);
+            }
+        }
+        dropped.addAndGet(batch.size());
+        log.error("history.dropped reason=commit-failed events={} attempts={}", batch.size(), maxAttempts);
+    }
+}
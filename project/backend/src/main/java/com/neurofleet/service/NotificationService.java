@@ -0,0 +1,348 @@
+package com.neurofleet.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neurofleet.util.MailTemplate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbound email pipeline. Callers render a precompiled template and return immediately; a
+ * small pool of workers takes up to {@code batch-size} ready messages at a time and hands them
+ * to a single {@code send(SimpleMailMessage...)} call, which JavaMailSenderImpl delivers over
+ * one SMTP connection.
+ *
+ * Failed messages are retried with exponential backoff and jitter, up to {@code max-attempts},
+ * then moved to {@code <spill-dir>/dead} for inspection. When the in-memory queue is full, and
+ * on shutdown, messages are spilled to {@code spill-dir} as one JSON file each and reloaded as
+ * the queue drains, so a restart or an SMTP outage doesn't lose mail.
+ *
+ * Without SMTP settings messages are written to the log instead, as before. For local testing
+ * against a real SMTP conversation, run {@link com.neurofleet.util.SmtpStandIn} and start the
+ * backend with SMTP_HOST=localhost SMTP_PORT=2525.
+ */
+@Service
+public class NotificationService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
+
+    private static final Map<String, MailTemplate[]> TEMPLATES = Map.of(
+        "booking-confirmed", templates("Booking Confirmation - NeuroFleetX",
+            "Dear Customer,\n\n" +
+            "Your booking has been confirmed!\n\n" +
+            "Booking ID: {{bookingId}}\n" +
+            "Vehicle Type: {{vehicleType}}\n" +
+            "Pickup Location: {{pickupLocation}}\n" +
+            "Dropoff Location: {{dropoffLocation}}\n" +
+            "Pickup Date: {{pickupDate}}\n" +
+            "Pickup Time: {{pickupTime}}\n" +
+            "Estimated Cost: ₹{{estimatedCost}}\n\n" +
+            "We'll notify you when your vehicle is on the way.\n\n" +
+            "Thank you for choosing NeuroFleetX!"),
+        "booking-updated", templates("Booking Update - NeuroFleetX",
+            "Dear Customer,\n\n" +
+            "Your booking status has been updated.\n\n" +
+            "Booking ID: {{bookingId}}\n" +
+            "New Status: {{status}}\n\n" +
+            "Thank you for choosing NeuroFleetX!"),
+        "booking-status", templates("Booking Status Update - NeuroFleetX",
+            "Dear Customer,\n\n" +
+            "Your booking status has been updated.\n\n" +
+            "Booking ID: {{bookingId}}\n" +
+            "New Status: {{status}}\n\n" +
+            "Thank you for choosing NeuroFleetX!"),
+        "booking-cancelled", templates("Booking Cancellation - NeuroFleetX",
+            "Dear Customer,\n\n" +
+            "Your booking has been cancelled successfully.\n\n" +
+            "Booking ID: {{bookingId}}\n" +
+            "Vehicle Type: {{vehicleType}}\n" +
+            "Pickup Location: {{pickupLocation}}\n" +
+            "Dropoff Location: {{dropoffLocation}}\n\n" +
+            "If you have any questions, please contact our support team.\n\n" +
+            "Thank you for choosing NeuroFleetX!")
+    );
+
+    private final JavaMailSender sender;
+    private final boolean smtpConfigured;
+    private final String from;
+    private final int capacity;
+    private final int workerCount;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Path spillDir;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final DelayQueue<Outbound> queue = new DelayQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private static final class Outbound implements Delayed {
+        final String id;
+        final String to;
+        final String subject;
+        final String body;
+        int attempts;
+        long notBeforeMillis;
+
+        Outbound(String id, String to, String subject, String body, int attempts) {
+            this.id = id;
+            this.to = to;
+            this.subject = subject;
+            this.body = body;
+            this.attempts = attempts;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(notBeforeMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(notBeforeMillis, ((Outbound) o).notBeforeMillis);
+        }
+    }
+
+    public NotificationService(@Autowired(required = false) JavaMailSender sender,
+                               @Value("${spring.mail.host:}") String smtpHost,
+                               @Value("${app.mail.from:${spring.mail.username:}}") String from,
+                               @Value("${app.mail.queue-capacity:10000}") int capacity,
+                               @Value("${app.mail.workers:2}") int workerCount,
+                               @Value("${app.mail.batch-size:20}") int batchSize,
+                               @Value("${app.mail.max-attempts:6}") int maxAttempts,
+                               @Value("${app.mail.initial-backoff-ms:2000}") long initialBackoffMillis,
+                               @Value("${app.mail.max-backoff-ms:300000}") long maxBackoffMillis,
+                               @Value("${app.mail.spill-dir:mail-spill}") String spillDir) {
+        this.sender = sender;
+        this.smtpConfigured = smtpHost != null && !smtpHost.isEmpty() && sender != null;
+        this.from = from;
+        this.capacity = Math.max(1, capacity);
+        this.workerCount = Math.max(1, workerCount);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.spillDir = Paths.get(spillDir);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread t = new Thread(this::run, "mail-worker-" + i);
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+        }
+        reloadSpilled();
+        if (!smtpConfigured) {
+            log.info("mail.smtp-not-configured emails are logged instead; set SMTP_HOST, SMTP_PORT, SMTP_USERNAME and SMTP_PASSWORD to send them");
+        }
+    }
+
+    /** Renders the named template and queues the message; never blocks on SMTP. */
+    public void send(String to, String template, Map<String, ?> vars) {
+        MailTemplate[] t = TEMPLATES.get(template);
+        if (t == null) throw new IllegalArgumentException("Unknown email template: " + template);
+        if (to == null || to.isEmpty()) return;
+        enqueue(new Outbound(UUID.randomUUID().toString(), to, t[0].render(vars), t[1].render(vars), 0));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("queued", queued.get());
+        m.put("smtpConfigured", smtpConfigured);
+        m.put("spilled", countFiles(spillDir));
+        m.put("dead", countFiles(spillDir.resolve("dead")));
+        return m;
+    }
+
+    // Pull spilled messages back in while there is room, oldest files first
+    @Scheduled(fixedDelayString = "${app.mail.reload-interval-ms:30000}")
+    public void reloadSpilled() {
+        if (!running || !Files.isDirectory(spillDir)) return;
+        int room = capacity / 2 - queued.get();
+        if (room <= 0) return;
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(spillDir, "*.json")) {
+            for (Path f : dir) files.add(f);
+        } catch (IOException e) {
+            log.warn("mail.spill-list-failed dir={} error={}", spillDir, e.getMessage());
+            return;
+        }
+        files.sort(Comparator.comparingLong(f -> f.toFile().lastModified()));
+        int loaded = 0;
+        for (Path f : files) {
+            if (loaded >= room) break;
+            try {
+                Map<String, Object> m = mapper.readValue(Files.readAllBytes(f), new TypeReference<Map<String, Object>>() { });
+                Outbound o = new Outbound((String) m.get("id"), (String) m.get("to"), (String) m.get("subject"),
+                        (String) m.get("body"), ((Number) m.getOrDefault("attempts", 0)).intValue());
+                // Keep a message that was backing off from retrying the moment it is reloaded
+                o.notBeforeMillis = ((Number) m.getOrDefault("notBeforeMillis", 0L)).longValue();
+                queued.incrementAndGet();
+                queue.add(o);
+                Files.deleteIfExists(f);
+                loaded++;
+            } catch (Exception e) {
+                log.warn("mail.spill-unreadable file={} error={}", f.getFileName(), e.getMessage());
+            }
+        }
+        if (loaded > 0) log.info("mail.reloaded messages={}", loaded);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (Thread t : workers) t.interrupt();
+        for (Thread t : workers) {
+            try {
+                t.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Whatever is still queued, including retries waiting out their backoff, goes to disk
+        List<Outbound> rest = new ArrayList<>();
+        for (Outbound o : queue) rest.add(o);
+        queue.clear();
+        queued.set(0);
+        for (Outbound o : rest) spill(o, spillDir);
+        if (!rest.isEmpty()) log.info("mail.spilled messages={} dir={}", rest.size(), spillDir.toAbsolutePath());
+    }
+
+    private void enqueue(Outbound o) {
+        if (running && queued.incrementAndGet() <= capacity) {
+            queue.add(o);
+            return;
+        }
+        if (running) queued.decrementAndGet();
+        spill(o, spillDir);
+    }
+
+    private void run() {
+        List<Outbound> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Outbound first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                Outbound next;
+                while (batch.size() < batchSize && (next = queue.poll()) != null) {
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown; put back what we took so it gets spilled
+                queue.addAll(batch);
+                return;
+            }
+            queued.addAndGet(-batch.size());
+            deliver(batch);
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<Outbound> batch) {
+        if (!smtpConfigured) {
+            for (Outbound o : batch) {
+                log.info("mail.logged to={} subject={}\n{}", o.to, o.subject, o.body);
+            }
+            return;
+        }
+
+        Map<SimpleMailMessage, Outbound> byMessage = new IdentityHashMap<>();
+        for (Outbound o : batch) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            if (from != null && !from.isEmpty()) message.setFrom(from);
+            message.setTo(o.to);
+            message.setSubject(o.subject);
+            message.setText(o.body);
+            byMessage.put(message, o);
+        }
+        try {
+            sender.send(byMessage.keySet().toArray(new SimpleMailMessage[0]));
+        } catch (MailSendException e) {
+            // Per-message failures are keyed by the message we passed in; anything else failed them all
+            Map<Object, Exception> failed = e.getFailedMessages();
+            if (failed == null || failed.isEmpty()) {
+                for (Outbound o : batch) retry(o, e);
+            } else {
+                failed.forEach((message, cause) -> {
+                    Outbound o = byMessage.get(message);
+                    if (o != null) retry(o, cause);
+                });
+            }
+        } catch (Exception e) {
+            for (Outbound o : batch) retry(o, e);
+        }
+    }
+
+    private void retry(Outbound o, Exception cause) {
+        o.attempts++;
+        if (o.attempts >= maxAttempts) {
+            log.warn("mail.dead to={} attempts={} error={}", o.to, o.attempts, cause.getMessage());
+            spill(o, spillDir.resolve("dead"));
+            return;
+        }
+        long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(20, o.attempts - 1));
+        // Full jitter keeps a burst of failures from retrying in lockstep
+        o.notBeforeMillis = System.currentTimeMillis() + backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        log.info("mail.retry to={} attempt={}/{} backoffSeconds={} error={}", o.to, o.attempts, maxAttempts, backoff / 1000, cause.getMessage());
+        enqueue(o);
+    }
+
+    // Written to a temp file and renamed, so a crash never leaves half a message behind
+    private void spill(Outbound o, Path dir) {
+        try {
+            Files.createDirectories(dir);
+            Map<String, Object> m = new HashMap<>();
+            m.put("id", o.id);
+            m.put("to", o.to);
+            m.put("subject", o.subject);
+            m.put("body", o.body);
+            m.put("attempts", o.attempts);
+            m.put("notBeforeMillis", o.notBeforeMillis);
+            Path tmp = dir.resolve(o.id + ".tmp");
+            Files.write(tmp, mapper.writeValueAsBytes(m));
+            Files.move(tmp, dir.resolve(o.id + ".json"), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("mail.lost to={} reason=spill-failed error={}", o.to, e.getMessage());
+        }
+    }
+
+    private static long countFiles(Path dir) {
+        if (!Files.isDirectory(dir)) return 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.json")) {
+            long n = 0;
+            for (Path ignored : files) n++;
+            return n;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static MailTemplate[] templates(String subject, String body) {
+        return new MailTemplate[]{MailTemplate.compile(subject), MailTemplate.compile(body)};
+    }
+}
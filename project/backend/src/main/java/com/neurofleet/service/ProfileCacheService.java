@@ -0,0 +1,95 @@
+package com.neurofleet.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Per-user cache of the aggregate served by {@code GET /api/profile/me} (profile document,
+ * assigned vehicles and recent trips). Writers that change any of those parts call
+ * {@link #invalidate} for the affected user; the TTL only bounds staleness from writes that
+ * bypass this backend, such as edits in the Firebase console.
+ *
+ * The cache holds the loading future itself, so concurrent misses for one user share a
+ * single fan-out, and a load that finishes after an invalidation is never served because its
+ * entry is already gone.
+ */
+@Service
+public class ProfileCacheService {
+
+    private static final class Entry {
+        final CompletableFuture<Map<String, Object>> value;
+        final long loadedAt;
+
+        Entry(CompletableFuture<Map<String, Object>> value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    public ProfileCacheService(@Value("${app.profile.cache.ttl-ms:60000}") long ttlMillis,
+                               @Value("${app.profile.cache.max-entries:10000}") int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        // Access-ordered, so the least recently viewed profile is evicted first
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** The cached aggregate for uid, or the result of loader if there is none or it expired. */
+    public CompletableFuture<Map<String, Object>> get(String uid, Supplier<CompletableFuture<Map<String, Object>>> loader) {
+        CompletableFuture<Map<String, Object>> pending;
+        Entry entry;
+        synchronized (entries) {
+            Entry cached = entries.get(uid);
+            if (cached != null && System.currentTimeMillis() - cached.loadedAt <= ttlMillis) {
+                return cached.value;
+            }
+            pending = new CompletableFuture<>();
+            entry = new Entry(pending, System.currentTimeMillis());
+            entries.put(uid, entry);
+        }
+
+        CompletableFuture<Map<String, Object>> loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        loaded.whenComplete((value, error) -> {
+            if (error != null) {
+                // Don't cache failures; the next request tries again
+                synchronized (entries) {
+                    entries.remove(uid, entry);
+                }
+                pending.completeExceptionally(error);
+            } else {
+                pending.complete(value);
+            }
+        });
+        return pending;
+    }
+
+    public void invalidate(String uid) {
+        if (uid == null) return;
+        synchronized (entries) {
+            entries.remove(uid);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
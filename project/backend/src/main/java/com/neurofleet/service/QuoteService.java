@@ -0,0 +1,134 @@
+package com.neurofleet.service;
+
+import com.neurofleet.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Server-side ETA and fare quotes. Pricing mirrors the booking form: a base rate per
+ * vehicle type plus per-km and per-minute charges, with duration taken from the booked
+ * rental length when given and from the learned speed profiles otherwise.
+ */
+@Service
+public class QuoteService {
+
+    /** What {@link #applyToBooking} writes from the quote; a client never sets these. */
+    public static final List<String> QUOTED_FIELDS = List.of("estimatedCost", "estimatedDistance", "estimatedTripMinutes");
+    /** Booking fields the quote depends on; changing any of them re-prices the booking. */
+    public static final List<String> PRICING_INPUTS = List.of("pickupCoordinates", "dropoffCoordinates", "vehicleType",
+            "duration", "pickupDate", "pickupTime");
+
+    private static final Map<String, Double> BASE_RATES = Map.of(
+            "economy", 150.0,
+            "premium", 250.0,
+            "suv", 350.0,
+            "electric", 200.0,
+            "van", 450.0,
+            "luxury", 600.0
+    );
+
+    private final SpeedProfileService speedProfiles;
+
+    @Value("${app.quotes.per-km-rate:20}")
+    private double perKmRate;
+
+    @Value("${app.quotes.per-minute-rate:5}")
+    private double perMinuteRate;
+
+    @Value("${app.quotes.zone:Asia/Kolkata}")
+    private String zone;
+
+    public QuoteService(SpeedProfileService speedProfiles) {
+        this.speedProfiles = speedProfiles;
+    }
+
+    /**
+     * Builds a quote or returns null when the request lacks coordinates. {@code bookedMinutes}
+     * may be null, in which case the time charge uses the estimated trip duration.
+     */
+    public Map<String, Object> quote(Map<String, Object> pickup, Map<String, Object> dropoff, String vehicleType,
+                                     Integer bookedMinutes, long departureMillis) {
+        double[] from = GeoUtils.coordinates(pickup);
+        double[] to = GeoUtils.coordinates(dropoff);
+        if (from == null || to == null) return null;
+
+        Map<String, Object> eta = speedProfiles.estimate(from[0], from[1], to[0], to[1], departureMillis);
+        double distanceKm = (Double) eta.get("distanceKm");
+        double etaMinutes = (Double) eta.get("durationMinutes");
+        double billedMinutes = bookedMinutes != null && bookedMinutes > 0 ? bookedMinutes : Math.ceil(etaMinutes);
+
+        String type = vehicleType == null ? "economy" : vehicleType;
+        double baseFare = BASE_RATES.getOrDefault(type, BASE_RATES.get("economy"));
+        double distanceFare = distanceKm * perKmRate;
+        double timeFare = billedMinutes * perMinuteRate;
+
+        Map<String, Object> m = new HashMap<>(eta);
+        m.put("vehicleType", type);
+        m.put("billedMinutes", billedMinutes);
+        m.put("baseFare", baseFare);
+        m.put("distanceFare", round2(distanceFare));
+        m.put("timeFare", round2(timeFare));
+        m.put("estimatedCost", round2(baseFare + distanceFare + timeFare));
+        m.put("currency", "INR");
+        m.put("departureTime", new Date(departureMillis));
+        return m;
+    }
+
+    /**
+     * Replaces the client-computed estimatedCost on a booking with a server quote. The
+     * client's figure is kept as clientEstimatedCost. A booking that cannot be priced because
+     * its coordinates are missing is rejected rather than saved at the client's price.
+     *
+     * @throws IllegalArgumentException if pickupCoordinates or dropoffCoordinates is missing
+     */
+    @SuppressWarnings("unchecked")
+    public void applyToBooking(Map<String, Object> booking) {
+        Object pickup = booking.get("pickupCoordinates");
+        Object dropoff = booking.get("dropoffCoordinates");
+        Map<String, Object> quote = null;
+        if (pickup instanceof Map && dropoff instanceof Map) {
+            long departure = departureMillis(booking.get("pickupDate"), booking.get("pickupTime"));
+            quote = quote((Map<String, Object>) pickup, (Map<String, Object>) dropoff,
+                    Objects.toString(booking.get("vehicleType"), null), parseMinutes(booking.get("duration")), departure);
+        }
+        if (quote == null) {
+            throw new IllegalArgumentException("pickupCoordinates and dropoffCoordinates with lat/lng are required to price a booking");
+        }
+
+        if (booking.containsKey("estimatedCost")) booking.put("clientEstimatedCost", booking.get("estimatedCost"));
+        booking.put("estimatedCost", quote.get("estimatedCost"));
+        booking.put("estimatedDistance", quote.get("distanceKm"));
+        booking.put("estimatedTripMinutes", quote.get("durationMinutes"));
+    }
+
+    public static Integer parseMinutes(Object value) {
+        if (value instanceof Number) return ((Number) value).intValue();
+        if (value instanceof String) {
+            try {
+                return Integer.parseInt(((String) value).trim());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return null;
+    }
+
+    // pickupDate/pickupTime come from the booking form as yyyy-MM-dd and HH:mm
+    private long departureMillis(Object date, Object time) {
+        try {
+            LocalDate d = LocalDate.parse(Objects.toString(date));
+            LocalTime t = time != null ? LocalTime.parse(time.toString()) : LocalTime.NOON;
+            return d.atTime(t).atZone(ZoneId.of(zone)).toInstant().toEpochMilli();
+        } catch (Exception e) {
+            return System.currentTimeMillis();
+        }
+    }
+
+    private static double round2(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.neurofleet.service;
+
+import com.neurofleet.util.RebalancingPlanner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Periodically suggests where idle vehicles should reposition. Supply is the set of
+ * {@code available} vehicles in telemetry right now; demand is recent pickups from bookings
+ * as already aggregated by {@link HeatmapService}, so each run reads no Firestore documents.
+ */
+@Service
+public class RebalancingService {
+
+    private static final Logger log = LoggerFactory.getLogger(RebalancingService.class);
+
+    private final TelemetryService telemetry;
+    private final HeatmapService heatmap;
+    private final RebalancingPlanner planner;
+    private final int resolution;
+    private final int windowMinutes;
+    private final long timeBudgetMillis;
+
+    private volatile Map<String, Object> latestPlan;
+
+    public RebalancingService(TelemetryService telemetry, HeatmapService heatmap,
+                              @Value("${app.rebalancing.resolution:2}") int resolution,
+                              @Value("${app.rebalancing.demand-window-minutes:60}") int windowMinutes,
+                              @Value("${app.rebalancing.max-move-km:5}") double maxMoveKm,
+                              @Value("${app.rebalancing.neighbors:12}") int neighbors,
+                              @Value("${app.rebalancing.time-budget-ms:2000}") long timeBudgetMillis) {
+        this.telemetry = telemetry;
+        this.heatmap = heatmap;
+        this.resolution = Math.max(0, Math.min(HeatmapService.RESOLUTIONS - 1, resolution));
+        this.windowMinutes = windowMinutes;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.planner = new RebalancingPlanner(HeatmapService.cellDeg(this.resolution), maxMoveKm, neighbors);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rebalancing.interval-ms:120000}")
+    public void rebalance() {
+        Map<String, Object> plan = computePlan();
+        latestPlan = plan;
+        Object moves = plan.get("moveCount");
+        if (moves instanceof Integer && (Integer) moves > 0) {
+            log.info("rebalancing.plan moves={} solveMs={} timedOut={}", moves, plan.get("solveMillis"), Boolean.TRUE.equals(plan.get("timedOut")));
+        }
+    }
+
+    /** The plan from the last scheduled run, computing one first if none has run yet. */
+    public Map<String, Object> getLatestPlan() {
+        Map<String, Object> plan = latestPlan;
+        if (plan == null) {
+            plan = computePlan();
+            latestPlan = plan;
+        }
+        return plan;
+    }
+
+    public Map<String, Object> computePlan() {
+        List<RebalancingPlanner.Vehicle> idle = new ArrayList<>();
+        for (Map<String, Object> v : telemetry.getAllTelemetry()) {
+            if (!"available".equals(v.get("status"))) continue;
+            Object id = v.get("id");
+            Object lat = v.get("latitude");
+            Object lng = v.get("longitude");
+            if (id == null || !(lat instanceof Number) || !(lng instanceof Number)) continue;
+            idle.add(new RebalancingPlanner.Vehicle(id.toString(), ((Number) lat).doubleValue(), ((Number) lng).doubleValue()));
+        }
+        List<double[]> demand = heatmap.demandCells(resolution, windowMinutes);
+
+        RebalancingPlanner.Plan plan = planner.plan(idle, demand, timeBudgetMillis);
+        List<Map<String, Object>> moves = new ArrayList<>(plan.moves.size());
+        for (RebalancingPlanner.Move m : plan.moves) {
+            moves.add(m.toPayload());
+        }
+
+        Map<String, Object> out = new HashMap<>();
+        out.put("generatedAt", System.currentTimeMillis());
+        out.put("idleVehicles", plan.vehicles);
+        out.put("demandCells", demand.size());
+        out.put("surplusCells", plan.surplusCells);
+        out.put("deficitCells", plan.deficitCells);
+        out.put("imbalance", plan.imbalance);
+        out.put("moveCount", moves.size());
+        out.put("totalKm", Math.round(plan.totalKm * 100) / 100.0);
+        out.put("solveMillis", plan.solveMillis);
+        out.put("timedOut", plan.timedOut);
+        out.put("moves", moves);
+        return out;
+    }
+}
@@ -0,0 +1,151 @@
+package com.neurofleet.service;
+
+import com.neurofleet.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+
+/**
+ * Learns how fast the fleet actually moves per grid cell and hour of week from on-trip
+ * telemetry, and turns that into travel-time estimates. Each sample is counted at three
+ * levels (cell + hour, cell over all hours, whole city + hour) so sparse cells fall back
+ * to coarser evidence instead of a fixed guess.
+ */
+@Service
+public class SpeedProfileService implements TelemetryListener {
+
+    private static final int HOURS_PER_WEEK = 168;
+    private static final int ALL_HOURS = 255;
+    private static final int CITY_CELL = (1 << 21) - 1;
+    private static final int CELL_OFFSET = 1 << 20;
+    private static final double DEFAULT_SPEED_KMH = 25.0;
+    private static final int MAX_SEGMENTS = 200;
+
+    private final SpeedProfileTable table;
+    private final double cellDeg;
+    private final int minSamples;
+    private final ZoneId zone;
+
+    public SpeedProfileService(TelemetryService telemetry,
+                               @Value("${app.quotes.profile-capacity:262144}") int capacity,
+                               @Value("${app.quotes.cell-degrees:0.01}") double cellDeg,
+                               @Value("${app.quotes.min-samples:20}") int minSamples,
+                               @Value("${app.quotes.zone:Asia/Kolkata}") String zone) {
+        this.table = new SpeedProfileTable(capacity);
+        this.cellDeg = cellDeg;
+        this.minSamples = minSamples;
+        this.zone = ZoneId.of(zone);
+        telemetry.addListener(this);
+    }
+
+    @Override
+    public void onTelemetry(String vehicleId, Map<String, Object> telemetry, long timestampMillis) {
+        // Only moving, on-trip vehicles say anything about traffic speed
+        if (!"on-trip".equals(telemetry.get("status"))) return;
+        Object speed = telemetry.get("speed");
+        Object lat = telemetry.get("latitude");
+        Object lng = telemetry.get("longitude");
+        if (!(speed instanceof Number) || !(lat instanceof Number) || !(lng instanceof Number)) return;
+        record(((Number) lat).doubleValue(), ((Number) lng).doubleValue(), ((Number) speed).doubleValue(), timestampMillis);
+    }
+
+    public void record(double lat, double lng, double speedKmh, long timestampMillis) {
+        int bin = SpeedProfileTable.binOf(speedKmh);
+        int row = row(lat);
+        int col = col(lng);
+        int how = hourOfWeek(timestampMillis);
+        table.record(key(row, col, how), bin);
+        table.record(key(row, col, ALL_HOURS), bin);
+        table.record(key(CITY_CELL, CITY_CELL, how), bin);
+    }
+
+    /**
+     * Estimates travel along the straight line between two points, walking it in steps of
+     * about half a cell and charging each step at the learned speed for the cell and hour
+     * the vehicle would be in at that point of the journey.
+     */
+    public Map<String, Object> estimate(double fromLat, double fromLng, double toLat, double toLng, long departureMillis) {
+        double straightKm = GeoUtils.haversineKm(fromLat, fromLng, toLat, toLng);
+        double roadKm = straightKm * GeoUtils.ROAD_DETOUR_FACTOR;
+        double stepKm = cellDeg * GeoUtils.KM_PER_DEGREE_LAT / 2;
+        int segments = (int) Math.max(1, Math.min(MAX_SEGMENTS, Math.ceil(straightKm / stepKm)));
+        double segmentKm = roadKm / segments;
+
+        double hours = 0;
+        int cellHits = 0;
+        int cityHits = 0;
+        for (int i = 0; i < segments; i++) {
+            double f = (i + 0.5) / segments;
+            double lat = fromLat + (toLat - fromLat) * f;
+            double lng = fromLng + (toLng - fromLng) * f;
+            int how = hourOfWeek(departureMillis + (long) (hours * 3_600_000L));
+            int row = row(lat);
+            int col = col(lng);
+
+            double hPerKm = table.meanHoursPerKm(key(row, col, how), minSamples);
+            if (Double.isNaN(hPerKm)) hPerKm = table.meanHoursPerKm(key(row, col, ALL_HOURS), minSamples);
+            if (!Double.isNaN(hPerKm)) {
+                cellHits++;
+            } else {
+                hPerKm = table.meanHoursPerKm(key(CITY_CELL, CITY_CELL, how), minSamples);
+                if (!Double.isNaN(hPerKm)) {
+                    cityHits++;
+                } else {
+                    hPerKm = 1.0 / DEFAULT_SPEED_KMH;
+                }
+            }
+            hours += segmentKm * hPerKm;
+        }
+
+        Map<String, Object> m = new HashMap<>();
+        m.put("distanceKm", round2(roadKm));
+        m.put("durationMinutes", round2(hours * 60));
+        m.put("averageSpeedKmh", hours > 0 ? round2(roadKm / hours) : DEFAULT_SPEED_KMH);
+        m.put("cellCoverage", round2((double) cellHits / segments));
+        m.put("cityCoverage", round2((double) cityHits / segments));
+        return m;
+    }
+
+    public Map<String, Object> describeCell(double lat, double lng, long atMillis) {
+        int row = row(lat);
+        int col = col(lng);
+        int how = hourOfWeek(atMillis);
+        Map<String, Object> m = new HashMap<>();
+        m.put("cell", List.of(row, col));
+        m.put("hourOfWeek", how);
+        m.put("binWidthKmh", SpeedProfileTable.BIN_WIDTH_KMH);
+        m.put("hourHistogram", table.histogram(key(row, col, how)));
+        m.put("allHoursHistogram", table.histogram(key(row, col, ALL_HOURS)));
+        m.put("profiles", table.size());
+        m.put("capacity", table.capacity());
+        return m;
+    }
+
+    private int row(double lat) {
+        return (int) Math.floor(lat / cellDeg);
+    }
+
+    private int col(double lng) {
+        return (int) Math.floor(lng / cellDeg);
+    }
+
+    // Monday 00:00 local time is hour 0
+    private int hourOfWeek(long millis) {
+        ZonedDateTime t = ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+        return ((t.getDayOfWeek().getValue() - 1) * 24 + t.getHour()) % HOURS_PER_WEEK;
+    }
+
+    private static long key(int row, int col, int how) {
+        long r = row == CITY_CELL ? CITY_CELL : (row + CELL_OFFSET) & 0x1FFFFFL;
+        long c = col == CITY_CELL ? CITY_CELL : (col + CELL_OFFSET) & 0x1FFFFFL;
+        return (r << 29) | (c << 8) | (how & 0xFF);
+    }
+
+    private static double round2(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+}
@@ -0,0 +1,128 @@
+package com.neurofleet.service;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size open-addressing table of speed histograms. Each entry is a 64-bit key plus
+ * {@link #BINS} 16-bit counters laid out contiguously in one char array, so memory is
+ * fixed at construction no matter how many cells the fleet visits. When a key's probe
+ * window is full, the entry with the fewest samples is evicted.
+ */
+final class SpeedProfileTable {
+
+    static final int BINS = 16;
+    static final double BIN_WIDTH_KMH = 8.0;
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int PROBE_WINDOW = 8;
+    // Slowest speed assumed for a bin, so a bin of stopped samples doesn't yield infinite time
+    private static final double MIN_BIN_SPEED_KMH = 4.0;
+
+    private final long[] keys;
+    private final char[] bins;
+    private final int[] totals;
+    private final int mask;
+    private int used;
+
+    SpeedProfileTable(int capacityPow2) {
+        int capacity = Integer.highestOneBit(Math.max(PROBE_WINDOW, capacityPow2));
+        this.keys = new long[capacity];
+        this.bins = new char[capacity * BINS];
+        this.totals = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    static int binOf(double speedKmh) {
+        int b = (int) (speedKmh / BIN_WIDTH_KMH);
+        return Math.max(0, Math.min(BINS - 1, b));
+    }
+
+    synchronized void record(long key, int bin) {
+        int slot = findOrClaim(key);
+        int base = slot * BINS;
+        if (bins[base + bin] == Character.MAX_VALUE) {
+            // Halve the whole histogram: keeps the shape and lets recent samples gain weight
+            int total = 0;
+            for (int i = 0; i < BINS; i++) {
+                bins[base + i] = (char) (bins[base + i] >>> 1);
+                total += bins[base + i];
+            }
+            totals[slot] = total;
+        }
+        bins[base + bin]++;
+        totals[slot]++;
+    }
+
+    /**
+     * Mean of 1/speed (hours per km) over the key's histogram, or NaN when the key is
+     * absent or has fewer than {@code minSamples} samples.
+     */
+    synchronized double meanHoursPerKm(long key, int minSamples) {
+        int slot = find(key);
+        if (slot < 0 || totals[slot] < minSamples) return Double.NaN;
+        int base = slot * BINS;
+        double sum = 0;
+        for (int i = 0; i < BINS; i++) {
+            if (bins[base + i] == 0) continue;
+            double center = Math.max(MIN_BIN_SPEED_KMH, (i + 0.5) * BIN_WIDTH_KMH);
+            sum += bins[base + i] / center;
+        }
+        return sum / totals[slot];
+    }
+
+    synchronized int samples(long key) {
+        int slot = find(key);
+        return slot < 0 ? 0 : totals[slot];
+    }
+
+    synchronized int[] histogram(long key) {
+        int slot = find(key);
+        if (slot < 0) return null;
+        int[] out = new int[BINS];
+        for (int i = 0; i < BINS; i++) {
+            out[i] = bins[slot * BINS + i];
+        }
+        return out;
+    }
+
+    synchronized int size() {
+        return used;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    private int find(long key) {
+        int h = hash(key);
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (h + i) & mask;
+            if (keys[slot] == key) return slot;
+        }
+        return -1;
+    }
+
+    private int findOrClaim(long key) {
+        int h = hash(key);
+        int victim = -1;
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (h + i) & mask;
+            if (keys[slot] == key) return slot;
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                used++;
+                return slot;
+            }
+            if (victim < 0 || totals[slot] < totals[victim]) victim = slot;
+        }
+        keys[victim] = key;
+        totals[victim] = 0;
+        Arrays.fill(bins, victim * BINS, victim * BINS + BINS, (char) 0);
+        return victim;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,409 @@
+package com.neurofleet.service;
+
+import com.neurofleet.util.TelemetryChunkCodec;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-term telemetry archive on local disk. Position and battery samples are buffered per
+ * vehicle and sealed into compressed columnar chunks (see {@link TelemetryChunkCodec}) once a
+ * buffer holds {@code chunk-size} samples, crosses a UTC day or is older than
+ * {@code max-open-ms}.
+ *
+ * Each vehicle has a directory with one partition per UTC day: {@code <day>.tca} holds the
+ * chunk bytes back to back and {@code <day>.idx} holds one fixed-size record per chunk
+ * (first and last timestamp, offset, length, count). A range scan reads the index of each
+ * day in range and then only the chunks that overlap it. The data is appended before its
+ * index record, so a crash mid-write leaves at most unreferenced bytes behind.
+ *
+ * The listener only appends to an in-memory buffer; encoding and file writes happen on the
+ * scheduled writer. Samples not yet on disk are still returned by {@link #scan}.
+ */
+@Service
+public class TelemetryArchiveService implements TelemetryListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TelemetryArchiveService.class);
+
+    private static final int COLUMNS = 3; // latitude, longitude, batteryLevel
+    private static final int INDEX_RECORD_BYTES = 32;
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    // Buffers start this small and double up to chunk-size, so idle vehicles stay cheap
+    private static final int INITIAL_BUFFER_CAPACITY = 16;
+
+    private final Path root;
+    private final int chunkSize;
+    private final long maxOpenMillis;
+    private final int mantissaBits;
+    private final int retentionDays;
+    private final boolean enabled;
+
+    private final Map<String, Buffer> open = new ConcurrentHashMap<>();
+    private final Queue<Buffer> sealed = new ConcurrentLinkedQueue<>();
+    private final Object writeLock = new Object();
+
+    private volatile long chunksWritten;
+    private volatile long samplesWritten;
+    private volatile long bytesWritten;
+
+    /**
+     * Samples of one vehicle within one UTC day, in arrival order. Frozen once it leaves
+     * {@code open}: appends re-check membership under the buffer's monitor.
+     */
+    private static final class Buffer {
+        final String vehicleId;
+        final long day;
+        final long openedAt;
+        long[] timestamps;
+        double[][] columns;
+        int size;
+
+        Buffer(String vehicleId, long day, int capacity) {
+            this.vehicleId = vehicleId;
+            this.day = day;
+            this.openedAt = System.currentTimeMillis();
+            this.timestamps = new long[capacity];
+            this.columns = new double[COLUMNS][capacity];
+        }
+
+        // Callers hold the monitor and have checked size < chunk-size
+        void add(long t, double lat, double lng, double battery) {
+            if (size == timestamps.length) {
+                int n = size * 2;
+                timestamps = Arrays.copyOf(timestamps, n);
+                for (int c = 0; c < COLUMNS; c++) {
+                    columns[c] = Arrays.copyOf(columns[c], n);
+                }
+            }
+            timestamps[size] = t;
+            columns[0][size] = lat;
+            columns[1][size] = lng;
+            columns[2][size] = battery;
+            size++;
+        }
+    }
+
+    /** Result of a range scan, column-oriented like the archive itself. */
+    public static final class Samples {
+        public final String vehicleId;
+        public long[] timestamps = new long[256];
+        public double[] latitude = new double[256];
+        public double[] longitude = new double[256];
+        public double[] batteryLevel = new double[256];
+        public int size;
+        public int chunksRead;
+
+        Samples(String vehicleId) {
+            this.vehicleId = vehicleId;
+        }
+
+        void add(long t, double lat, double lng, double battery) {
+            if (size == timestamps.length) {
+                int n = size * 2;
+                timestamps = Arrays.copyOf(timestamps, n);
+                latitude = Arrays.copyOf(latitude, n);
+                longitude = Arrays.copyOf(longitude, n);
+                batteryLevel = Arrays.copyOf(batteryLevel, n);
+            }
+            timestamps[size] = t;
+            latitude[size] = lat;
+            longitude[size] = lng;
+            batteryLevel[size] = battery;
+            size++;
+        }
+
+        public Map<String, Object> toPayload() {
+            Map<String, Object> m = new HashMap<>();
+            m.put("vehicleId", vehicleId);
+            m.put("count", size);
+            m.put("timestamps", Arrays.copyOf(timestamps, size));
+            m.put("latitude", Arrays.copyOf(latitude, size));
+            m.put("longitude", Arrays.copyOf(longitude, size));
+            m.put("batteryLevel", Arrays.copyOf(batteryLevel, size));
+            return m;
+        }
+    }
+
+    public TelemetryArchiveService(TelemetryService telemetry,
+                                   @Value("${app.archive.enabled:true}") boolean enabled,
+                                   @Value("${app.archive.dir:telemetry-archive}") String dir,
+                                   @Value("${app.archive.chunk-size:1024}") int chunkSize,
+                                   @Value("${app.archive.max-open-ms:600000}") long maxOpenMillis,
+                                   @Value("${app.archive.mantissa-bits:26}") int mantissaBits,
+                                   @Value("${app.archive.retention-days:180}") int retentionDays) {
+        this.enabled = enabled;
+        this.root = Paths.get(dir);
+        this.chunkSize = Math.max(16, chunkSize);
+        this.maxOpenMillis = maxOpenMillis;
+        this.mantissaBits = Math.max(8, Math.min(52, mantissaBits));
+        this.retentionDays = retentionDays;
+        if (enabled && telemetry != null) telemetry.addListener(this);
+    }
+
+    @Override
+    public void onTelemetry(String vehicleId, Map<String, Object> telemetry, long timestampMillis) {
+        Object lat = telemetry.get("latitude");
+        Object lng = telemetry.get("longitude");
+        if (!(lat instanceof Number) || !(lng instanceof Number)) return;
+        Object battery = telemetry.get("batteryLevel");
+        append(vehicleId, timestampMillis, ((Number) lat).doubleValue(), ((Number) lng).doubleValue(),
+                battery instanceof Number ? ((Number) battery).doubleValue() : Double.NaN);
+    }
+
+    public void append(String vehicleId, long timestampMillis, double lat, double lng, double battery) {
+        long day = Math.floorDiv(timestampMillis, DAY_MILLIS);
+        while (true) {
+            Buffer b = open.computeIfAbsent(vehicleId, k -> newBuffer(k, day));
+            synchronized (b) {
+                // The writer sealed this buffer after we looked it up; take the new one
+                if (open.get(vehicleId) != b) continue;
+                if (b.day != day || b.size == chunkSize) {
+                    // Chunks never span days, so a day's files are complete once it is over
+                    if (b.day > day) return; // late sample from a day already sealed
+                    // Into sealed before out of open, so scan() always finds it in one of them
+                    sealed.add(b);
+                    open.put(vehicleId, newBuffer(vehicleId, day));
+                    continue;
+                }
+                if (b.size > 0 && timestampMillis < b.timestamps[b.size - 1]) return;
+                b.add(timestampMillis, lat, lng, battery);
+                return;
+            }
+        }
+    }
+
+    /** Seals buffers that have been open too long and writes everything sealed to disk. */
+    @Scheduled(fixedDelayString = "${app.archive.flush-interval-ms:30000}")
+    public void flush() {
+        flush(false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush(true);
+    }
+
+    private void flush(boolean all) {
+        if (!enabled) return;
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Buffer> e : open.entrySet()) {
+            Buffer b = e.getValue();
+            if (!all && now - b.openedAt < maxOpenMillis) continue;
+            synchronized (b) {
+                if (b.size == 0 || open.get(e.getKey()) != b) continue;
+                sealed.add(b);
+                open.remove(e.getKey(), b);
+            }
+        }
+
+        synchronized (writeLock) {
+            Buffer b;
+            while ((b = sealed.peek()) != null) {
+                try {
+                    write(b);
+                    sealed.poll();
+                } catch (IOException ex) {
+                    log.warn("archive.write-failed vehicle={} pendingChunks={} error={}", b.vehicleId, sealed.size(), ex.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+    private void write(Buffer b) throws IOException {
+        int n;
+        byte[] encoded;
+        long first;
+        long last;
+        synchronized (b) {
+            n = b.size;
+            if (n == 0) return;
+            encoded = TelemetryChunkCodec.encode(b.timestamps, b.columns, n, mantissaBits);
+            first = b.timestamps[0];
+            last = b.timestamps[n - 1];
+        }
+        Path dir = vehicleDir(b.vehicleId);
+        Files.createDirectories(dir);
+        String day = LocalDate.ofEpochDay(b.day).toString();
+
+        long offset;
+        try (FileChannel data = FileChannel.open(dir.resolve(day + ".tca"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            offset = data.size();
+            writeFully(data, ByteBuffer.wrap(encoded), offset);
+            data.force(false);
+        }
+        try (FileChannel index = FileChannel.open(dir.resolve(day + ".idx"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Drop a torn record left by an earlier crash before appending
+            long end = index.size() - index.size() % INDEX_RECORD_BYTES;
+            ByteBuffer rec = ByteBuffer.allocate(INDEX_RECORD_BYTES);
+            rec.putLong(first).putLong(last).putLong(offset).putInt(encoded.length).putInt(n).flip();
+            writeFully(index, rec, end);
+            index.truncate(end + INDEX_RECORD_BYTES);
+        }
+        chunksWritten++;
+        samplesWritten += n;
+        bytesWritten += encoded.length + INDEX_RECORD_BYTES;
+    }
+
+    /**
+     * Samples of one vehicle with fromMillis <= t < toMillis, in time order. The in-memory
+     * buffers are listed before the disk is read, so a chunk the writer moves to disk in
+     * between is found at least once; one found in both places is taken from disk only.
+     */
+    public Samples scan(String vehicleId, long fromMillis, long toMillis) throws IOException {
+        Samples out = new Samples(vehicleId);
+        if (toMillis <= fromMillis) return out;
+        Path dir = vehicleDir(vehicleId);
+        long firstDay = Math.floorDiv(fromMillis, DAY_MILLIS);
+        long lastDay = Math.floorDiv(toMillis - 1, DAY_MILLIS);
+
+        // Open first: a buffer enters sealed before it leaves open. If the open one gets sealed
+        // meanwhile, it is met in sealed, ahead of any buffer opened after it
+        List<Buffer> pending = new ArrayList<>();
+        Buffer current = open.get(vehicleId);
+        for (Buffer b : sealed) {
+            if (b.vehicleId.equals(vehicleId)) pending.add(b);
+        }
+        if (current != null && !pending.contains(current)) pending.add(current);
+        // First timestamp and count of every chunk on disk, to recognise pending ones already written
+        Set<String> onDisk = new HashSet<>();
+
+        if (Files.isDirectory(dir)) {
+            for (long day = firstDay; day <= lastDay; day++) {
+                String name = LocalDate.ofEpochDay(day).toString();
+                Path idx = dir.resolve(name + ".idx");
+                if (!Files.exists(idx)) continue;
+                ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(idx));
+                try (FileChannel data = FileChannel.open(dir.resolve(name + ".tca"), StandardOpenOption.READ)) {
+                    while (index.remaining() >= INDEX_RECORD_BYTES) {
+                        long first = index.getLong();
+                        long last = index.getLong();
+                        long offset = index.getLong();
+                        int length = index.getInt();
+                        int count = index.getInt();
+                        onDisk.add(first + ":" + count);
+                        if (last < fromMillis || first >= toMillis) continue;
+                        ByteBuffer chunk = ByteBuffer.allocate(length);
+                        readFully(data, chunk, offset);
+                        addInRange(out, TelemetryChunkCodec.decode(chunk.array()), fromMillis, toMillis);
+                        out.chunksRead++;
+                    }
+                }
+            }
+        }
+
+        // Samples still waiting for the writer, oldest first
+        for (Buffer b : pending) {
+            addBuffer(out, b, onDisk, fromMillis, toMillis);
+        }
+        return out;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("enabled", enabled);
+        m.put("directory", root.toAbsolutePath().toString());
+        m.put("openBuffers", open.size());
+        m.put("pendingChunks", sealed.size());
+        m.put("chunksWritten", chunksWritten);
+        m.put("samplesWritten", samplesWritten);
+        m.put("bytesWritten", bytesWritten);
+        m.put("bytesPerSample", samplesWritten > 0 ? Math.round(bytesWritten * 100.0 / samplesWritten) / 100.0 : 0.0);
+        return m;
+    }
+
+    /** Deletes day partitions older than the retention period. */
+    @Scheduled(cron = "${app.archive.retention-cron:0 30 3 * * *}")
+    public void enforceRetention() {
+        if (!enabled || retentionDays <= 0 || !Files.isDirectory(root)) return;
+        String cutoff = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays).toString();
+        int deleted = 0;
+        try (DirectoryStream<Path> vehicles = Files.newDirectoryStream(root)) {
+            for (Path dir : vehicles) {
+                if (!Files.isDirectory(dir)) continue;
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                    for (Path f : files) {
+                        String name = f.getFileName().toString();
+                        // ISO dates sort lexicographically
+                        if (name.length() >= 10 && name.substring(0, 10).compareTo(cutoff) < 0) {
+                            Files.deleteIfExists(f);
+                            deleted++;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("archive.retention-failed error={}", e.getMessage());
+        }
+        if (deleted > 0) log.info("archive.retention deleted={} olderThan={}", deleted, cutoff);
+    }
+
+    private static void addInRange(Samples out, TelemetryChunkCodec.Decoded chunk, long from, long to) {
+        long[] t = chunk.timestamps;
+        for (int i = 0; i < t.length; i++) {
+            if (t[i] >= from && t[i] < to) out.add(t[i], chunk.columns[0][i], chunk.columns[1][i], chunk.columns[2][i]);
+        }
+    }
+
+    private static void addBuffer(Samples out, Buffer b, Set<String> onDisk, long from, long to) {
+        synchronized (b) {
+            // Written by the flusher since the snapshot was taken; the disk copy was already read
+            if (b.size == 0 || onDisk.contains(b.timestamps[0] + ":" + b.size)) return;
+            for (int i = 0; i < b.size; i++) {
+                long t = b.timestamps[i];
+                if (t >= from && t < to) out.add(t, b.columns[0][i], b.columns[1][i], b.columns[2][i]);
+            }
+        }
+    }
+
+    private Buffer newBuffer(String vehicleId, long day) {
+        return new Buffer(vehicleId, day, Math.min(INITIAL_BUFFER_CAPACITY, chunkSize));
+    }
+
+    // Vehicle ids come from Firestore; keep them from escaping the archive directory
+    private Path vehicleDir(String vehicleId) {
+        StringBuilder sb = new StringBuilder(vehicleId.length());
+        boolean replaced = false;
+        for (char c : vehicleId.toCharArray()) {
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_') {
+                sb.append(c);
+            } else {
+                sb.append('_');
+                replaced = true;
+            }
+        }
+        if (replaced || sb.length() == 0) {
+            sb.append('-').append(Integer.toHexString(Arrays.hashCode(vehicleId.getBytes(StandardCharsets.UTF_8))));
+        }
+        return root.resolve(sb.toString());
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            position += ch.write(buf, position);
+        }
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, position);
+            if (n < 0) throw new IOException("Archive chunk truncated");
+            position += n;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.neurofleet.service;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Receives every telemetry update produced by {@link TelemetryService}, either from the
+ * simulation tick or from a device report. Called on the producing thread, so
+ * implementations must be cheap and must not keep a reference to the map.
+ */
+public interface TelemetryListener {
+    void onTelemetry(String vehicleId, Map<String, Object> telemetry, long timestampMillis);
+
+    /**
+     * Same, with the update's vehicle_update JSON. It is serialised once, on first use, and shared
+     * with the other listeners and the WebSocket broadcast, so a listener that publishes the
+     * update overrides this one. The supplier is only valid on the calling thread.
+     */
+    default void onTelemetry(String vehicleId, Map<String, Object> telemetry, long timestampMillis, Supplier<String> updateJson) {
+        onTelemetry(vehicleId, telemetry, timestampMillis);
+    }
+}
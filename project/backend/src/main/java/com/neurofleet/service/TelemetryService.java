@@ -2,25 +2,51 @@ package com.neurofleet.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neurofleet.model.ModelJsonModule;
+import com.neurofleet.model.Telemetry;
+import com.neurofleet.util.GeoUtils;
+import com.neurofleet.util.LogThrottle;
 import com.neurofleet.websocket.RawWebSocketHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.UncheckedIOException;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 @Service
 @EnableScheduling
 public class TelemetryService {
 
+    private static final Logger log = LoggerFactory.getLogger(TelemetryService.class);
+    private static final LogThrottle addLog = new LogThrottle(20, 10000);
+    private static final LogThrottle listenerErrorLog = new LogThrottle(5, 60000);
+
     private final Map<String, Map<String, Object>> vehicles = new ConcurrentHashMap<>();
+    // The fields of each vehicle that ticks and device reports never change, shared by its snapshots
+    private final Map<String, Map<String, Object>> attributes = new ConcurrentHashMap<>();
+    // {latitude, longitude} a vehicle is driving to, such as a charger reserved for it
+    private final Map<String, double[]> destinations = new ConcurrentHashMap<>();
     private final RawWebSocketHandler broadcaster;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final EnergyModelService energy;
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new ModelJsonModule());
+    private final List<TelemetryListener> listeners = new CopyOnWriteArrayList<>();
+    // Bumped on every change to any vehicle; drives the ETag of the telemetry endpoints
+    private final AtomicLong version = new AtomicLong();
+    // snapshotAll() of the version it was built at, shared until the next change
+    private volatile SnapshotAll lastSnapshotAll;
+    private long lastTickNanos;
 
-    public TelemetryService(RawWebSocketHandler broadcaster) {
+    public TelemetryService(RawWebSocketHandler broadcaster, EnergyModelService energy) {
         this.broadcaster = broadcaster;
+        this.energy = energy;
         // Lazy init; load from Firestore via VehicleService if needed.
     }
 
@@ -64,12 +90,56 @@ public class TelemetryService {
         // Add some default values for route optimization
         v.putIfAbsent("speed", 30 + new Random().nextInt(40)); // km/h
         
+        // The energy model owns state of charge once a vehicle is tracked
+        energy.register(id,
+                GeoUtils.toDouble(v.get("batteryCapacity"), 0),
+                GeoUtils.toDouble(v.get("batteryLevel"), 50));
+        energy.writeTo(id, v);
+        
+        attributes.put(id, Telemetry.attributesOf(v));
         vehicles.put(id, v);
-        System.out.println("Added vehicle with ID: " + id + " and data: " + v);
+        version.incrementAndGet();
+        if (log.isDebugEnabled() && addLog.tryAcquire()) {
+            log.debug("telemetry.add id={} data={} suppressed={}", id, v, addLog.drainSuppressed());
+        }
+    }
+
+    public void addListener(TelemetryListener listener) {
+        listeners.add(listener);
+    }
+
+    private void notifyListeners(String id, Map<String, Object> v, long timestampMillis, Supplier<String> updateJson) {
+        for (TelemetryListener l : listeners) {
+            try {
+                l.onTelemetry(id, v, timestampMillis, updateJson);
+            } catch (Exception e) {
+                // Runs for every vehicle on every tick, so a broken listener is reported, not repeated
+                if (listenerErrorLog.tryAcquire()) {
+                    log.warn("telemetry.listener-failed listener={} vehicle={} error={} suppressed={}",
+                            l.getClass().getSimpleName(), id, e.getMessage(), listenerErrorLog.drainSuppressed());
+                }
+            }
+        }
     }
 
     public void removeVehicle(String id) {
-        vehicles.remove(id);
+        if (vehicles.remove(id) != null) version.incrementAndGet();
+        attributes.remove(id);
+        destinations.remove(id);
+        energy.unregister(id);
+    }
+
+    /** From the next tick on, the vehicle drives to this point and then waits there until cleared. */
+    public void driveTo(String id, double latitude, double longitude) {
+        destinations.put(id, new double[]{latitude, longitude});
+    }
+
+    public void clearDestination(String id) {
+        destinations.remove(id);
+    }
+
+    public long version() {
+        return version.get();
     }
 
     public Map<String, Object> getTelemetry(String id) {
@@ -80,68 +150,166 @@ public class TelemetryService {
         return new ArrayList<>(vehicles.values());
     }
 
-    public void updateStatus(String id, String status) {
+    /** Typed copy of one vehicle's telemetry, safe to serialise while the tick keeps updating it. */
+    public Telemetry snapshot(String id) {
+        Map<String, Object> v = vehicles.get(id);
+        return v == null ? null : snapshot(id, v);
+    }
+
+    /** Same for a live record already at hand, such as the one passed to a listener. */
+    public Telemetry snapshot(String id, Map<String, Object> v) {
+        return Telemetry.of(v, attributes.getOrDefault(id, Map.of()));
+    }
+
+    /**
+     * Snapshots of the whole fleet. Built once per {@link #version()} and shared by every caller
+     * until the next change, so the polling endpoints don't copy the fleet on each request.
+     */
+    public List<Telemetry> snapshotAll() {
+        SnapshotAll last = lastSnapshotAll;
+        // Read before copying: a change made during the copy bumps the version past this one
+        long current = version.get();
+        if (last != null && last.version == current) return last.vehicles;
+        List<Telemetry> all = new ArrayList<>(vehicles.size());
+        for (Map.Entry<String, Map<String, Object>> e : vehicles.entrySet()) all.add(snapshot(e.getKey(), e.getValue()));
+        List<Telemetry> shared = Collections.unmodifiableList(all);
+        lastSnapshotAll = new SnapshotAll(current, shared);
+        return shared;
+    }
+
+    private record SnapshotAll(long version, List<Telemetry> vehicles) {
+    }
+
+    /**
+     * The vehicle_update message for one update, serialised on first use. Handed to the listeners
+     * and the raw WebSocket broadcast of the same update, which then share one string.
+     */
+    public Supplier<String> updateJson(String id, Map<String, Object> v) {
+        return new Supplier<>() {
+            private String json;
+
+            @Override
+            public String get() {
+                if (json == null) {
+                    try {
+                        json = mapper.writeValueAsString(snapshot(id, v).asUpdate());
+                    } catch (JsonProcessingException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return json;
+            }
+        };
+    }
+
+    /** Returns false when the vehicle isn't tracked, in which case nothing changes. */
+    public boolean updateStatus(String id, String status) {
         Map<String, Object> v = vehicles.get(id);
-        if (v != null) v.put("status", status);
+        if (v == null) return false;
+        v.put("status", status);
+        version.incrementAndGet();
+        return true;
+    }
+
+    // Applies a reading reported by the vehicle itself; a measured battery level recalibrates the energy model
+    public Map<String, Object> ingest(String id, Map<String, Object> sample) {
+        Map<String, Object> v = vehicles.get(id);
+        if (v == null) return null;
+        for (String key : List.of("latitude", "longitude", "speed")) {
+            if (sample.get(key) instanceof Number) v.put(key, sample.get(key));
+        }
+        if (sample.get("status") instanceof String) v.put("status", sample.get("status"));
+        if (sample.get("batteryLevel") instanceof Number) {
+            energy.observe(id, ((Number) sample.get("batteryLevel")).doubleValue());
+            energy.writeTo(id, v);
+        }
+        v.put("lastUpdate", Instant.now().toString());
+        version.incrementAndGet();
+        notifyListeners(id, v, System.currentTimeMillis(), updateJson(id, v));
+        return v;
     }
 
     @Scheduled(fixedDelay = 5000)
-    public void tick() throws JsonProcessingException {
+    public void tick() {
+        long now = System.nanoTime();
+        double dtSeconds = lastTickNanos == 0 ? 5.0 : (now - lastTickNanos) / 1e9;
+        lastTickNanos = now;
+
+        // Pass 1: move vehicles and stage what each one did for the energy model
         for (Map.Entry<String, Map<String, Object>> e : vehicles.entrySet()) {
             Map<String, Object> v = e.getValue();
             String status = (String) v.getOrDefault("status", "available");
-            double battery = ((Number) v.getOrDefault("batteryLevel", 50)).doubleValue();
-            double range = ((Number) v.getOrDefault("range", 200)).doubleValue();
             double latitude = ((Number) v.getOrDefault("latitude", 28.4595)).doubleValue();
             double longitude = ((Number) v.getOrDefault("longitude", 77.0266)).doubleValue();
-            double speed = ((Number) v.getOrDefault("speed", 30)).doubleValue();
+            double speed;
+            double movement;
+            int mode;
+            double[] destination = destinations.get(e.getKey());
 
-            if ("on-trip".equals(status)) {
-                battery = Math.max(0, battery - 0.5);
-                range = Math.max(0, range - 1.5);
-                
+            if (destination != null) {
+                // Heading somewhere specific, whatever the status says
+                speed = 25 + Math.random() * 20;
+                movement = 0;
+                mode = EnergyModelService.MODE_DRIVING;
+            } else if ("on-trip".equals(status)) {
                 // Move vehicle in a random direction when on trip
-                double latChange = (Math.random() - 0.5) * 0.001;
-                double lngChange = (Math.random() - 0.5) * 0.001;
-                latitude += latChange;
-                longitude += lngChange;
-                
-                // Update speed randomly
+                movement = 0.001;
                 speed = 20 + Math.random() * 50;
+                mode = EnergyModelService.MODE_DRIVING;
             } else if ("charging".equals(status)) {
-                battery = Math.min(100, battery + 0.7);
-                range = Math.min(500, battery * 3);
-                if (battery >= 99) v.put("status", "available");
-                
                 // Slightly move vehicle while charging
-                double latChange = (Math.random() - 0.5) * 0.0001;
-                double lngChange = (Math.random() - 0.5) * 0.0001;
-                latitude += latChange;
-                longitude += lngChange;
-                
+                movement = 0.0001;
                 speed = 0;
+                mode = EnergyModelService.MODE_CHARGING;
             } else {
-                battery = Math.max(0, battery - 0.05);
-                
                 // Slightly move vehicle when available
-                double latChange = (Math.random() - 0.5) * 0.0005;
-                double lngChange = (Math.random() - 0.5) * 0.0005;
-                latitude += latChange;
-                longitude += lngChange;
-                
+                movement = 0.0005;
                 speed = 5 + Math.random() * 15;
+                mode = EnergyModelService.MODE_IDLE;
             }
 
-            v.put("batteryLevel", battery);
-            v.put("range", (int) range);
-            v.put("latitude", latitude);
-            v.put("longitude", longitude);
+            double newLatitude = latitude + (Math.random() - 0.5) * movement;
+            double newLongitude = longitude + (Math.random() - 0.5) * movement;
+            if (destination != null) {
+                // Straight at it, covering what the speed allows on the road, which is longer than the straight line
+                double remainingKm = GeoUtils.haversineKm(latitude, longitude, destination[0], destination[1]) * GeoUtils.ROAD_DETOUR_FACTOR;
+                double fraction = remainingKm > 0 ? Math.min(1, speed * dtSeconds / 3600 / remainingKm) : 1;
+                newLatitude = latitude + (destination[0] - latitude) * fraction;
+                newLongitude = longitude + (destination[1] - longitude) * fraction;
+                if (fraction >= 1) {
+                    speed = 0;
+                    mode = EnergyModelService.MODE_IDLE;
+                }
+            }
+            double distanceKm = mode == EnergyModelService.MODE_CHARGING ? 0
+                    : GeoUtils.haversineKm(latitude, longitude, newLatitude, newLongitude);
+            energy.stage(e.getKey(), mode, speed, distanceKm);
+
+            v.put("latitude", newLatitude);
+            v.put("longitude", newLongitude);
             v.put("speed", speed);
-            v.put("lastUpdate", Instant.now().toString());
+        }
+
+        // One vectorized step over the whole fleet
+        energy.step(dtSeconds);
+
+        // Pass 2: publish model outputs
+        long nowMillis = System.currentTimeMillis();
+        String lastUpdate = Instant.ofEpochMilli(nowMillis).toString();
+        boolean raw = broadcaster.hasRawClients();
+        for (Map.Entry<String, Map<String, Object>> e : vehicles.entrySet()) {
+            Map<String, Object> v = e.getValue();
+            energy.writeTo(e.getKey(), v);
+            if ("charging".equals(v.get("status")) && ((Number) v.get("batteryLevel")).doubleValue() >= 99) {
+                v.put("status", "available");
+            }
+            v.put("lastUpdate", lastUpdate);
+            Supplier<String> json = updateJson(e.getKey(), v);
+            notifyListeners(e.getKey(), v, nowMillis, json);
+            if (!raw) continue;
 
-            Map<String, Object> payload = new HashMap<>(v);
-            payload.put("type", "vehicle_update");
-            broadcaster.broadcast(mapper.writeValueAsString(payload));
+            broadcaster.broadcast(json.get());
         }
+        if (!vehicles.isEmpty()) version.incrementAndGet();
     }
-}
\ No newline at end of file
+}
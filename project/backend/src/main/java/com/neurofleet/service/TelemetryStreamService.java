@@ -0,0 +1,384 @@
+package com.neurofleet.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neurofleet.model.ModelJsonModule;
+import com.neurofleet.model.Telemetry;
+import com.neurofleet.util.VehicleStreamFilter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Server-Sent Events version of the raw WebSocket feed, for networks that block WebSockets.
+ * Each telemetry update becomes one {@code vehicle_update} event carrying the same JSON the
+ * WebSocket sends, serialised once and shared by every subscriber.
+ *
+ * Events are numbered and the most recent {@code replay-size} are kept in a ring. A client
+ * reconnecting with Last-Event-ID gets the events it missed replayed. If that id is no longer
+ * in the ring, or comes from before a restart, the client gets a {@code snapshot} event with
+ * the current state of every vehicle it subscribed to instead. New clients start with a
+ * snapshot too, so they no longer need to poll /telemetry/all first. Either way no state
+ * change is lost across a reconnect.
+ *
+ * Writes to a client happen on a small sender pool, never on the telemetry tick. A client
+ * that falls more than {@code max-queued} events behind is disconnected, from the sender side
+ * so the tick never waits on its emitter, and it catches up through the same resume path. So is one whose single write has been blocked for longer than
+ * {@code send-timeout-ms}, a client that stopped reading with a full TCP window: it is detached
+ * at once and the pool gets an extra thread until the blocked write fails, so the other streams
+ * keep moving. Heartbeat comments keep proxies from closing idle streams.
+ */
+@Service
+public class TelemetryStreamService implements TelemetryListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TelemetryStreamService.class);
+
+    // Distinguishes event ids of this process from those of an earlier run, whose counter also started at 0
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+    private static final Object HEARTBEAT = new Object();
+    private static final long RECONNECT_MILLIS = 3000;
+
+    private static final class Event {
+        final long id;
+        final String vehicleId;
+        final Object status;
+        final Object vehicleType;
+        final String json;
+
+        Event(long id, String vehicleId, Object status, Object vehicleType, String json) {
+            this.id = id;
+            this.vehicleId = vehicleId;
+            this.status = status;
+            this.vehicleType = vehicleType;
+            this.json = json;
+        }
+    }
+
+    private static final class Snapshot {
+        final long id;
+        final String json;
+
+        Snapshot(long id, String json) {
+            this.id = id;
+            this.json = json;
+        }
+    }
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final VehicleStreamFilter filter;
+        final Deque<Object> queue = new ConcurrentLinkedDeque<>();
+        final AtomicInteger queued = new AtomicInteger();
+        // Starts set, so nothing is sent until the replay or snapshot has been queued in front
+        final AtomicBoolean draining = new AtomicBoolean(true);
+        // When the write in progress started, 0 when none is; read by the stall watchdog
+        volatile long sendStartedMillis;
+        // Set by the watchdog, which has lent the pool a thread in place of this one
+        final AtomicBoolean stalled = new AtomicBoolean();
+        final AtomicBoolean completed = new AtomicBoolean();
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, VehicleStreamFilter filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+        }
+
+        void offer(Event e) {
+            if (closed || !filter.matches(e.vehicleId, e.status, e.vehicleType)) return;
+            enqueue(e);
+        }
+
+        void enqueue(Object item) {
+            if (queued.incrementAndGet() > maxQueued) {
+                // Called under publishLock, and a slow client's send may hold the emitter's lock,
+                // so the emitter is completed on the sender side rather than here
+                if (closed) return;
+                log.info("sse.disconnect reason=slow-client queued={}", maxQueued);
+                detach();
+                if (draining.compareAndSet(false, true)) completeOnSender();
+                return;
+            }
+            queue.add(item);
+            kick();
+        }
+
+        void start() {
+            draining.set(false);
+            kick();
+        }
+
+        void kick() {
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        void drain() {
+            try {
+                Object item;
+                while (!closed && (item = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    sendStartedMillis = System.currentTimeMillis();
+                    send(item);
+                    sendStartedMillis = 0;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the container's completion callback cleans up as well
+                close();
+            } finally {
+                sendStartedMillis = 0;
+                draining.set(false);
+            }
+            // The blocked write has finally returned or failed; give the lent thread back
+            if (stalled.compareAndSet(true, false)) resizeSender(-1);
+            // Detached while this drain ran, by the watchdog or for falling behind
+            if (closed) {
+                complete();
+                return;
+            }
+            kick();
+        }
+
+        void completeOnSender() {
+            try {
+                sender.execute(this::complete);
+            } catch (RejectedExecutionException e) {
+                complete();
+            }
+        }
+
+        // Stops queueing to a subscriber without touching the emitter, whose lock a blocked send may hold
+        void detach() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+
+        private void send(Object item) throws IOException {
+            if (item == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else if (item instanceof Snapshot s) {
+                emitter.send(SseEmitter.event().id(eventId(s.id)).name("snapshot").reconnectTime(RECONNECT_MILLIS).data(s.json));
+            } else if (item instanceof Event e) {
+                emitter.send(SseEmitter.event().id(eventId(e.id)).name("vehicle_update").data(e.json));
+            } else {
+                emitter.send(SseEmitter.event().comment(item.toString()).reconnectTime(RECONNECT_MILLIS));
+            }
+        }
+
+        void close() {
+            detach();
+            complete();
+        }
+
+        void complete() {
+            if (!completed.compareAndSet(false, true)) return;
+            open.remove(this);
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {
+                // Already completed by the container
+            }
+        }
+    }
+
+    private final TelemetryService telemetry;
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new ModelJsonModule());
+    private final int capacity;
+    private final int maxQueued;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long sendTimeoutMillis;
+    private final AtomicReferenceArray<Event> ring;
+    // Guards sequence, ring and subscriber registration so every subscriber sees ids in order
+    private final Object publishLock = new Object();
+    private long sequence;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Subscribers whose emitter isn't completed yet, detached ones included: the stall watchdog's view
+    private final Set<Subscriber> open = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor sender;
+
+    public TelemetryStreamService(TelemetryService telemetry,
+                                  @Value("${app.sse.replay-size:20000}") int capacity,
+                                  @Value("${app.sse.max-queued:5000}") int maxQueued,
+                                  @Value("${app.sse.max-subscribers:1000}") int maxSubscribers,
+                                  @Value("${app.sse.timeout-ms:1800000}") long timeoutMillis,
+                                  @Value("${app.sse.sender-threads:4}") int senderThreads,
+                                  @Value("${app.sse.send-timeout-ms:10000}") long sendTimeoutMillis) {
+        this.telemetry = telemetry;
+        this.capacity = capacity;
+        this.maxQueued = maxQueued;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        AtomicInteger n = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "sse-sender-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        telemetry.addListener(this);
+    }
+
+    @Override
+    public void onTelemetry(String vehicleId, Map<String, Object> vehicle, long timestampMillis) {
+        onTelemetry(vehicleId, vehicle, timestampMillis, telemetry.updateJson(vehicleId, vehicle));
+    }
+
+    @Override
+    public void onTelemetry(String vehicleId, Map<String, Object> vehicle, long timestampMillis, Supplier<String> updateJson) {
+        String json;
+        try {
+            json = updateJson.get();
+        } catch (UncheckedIOException e) {
+            return;
+        }
+        synchronized (publishLock) {
+            Event event = new Event(++sequence, vehicleId, vehicle.get("status"), vehicle.get("type"), json);
+            ring.set((int) (event.id % capacity), event);
+            for (Subscriber s : subscribers) s.offer(event);
+        }
+    }
+
+    /**
+     * Opens a stream. {@code lastEventId} is the Last-Event-ID a reconnecting client sends, or
+     * null. Returns null when the subscriber limit is reached.
+     */
+    public SseEmitter subscribe(VehicleStreamFilter filter, String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) return null;
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber sub = new Subscriber(emitter, filter);
+        emitter.onCompletion(sub::close);
+        emitter.onTimeout(sub::close);
+        emitter.onError(e -> sub.close());
+
+        long resumeAfter = parseEventId(lastEventId);
+        long head;
+        boolean replayed = false;
+        synchronized (publishLock) {
+            head = sequence;
+            // Replay only if the ring still holds everything after resumeAfter, and it fits in the
+            // queue; a longer gap would just get the client disconnected as slow, so it gets a snapshot
+            if (resumeAfter >= 0 && resumeAfter <= head && head - resumeAfter <= Math.min(capacity, maxQueued)) {
+                for (long id = resumeAfter + 1; id <= head; id++) {
+                    Event e = ring.get((int) (id % capacity));
+                    if (e != null && e.id == id) sub.offer(e);
+                }
+                replayed = true;
+            }
+            subscribers.add(sub);
+            open.add(sub);
+        }
+
+        if (replayed) {
+            sub.queue.addFirst("resumed");
+            sub.queued.incrementAndGet();
+        } else {
+            // Built outside the lock; any update queued meanwhile is newer and applies on top
+            sub.queue.addFirst(snapshot(filter, head));
+            sub.queued.incrementAndGet();
+        }
+        log.debug("sse.subscribe subscribers={} resumed={} lastEventId={}", subscribers.size(), replayed, lastEventId);
+        sub.start();
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber s : subscribers) s.enqueue(HEARTBEAT);
+    }
+
+    /**
+     * Detaches subscribers stuck in one write and lends the pool a thread for each, so queued
+     * drains of other subscribers don't wait behind them. The stuck drain completes the emitter
+     * and returns the thread once its write fails (the container's write timeout).
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void detachStalled() {
+        long now = System.currentTimeMillis();
+        for (Subscriber s : open) {
+            long started = s.sendStartedMillis;
+            if (started != 0 && now - started > sendTimeoutMillis && s.stalled.compareAndSet(false, true)) {
+                log.info("sse.disconnect reason=stalled-send blockedMs={}", now - started);
+                s.detach();
+                resizeSender(1);
+            }
+        }
+    }
+
+    private synchronized void resizeSender(int delta) {
+        // Grow the maximum first and shrink it last; the core size may never exceed it
+        if (delta > 0) {
+            sender.setMaximumPoolSize(sender.getMaximumPoolSize() + delta);
+            sender.setCorePoolSize(sender.getCorePoolSize() + delta);
+        } else {
+            sender.setCorePoolSize(sender.getCorePoolSize() + delta);
+            sender.setMaximumPoolSize(sender.getMaximumPoolSize() + delta);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("subscribers", subscribers.size());
+        synchronized (publishLock) {
+            stats.put("lastEventId", eventId(sequence));
+        }
+        stats.put("replaySize", capacity);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber s : new ArrayList<>(open)) s.close();
+        sender.shutdown();
+    }
+
+    private Snapshot snapshot(VehicleStreamFilter filter, long asOf) {
+        List<Telemetry> vehicles = new ArrayList<>();
+        for (Telemetry t : telemetry.snapshotAll()) {
+            if (filter.matches(t.id(), t.status(), t.type())) vehicles.add(t);
+        }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", "snapshot");
+        payload.put("vehicles", vehicles);
+        try {
+            return new Snapshot(asOf, mapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            return new Snapshot(asOf, "{\"type\":\"snapshot\",\"vehicles\":[]}");
+        }
+    }
+
+    private static String eventId(long sequence) {
+        return EPOCH + "-" + sequence;
+    }
+
+    // -1 when there is nothing this process can resume from
+    private static long parseEventId(String id) {
+        if (id == null) return -1;
+        int dash = id.lastIndexOf('-');
+        if (dash < 0 || !id.substring(0, dash).equals(EPOCH)) return -1;
+        try {
+            return Long.parseLong(id.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
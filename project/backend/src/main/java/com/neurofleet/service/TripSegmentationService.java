@@ -0,0 +1,308 @@
+package com.neurofleet.service;
+
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.neurofleet.util.GeoUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cuts the telemetry stream into trips and writes them to the {@code trips} collection read by
+ * the profile page. A trip starts when a vehicle goes on-trip, or when a vehicle without that
+ * status keeps moving above {@code moving-speed-kmh} for {@code start-dwell-ms}. It ends when
+ * the status leaves on-trip, when a speed-detected trip stays below {@code stop-speed-kmh} for
+ * {@code stop-dwell-ms}, or when the vehicle goes quiet for {@code max-gap-ms}.
+ *
+ * Distance is summed haversine between consecutive fixes, skipping jumps that would need an
+ * implausible speed (GPS glitches, teleports after a re-seed). Each update touches only a
+ * few fields of one vehicle's state. Finished trips are queued and committed in WriteBatches
+ * every {@code flush-interval-ms}.
+ *
+ * startLocation/endLocation are display strings, as the profile page renders them directly;
+ * the points themselves are kept as {lat, lng} in startCoordinates/endCoordinates.
+ */
+@Service
+public class TripSegmentationService implements TelemetryListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TripSegmentationService.class);
+
+    // Firestore caps a WriteBatch at 500 writes
+    private static final int MAX_BATCH = 500;
+    private static final double MAX_PLAUSIBLE_KMH = 250.0;
+
+    private final Firestore db;
+    private final ProfileCacheService profileCache;
+    private final double movingSpeedKmh;
+    private final double stopSpeedKmh;
+    private final long startDwellMillis;
+    private final long stopDwellMillis;
+    private final long maxGapMillis;
+    private final double minDistanceKm;
+    private final int maxPending;
+
+    private final Map<String, VehicleState> states = new ConcurrentHashMap<>();
+    private final Queue<Map<String, Object>> finished = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /** Per-vehicle detector state; guarded by its own monitor. */
+    private static final class VehicleState {
+        boolean inTrip;
+        boolean statusTrip;
+        long startMillis;
+        double startLat;
+        double startLng;
+        String driverId;
+        double distanceKm;
+        double maxSpeedKmh;
+        int samples;
+
+        boolean hasFix;
+        double lastLat;
+        double lastLng;
+        long lastMillis;
+        // First time the current moving / stopped run was seen, 0 when not in such a run
+        long movingSince;
+        long stoppedSince;
+    }
+
+    public TripSegmentationService(Firestore db, TelemetryService telemetry, ProfileCacheService profileCache,
+                                   @Value("${app.trips.moving-speed-kmh:25}") double movingSpeedKmh,
+                                   @Value("${app.trips.stop-speed-kmh:3}") double stopSpeedKmh,
+                                   @Value("${app.trips.start-dwell-ms:60000}") long startDwellMillis,
+                                   @Value("${app.trips.stop-dwell-ms:120000}") long stopDwellMillis,
+                                   @Value("${app.trips.max-gap-ms:600000}") long maxGapMillis,
+                                   @Value("${app.trips.min-distance-km:0.2}") double minDistanceKm,
+                                   @Value("${app.trips.max-pending:50000}") int maxPending) {
+        this.db = db;
+        this.profileCache = profileCache;
+        this.movingSpeedKmh = movingSpeedKmh;
+        this.stopSpeedKmh = stopSpeedKmh;
+        this.startDwellMillis = startDwellMillis;
+        this.stopDwellMillis = stopDwellMillis;
+        this.maxGapMillis = maxGapMillis;
+        this.minDistanceKm = minDistanceKm;
+        this.maxPending = maxPending;
+        telemetry.addListener(this);
+    }
+
+    @Override
+    public void onTelemetry(String vehicleId, Map<String, Object> telemetry, long timestampMillis) {
+        Object latObj = telemetry.get("latitude");
+        Object lngObj = telemetry.get("longitude");
+        if (!(latObj instanceof Number) || !(lngObj instanceof Number)) return;
+        double lat = ((Number) latObj).doubleValue();
+        double lng = ((Number) lngObj).doubleValue();
+        double speed = GeoUtils.toDouble(telemetry.get("speed"), 0);
+        boolean onTrip = "on-trip".equals(telemetry.get("status"));
+        boolean charging = "charging".equals(telemetry.get("status"));
+        Object driver = telemetry.get("currentDriver");
+
+        Map<String, Object> closed = null;
+        VehicleState s = states.computeIfAbsent(vehicleId, k -> new VehicleState());
+        synchronized (s) {
+            if (s.hasFix && timestampMillis < s.lastMillis) return; // late sample
+
+            // A long silence ends the trip at the last fix we had
+            if (s.inTrip && timestampMillis - s.lastMillis > maxGapMillis) {
+                closed = close(vehicleId, s, s.lastMillis, s.lastLat, s.lastLng, "gap");
+            }
+
+            if (s.inTrip) {
+                accumulate(s, lat, lng, speed, timestampMillis);
+                if (s.statusTrip) {
+                    if (!onTrip) closed = close(vehicleId, s, timestampMillis, lat, lng, "status");
+                } else if (speed < stopSpeedKmh || charging) {
+                    if (s.stoppedSince == 0) s.stoppedSince = timestampMillis;
+                    if (charging || timestampMillis - s.stoppedSince >= stopDwellMillis) {
+                        closed = close(vehicleId, s, s.stoppedSince, lat, lng, "stopped");
+                    }
+                } else {
+                    s.stoppedSince = 0;
+                }
+                if (s.inTrip && s.driverId == null && driver != null) s.driverId = driver.toString();
+            } else if (onTrip) {
+                start(s, true, timestampMillis, lat, lng, driver);
+            } else if (!charging && speed >= movingSpeedKmh) {
+                if (s.movingSince == 0) {
+                    s.movingSince = timestampMillis;
+                    s.startLat = lat;
+                    s.startLng = lng;
+                }
+                if (timestampMillis - s.movingSince >= startDwellMillis) {
+                    // Backdate to when the movement began; the dwell's distance is the
+                    // straight line from where it began, which undercounts only slightly
+                    double fromLat = s.startLat;
+                    double fromLng = s.startLng;
+                    start(s, false, s.movingSince, fromLat, fromLng, driver);
+                    s.distanceKm = GeoUtils.haversineKm(fromLat, fromLng, lat, lng);
+                    s.maxSpeedKmh = speed;
+                }
+            } else {
+                s.movingSince = 0;
+            }
+
+            s.hasFix = true;
+            s.lastLat = lat;
+            s.lastLng = lng;
+            s.lastMillis = timestampMillis;
+        }
+        if (closed != null) enqueue(closed);
+    }
+
+    /** Closes trips of vehicles that stopped reporting, since no update will arrive to do it. */
+    @Scheduled(fixedDelay = 60000)
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, VehicleState> e : states.entrySet()) {
+            VehicleState s = e.getValue();
+            Map<String, Object> closed = null;
+            synchronized (s) {
+                if (now - s.lastMillis <= maxGapMillis) continue;
+                if (s.inTrip) closed = close(e.getKey(), s, s.lastMillis, s.lastLat, s.lastLng, "gap");
+                // Nothing worth keeping for a silent vehicle; it starts fresh if it comes back
+                states.remove(e.getKey(), s);
+            }
+            if (closed != null) enqueue(closed);
+        }
+    }
+
+    public int activeTrips() {
+        int n = 0;
+        for (VehicleState s : states.values()) {
+            synchronized (s) {
+                if (s.inTrip) n++;
+            }
+        }
+        return n;
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+    @Scheduled(fixedDelayString = "${app.trips.flush-interval-ms:5000}")
+    public void flush() {
+        if (db == null) {
+            // Nowhere to persist in development; just report what was detected
+            Map<String, Object> trip;
+            while ((trip = finished.poll()) != null) {
+                pending.decrementAndGet();
+                log.info("trip.finished persisted=false trip={}", trip);
+            }
+            return;
+        }
+        CollectionReference trips = db.collection("trips");
+        while (!finished.isEmpty()) {
+            List<Map<String, Object>> batch = new ArrayList<>(MAX_BATCH);
+            Map<String, Object> trip;
+            while (batch.size() < MAX_BATCH && (trip = finished.poll()) != null) {
+                batch.add(trip);
+            }
+            try {
+                WriteBatch wb = db.batch();
+                for (Map<String, Object> t : batch) {
+                    // The id was fixed when the trip closed, so a retried batch overwrites instead of duplicating
+                    wb.set(trips.document((String) t.get("id")), t);
+                }
+                wb.commit().get(30, TimeUnit.SECONDS);
+                pending.addAndGet(-batch.size());
+                for (Map<String, Object> t : batch) {
+                    Object driverId = t.get("driverId");
+                    if (driverId != null) profileCache.invalidate(driverId.toString());
+                }
+            } catch (Exception e) {
+                log.warn("trip.write-failed trips={} error={}", batch.size(), e.getMessage());
+                finished.addAll(batch);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (pending.get() > 0) {
+            log.warn("trip.unflushed trips={}", pending.get());
+        }
+    }
+
+    // Callers hold the state's monitor
+    private void start(VehicleState s, boolean byStatus, long atMillis, double lat, double lng, Object driver) {
+        s.inTrip = true;
+        s.statusTrip = byStatus;
+        s.startMillis = atMillis;
+        s.startLat = lat;
+        s.startLng = lng;
+        s.driverId = driver != null ? driver.toString() : null;
+        s.distanceKm = 0;
+        s.maxSpeedKmh = 0;
+        s.samples = 1;
+        s.movingSince = 0;
+        s.stoppedSince = 0;
+    }
+
+    private void accumulate(VehicleState s, double lat, double lng, double speed, long atMillis) {
+        double stepKm = GeoUtils.haversineKm(s.lastLat, s.lastLng, lat, lng);
+        double hours = (atMillis - s.lastMillis) / 3_600_000.0;
+        if (hours > 0 && stepKm / hours <= MAX_PLAUSIBLE_KMH) {
+            s.distanceKm += stepKm;
+        }
+        s.maxSpeedKmh = Math.max(s.maxSpeedKmh, speed);
+        s.samples++;
+    }
+
+    private Map<String, Object> close(String vehicleId, VehicleState s, long endMillis, double endLat, double endLng, String reason) {
+        s.inTrip = false;
+        s.movingSince = 0;
+        s.stoppedSince = 0;
+        if (s.distanceKm < minDistanceKm) return null;
+
+        long durationMillis = Math.max(0, endMillis - s.startMillis);
+        double hours = durationMillis / 3_600_000.0;
+        Map<String, Object> trip = new HashMap<>();
+        trip.put("id", vehicleId + "-" + s.startMillis);
+        trip.put("vehicleId", vehicleId);
+        trip.put("driverId", s.driverId);
+        trip.put("startTime", new Date(s.startMillis));
+        trip.put("endTime", new Date(endMillis));
+        trip.put("status", "COMPLETED");
+        trip.put("endReason", reason);
+        trip.put("distanceKm", round2(s.distanceKm));
+        trip.put("durationMinutes", round2(durationMillis / 60000.0));
+        trip.put("averageSpeedKmh", hours > 0 ? round2(s.distanceKm / hours) : 0.0);
+        trip.put("maxSpeedKmh", round2(s.maxSpeedKmh));
+        trip.put("samples", s.samples);
+        trip.put("startLocation", GeoUtils.format(s.startLat, s.startLng));
+        trip.put("endLocation", GeoUtils.format(endLat, endLng));
+        trip.put("startCoordinates", Map.of("lat", s.startLat, "lng", s.startLng));
+        trip.put("endCoordinates", Map.of("lat", endLat, "lng", endLng));
+        return trip;
+    }
+
+    private void enqueue(Map<String, Object> trip) {
+        if (pending.incrementAndGet() > maxPending) {
+            // Firestore has been unreachable for a long time; shed the oldest trips
+            Map<String, Object> dropped = finished.poll();
+            if (dropped != null) {
+                pending.decrementAndGet();
+                log.warn("trip.dropped reason=queue-full id={}", dropped.get("id"));
+            }
+        }
+        finished.add(trip);
+    }
+
+    private static double round2(double v) {
+        return Math.round(v * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,383 @@
+package com.neurofleet.service;
+
+import com.google.cloud.firestore.*;
+import com.neurofleet.util.FirestorePager;
+import com.neurofleet.util.GeoUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of the {@code vehicles} collection kept current by a Firestore snapshot
+ * listener, with secondary indexes on status, type and currentDriver. Controllers write
+ * through it so a client sees its own change before the listener echoes it back.
+ *
+ * Reads are only served while the listener is connected, or has been down for less than
+ * {@code app.vehicles.replica.max-staleness-ms}; otherwise callers fall back to Firestore.
+ */
+@Service
+public class VehicleReplicaService {
+
+    private static final Logger log = LoggerFactory.getLogger(VehicleReplicaService.class);
+
+    private final Firestore db;
+    private final TelemetryService telemetry;
+    private final long maxStalenessMillis;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<String, Object>> docs = new HashMap<>();
+    // A null key holds documents where the field is missing
+    private final Map<String, Set<String>> byStatus = new HashMap<>();
+    private final Map<String, Set<String>> byType = new HashMap<>();
+    private final Map<String, Set<String>> byDriver = new HashMap<>();
+
+    // Bumped under the write lock on every change; drives the ETag of replica-served responses
+    private volatile long version;
+    private volatile ListenerRegistration registration;
+    private volatile boolean synced;
+    private volatile boolean connected;
+    // Set when the listener reported an error, which terminates it. Not connected yet only means
+    // the first snapshot, the whole collection, is still on its way; re-attaching would restart it.
+    private volatile boolean listenerFailed;
+    private volatile long disconnectedAt;
+
+    public VehicleReplicaService(Firestore db, TelemetryService telemetry,
+                                 @Value("${app.vehicles.replica.max-staleness-ms:30000}") long maxStalenessMillis) {
+        this.db = db;
+        this.telemetry = telemetry;
+        this.maxStalenessMillis = maxStalenessMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (db == null) return;
+        subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        ListenerRegistration r = registration;
+        if (r != null) r.remove();
+    }
+
+    // The listener is terminated after an error, so re-attach it until it comes back
+    @Scheduled(fixedDelay = 10000)
+    public void watchdog() {
+        if (db == null || !listenerFailed) return;
+        log.info("vehicle-replica.reattach");
+        listenerFailed = false;
+        stop();
+        subscribe();
+    }
+
+    public boolean isServing() {
+        if (!synced) return false;
+        return connected || System.currentTimeMillis() - disconnectedAt <= maxStalenessMillis;
+    }
+
+    /** Vehicles matching every non-null filter, as copies the caller may modify. */
+    public List<Map<String, Object>> query(String status, String type, String currentDriver) {
+        lock.readLock().lock();
+        try {
+            Collection<String> candidates = docs.keySet();
+            if (status != null) candidates = smaller(candidates, byStatus.getOrDefault(status, Set.of()));
+            if (type != null) candidates = smaller(candidates, byType.getOrDefault(type, Set.of()));
+            if (currentDriver != null) candidates = smaller(candidates, byDriver.getOrDefault(currentDriver, Set.of()));
+
+            List<Map<String, Object>> out = new ArrayList<>(candidates.size());
+            for (String id : candidates) {
+                Map<String, Object> v = docs.get(id);
+                if (status != null && !status.equals(v.get("status"))) continue;
+                if (type != null && !type.equals(v.get("type"))) continue;
+                if (currentDriver != null && !currentDriver.equals(v.get("currentDriver"))) continue;
+                out.add(new HashMap<>(v));
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * One page of matching vehicles ordered by id, or by distance from the origin then id when
+     * one is given. {@code after} is the decoded page token: {@code [id]} or {@code [distanceKm, id]}.
+     * Only the page itself is copied, so the cost per request doesn't grow with the fleet.
+     */
+    public Map<String, Object> page(String status, String type, String currentDriver, Double lat, Double lng,
+                                    int pageSize, Object[] after, Set<String> fields) {
+        boolean byDistance = lat != null && lng != null;
+        PageKey cursor = null;
+        if (after != null) {
+            if (byDistance && after.length == 2 && after[0] instanceof Number && after[1] instanceof String) {
+                cursor = new PageKey(((Number) after[0]).doubleValue(), (String) after[1]);
+            } else if (!byDistance && after.length == 1 && after[0] instanceof String) {
+                cursor = new PageKey(0, (String) after[0]);
+            } else {
+                throw new IllegalArgumentException("Page token does not match the requested ordering");
+            }
+        }
+
+        // Max-heap of the pageSize + 1 smallest keys after the cursor; the extra one tells us
+        // whether there is a next page
+        PriorityQueue<PageKey> heap = new PriorityQueue<>(pageSize + 1, Comparator.reverseOrder());
+        List<Map<String, Object>> items = new ArrayList<>(pageSize);
+        boolean more;
+        lock.readLock().lock();
+        try {
+            Collection<String> candidates = docs.keySet();
+            if (status != null) candidates = smaller(candidates, byStatus.getOrDefault(status, Set.of()));
+            if (type != null) candidates = smaller(candidates, byType.getOrDefault(type, Set.of()));
+            if (currentDriver != null) candidates = smaller(candidates, byDriver.getOrDefault(currentDriver, Set.of()));
+
+            for (String id : candidates) {
+                Map<String, Object> v = docs.get(id);
+                if (status != null && !status.equals(v.get("status"))) continue;
+                if (type != null && !type.equals(v.get("type"))) continue;
+                if (currentDriver != null && !currentDriver.equals(v.get("currentDriver"))) continue;
+                double distance = 0;
+                if (byDistance) {
+                    double[] at = GeoUtils.coordinates(v);
+                    distance = at != null ? GeoUtils.haversineKm(lat, lng, at[0], at[1]) : Double.MAX_VALUE;
+                }
+                PageKey key = new PageKey(distance, id);
+                if (cursor != null && key.compareTo(cursor) <= 0) continue;
+                if (heap.size() <= pageSize) {
+                    heap.add(key);
+                } else if (key.compareTo(heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(key);
+                }
+            }
+
+            more = heap.size() > pageSize;
+            if (more) heap.poll();
+            List<PageKey> keys = new ArrayList<>(heap);
+            Collections.sort(keys);
+            for (PageKey k : keys) {
+                items.add(project(docs.get(k.id), fields));
+            }
+            cursor = keys.isEmpty() ? null : keys.get(keys.size() - 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", items);
+        page.put("nextPageToken", more && cursor != null
+                ? FirestorePager.encodeToken(byDistance ? new Object[]{cursor.distance, cursor.id} : new Object[]{cursor.id})
+                : null);
+        return page;
+    }
+
+    private static final class PageKey implements Comparable<PageKey> {
+        final double distance;
+        final String id;
+
+        PageKey(double distance, String id) {
+            this.distance = distance;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(PageKey o) {
+            int c = Double.compare(distance, o.distance);
+            return c != 0 ? c : id.compareTo(o.id);
+        }
+    }
+
+    private static Map<String, Object> project(Map<String, Object> v, Set<String> fields) {
+        if (fields == null) return new HashMap<>(v);
+        Map<String, Object> m = new HashMap<>();
+        for (String f : fields) {
+            if (v.containsKey(f)) m.put(f, v.get(f));
+        }
+        m.put("id", v.get("id"));
+        return m;
+    }
+
+    public Map<String, Object> get(String id) {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> v = docs.get(id);
+            return v != null ? new HashMap<>(v) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Vehicle count per status straight from the index; a missing status counts as "unknown". */
+    public Map<String, Long> countByStatus() {
+        lock.readLock().lock();
+        try {
+            Map<String, Long> counts = new HashMap<>();
+            byStatus.forEach((status, ids) -> counts.merge(status != null ? status : "unknown", (long) ids.size(), Long::sum));
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Write-through hooks for the controller
+
+    public void upsert(String id, Map<String, Object> data) {
+        Map<String, Object> v = new HashMap<>(data);
+        v.put("id", id);
+        lock.writeLock().lock();
+        try {
+            put(id, v);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void merge(String id, Map<String, Object> partial) {
+        lock.writeLock().lock();
+        try {
+            Map<String, Object> existing = docs.get(id);
+            if (existing == null) return;
+            Map<String, Object> v = new HashMap<>(existing);
+            v.putAll(partial);
+            put(id, v);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            drop(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void subscribe() {
+        AtomicBoolean first = new AtomicBoolean(true);
+        registration = db.collection("vehicles").addSnapshotListener((snap, error) -> {
+            if (error != null) {
+                if (connected) disconnectedAt = System.currentTimeMillis();
+                connected = false;
+                listenerFailed = true;
+                log.warn("vehicle-replica.listener-failed error={}", error.getMessage());
+                return;
+            }
+            if (snap == null) return;
+            List<Map<String, Object>> added = new ArrayList<>();
+            lock.writeLock().lock();
+            try {
+                if (first.getAndSet(false)) {
+                    // A fresh listener sees the full collection; rebuild so deletes missed while
+                    // disconnected don't linger
+                    clear();
+                    for (QueryDocumentSnapshot d : snap.getDocuments()) {
+                        added.add(put(d.getId(), withId(d)));
+                    }
+                } else {
+                    for (DocumentChange change : snap.getDocumentChanges()) {
+                        QueryDocumentSnapshot d = change.getDocument();
+                        if (change.getType() == DocumentChange.Type.REMOVED) {
+                            drop(d.getId());
+                        } else {
+                            Map<String, Object> v = put(d.getId(), withId(d));
+                            if (change.getType() == DocumentChange.Type.ADDED) added.add(v);
+                        }
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!synced) {
+                log.info("vehicle-replica.synced vehicles={}", snap.size());
+            }
+            synced = true;
+            connected = true;
+
+            // Start simulating vehicles the telemetry loop hasn't seen yet
+            for (Map<String, Object> v : added) {
+                String id = v.get("id").toString();
+                if (telemetry.getTelemetry(id) == null) telemetry.addOrInitVehicle(id, v);
+            }
+        });
+    }
+
+    // Callers hold the write lock
+    private Map<String, Object> put(String id, Map<String, Object> v) {
+        version++;
+        Map<String, Object> old = docs.put(id, v);
+        if (old != null) unindex(id, old);
+        index(byStatus, field(v, "status"), id);
+        index(byType, field(v, "type"), id);
+        index(byDriver, field(v, "currentDriver"), id);
+        return v;
+    }
+
+    private void drop(String id) {
+        Map<String, Object> old = docs.remove(id);
+        if (old != null) {
+            unindex(id, old);
+            version++;
+        }
+    }
+
+    private void clear() {
+        version++;
+        docs.clear();
+        byStatus.clear();
+        byType.clear();
+        byDriver.clear();
+    }
+
+    private void unindex(String id, Map<String, Object> v) {
+        unindex(byStatus, field(v, "status"), id);
+        unindex(byType, field(v, "type"), id);
+        unindex(byDriver, field(v, "currentDriver"), id);
+    }
+
+    private static void index(Map<String, Set<String>> index, String key, String id) {
+        index.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+    }
+
+    private static void unindex(Map<String, Set<String>> index, String key, String id) {
+        Set<String> ids = index.get(key);
+        if (ids == null) return;
+        ids.remove(id);
+        if (ids.isEmpty()) index.remove(key);
+    }
+
+    private static String field(Map<String, Object> v, String name) {
+        Object value = v.get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    private static Collection<String> smaller(Collection<String> a, Set<String> b) {
+        return b.size() < a.size() ? b : a;
+    }
+
+    private static Map<String, Object> withId(QueryDocumentSnapshot d) {
+        Map<String, Object> m = new HashMap<>(d.getData());
+        m.put("id", d.getId());
+        return m;
+    }
+}
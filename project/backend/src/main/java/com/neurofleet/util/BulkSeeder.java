@@ -0,0 +1,336 @@
+package com.neurofleet.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.BulkWriterOptions;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.google.cloud.firestore.WriteResult;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes {@link SyntheticData} at volume. {@code pipelines} threads claim chunks of document
+ * indices, generate them and write them through their own {@link Pipeline}. A progress line
+ * goes to the reporter every few seconds, the console when run from main(). There are two sinks:
+ *
+ *   firestore  one BulkWriter per pipeline, at a fixed rate split between the pipelines. With
+ *              FIRESTORE_EMULATOR_HOST set the client writes to the emulator instead.
+ *   ndjson     gzipped NDJSON files, one per collection and pipeline, as a local stand-in
+ *              for trying volumes and distributions without any Firestore
+ *
+ * Each pipeline works through the kinds in order (users, vehicles, bookings, trips, history),
+ * but there is no barrier between kinds: a pipeline that runs out of users to claim moves on to
+ * vehicles while others are still writing users, so a document may be stored before one it
+ * references. Ids depend only on the seed, so an interrupted run can simply be repeated.
+ *
+ * Run with:
+ *
+ *   mvn -q compile exec:java -Dexec.mainClass=com.neurofleet.util.BulkSeeder \
+ *       -Dexec.args="--users 50000 --vehicles 20000 --bookings 700000 --trips 150000 --history-per-vehicle 4"
+ *
+ * Options: --users, --vehicles, --bookings, --trips N documents of each (defaults 20000, 10000,
+ * 200000, 100000), --history-per-vehicle N events (default 3), --seed N (default 42),
+ * --target ndjson|firestore (default ndjson), --out DIR for ndjson (default seed-data),
+ * --project ID for firestore (default neurofleetx-project), --pipelines N (default: cores),
+ * --ops-per-second N in total for firestore (default 5000, 0 for unthrottled, which only suits
+ * the emulator), --max-in-flight N unacknowledged writes per pipeline (default 2000).
+ */
+public final class BulkSeeder {
+
+    // Indices a pipeline claims at a time
+    private static final int CHUNK = 1000;
+
+    /** How many documents of each kind to write; history is per vehicle. */
+    public record Plan(long users, long vehicles, long bookings, long trips, int historyPerVehicle) {
+
+        public long count(SyntheticData.Kind kind) {
+            return switch (kind) {
+                case USERS -> users;
+                case VEHICLES -> vehicles;
+                case BOOKINGS -> bookings;
+                case TRIPS -> trips;
+                case HISTORY -> vehicles * historyPerVehicle;
+            };
+        }
+
+        public long total() {
+            long total = 0;
+            for (SyntheticData.Kind kind : SyntheticData.Kind.values()) total += count(kind);
+            return total;
+        }
+    }
+
+    /** Told about every document once it is stored, or once it has failed for good. */
+    public interface Progress {
+        void stored();
+
+        void failed(String path, Throwable error);
+    }
+
+    /** Where documents go. Each pipeline opens its own writer and uses it from one thread. */
+    public interface Sink {
+        Pipeline open(int pipeline, Progress progress) throws IOException;
+    }
+
+    public interface Pipeline extends AutoCloseable {
+        void write(SyntheticData.Doc doc) throws Exception;
+
+        /** Returns once everything written has been stored or has failed. */
+        @Override
+        void close() throws IOException;
+    }
+
+    private final Sink sink;
+    private final int pipelines;
+    private final long progressMillis;
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LogThrottle failureLog = new LogThrottle(10, 10000);
+    // Progress and failure lines: the console for main(), the application log inside the app
+    private final Consumer<String> report;
+
+    public BulkSeeder(Sink sink, int pipelines, long progressMillis, Consumer<String> report) {
+        this.sink = sink;
+        this.pipelines = Math.max(1, pipelines);
+        this.progressMillis = progressMillis;
+        this.report = report;
+    }
+
+    /** Writes everything in the plan and returns how many documents failed. */
+    public long run(SyntheticData data, Plan plan) throws Exception {
+        long total = plan.total();
+        Map<SyntheticData.Kind, AtomicLong> cursors = new EnumMap<>(SyntheticData.Kind.class);
+        for (SyntheticData.Kind kind : SyntheticData.Kind.values()) cursors.put(kind, new AtomicLong());
+        Progress progress = new Progress() {
+            @Override
+            public void stored() {
+                stored.increment();
+            }
+
+            @Override
+            public void failed(String path, Throwable error) {
+                failed.increment();
+                if (failureLog.tryAcquire()) {
+                    report.accept("Could not write " + path + ": " + error.getMessage()
+                            + " (" + failureLog.drainSuppressed() + " failures not shown since the last line)");
+                }
+            }
+        };
+
+        long started = System.nanoTime();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seed-progress");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(() -> report(total, started, false), progressMillis, progressMillis, TimeUnit.MILLISECONDS);
+
+        AtomicReference<Exception> crashed = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < pipelines; p++) {
+            int pipeline = p;
+            Thread t = new Thread(() -> {
+                try (Pipeline out = sink.open(pipeline, progress)) {
+                    for (SyntheticData.Kind kind : SyntheticData.Kind.values()) {
+                        long count = plan.count(kind);
+                        long from;
+                        while ((from = cursors.get(kind).getAndAdd(CHUNK)) < count) {
+                            long to = Math.min(count, from + CHUNK);
+                            for (long i = from; i < to; i++) out.write(data.document(kind, i, plan.historyPerVehicle()));
+                        }
+                    }
+                } catch (Exception e) {
+                    crashed.compareAndSet(null, e);
+                }
+            }, "seed-" + p);
+            t.start();
+            threads.add(t);
+        }
+        for (Thread t : threads) t.join();
+        reporter.shutdownNow();
+        report(total, started, true);
+
+        if (crashed.get() != null) throw new IllegalStateException("A seeding pipeline stopped early", crashed.get());
+        return failed.sum();
+    }
+
+    private void report(long total, long started, boolean done) {
+        long ok = stored.sum();
+        double seconds = Math.max(1e-3, (System.nanoTime() - started) / 1e9);
+        double rate = ok / seconds;
+        String tail = done ? String.format("done in %.1f s", seconds)
+                : rate > 0 ? String.format("about %.0f s left", (total - ok - failed.sum()) / rate) : "starting";
+        report.accept(String.format("%,d of %,d stored (%.1f%%), %,.0f docs/s, %,d failed, %s",
+                ok, total, total == 0 ? 100.0 : 100.0 * ok / total, rate, failed.sum(), tail));
+    }
+
+    /**
+     * Firestore through one BulkWriter per pipeline, each at {@code opsPerSecond} (0 turns
+     * throttling off). At most {@code maxInFlight} writes per pipeline wait for an answer, so
+     * generation can't outrun Firestore and fill the heap.
+     */
+    public static Sink firestore(Firestore db, int opsPerSecond, int maxInFlight) {
+        return (pipeline, progress) -> {
+            BulkWriterOptions.Builder options = BulkWriterOptions.builder();
+            if (opsPerSecond > 0) {
+                options.setInitialOpsPerSecond(opsPerSecond).setMaxOpsPerSecond(opsPerSecond);
+            } else {
+                options.setThrottlingEnabled(false);
+            }
+            BulkWriter writer = db.bulkWriter(options.build());
+            Semaphore inFlight = new Semaphore(maxInFlight);
+            return new Pipeline() {
+                @Override
+                public void write(SyntheticData.Doc doc) throws InterruptedException {
+                    inFlight.acquire();
+                    // The writer retries transient errors itself; what reaches onFailure has failed for good
+                    ApiFutures.addCallback(writer.set(db.document(doc.path()), doc.data()), new ApiFutureCallback<WriteResult>() {
+                        @Override
+                        public void onFailure(Throwable t) {
+                            inFlight.release();
+                            progress.failed(doc.path(), t);
+                        }
+
+                        @Override
+                        public void onSuccess(WriteResult result) {
+                            inFlight.release();
+                            progress.stored();
+                        }
+                    }, Runnable::run);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    // Flushes and waits for the last batches
+                    try {
+                        writer.close();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while flushing the last batches");
+                    } catch (ExecutionException e) {
+                        throw new IOException("Could not flush the last batches", e.getCause());
+                    }
+                }
+            };
+        };
+    }
+
+    /**
+     * Gzipped NDJSON under {@code dir}, one file per collection and pipeline, such as
+     * vehicles.history-3.ndjson.gz. Each line is {"path": ..., "data": {...}} with ISO dates.
+     */
+    public static Sink ndjson(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        ObjectMapper mapper = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return (pipeline, progress) -> {
+            Map<String, Writer> files = new HashMap<>();
+            return new Pipeline() {
+                @Override
+                public void write(SyntheticData.Doc doc) throws IOException {
+                    String collection = collectionOf(doc.path());
+                    Writer out = files.get(collection);
+                    if (out == null) {
+                        Path file = dir.resolve(collection.replace('/', '.') + "-" + pipeline + ".ndjson.gz");
+                        out = new BufferedWriter(new OutputStreamWriter(
+                                new GZIPOutputStream(Files.newOutputStream(file), 1 << 16), StandardCharsets.UTF_8), 1 << 16);
+                        files.put(collection, out);
+                    }
+                    Map<String, Object> line = new LinkedHashMap<>();
+                    line.put("path", doc.path());
+                    line.put("data", doc.data());
+                    out.write(mapper.writeValueAsString(line));
+                    out.write('\n');
+                    progress.stored();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    for (Writer out : files.values()) out.close();
+                }
+            };
+        };
+    }
+
+    // vehicles/abc/history/def -> vehicles/history
+    static String collectionOf(String path) {
+        String[] segments = path.split("/");
+        StringBuilder collection = new StringBuilder(segments[0]);
+        for (int i = 2; i < segments.length; i += 2) collection.append('/').append(segments[i]);
+        return collection.toString();
+    }
+
+    public static void main(String[] args) throws Exception {
+        long users = 20_000;
+        long vehicles = 10_000;
+        long bookings = 200_000;
+        long trips = 100_000;
+        int historyPerVehicle = 3;
+        long seed = 42;
+        String target = "ndjson";
+        String out = "seed-data";
+        String project = "neurofleetx-project";
+        int pipelines = Runtime.getRuntime().availableProcessors();
+        int opsPerSecond = 5000;
+        int maxInFlight = 2000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--users" -> users = Long.parseLong(args[++i]);
+                case "--vehicles" -> vehicles = Long.parseLong(args[++i]);
+                case "--bookings" -> bookings = Long.parseLong(args[++i]);
+                case "--trips" -> trips = Long.parseLong(args[++i]);
+                case "--history-per-vehicle" -> historyPerVehicle = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--target" -> target = args[++i];
+                case "--out" -> out = args[++i];
+                case "--project" -> project = args[++i];
+                case "--pipelines" -> pipelines = Integer.parseInt(args[++i]);
+                case "--ops-per-second" -> opsPerSecond = Integer.parseInt(args[++i]);
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        Plan plan = new Plan(users, vehicles, bookings, trips, historyPerVehicle);
+        SyntheticData data = new SyntheticData(seed, vehicles, users, System.currentTimeMillis());
+        System.out.printf("Seeding %,d documents (%,d users, %,d vehicles, %,d bookings, %,d trips, %,d history events) to %s with %d pipelines%n",
+                plan.total(), users, vehicles, bookings, trips, plan.count(SyntheticData.Kind.HISTORY), target, pipelines);
+
+        Consumer<String> console = line -> System.out.println("[BulkSeeder] " + line);
+        long failures;
+        switch (target) {
+            case "ndjson" -> failures = new BulkSeeder(ndjson(Path.of(out)), pipelines, 2000, console).run(data, plan);
+            case "firestore" -> {
+                String emulator = System.getenv("FIRESTORE_EMULATOR_HOST");
+                System.out.println(emulator != null ? "Using the Firestore emulator at " + emulator : "Writing to project " + project);
+                // Not try-with-resources: Firestore.close() declares InterruptedException
+                Firestore db = FirestoreOptions.newBuilder().setProjectId(project).build().getService();
+                try {
+                    int perPipeline = opsPerSecond > 0 ? Math.max(1, opsPerSecond / pipelines) : 0;
+                    failures = new BulkSeeder(firestore(db, perPipeline, maxInFlight), pipelines, 2000, console).run(data, plan);
+                } finally {
+                    db.close();
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown target " + target + ", expected ndjson or firestore");
+        }
+        if (failures > 0) System.exit(1);
+    }
+}
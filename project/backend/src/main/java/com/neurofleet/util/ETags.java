@@ -0,0 +1,52 @@
+package com.neurofleet.util;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Version-based ETags for responses built from in-memory state (the telemetry store and the
+ * vehicle replica). The tag is derived from the state's change counter, so a poll can be
+ * answered with 304 before any body is built or serialised.
+ *
+ * Tags are weak because response compression changes the bytes but not the meaning. They carry
+ * the process start time since the counters restart at zero with the process. Responses are
+ * marked {@code no-cache}: browsers keep the body but revalidate on every poll, which is what
+ * turns an unchanged poll into a bodiless 304.
+ */
+public final class ETags {
+
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private ETags() {
+    }
+
+    public static String of(String kind, long... versions) {
+        StringBuilder tag = new StringBuilder("W/\"").append(kind).append('-').append(EPOCH);
+        for (long v : versions) tag.append('-').append(Long.toString(v, 36));
+        return tag.append('"').toString();
+    }
+
+    /** Weak comparison against an If-None-Match header, which may list several tags or be "*". */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) return false;
+        String opaque = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.equals("*") || opaque(c).equals(opaque)) return true;
+        }
+        return false;
+    }
+
+    public static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+    }
+
+    public static <T> ResponseEntity<T> ok(T body, String etag) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(body);
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,129 @@
+package com.neurofleet.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.Timestamp;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Row-at-a-time writer for exports, as newline-delimited JSON or CSV. Nothing is buffered
+ * beyond the output stream's own buffer, so memory stays flat however many rows pass through.
+ * Firestore timestamps and dates come out as ISO-8601 instants in both formats.
+ *
+ * CSV needs its columns up front; values that are maps or lists are written as JSON, and text
+ * starting with a formula character is prefixed with a quote so spreadsheets don't evaluate it.
+ */
+public abstract class ExportWriter implements Closeable {
+
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    protected final Writer out;
+    protected final ObjectMapper mapper;
+
+    protected ExportWriter(OutputStream out, ObjectMapper mapper) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        this.mapper = mapper;
+    }
+
+    public static boolean isSupported(String format) {
+        return NDJSON.equals(format) || CSV.equals(format);
+    }
+
+    public static String contentType(String format) {
+        return CSV.equals(format) ? "text/csv; charset=utf-8" : "application/x-ndjson";
+    }
+
+    public static ExportWriter create(String format, List<String> columns, OutputStream out, ObjectMapper mapper) throws IOException {
+        return CSV.equals(format) ? new Csv(out, mapper, columns) : new NdJson(out, mapper);
+    }
+
+    public abstract void write(Map<String, Object> row) throws IOException;
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+
+    protected static Object normalize(Object value) {
+        if (value instanceof Timestamp) {
+            Timestamp t = (Timestamp) value;
+            return Instant.ofEpochSecond(t.getSeconds(), t.getNanos()).toString();
+        }
+        if (value instanceof Date) return ((Date) value).toInstant().toString();
+        if (value instanceof Map) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((k, v) -> m.put(String.valueOf(k), normalize(v)));
+            return m;
+        }
+        if (value instanceof Collection) {
+            List<Object> l = new ArrayList<>();
+            for (Object v : (Collection<?>) value) l.add(normalize(v));
+            return l;
+        }
+        return value;
+    }
+
+    private static final class NdJson extends ExportWriter {
+        NdJson(OutputStream out, ObjectMapper mapper) {
+            super(out, mapper);
+        }
+
+        @Override
+        public void write(Map<String, Object> row) throws IOException {
+            out.write(mapper.writeValueAsString(normalize(row)));
+            out.write('\n');
+        }
+    }
+
+    private static final class Csv extends ExportWriter {
+        private final List<String> columns;
+
+        Csv(OutputStream out, ObjectMapper mapper, List<String> columns) throws IOException {
+            super(out, mapper);
+            this.columns = columns;
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) this.out.write(',');
+                writeCell(columns.get(i));
+            }
+            this.out.write("\r\n");
+        }
+
+        @Override
+        public void write(Map<String, Object> row) throws IOException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) out.write(',');
+                Object v = normalize(row.get(columns.get(i)));
+                if (v == null) continue;
+                if (v instanceof Map || v instanceof Collection) {
+                    writeCell(mapper.writeValueAsString(v));
+                } else if (v instanceof String) {
+                    String s = (String) v;
+                    if (!s.isEmpty() && "=+-@\t\r".indexOf(s.charAt(0)) >= 0) s = "'" + s;
+                    writeCell(s);
+                } else {
+                    writeCell(v.toString());
+                }
+            }
+            out.write("\r\n");
+        }
+
+        private void writeCell(String s) throws IOException {
+            boolean quote = s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0;
+            if (!quote) {
+                out.write(s);
+                return;
+            }
+            out.write('"');
+            out.write(s.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.neurofleet.util;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Bridges Firestore's {@link ApiFuture} to {@link CompletableFuture} so controllers can
+ * compose calls and hand the result to Spring MVC without parking a servlet thread.
+ */
+public final class FirestoreFutures {
+
+    private FirestoreFutures() {
+    }
+
+    /**
+     * Completes on the thread that completes the ApiFuture (a Firestore client thread), so
+     * callers should keep their continuations short and non-blocking.
+     */
+    public static <T> CompletableFuture<T> toCompletable(ApiFuture<T> future) {
+        CompletableFuture<T> out = new CompletableFuture<>();
+        ApiFutures.addCallback(future, new ApiFutureCallback<T>() {
+            @Override
+            public void onFailure(Throwable t) {
+                out.completeExceptionally(t);
+            }
+
+            @Override
+            public void onSuccess(T value) {
+                out.complete(value);
+            }
+        }, Runnable::run);
+        return out;
+    }
+
+    // Exceptions reaching an exceptionally() stage arrive wrapped; this finds the real cause
+    public static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+}
@@ -0,0 +1,290 @@
+package com.neurofleet.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+/**
+ * Keyset pagination over a Firestore query, streamed to the response in fixed-size chunks.
+ * The query is ordered by the given fields plus the document id as a tie-breaker, and a page
+ * token carries the last document's values for those fields so the next page starts with
+ * {@code startAfter} instead of an offset. Memory per request is one chunk regardless of
+ * collection size.
+ *
+ * Without a page size the result is streamed as a plain JSON array, which keeps the response
+ * shape of the unpaginated endpoints, capped at {@link #MAX_UNPAGED} documents. Only when the
+ * cap actually cut the result does the response carry {@code X-Result-Truncated: true} and the
+ * cap in {@code X-Result-Limit}; a count of up to cap + 1 documents, run next to the first chunk,
+ * tells before the body is streamed. With one, the response is
+ * {@code {"items": [...], "nextPageToken": "..."}} and the token is null on the last page.
+ */
+public final class FirestorePager {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    // Unpaged callers get a plain array; past this many documents they have to page
+    public static final int MAX_UNPAGED = 5000;
+    public static final String RESULT_LIMIT_HEADER = "X-Result-Limit";
+    public static final String RESULT_TRUNCATED_HEADER = "X-Result-Truncated";
+    private static final int CHUNK = 500;
+    private static final char SEP = '\u001f';
+    private static final Pattern FIELD_NAME = Pattern.compile("[A-Za-z0-9_.]+");
+
+    private final Query ordered;
+    // Same query without the projection, for the count
+    private final Query countable;
+    private final String[] orderFields;
+    private final Set<String> fields;
+
+    /**
+     * @param filtered   query with its where clauses applied
+     * @param fields     projection from {@link #parseFields}, or null for whole documents
+     * @param direction  direction for every ordering field, including the id tie-breaker
+     */
+    public FirestorePager(Query filtered, Set<String> fields, Query.Direction direction, String... orderFields) {
+        Query q = filtered;
+        for (String f : orderFields) {
+            q = q.orderBy(f, direction);
+        }
+        q = q.orderBy(FieldPath.documentId(), direction);
+        this.countable = q;
+        if (fields != null) {
+            // Ordering fields are needed to build the next cursor even when not requested
+            Set<String> selected = new LinkedHashSet<>(fields);
+            selected.addAll(Arrays.asList(orderFields));
+            q = q.select(selected.toArray(new String[0]));
+        }
+        this.ordered = q;
+        this.orderFields = orderFields;
+        this.fields = fields;
+    }
+
+    /**
+     * Fetches the first chunk before committing to a response, so a bad token or a failing
+     * query still turns into a proper status instead of a truncated body.
+     */
+    public CompletableFuture<ResponseEntity<?>> respond(Integer pageSize, String pageToken, ObjectMapper mapper) {
+        Object[] cursor;
+        try {
+            cursor = pageToken == null || pageToken.isEmpty() ? null : decodeCursor(pageToken);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Invalid pageToken")));
+        }
+        boolean paged = pageSize != null || cursor != null;
+        int limit = paged ? clampPageSize(pageSize) : MAX_UNPAGED;
+
+        CompletableFuture<QuerySnapshot> firstChunk = FirestoreFutures.toCompletable(chunk(cursor, Math.min(CHUNK, limit)).get());
+        // Billed at about one read per thousand documents counted, and the count stops at cap + 1
+        CompletableFuture<Boolean> truncated = paged ? CompletableFuture.completedFuture(false)
+                : FirestoreFutures.toCompletable(countable.limit(MAX_UNPAGED + 1).count().get())
+                        .thenApply(count -> count.getCount() > MAX_UNPAGED);
+        return firstChunk.thenCombine(truncated, (first, cut) -> {
+            StreamingResponseBody body = out -> {
+                JsonGenerator gen = mapper.getFactory().createGenerator(out);
+                if (paged) {
+                    gen.writeStartObject();
+                    gen.writeFieldName("items");
+                }
+                gen.writeStartArray();
+                String next = writeAll(gen, first, limit);
+                gen.writeEndArray();
+                if (paged) {
+                    gen.writeFieldName("nextPageToken");
+                    if (next != null) gen.writeString(next); else gen.writeNull();
+                    gen.writeEndObject();
+                }
+                gen.flush();
+            };
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+            if (cut) {
+                response.header(RESULT_TRUNCATED_HEADER, "true");
+                response.header(RESULT_LIMIT_HEADER, String.valueOf(MAX_UNPAGED));
+            }
+            return response.body(body);
+        });
+    }
+
+    // Writes up to limit documents, fetching further chunks as needed; returns the next page token
+    private String writeAll(JsonGenerator gen, QuerySnapshot first, int limit) throws IOException {
+        QuerySnapshot snap = first;
+        int written = 0;
+        while (true) {
+            List<QueryDocumentSnapshot> docs = snap.getDocuments();
+            QueryDocumentSnapshot last = null;
+            for (QueryDocumentSnapshot d : docs) {
+                gen.writeObject(project(d));
+                last = d;
+                written++;
+            }
+            gen.flush();
+            int requested = Math.min(CHUNK, limit - (written - docs.size()));
+            if (last == null || docs.size() < requested) return null;
+            Object[] cursor = cursorOf(last);
+            if (written >= limit) return encodeToken(cursor);
+            try {
+                snap = chunk(cursor, Math.min(CHUNK, limit - written)).get().get();
+            } catch (Exception e) {
+                throw new IOException("Failed to fetch next chunk: " + FirestoreFutures.unwrap(e).getMessage(), e);
+            }
+        }
+    }
+
+    /** Receives documents from {@link #forEach}; data is already projected and carries the id. */
+    public interface DocumentConsumer {
+        void accept(Map<String, Object> data) throws IOException;
+    }
+
+    /**
+     * Blocking walk over every matching document, one chunk in memory at a time. Meant for
+     * exports running on a streaming response thread; returns the number of documents.
+     */
+    public long forEach(DocumentConsumer consumer) throws IOException {
+        Object[] cursor = null;
+        long count = 0;
+        while (true) {
+            List<QueryDocumentSnapshot> docs;
+            try {
+                docs = chunk(cursor, CHUNK).get().get().getDocuments();
+            } catch (Exception e) {
+                throw new IOException("Failed to fetch chunk: " + FirestoreFutures.unwrap(e).getMessage(), e);
+            }
+            for (QueryDocumentSnapshot d : docs) {
+                consumer.accept(project(d));
+                count++;
+            }
+            if (docs.size() < CHUNK) return count;
+            cursor = cursorOf(docs.get(docs.size() - 1));
+        }
+    }
+
+    /**
+     * Decodes a token for this query: one value per ordering field plus the document id, as
+     * {@link #cursorOf} builds them. Anything else would only fail later inside the SDK.
+     */
+    private Object[] decodeCursor(String token) {
+        Object[] values = decodeToken(token);
+        if (values.length != orderFields.length + 1) throw new IllegalArgumentException("Cursor has the wrong number of values");
+        for (int i = 0; i < orderFields.length; i++) {
+            // Documents without the field never match an orderBy, so a real cursor has no nulls
+            if (values[i] == null) throw new IllegalArgumentException("Null cursor value");
+        }
+        Object id = values[orderFields.length];
+        if (!(id instanceof String) || ((String) id).isEmpty() || ((String) id).indexOf('/') >= 0) {
+            throw new IllegalArgumentException("Cursor does not end with a document id");
+        }
+        return values;
+    }
+
+    private Query chunk(Object[] cursor, int size) {
+        Query q = cursor != null ? ordered.startAfter(cursor) : ordered;
+        return q.limit(size);
+    }
+
+    private Map<String, Object> project(QueryDocumentSnapshot d) {
+        Map<String, Object> data = d.getData();
+        Map<String, Object> m;
+        if (fields == null) {
+            m = data;
+        } else {
+            m = new HashMap<>();
+            for (String f : fields) {
+                if (data.containsKey(f)) m.put(f, data.get(f));
+            }
+        }
+        m.put("id", d.getId());
+        return m;
+    }
+
+    private Object[] cursorOf(QueryDocumentSnapshot d) {
+        Object[] values = new Object[orderFields.length + 1];
+        for (int i = 0; i < orderFields.length; i++) {
+            values[i] = d.get(orderFields[i]);
+        }
+        values[orderFields.length] = d.getId();
+        return values;
+    }
+
+    public static int clampPageSize(Integer pageSize) {
+        if (pageSize == null || pageSize <= 0) return DEFAULT_PAGE_SIZE;
+        return Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    /** Parses {@code fields=a,b,c}; null when absent. Rejects names Firestore can't select. */
+    public static Set<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) return null;
+        Set<String> out = new LinkedHashSet<>();
+        for (String f : fields.split(",")) {
+            String name = f.trim();
+            if (name.isEmpty() || name.equals("id")) continue;
+            if (!FIELD_NAME.matcher(name).matches()) throw new IllegalArgumentException("Invalid field name: " + name);
+            out.add(name);
+        }
+        return out;
+    }
+
+    /** Opaque, URL-safe encoding of cursor values (timestamps, strings and numbers). */
+    public static String encodeToken(Object[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(SEP);
+            Object v = values[i];
+            if (v instanceof Date) v = Timestamp.of((Date) v);
+            if (v == null) {
+                sb.append('n');
+            } else if (v instanceof Timestamp) {
+                Timestamp t = (Timestamp) v;
+                sb.append('t').append(t.getSeconds()).append('.').append(t.getNanos());
+            } else if (v instanceof Long || v instanceof Integer) {
+                sb.append('l').append(((Number) v).longValue());
+            } else if (v instanceof Number) {
+                sb.append('d').append(((Number) v).doubleValue());
+            } else if (v instanceof Boolean) {
+                sb.append('b').append(v);
+            } else {
+                sb.append('s').append(v);
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Object[] decodeToken(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = raw.split(String.valueOf(SEP), -1);
+        Object[] values = new Object[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                String p = parts[i];
+                if (p.isEmpty()) throw new IllegalArgumentException("Empty cursor value");
+                String body = p.substring(1);
+                switch (p.charAt(0)) {
+                    case 'n' -> values[i] = null;
+                    case 't' -> {
+                        int dot = body.indexOf('.');
+                        values[i] = Timestamp.ofTimeSecondsAndNanos(Long.parseLong(body.substring(0, dot)), Integer.parseInt(body.substring(dot + 1)));
+                    }
+                    case 'l' -> values[i] = Long.parseLong(body);
+                    case 'd' -> values[i] = Double.parseDouble(body);
+                    case 'b' -> values[i] = Boolean.parseBoolean(body);
+                    case 's' -> values[i] = body;
+                    default -> throw new IllegalArgumentException("Unknown cursor value type");
+                }
+            }
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+        return values;
+    }
+}
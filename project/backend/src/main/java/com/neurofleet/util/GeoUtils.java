@@ -0,0 +1,45 @@
+package com.neurofleet.util;
+
+import java.util.Locale;
+import java.util.Map;
+
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+    public static final double KM_PER_DEGREE_LAT = 111.32;
+    // Straight-line km are inflated by this factor to approximate road distance
+    public static final double ROAD_DETOUR_FACTOR = 1.3;
+
+    private GeoUtils() {
+    }
+
+    // Great-circle distance between two points (Haversine formula)
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_KM * c;
+    }
+
+    // Reads {lat, lng} as sent by the booking form or {latitude, longitude}; null when either is missing
+    public static double[] coordinates(Object point) {
+        if (!(point instanceof Map)) return null;
+        Map<?, ?> m = (Map<?, ?>) point;
+        Object lat = m.containsKey("lat") ? m.get("lat") : m.get("latitude");
+        Object lng = m.containsKey("lng") ? m.get("lng") : m.get("longitude");
+        if (!(lat instanceof Number) || !(lng instanceof Number)) return null;
+        return new double[]{((Number) lat).doubleValue(), ((Number) lng).doubleValue()};
+    }
+
+    // Display form of a point, e.g. "28.45950, 77.02660" (about a metre of precision)
+    public static String format(double lat, double lng) {
+        return String.format(Locale.ROOT, "%.5f, %.5f", lat, lng);
+    }
+
+    public static double toDouble(Object value, double fallback) {
+        return value instanceof Number ? ((Number) value).doubleValue() : fallback;
+    }
+}
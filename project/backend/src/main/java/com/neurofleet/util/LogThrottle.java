@@ -0,0 +1,51 @@
+package com.neurofleet.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps per-item debug output on hot paths from flooding the log when a category is turned
+ * up. A throttle lets at most {@code maxPerWindow} lines through per window and counts the
+ * rest, so the next line that does get through can say how many were skipped:
+ *
+ *   if (log.isDebugEnabled() && throttle.tryAcquire()) {
+ *       log.debug("vehicle.add id={} suppressed={}", id, throttle.drainSuppressed());
+ *   }
+ *
+ * Check the level first so a disabled category costs one volatile read. Both paths are
+ * lock-free; a few extra lines can slip through when a window rolls over under contention.
+ */
+public final class LogThrottle {
+
+    private final int maxPerWindow;
+    private final long windowMillis;
+    private final AtomicLong windowStart = new AtomicLong();
+    private final AtomicLong inWindow = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public LogThrottle(int maxPerWindow, long windowMillis) {
+        this.maxPerWindow = maxPerWindow;
+        this.windowMillis = windowMillis;
+    }
+
+    public boolean tryAcquire() {
+        long now = System.currentTimeMillis();
+        long start = windowStart.get();
+        if (now - start >= windowMillis && windowStart.compareAndSet(start, now)) {
+            inWindow.set(0);
+        }
+        if (inWindow.incrementAndGet() <= maxPerWindow) return true;
+        suppressed.incrementAndGet();
+        return false;
+    }
+
+    /** Lines refused since the last call. */
+    public long drainSuppressed() {
+        return suppressed.getAndSet(0);
+    }
+
+    /** True for roughly one call in {@code oneIn}; for output where any representative line will do. */
+    public static boolean sample(int oneIn) {
+        return oneIn <= 1 || ThreadLocalRandom.current().nextInt(oneIn) == 0;
+    }
+}
@@ -0,0 +1,49 @@
+package com.neurofleet.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text template with {@code {{name}}} placeholders, split into literal and variable parts
+ * once at construction so rendering is a single pass of appends. Missing variables render
+ * as "null", matching what the old String.format calls produced.
+ */
+public final class MailTemplate {
+
+    private final String[] literals;
+    private final String[] variables;
+    private final int sizeHint;
+
+    private MailTemplate(String[] literals, String[] variables, int sizeHint) {
+        this.literals = literals;
+        this.variables = variables;
+        this.sizeHint = sizeHint;
+    }
+
+    public static MailTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = text.indexOf("{{", pos);
+            int close = open < 0 ? -1 : text.indexOf("}}", open + 2);
+            if (close < 0) {
+                literals.add(text.substring(pos));
+                break;
+            }
+            literals.add(text.substring(pos, open));
+            variables.add(text.substring(open + 2, close).trim());
+            pos = close + 2;
+        }
+        return new MailTemplate(literals.toArray(new String[0]), variables.toArray(new String[0]), text.length() + 64);
+    }
+
+    public String render(Map<String, ?> vars) {
+        StringBuilder sb = new StringBuilder(sizeHint);
+        for (int i = 0; i < variables.length; i++) {
+            sb.append(literals[i]).append(vars.get(variables[i]));
+        }
+        return sb.append(literals[variables.length]).toString();
+    }
+}
@@ -0,0 +1,184 @@
+package com.neurofleet.util;
+
+import java.util.Arrays;
+
+/**
+ * Successive-shortest-path min-cost flow over a sparse graph stored in primitive arrays.
+ * Dijkstra runs on reduced costs (Johnson potentials), so edge costs must be non-negative.
+ * Every augmentation leaves a min-cost flow for the amount pushed so far, which is what
+ * lets {@link #solve} stop at a deadline and still return a usable partial answer.
+ */
+public final class MinCostFlow {
+
+    private static final long INF = Long.MAX_VALUE / 4;
+
+    private final int nodes;
+    private final int[] head;
+    private int[] next;
+    private int[] to;
+    private int[] cap;
+    private long[] cost;
+    private int edges;
+
+    // Dijkstra scratch space, reused across augmentations
+    private final long[] dist;
+    private final long[] potential;
+    private final int[] prevEdge;
+    private long[] heapKey;
+    private int[] heapNode;
+    private int heapSize;
+
+    public static final class Result {
+        public final int flow;
+        public final long cost;
+        public final int augmentations;
+        public final boolean timedOut;
+
+        Result(int flow, long cost, int augmentations, boolean timedOut) {
+            this.flow = flow;
+            this.cost = cost;
+            this.augmentations = augmentations;
+            this.timedOut = timedOut;
+        }
+    }
+
+    public MinCostFlow(int nodes, int expectedEdges) {
+        this.nodes = nodes;
+        this.head = new int[nodes];
+        Arrays.fill(head, -1);
+        int capacity = Math.max(16, expectedEdges * 2);
+        this.next = new int[capacity];
+        this.to = new int[capacity];
+        this.cap = new int[capacity];
+        this.cost = new long[capacity];
+        this.dist = new long[nodes];
+        this.potential = new long[nodes];
+        this.prevEdge = new int[nodes];
+        this.heapKey = new long[Math.max(16, nodes)];
+        this.heapNode = new int[Math.max(16, nodes)];
+    }
+
+    /** Adds a directed edge and its residual twin; returns the forward edge id. */
+    public int addEdge(int from, int toNode, int capacity, long edgeCost) {
+        if (edges + 2 > to.length) grow();
+        int id = edges;
+        link(from, toNode, capacity, edgeCost);
+        link(toNode, from, 0, -edgeCost);
+        return id;
+    }
+
+    public int flow(int edge) {
+        // Flow on a forward edge equals the residual capacity of its twin
+        return cap[edge ^ 1];
+    }
+
+    public Result solve(int source, int sink, int maxFlow, long deadlineNanos) {
+        int flow = 0;
+        long total = 0;
+        int augmentations = 0;
+        boolean timedOut = false;
+
+        while (flow < maxFlow) {
+            if (System.nanoTime() > deadlineNanos) {
+                timedOut = true;
+                break;
+            }
+            if (!dijkstra(source, sink)) break;
+            for (int v = 0; v < nodes; v++) {
+                if (dist[v] < INF) potential[v] += dist[v];
+            }
+
+            int push = maxFlow - flow;
+            for (int v = sink; v != source; v = to[prevEdge[v] ^ 1]) {
+                push = Math.min(push, cap[prevEdge[v]]);
+            }
+            for (int v = sink; v != source; v = to[prevEdge[v] ^ 1]) {
+                int e = prevEdge[v];
+                cap[e] -= push;
+                cap[e ^ 1] += push;
+                total += (long) push * cost[e];
+            }
+            flow += push;
+            augmentations++;
+        }
+        return new Result(flow, total, augmentations, timedOut);
+    }
+
+    private boolean dijkstra(int source, int sink) {
+        Arrays.fill(dist, INF);
+        Arrays.fill(prevEdge, -1);
+        dist[source] = 0;
+        heapSize = 0;
+        heapPush(0, source);
+
+        while (heapSize > 0) {
+            long d = heapKey[0];
+            int u = heapPop();
+            if (d > dist[u]) continue;
+            for (int e = head[u]; e >= 0; e = next[e]) {
+                if (cap[e] <= 0) continue;
+                int v = to[e];
+                long nd = d + cost[e] + potential[u] - potential[v];
+                if (nd < dist[v]) {
+                    dist[v] = nd;
+                    prevEdge[v] = e;
+                    heapPush(nd, v);
+                }
+            }
+        }
+        return dist[sink] < INF;
+    }
+
+    private void link(int from, int toNode, int capacity, long edgeCost) {
+        to[edges] = toNode;
+        cap[edges] = capacity;
+        cost[edges] = edgeCost;
+        next[edges] = head[from];
+        head[from] = edges;
+        edges++;
+    }
+
+    private void grow() {
+        int n = to.length * 2;
+        next = Arrays.copyOf(next, n);
+        to = Arrays.copyOf(to, n);
+        cap = Arrays.copyOf(cap, n);
+        cost = Arrays.copyOf(cost, n);
+    }
+
+    private void heapPush(long key, int node) {
+        if (heapSize == heapKey.length) {
+            heapKey = Arrays.copyOf(heapKey, heapSize * 2);
+            heapNode = Arrays.copyOf(heapNode, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapKey[parent] <= key) break;
+            heapKey[i] = heapKey[parent];
+            heapNode[i] = heapNode[parent];
+            i = parent;
+        }
+        heapKey[i] = key;
+        heapNode[i] = node;
+    }
+
+    private int heapPop() {
+        int top = heapNode[0];
+        long key = heapKey[--heapSize];
+        int node = heapNode[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heapKey[child + 1] < heapKey[child]) child++;
+            if (heapKey[child] >= key) break;
+            heapKey[i] = heapKey[child];
+            heapNode[i] = heapNode[child];
+            i = child;
+        }
+        heapKey[i] = key;
+        heapNode[i] = node;
+        return top;
+    }
+}
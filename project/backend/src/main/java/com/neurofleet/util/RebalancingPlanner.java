@@ -0,0 +1,275 @@
+package com.neurofleet.util;
+
+import java.util.*;
+
+/**
+ * Turns idle vehicle positions and per-cell demand into repositioning moves. Each grid cell
+ * gets a target share of the idle fleet proportional to its demand; cells above target feed
+ * cells below it through a min-cost flow whose edge cost is the estimated road distance.
+ * Each surplus cell is only connected to its nearest deficit cells within the move radius,
+ * which keeps the graph sparse enough for thousands of cells.
+ */
+public final class RebalancingPlanner {
+
+    private static final int SOURCE = 0;
+    private static final int SINK = 1;
+
+    private final double cellDeg;
+    private final double maxMoveKm;
+    private final int neighbors;
+
+    public static final class Vehicle {
+        public final String id;
+        public final double latitude;
+        public final double longitude;
+
+        public Vehicle(String id, double latitude, double longitude) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    public static final class Move {
+        public final String vehicleId;
+        public final double fromLatitude;
+        public final double fromLongitude;
+        public final double toLatitude;
+        public final double toLongitude;
+        public final double distanceKm;
+
+        Move(Vehicle v, double toLatitude, double toLongitude, double distanceKm) {
+            this.vehicleId = v.id;
+            this.fromLatitude = v.latitude;
+            this.fromLongitude = v.longitude;
+            this.toLatitude = toLatitude;
+            this.toLongitude = toLongitude;
+            this.distanceKm = distanceKm;
+        }
+
+        public Map<String, Object> toPayload() {
+            Map<String, Object> m = new HashMap<>();
+            m.put("vehicleId", vehicleId);
+            m.put("from", Map.of("latitude", fromLatitude, "longitude", fromLongitude));
+            m.put("to", Map.of("latitude", toLatitude, "longitude", toLongitude));
+            m.put("distanceKm", Math.round(distanceKm * 100) / 100.0);
+            return m;
+        }
+    }
+
+    public static final class Plan {
+        public final List<Move> moves;
+        public final int vehicles;
+        public final int surplusCells;
+        public final int deficitCells;
+        public final int edges;
+        // Vehicles that would have to move for every cell to reach its target
+        public final int imbalance;
+        public final double totalKm;
+        public final long solveMillis;
+        public final boolean timedOut;
+
+        Plan(List<Move> moves, int vehicles, int surplusCells, int deficitCells, int edges,
+             int imbalance, double totalKm, long solveMillis, boolean timedOut) {
+            this.moves = moves;
+            this.vehicles = vehicles;
+            this.surplusCells = surplusCells;
+            this.deficitCells = deficitCells;
+            this.edges = edges;
+            this.imbalance = imbalance;
+            this.totalKm = totalKm;
+            this.solveMillis = solveMillis;
+            this.timedOut = timedOut;
+        }
+    }
+
+    private static final class Cell {
+        final int row;
+        final int col;
+        final List<Vehicle> vehicles = new ArrayList<>();
+        double demand;
+        int target;
+        int node;
+
+        Cell(int row, int col) {
+            this.row = row;
+            this.col = col;
+        }
+
+        double latitude(double cellDeg) {
+            return (row + 0.5) * cellDeg;
+        }
+
+        double longitude(double cellDeg) {
+            return (col + 0.5) * cellDeg;
+        }
+    }
+
+    public RebalancingPlanner(double cellDeg, double maxMoveKm, int neighbors) {
+        this.cellDeg = cellDeg;
+        this.maxMoveKm = maxMoveKm;
+        this.neighbors = Math.max(1, neighbors);
+    }
+
+    /**
+     * @param demand {latitude, longitude, weight} per demand point; points in the same cell add up
+     * @param budgetMillis wall-clock budget for the solver; when it runs out the moves found
+     *                     so far are returned and the plan is flagged as timed out
+     */
+    public Plan plan(List<Vehicle> idle, List<double[]> demand, long budgetMillis) {
+        long started = System.nanoTime();
+        long deadline = started + budgetMillis * 1_000_000L;
+
+        Map<Long, Cell> cells = new HashMap<>();
+        for (Vehicle v : idle) {
+            cellAt(cells, v.latitude, v.longitude).vehicles.add(v);
+        }
+        double totalDemand = 0;
+        for (double[] d : demand) {
+            if (d[2] <= 0) continue;
+            cellAt(cells, d[0], d[1]).demand += d[2];
+            totalDemand += d[2];
+        }
+        if (idle.isEmpty() || totalDemand <= 0) {
+            return new Plan(List.of(), idle.size(), 0, 0, 0, 0, 0, 0, false);
+        }
+
+        assignTargets(cells.values(), idle.size(), totalDemand);
+
+        List<Cell> surplus = new ArrayList<>();
+        Map<Long, Cell> deficit = new HashMap<>();
+        int imbalance = 0;
+        for (Map.Entry<Long, Cell> e : cells.entrySet()) {
+            Cell c = e.getValue();
+            int diff = c.vehicles.size() - c.target;
+            if (diff > 0) {
+                surplus.add(c);
+                imbalance += diff;
+            } else if (diff < 0) {
+                deficit.put(e.getKey(), c);
+            }
+        }
+
+        int node = 2;
+        for (Cell c : surplus) c.node = node++;
+        for (Cell c : deficit.values()) c.node = node++;
+
+        MinCostFlow flow = new MinCostFlow(node, surplus.size() * (neighbors + 1) + deficit.size());
+        List<int[]> arcs = new ArrayList<>();
+        for (Cell c : surplus) {
+            flow.addEdge(SOURCE, c.node, c.vehicles.size() - c.target, 0);
+        }
+        for (Cell c : deficit.values()) {
+            flow.addEdge(c.node, SINK, c.target - c.vehicles.size(), 0);
+        }
+        Cell[] nodes = new Cell[node];
+        for (Cell c : surplus) nodes[c.node] = c;
+        for (Cell c : deficit.values()) nodes[c.node] = c;
+
+        for (Cell from : surplus) {
+            int cap = from.vehicles.size() - from.target;
+            for (Cell to : nearestDeficits(from, deficit)) {
+                long meters = Math.round(roadKm(from, to) * 1000);
+                int edge = flow.addEdge(from.node, to.node, cap, meters);
+                arcs.add(new int[]{edge, from.node, to.node});
+            }
+        }
+
+        MinCostFlow.Result result = flow.solve(SOURCE, SINK, imbalance, deadline);
+
+        List<Move> moves = new ArrayList<>();
+        double totalKm = 0;
+        int[] taken = new int[node];
+        for (int[] arc : arcs) {
+            int f = flow.flow(arc[0]);
+            if (f <= 0) continue;
+            Cell from = nodes[arc[1]];
+            Cell to = nodes[arc[2]];
+            double toLat = to.latitude(cellDeg);
+            double toLng = to.longitude(cellDeg);
+            for (int i = 0; i < f; i++) {
+                Vehicle v = from.vehicles.get(taken[from.node]++);
+                double km = GeoUtils.haversineKm(v.latitude, v.longitude, toLat, toLng) * GeoUtils.ROAD_DETOUR_FACTOR;
+                moves.add(new Move(v, toLat, toLng, km));
+                totalKm += km;
+            }
+        }
+
+        long elapsed = (System.nanoTime() - started) / 1_000_000L;
+        return new Plan(moves, idle.size(), surplus.size(), deficit.size(), arcs.size(),
+                imbalance, totalKm, elapsed, result.timedOut);
+    }
+
+    // Largest-remainder rounding so targets add up to exactly the idle fleet size
+    private static void assignTargets(Collection<Cell> cells, int fleet, double totalDemand) {
+        List<Cell> byRemainder = new ArrayList<>(cells);
+        int assigned = 0;
+        for (Cell c : byRemainder) {
+            c.target = (int) Math.floor(fleet * c.demand / totalDemand);
+            assigned += c.target;
+        }
+        byRemainder.sort((a, b) -> Double.compare(
+                fleet * b.demand / totalDemand - b.target,
+                fleet * a.demand / totalDemand - a.target));
+        for (int i = 0; assigned < fleet && i < byRemainder.size(); i++) {
+            byRemainder.get(i).target++;
+            assigned++;
+        }
+    }
+
+    /**
+     * Up to {@code neighbors} deficit cells nearest to {@code from} within the move radius,
+     * searched in square rings of cells outward. Stops once the k-th best is closer than
+     * anything the next ring could hold.
+     */
+    private List<Cell> nearestDeficits(Cell from, Map<Long, Cell> deficit) {
+        double latKm = cellDeg * GeoUtils.KM_PER_DEGREE_LAT;
+        double lngKm = latKm * Math.cos(Math.toRadians(from.latitude(cellDeg)));
+        double minCellKm = Math.min(latKm, lngKm);
+        int maxRing = (int) Math.ceil(maxMoveKm / minCellKm);
+
+        List<Cell> found = new ArrayList<>();
+        List<Double> dist = new ArrayList<>();
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int dr = -ring; dr <= ring; dr++) {
+                for (int dc = -ring; dc <= ring; dc++) {
+                    if (Math.abs(dr) != ring && Math.abs(dc) != ring) continue;
+                    Cell c = deficit.get(key(from.row + dr, from.col + dc));
+                    if (c == null) continue;
+                    double km = roadKm(from, c);
+                    if (km > maxMoveKm) continue;
+                    found.add(c);
+                    dist.add(km);
+                }
+            }
+            if (found.size() >= neighbors) {
+                List<Double> sorted = new ArrayList<>(dist);
+                Collections.sort(sorted);
+                if (sorted.get(neighbors - 1) <= ring * minCellKm * GeoUtils.ROAD_DETOUR_FACTOR) break;
+            }
+        }
+        if (found.size() <= neighbors) return found;
+
+        Integer[] order = new Integer[found.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble(dist::get));
+        List<Cell> nearest = new ArrayList<>(neighbors);
+        for (int i = 0; i < neighbors; i++) nearest.add(found.get(order[i]));
+        return nearest;
+    }
+
+    private double roadKm(Cell a, Cell b) {
+        return GeoUtils.haversineKm(a.latitude(cellDeg), a.longitude(cellDeg), b.latitude(cellDeg), b.longitude(cellDeg))
+                * GeoUtils.ROAD_DETOUR_FACTOR;
+    }
+
+    private Cell cellAt(Map<Long, Cell> cells, double lat, double lng) {
+        int row = (int) Math.floor(lat / cellDeg);
+        int col = (int) Math.floor(lng / cellDeg);
+        return cells.computeIfAbsent(key(row, col), k -> new Cell(row, col));
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+}
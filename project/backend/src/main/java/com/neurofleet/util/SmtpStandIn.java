@@ -0,0 +1,120 @@
+package com.neurofleet.util;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal SMTP server for exercising the notification pipeline locally. It speaks enough of
+ * RFC 5321 for JavaMail (EHLO, MAIL, RCPT, DATA, RSET, NOOP, QUIT), prints a line per
+ * accepted message, and can be told to be slow or to reject a share of messages so retries
+ * and backoff can be watched. Run with:
+ *
+ *   mvn -q compile exec:java -Dexec.mainClass=com.neurofleet.util.SmtpStandIn \
+ *       -Dexec.args="--port 2525 --fail-rate 0.3 --delay-ms 200"
+ *
+ * then start the backend with SMTP_HOST=localhost SMTP_PORT=2525 SMTP_AUTH=false.
+ */
+public final class SmtpStandIn {
+
+    private SmtpStandIn() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 2525;
+        double failRate = 0;
+        long delayMillis = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--fail-rate" -> failRate = Double.parseDouble(args[++i]);
+                case "--delay-ms" -> delayMillis = Long.parseLong(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong connections = new AtomicLong();
+        try (ServerSocket server = new ServerSocket(port)) {
+            System.out.println("SMTP stand-in listening on port " + port + " (fail rate " + failRate + ", delay " + delayMillis + " ms)");
+            while (true) {
+                Socket socket = server.accept();
+                long connection = connections.incrementAndGet();
+                double rate = failRate;
+                long delay = delayMillis;
+                Thread t = new Thread(() -> session(socket, connection, rate, delay, accepted, rejected), "smtp-" + connection);
+                t.setDaemon(true);
+                t.start();
+            }
+        }
+    }
+
+    private static void session(Socket socket, long connection, double failRate, long delayMillis,
+                                AtomicLong accepted, AtomicLong rejected) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            reply(out, "220 localhost SMTP stand-in");
+            String from = null;
+            List<String> to = new ArrayList<>();
+            int messages = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String upper = line.toUpperCase();
+                if (upper.startsWith("EHLO")) {
+                    reply(out, "250-localhost\r\n250 8BITMIME");
+                } else if (upper.startsWith("HELO")) {
+                    reply(out, "250 localhost");
+                } else if (upper.startsWith("MAIL FROM:")) {
+                    from = line.substring(10).trim();
+                    to.clear();
+                    reply(out, "250 OK");
+                } else if (upper.startsWith("RCPT TO:")) {
+                    to.add(line.substring(8).trim());
+                    reply(out, "250 OK");
+                } else if (upper.equals("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    String subject = "";
+                    String dataLine;
+                    while ((dataLine = in.readLine()) != null && !dataLine.equals(".")) {
+                        if (subject.isEmpty() && dataLine.regionMatches(true, 0, "Subject:", 0, 8)) subject = dataLine.substring(8).trim();
+                    }
+                    if (delayMillis > 0) Thread.sleep(delayMillis);
+                    messages++;
+                    if (ThreadLocalRandom.current().nextDouble() < failRate) {
+                        rejected.incrementAndGet();
+                        System.out.println("[conn " + connection + "] REJECTED " + to + " \"" + subject + "\"");
+                        reply(out, "451 Temporary failure (simulated)");
+                    } else {
+                        accepted.incrementAndGet();
+                        System.out.println("[conn " + connection + " msg " + messages + "] " + from + " -> " + to + " \"" + subject + "\"");
+                        reply(out, "250 OK queued");
+                    }
+                } else if (upper.equals("RSET") || upper.equals("NOOP")) {
+                    reply(out, "250 OK");
+                } else if (upper.equals("QUIT")) {
+                    reply(out, "221 Bye");
+                    System.out.println("[conn " + connection + "] closed after " + messages + " messages (total accepted "
+                            + accepted.get() + ", rejected " + rejected.get() + ")");
+                    return;
+                } else {
+                    reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            System.out.println("[conn " + connection + "] " + e.getMessage());
+        }
+    }
+
+    private static void reply(Writer out, String text) throws IOException {
+        out.write(text);
+        out.write("\r\n");
+        out.flush();
+    }
+}
@@ -0,0 +1,366 @@
+package com.neurofleet.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synthetic fleet data for load and volume testing: vehicles, users, bookings, trips and vehicle
+ * history shaped like what the app writes itself, with Delhi NCR locations.
+ *
+ * Every document is a pure function of the seed, its kind and its index, ids included. Documents
+ * can therefore reference each other (a booking's customer, a trip's vehicle) without anything
+ * being held in memory, any number of threads can generate disjoint ranges, and seeding again
+ * with the same seed overwrites documents instead of duplicating them.
+ *
+ * Distributions, roughly: vehicles cluster around a few hubs, and their battery level follows
+ * their status. A small share of customers makes a large share of bookings. Pickups peak in the
+ * morning and evening rush. Trip durations are log-normal.
+ */
+public final class SyntheticData {
+
+    public enum Kind {
+        USERS("users"), VEHICLES("vehicles"), BOOKINGS("bookings"), TRIPS("trips"), HISTORY("vehicles/history");
+
+        /** Collection, or collection/subcollection for history. */
+        public final String collection;
+
+        Kind(String collection) {
+            this.collection = collection;
+        }
+    }
+
+    /** A generated document; {@code path} is the full document path, such as vehicles/{id}/history/{id}. */
+    public record Doc(String path, Map<String, Object> data) {
+    }
+
+    private record Model(String make, String model, String type, double capacityKwh, double rangeKm) {
+    }
+
+    private record Place(String name, String state, double lat, double lng) {
+    }
+
+    private static final Model[] MODELS = {
+            new Model("Tata", "Nexon EV", "ev", 40.5, 465),
+            new Model("Tata", "Tigor EV", "ev", 26.0, 315),
+            new Model("MG", "ZS EV", "ev", 50.3, 461),
+            new Model("Mahindra", "XUV400", "ev", 39.4, 456),
+            new Model("Hyundai", "Kona", "ev", 39.2, 452),
+            new Model("BYD", "Atto 3", "ev", 60.5, 521),
+            new Model("Tesla", "Model 3", "ev", 75.0, 400),
+            new Model("Nissan", "Leaf", "ev", 40.0, 240),
+            new Model("Toyota", "Prius", "hybrid", 50.0, 350),
+            new Model("Maruti", "Grand Vitara", "hybrid", 45.0, 600)
+    };
+    private static final double[] MODEL_WEIGHTS = {22, 14, 12, 10, 8, 6, 4, 4, 10, 10};
+
+    private static final Place[] PLACES = {
+            new Place("Cyber Hub, Gurugram", "HR", 28.4950, 77.0895),
+            new Place("Huda City Centre, Gurugram", "HR", 28.4595, 77.0726),
+            new Place("Golf Course Road, Gurugram", "HR", 28.4500, 77.0950),
+            new Place("Connaught Place, Delhi", "DL", 28.6315, 77.2167),
+            new Place("Nehru Place, Delhi", "DL", 28.5494, 77.2519),
+            new Place("Saket, Delhi", "DL", 28.5245, 77.2066),
+            new Place("Dwarka Sector 21, Delhi", "DL", 28.5523, 77.0583),
+            new Place("Aerocity, Delhi", "DL", 28.5494, 77.1213),
+            new Place("IGI Airport T3, Delhi", "DL", 28.5562, 77.1000),
+            new Place("Sector 18, Noida", "UP", 28.5706, 77.3261),
+            new Place("Sector 62, Noida", "UP", 28.6270, 77.3649),
+            new Place("Sector 15, Faridabad", "HR", 28.3960, 77.3260)
+    };
+    private static final double[] PLACE_WEIGHTS = {14, 10, 8, 12, 8, 7, 7, 6, 9, 9, 6, 4};
+
+    private static final String[] VEHICLE_STATUSES = {"available", "on-trip", "charging", "maintenance"};
+    private static final double[] VEHICLE_STATUS_WEIGHTS = {55, 28, 12, 5};
+
+    // Booking vehicle types and base rates, as offered on the booking page
+    private static final String[] BOOKING_TYPES = {"economy", "premium", "suv", "electric", "van", "luxury"};
+    private static final double[] BOOKING_TYPE_WEIGHTS = {30, 18, 14, 20, 6, 12};
+    private static final int[] BASE_RATES = {150, 250, 350, 200, 450, 600};
+
+    // Share of pickups per hour of day, peaking in the morning and evening rush
+    private static final double[] PICKUP_HOUR_WEIGHTS = {
+            1, 1, 1, 1, 1, 2, 4, 8, 12, 11, 7, 6, 6, 6, 6, 7, 9, 12, 13, 10, 7, 5, 3, 2};
+
+    // One to four passengers
+    private static final double[] PASSENGER_WEIGHTS = {60, 25, 10, 5};
+
+    private static final String[] HISTORY_EVENTS = {"status_update", "updated", "driver_assigned"};
+    private static final double[] HISTORY_EVENT_WEIGHTS = {60, 25, 15};
+
+    private static final String[] FIRST_NAMES = {"Aarav", "Vivaan", "Aditya", "Ananya", "Diya", "Ishaan", "Kavya", "Rohan",
+            "Priya", "Arjun", "Sneha", "Rahul", "Neha", "Vikram", "Pooja", "Karan", "Meera", "Siddharth", "Riya", "Amit"};
+    private static final String[] LAST_NAMES = {"Sharma", "Verma", "Gupta", "Singh", "Kumar", "Mehta", "Iyer", "Reddy",
+            "Nair", "Chopra", "Malhotra", "Bansal", "Agarwal", "Joshi", "Kapoor"};
+
+    private static final char[] ID_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+    private static final ZoneId ZONE = ZoneId.of("Asia/Kolkata");
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    // One in DRIVER_EVERY users is a driver, so drivers can be picked without a lookup
+    private static final int DRIVER_EVERY = 12;
+
+    private final long seed;
+    private final long nowMillis;
+    private final long vehicles;
+    private final long users;
+    // Without seeded users, vehicles get no currentDriver: it would name a profile that doesn't exist
+    private final boolean usersSeeded;
+
+    /**
+     * @param vehicles and {@code users}: how many of each exist, for references from other
+     *                 documents; with none seeded, references point at ids from a small pool
+     * @param nowMillis the present for the generated timeline; bookings reach 14 days past it
+     */
+    public SyntheticData(long seed, long vehicles, long users, long nowMillis) {
+        this.seed = seed;
+        this.vehicles = vehicles > 0 ? vehicles : 100;
+        this.users = users > 0 ? users : 1000;
+        this.usersSeeded = users > 0;
+        this.nowMillis = nowMillis;
+    }
+
+    public Doc document(Kind kind, long index, int historyPerVehicle) {
+        return switch (kind) {
+            case USERS -> new Doc("users/" + id(kind, index), user(index));
+            case VEHICLES -> new Doc("vehicles/" + id(kind, index), vehicle(index));
+            case BOOKINGS -> new Doc("bookings/" + id(kind, index), booking(index));
+            case TRIPS -> new Doc("trips/" + id(kind, index), trip(index));
+            case HISTORY -> new Doc("vehicles/" + id(Kind.VEHICLES, index / historyPerVehicle) + "/history/" + id(kind, index),
+                    history(index / historyPerVehicle, (int) (index % historyPerVehicle), historyPerVehicle));
+        };
+    }
+
+    /** Looks like a Firestore auto-id: 20 letters and digits. */
+    public String id(Kind kind, long index) {
+        long a = mix(seed ^ mix(((long) kind.ordinal() << 56) ^ index));
+        long b = mix(a + 0x9E3779B97F4A7C15L);
+        char[] id = new char[20];
+        for (int k = 0; k < 10; k++) {
+            id[k] = ID_ALPHABET[(int) Long.remainderUnsigned(a, 62)];
+            a = Long.divideUnsigned(a, 62);
+            id[k + 10] = ID_ALPHABET[(int) Long.remainderUnsigned(b, 62)];
+            b = Long.divideUnsigned(b, 62);
+        }
+        return new String(id);
+    }
+
+    public Map<String, Object> vehicle(long i) {
+        SplittableRandom r = rng(Kind.VEHICLES, i, 0);
+        Model m = MODELS[pick(MODEL_WEIGHTS, r)];
+        String status = VEHICLE_STATUSES[pick(VEHICLE_STATUS_WEIGHTS, r)];
+        Place hub = PLACES[pick(PLACE_WEIGHTS, r)];
+        double battery = status.equals("charging") ? 10 + r.nextDouble() * 50 : clamp(68 + r.nextGaussian() * 18, 5, 100);
+
+        Map<String, Object> v = new HashMap<>();
+        v.put("make", m.make());
+        v.put("model", m.model());
+        v.put("licensePlate", String.format("%s%02d-%c%c-%04d", hub.state(), 1 + r.nextInt(99),
+                (char) ('A' + r.nextInt(26)), (char) ('A' + r.nextInt(26)), r.nextInt(10000)));
+        v.put("type", m.type());
+        v.put("status", status);
+        v.put("latitude", round(hub.lat() + r.nextGaussian() * 0.02, 6));
+        v.put("longitude", round(hub.lng() + r.nextGaussian() * 0.02, 6));
+        v.put("batteryCapacity", m.capacityKwh());
+        v.put("batteryLevel", round(battery, 1));
+        v.put("range", m.rangeKm());
+        v.put("speed", status.equals("on-trip") ? round(15 + r.nextDouble() * 45, 1) : 0);
+        if (status.equals("on-trip") && usersSeeded) v.put("currentDriver", id(Kind.USERS, driver(r)));
+        v.put("createdAt", new Date(vehicleCreatedAt(i)));
+        return v;
+    }
+
+    public Map<String, Object> user(long i) {
+        SplittableRandom r = rng(Kind.USERS, i, 0);
+        String first = FIRST_NAMES[r.nextInt(FIRST_NAMES.length)];
+        String last = LAST_NAMES[r.nextInt(LAST_NAMES.length)];
+        boolean driver = i % DRIVER_EVERY == 0;
+        Place home = PLACES[pick(PLACE_WEIGHTS, r)];
+
+        Map<String, Object> u = new HashMap<>();
+        u.put("name", first + " " + last);
+        u.put("email", email(first, last, i));
+        u.put("role", driver ? "driver" : i % 97 == 1 ? "admin" : "customer");
+        u.put("phone", phone(r));
+        u.put("address", "House " + (1 + r.nextInt(400)) + ", near " + home.name());
+        u.put("dateOfBirth", LocalDate.of(1960 + r.nextInt(45), 1 + r.nextInt(12), 1 + r.nextInt(28)).toString());
+        if (driver || r.nextDouble() < 0.6) {
+            u.put("licenseNumber", String.format("%s-%02d%d%07d", home.state(), 1 + r.nextInt(99), 2000 + r.nextInt(25), r.nextInt(10_000_000)));
+        }
+        u.put("emergencyContact", FIRST_NAMES[r.nextInt(FIRST_NAMES.length)] + " " + last);
+        u.put("emergencyPhone", phone(r));
+        u.put("preferredVehicleType", BOOKING_TYPES[pick(BOOKING_TYPE_WEIGHTS, r)]);
+        u.put("createdAt", new Date(nowMillis - (1 + r.nextInt(900)) * DAY));
+        return u;
+    }
+
+    public Map<String, Object> booking(long i) {
+        SplittableRandom r = rng(Kind.BOOKINGS, i, 0);
+        long customer = customer(r);
+        int type = pick(BOOKING_TYPE_WEIGHTS, r);
+        Place pickup = PLACES[pick(PLACE_WEIGHTS, r)];
+        Place dropoff;
+        do {
+            dropoff = PLACES[pick(PLACE_WEIGHTS, r)];
+        } while (dropoff == pickup);
+
+        ZonedDateTime pickupAt = Instant.ofEpochMilli(nowMillis).atZone(ZONE).toLocalDate()
+                .plusDays(r.nextInt(194) - 180)
+                .atTime(pick(PICKUP_HOUR_WEIGHTS, r), 15 * r.nextInt(4))
+                .atZone(ZONE);
+        long pickupMillis = pickupAt.toInstant().toEpochMilli();
+        // Booked ahead by an exponentially distributed lead time, averaging a day and a half
+        long lead = Math.max(TimeUnit.MINUTES.toMillis(10), (long) (-Math.log(1 - r.nextDouble()) * 36 * 3_600_000L));
+        double distance = GeoUtils.haversineKm(pickup.lat(), pickup.lng(), dropoff.lat(), dropoff.lng()) * GeoUtils.ROAD_DETOUR_FACTOR;
+        int passengers = 1 + pick(PASSENGER_WEIGHTS, r);
+
+        String status;
+        if (pickupMillis < nowMillis) {
+            status = r.nextDouble() < 0.85 ? "completed" : "cancelled";
+        } else {
+            status = r.nextDouble() < 0.7 ? "confirmed" : "pending";
+        }
+
+        Map<String, Object> b = new HashMap<>();
+        b.put("customerId", id(Kind.USERS, customer));
+        b.put("customerEmail", email(customer));
+        b.put("vehicleType", BOOKING_TYPES[type]);
+        b.put("pickupLocation", pickup.name());
+        b.put("dropoffLocation", dropoff.name());
+        b.put("pickupCoordinates", Map.of("lat", pickup.lat(), "lng", pickup.lng()));
+        b.put("dropoffCoordinates", Map.of("lat", dropoff.lat(), "lng", dropoff.lng()));
+        b.put("pickupDate", pickupAt.toLocalDate().toString());
+        b.put("pickupTime", String.format("%02d:%02d", pickupAt.getHour(), pickupAt.getMinute()));
+        b.put("passengers", passengers);
+        b.put("estimatedDistance", round(distance, 2));
+        b.put("estimatedTripMinutes", (int) Math.max(15, Math.round(distance / 22 * 60)));
+        b.put("estimatedCost", round((BASE_RATES[type] + distance * 12) * Math.exp(r.nextGaussian() * 0.15), 2));
+        b.put("status", status);
+        b.put("createdAt", new Date(Math.min(pickupMillis - lead, nowMillis)));
+        return b;
+    }
+
+    public Map<String, Object> trip(long i) {
+        SplittableRandom r = rng(Kind.TRIPS, i, 0);
+        long start = nowMillis - (long) (r.nextDouble() * 90 * DAY);
+        // Log-normal, median 35 minutes
+        long minutes = Math.max(5, Math.round(Math.exp(Math.log(35) + r.nextGaussian() * 0.5)));
+        long end = start + TimeUnit.MINUTES.toMillis(minutes);
+        boolean inProgress = end > nowMillis;
+        double speedKmh = 18 + r.nextDouble() * 22;
+
+        Map<String, Object> t = new HashMap<>();
+        t.put("vehicleId", id(Kind.VEHICLES, r.nextLong(vehicles)));
+        t.put("driverId", id(Kind.USERS, driver(r)));
+        t.put("startTime", new Date(start));
+        t.put("endTime", inProgress ? null : new Date(end));
+        t.put("status", inProgress ? "IN_PROGRESS" : "COMPLETED");
+        t.put("distanceKm", round((inProgress ? nowMillis - start : end - start) / 3_600_000.0 * speedKmh, 2));
+        if (!inProgress) {
+            t.put("durationMinutes", (double) minutes);
+            t.put("averageSpeedKmh", round(speedKmh, 2));
+        }
+        // Same shape as TripSegmentationService: a display string and the point as {lat, lng}
+        Place from = PLACES[pick(PLACE_WEIGHTS, r)];
+        t.put("startLocation", from.name());
+        t.put("startCoordinates", Map.of("lat", from.lat(), "lng", from.lng()));
+        if (inProgress) {
+            t.put("endLocation", null);
+        } else {
+            Place to = PLACES[pick(PLACE_WEIGHTS, r)];
+            t.put("endLocation", to.name());
+            t.put("endCoordinates", Map.of("lat", to.lat(), "lng", to.lng()));
+        }
+        return t;
+    }
+
+    /** Event {@code k} of {@code perVehicle} in a vehicle's history, in the shape HistoryWriterService writes. */
+    public Map<String, Object> history(long vehicle, int k, int perVehicle) {
+        SplittableRandom r = rng(Kind.HISTORY, vehicle, k);
+        long created = vehicleCreatedAt(vehicle);
+        Map<String, Object> event = new HashMap<>();
+        if (k == 0) {
+            event.put("eventType", "created");
+            event.put("details", vehicle(vehicle));
+            event.put("timestamp", new Date(created));
+            return event;
+        }
+        String type = HISTORY_EVENTS[pick(HISTORY_EVENT_WEIGHTS, r)];
+        Map<String, Object> details = new HashMap<>();
+        switch (type) {
+            case "status_update" -> details.put("status", VEHICLE_STATUSES[pick(VEHICLE_STATUS_WEIGHTS, r)]);
+            case "updated" -> details.put("batteryLevel", round(5 + r.nextDouble() * 95, 1));
+            default -> {
+                long driver = driver(r);
+                details.put("driverUid", id(Kind.USERS, driver));
+                details.put("driverEmail", email(driver));
+            }
+        }
+        // Spread over the vehicle's lifetime in order, with some jitter inside each slot
+        long slot = (nowMillis - created) / perVehicle;
+        event.put("eventType", type);
+        event.put("details", details);
+        event.put("timestamp", new Date(created + slot * k + (long) (r.nextDouble() * slot)));
+        return event;
+    }
+
+    private long vehicleCreatedAt(long i) {
+        return nowMillis - (1 + rng(Kind.VEHICLES, i, 1).nextInt(730)) * DAY;
+    }
+
+    // Skewed towards low indices: about 30% of bookings come from the first 5% of customers
+    private long customer(SplittableRandom r) {
+        return Math.min(users - 1, (long) (users * Math.pow(r.nextDouble(), 2.5)));
+    }
+
+    private long driver(SplittableRandom r) {
+        return DRIVER_EVERY * r.nextLong((users + DRIVER_EVERY - 1) / DRIVER_EVERY);
+    }
+
+    // Recomputes the name the user document was generated with
+    private String email(long user) {
+        SplittableRandom r = rng(Kind.USERS, user, 0);
+        return email(FIRST_NAMES[r.nextInt(FIRST_NAMES.length)], LAST_NAMES[r.nextInt(LAST_NAMES.length)], user);
+    }
+
+    private static String email(String first, String last, long user) {
+        return (first + "." + last + user + "@example.com").toLowerCase(Locale.ROOT);
+    }
+
+    private static String phone(SplittableRandom r) {
+        return String.format("+91 9%09d", r.nextInt(1_000_000_000));
+    }
+
+    private SplittableRandom rng(Kind kind, long index, long salt) {
+        return new SplittableRandom(mix(seed ^ mix(((long) kind.ordinal() << 56) ^ index) ^ mix(salt + 1)));
+    }
+
+    private static int pick(double[] weights, SplittableRandom r) {
+        double total = 0;
+        for (double w : weights) total += w;
+        double x = r.nextDouble() * total;
+        for (int k = 0; k < weights.length - 1; k++) {
+            x -= weights[k];
+            if (x < 0) return k;
+        }
+        return weights.length - 1;
+    }
+
+    // SplitMix64 finaliser
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double clamp(double v, double min, double max) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    private static double round(double v, int places) {
+        double scale = Math.pow(10, places);
+        return Math.round(v * scale) / scale;
+    }
+}
@@ -0,0 +1,207 @@
+package com.neurofleet.util;
+
+import java.util.Arrays;
+
+/**
+ * Columnar encoding for a run of samples from one vehicle, after Facebook's Gorilla paper:
+ * timestamps as delta-of-delta in variable-width buckets, and each value column as the XOR
+ * of consecutive doubles, storing only the bits between the leading and trailing zeros.
+ *
+ * Raw GPS and battery doubles change in almost every mantissa bit, which defeats XOR
+ * compression, so values are first rounded to {@code mantissaBits} of mantissa. 26 bits keeps
+ * coordinates in this region to about 1e-6 degrees (roughly 10 cm) and battery to far below
+ * a reading's real accuracy. Values that repeat cost one bit, and a typical moving sample
+ * costs two or three bytes per column.
+ *
+ * Layout: count (32 bits), columns (8 bits), mantissaBits (8 bits), timestamp stream, then
+ * one stream per column.
+ */
+public final class TelemetryChunkCodec {
+
+    private TelemetryChunkCodec() {
+    }
+
+    /** Decoded chunk; arrays are exactly {@code count} long. */
+    public static final class Decoded {
+        public final long[] timestamps;
+        public final double[][] columns;
+
+        Decoded(long[] timestamps, double[][] columns) {
+            this.timestamps = timestamps;
+            this.columns = columns;
+        }
+    }
+
+    public static byte[] encode(long[] timestamps, double[][] columns, int count, int mantissaBits) {
+        BitWriter w = new BitWriter(16 + count * (2 + columns.length * 3));
+        w.write(count, 32);
+        w.write(columns.length, 8);
+        w.write(mantissaBits, 8);
+        if (count == 0) return w.toByteArray();
+
+        // Timestamps: first raw, then the first delta, then delta-of-delta
+        w.write(timestamps[0], 64);
+        long prevDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = timestamps[i] - timestamps[i - 1];
+            long dod = delta - prevDelta;
+            prevDelta = delta;
+            if (dod == 0) {
+                w.write(0, 1);
+            } else if (dod >= -63 && dod <= 64) {
+                w.write(0b10, 2);
+                w.write(dod + 63, 7);
+            } else if (dod >= -255 && dod <= 256) {
+                w.write(0b110, 3);
+                w.write(dod + 255, 9);
+            } else if (dod >= -2047 && dod <= 2048) {
+                w.write(0b1110, 4);
+                w.write(dod + 2047, 12);
+            } else {
+                w.write(0b1111, 4);
+                w.write(dod, 64);
+            }
+        }
+
+        long mask = mantissaBits >= 52 ? -1L : -1L << (52 - mantissaBits);
+        for (double[] column : columns) {
+            long prev = Double.doubleToRawLongBits(round(column[0], mantissaBits)) & mask;
+            w.write(prev, 64);
+            int prevLeading = -1;
+            int prevTrailing = 0;
+            for (int i = 1; i < count; i++) {
+                long bits = Double.doubleToRawLongBits(round(column[i], mantissaBits)) & mask;
+                long xor = bits ^ prev;
+                prev = bits;
+                if (xor == 0) {
+                    w.write(0, 1);
+                    continue;
+                }
+                int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+                int trailing = Long.numberOfTrailingZeros(xor);
+                if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+                    // Fits in the previous window: reuse it
+                    w.write(0b10, 2);
+                    w.write(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+                } else {
+                    int significant = 64 - leading - trailing;
+                    w.write(0b11, 2);
+                    w.write(leading, 5);
+                    w.write(significant == 64 ? 0 : significant, 6);
+                    w.write(xor >>> trailing, significant);
+                    prevLeading = leading;
+                    prevTrailing = trailing;
+                }
+            }
+        }
+        return w.toByteArray();
+    }
+
+    public static Decoded decode(byte[] data) {
+        BitReader r = new BitReader(data);
+        int count = (int) r.read(32);
+        int columnCount = (int) r.read(8);
+        r.read(8); // mantissaBits, only needed when encoding
+        long[] timestamps = new long[count];
+        double[][] columns = new double[columnCount][count];
+        if (count == 0) return new Decoded(timestamps, columns);
+
+        timestamps[0] = r.read(64);
+        long delta = 0;
+        for (int i = 1; i < count; i++) {
+            long dod;
+            if (r.read(1) == 0) {
+                dod = 0;
+            } else if (r.read(1) == 0) {
+                dod = r.read(7) - 63;
+            } else if (r.read(1) == 0) {
+                dod = r.read(9) - 255;
+            } else if (r.read(1) == 0) {
+                dod = r.read(12) - 2047;
+            } else {
+                dod = r.read(64);
+            }
+            delta += dod;
+            timestamps[i] = timestamps[i - 1] + delta;
+        }
+
+        for (double[] column : columns) {
+            long prev = r.read(64);
+            column[0] = Double.longBitsToDouble(prev);
+            int leading = 0;
+            int trailing = 0;
+            for (int i = 1; i < count; i++) {
+                if (r.read(1) == 1) {
+                    if (r.read(1) == 1) {
+                        leading = (int) r.read(5);
+                        int significant = (int) r.read(6);
+                        if (significant == 0) significant = 64;
+                        trailing = 64 - leading - significant;
+                    }
+                    prev ^= r.read(64 - leading - trailing) << trailing;
+                }
+                column[i] = Double.longBitsToDouble(prev);
+            }
+        }
+        return new Decoded(timestamps, columns);
+    }
+
+    // Round-to-nearest on the kept mantissa bits, so truncation doesn't bias values downward
+    private static double round(double v, int mantissaBits) {
+        if (mantissaBits >= 52 || Double.isNaN(v) || Double.isInfinite(v)) return v;
+        long bits = Double.doubleToRawLongBits(v);
+        long half = 1L << (51 - mantissaBits);
+        return Double.longBitsToDouble(bits + half);
+    }
+
+    private static final class BitWriter {
+        private byte[] buf;
+        private long bitPos;
+
+        BitWriter(int initialBytes) {
+            buf = new byte[Math.max(16, initialBytes)];
+        }
+
+        // Writes the low n bits of value, most significant first
+        void write(long value, int n) {
+            for (int remaining = n; remaining > 0; ) {
+                int byteIndex = (int) (bitPos >>> 3);
+                if (byteIndex >= buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+                int free = 8 - (int) (bitPos & 7);
+                int take = Math.min(free, remaining);
+                int bits = (int) ((value >>> (remaining - take)) & ((1 << take) - 1));
+                buf[byteIndex] |= (byte) (bits << (free - take));
+                remaining -= take;
+                bitPos += take;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, (int) ((bitPos + 7) >>> 3));
+        }
+    }
+
+    private static final class BitReader {
+        private final byte[] buf;
+        private long bitPos;
+
+        BitReader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        long read(int n) {
+            long value = 0;
+            for (int remaining = n; remaining > 0; ) {
+                int byteIndex = (int) (bitPos >>> 3);
+                if (byteIndex >= buf.length) throw new IllegalStateException("Truncated telemetry chunk");
+                int avail = 8 - (int) (bitPos & 7);
+                int take = Math.min(avail, remaining);
+                int bits = (buf[byteIndex] >>> (avail - take)) & ((1 << take) - 1);
+                value = (value << take) | bits;
+                remaining -= take;
+                bitPos += take;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.neurofleet.util;
+
+import java.time.Instant;
+
+public final class TimeUtils {
+
+    private TimeUtils() {
+    }
+
+    // Query parameter time: epoch millis or an ISO-8601 instant. Throws NumberFormatException
+    // or DateTimeParseException, which controllers turn into a 400
+    public static long parseInstant(String value) {
+        if (value.chars().allMatch(Character::isDigit)) return Long.parseLong(value);
+        return Instant.parse(value).toEpochMilli();
+    }
+}
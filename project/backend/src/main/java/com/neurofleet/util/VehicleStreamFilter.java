@@ -0,0 +1,41 @@
+package com.neurofleet.util;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Which vehicle updates a push subscriber wants: any combination of vehicle ids, statuses and
+ * vehicle types, each given as a comma-separated list. An absent or empty list matches
+ * everything, so the default subscription is the whole fleet, as on the raw WebSocket.
+ */
+public final class VehicleStreamFilter {
+
+    public static final VehicleStreamFilter ALL = new VehicleStreamFilter(null, null, null);
+
+    private final Set<String> vehicleIds;
+    private final Set<String> statuses;
+    private final Set<String> types;
+
+    private VehicleStreamFilter(Set<String> vehicleIds, Set<String> statuses, Set<String> types) {
+        this.vehicleIds = vehicleIds;
+        this.statuses = statuses;
+        this.types = types;
+    }
+
+    public static VehicleStreamFilter of(String vehicleIds, String statuses, String types) {
+        return new VehicleStreamFilter(split(vehicleIds), split(statuses), split(types));
+    }
+
+    public boolean matches(String vehicleId, Object status, Object type) {
+        return (vehicleIds == null || vehicleIds.contains(vehicleId))
+                && (statuses == null || (status != null && statuses.contains(status.toString())))
+                && (types == null || (type != null && types.contains(type.toString())));
+    }
+
+    private static Set<String> split(String csv) {
+        if (csv == null || csv.isBlank()) return null;
+        Set<String> values = Arrays.stream(csv.split(",")).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toSet());
+        return values.isEmpty() ? null : values;
+    }
+}
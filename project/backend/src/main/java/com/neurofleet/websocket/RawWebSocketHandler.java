@@ -1,38 +1,247 @@
 package com.neurofleet.websocket;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neurofleet.util.VehicleStreamFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The dashboard WebSocket. A client that never sends anything gets every raw
+ * {@code vehicle_update}, as before. A client that sends
+ *
+ *   {"action":"subscribe","topics":["fleet-summary","vehicle:abc"]}
+ *
+ * switches to topics and from then on only gets messages of the form
+ * {@code {"type":"topic","topic":...,"data":...}} for what it subscribed to, starting with the
+ * topic's current state where there is one. {@code unsubscribe} takes the same shape. Topics:
+ *
+ *   fleet-summary       status counts, as GET /api/vehicles/status-distribution
+ *   charging-stations   stations with connector occupancy, as GET /api/charging/stations
+ *   alerts              vehicle alerts such as low battery
+ *   vehicle:{id}        telemetry of one vehicle
+ *   vehicles            telemetry of every vehicle matching an optional "filter" object with
+ *                       vehicleIds, status and type, as on the SSE stream
+ *   booking:{id}        status changes of one booking
+ *
+ * Each message is serialised once per publish and the same frame is sent to every subscriber.
+ * Sends go through a {@link ConcurrentWebSocketSessionDecorator}, so publishers on different
+ * threads don't block each other, and a client that can't keep up is dropped instead of
+ * buffering without bound.
+ */
 @Component
 public class RawWebSocketHandler extends TextWebSocketHandler {
-    private final Set<WebSocketSession> sessions = ConcurrentHashMap.newKeySet();
+
+    private static final Logger log = LoggerFactory.getLogger(RawWebSocketHandler.class);
+
+    public static final String VEHICLES = "vehicles";
+
+    private static final class Client {
+        final WebSocketSession session;
+        final Set<String> topics = ConcurrentHashMap.newKeySet();
+        volatile VehicleStreamFilter vehiclesFilter = VehicleStreamFilter.ALL;
+        // Set by the first subscribe; from then on the raw broadcast skips this client
+        volatile boolean topicMode;
+
+        Client(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+
+    private final ObjectMapper mapper;
+    private final int maxTopics;
+    private final int sendTimeLimitMillis;
+    private final int bufferSizeLimit;
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+    private final Map<String, Set<Client>> subscribers = new ConcurrentHashMap<>();
+    private volatile TopicSnapshotProvider snapshots;
+
+    public RawWebSocketHandler(ObjectMapper mapper,
+                               @Value("${app.ws.max-topics:200}") int maxTopics,
+                               @Value("${app.ws.send-time-limit-ms:10000}") int sendTimeLimitMillis,
+                               @Value("${app.ws.buffer-size-limit:524288}") int bufferSizeLimit) {
+        this.mapper = mapper;
+        this.maxTopics = maxTopics;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.bufferSizeLimit = bufferSizeLimit;
+    }
+
+    public void setSnapshotProvider(TopicSnapshotProvider snapshots) {
+        this.snapshots = snapshots;
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        sessions.add(session);
+        clients.put(session.getId(), new Client(new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMillis, bufferSizeLimit)));
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
-        // Echo or ignore; not required for notifications
+        Client client = clients.get(session.getId());
+        if (client == null) return;
+        JsonNode request;
+        try {
+            request = mapper.readTree(message.getPayload());
+        } catch (JsonProcessingException e) {
+            sendError(client, "Invalid JSON");
+            return;
+        }
+        String action = request.path("action").asText();
+        List<String> topics = new ArrayList<>();
+        request.path("topics").forEach(t -> topics.add(t.asText()));
+
+        if ("subscribe".equals(action)) {
+            client.topicMode = true;
+            if (request.has("filter")) {
+                JsonNode f = request.get("filter");
+                client.vehiclesFilter = VehicleStreamFilter.of(text(f, "vehicleIds"), text(f, "status"), text(f, "type"));
+            }
+            for (String topic : topics) {
+                if (!isValidTopic(topic)) {
+                    sendError(client, "Unknown topic " + topic);
+                } else if (client.topics.size() >= maxTopics && !client.topics.contains(topic)) {
+                    sendError(client, "Too many topics, limit is " + maxTopics);
+                    break;
+                } else if (client.topics.add(topic)) {
+                    // compute, not computeIfAbsent + add, so this can't race with unsubscribe dropping the set
+                    subscribers.compute(topic, (k, subs) -> {
+                        Set<Client> s = subs != null ? subs : ConcurrentHashMap.<Client>newKeySet();
+                        s.add(client);
+                        return s;
+                    });
+                    sendSnapshot(client, topic);
+                }
+            }
+        } else if ("unsubscribe".equals(action)) {
+            for (String topic : topics) unsubscribe(client, topic);
+        } else {
+            sendError(client, "action must be subscribe or unsubscribe");
+        }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        sessions.remove(session);
+        Client client = clients.remove(session.getId());
+        if (client == null) return;
+        for (String topic : new ArrayList<>(client.topics)) unsubscribe(client, topic);
     }
 
+    /** Raw vehicle_update feed, for clients that haven't subscribed to topics. */
     public void broadcast(String payload) {
-        sessions.forEach(sess -> {
-            try {
-                if (sess.isOpen()) sess.sendMessage(new TextMessage(payload));
-            } catch (Exception ignored) {}
+        TextMessage frame = null;
+        for (Client client : clients.values()) {
+            if (client.topicMode) continue;
+            if (frame == null) frame = new TextMessage(payload);
+            send(client, frame);
+        }
+    }
+
+    /** False once every client has switched to topics, so the tick can skip serialising the raw feed. */
+    public boolean hasRawClients() {
+        for (Client client : clients.values()) {
+            if (!client.topicMode) return true;
+        }
+        return false;
+    }
+
+    public boolean hasSubscribers(String topic) {
+        Set<Client> subs = subscribers.get(topic);
+        return subs != null && !subs.isEmpty();
+    }
+
+    /** Sends {@code data} to every subscriber of {@code topic}; nothing is serialised if there are none. */
+    public void publish(String topic, Object data) {
+        Set<Client> subs = subscribers.get(topic);
+        if (subs == null || subs.isEmpty()) return;
+        TextMessage frame = frame(topic, data);
+        if (frame == null) return;
+        for (Client client : subs) send(client, frame);
+    }
+
+    /** Publishes one vehicle's telemetry on the {@code vehicles} topic, to subscribers whose filter matches. */
+    public void publishVehicle(String vehicleId, Object status, Object vehicleType, Object data) {
+        Set<Client> subs = subscribers.get(VEHICLES);
+        if (subs == null || subs.isEmpty()) return;
+        TextMessage frame = null;
+        for (Client client : subs) {
+            if (!client.vehiclesFilter.matches(vehicleId, status, vehicleType)) continue;
+            if (frame == null && (frame = frame(VEHICLES, data)) == null) return;
+            send(client, frame);
+        }
+    }
+
+    private void unsubscribe(Client client, String topic) {
+        if (!client.topics.remove(topic)) return;
+        // Drops the topic once empty, so vehicle:{id} and booking:{id} entries don't pile up
+        boolean[] emptied = {false};
+        subscribers.computeIfPresent(topic, (k, subs) -> {
+            subs.remove(client);
+            emptied[0] = subs.isEmpty();
+            return emptied[0] ? null : subs;
         });
+        TopicSnapshotProvider provider = snapshots;
+        if (emptied[0] && provider != null) provider.lastSubscriberLeft(topic);
+    }
+
+    private void sendSnapshot(Client client, String topic) {
+        TopicSnapshotProvider provider = snapshots;
+        if (provider == null) return;
+        Object current = provider.snapshot(topic, client.vehiclesFilter);
+        if (current == null) return;
+        TextMessage frame = frame(topic, current);
+        if (frame != null) send(client, frame);
+    }
+
+    private TextMessage frame(String topic, Object data) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "topic");
+        message.put("topic", topic);
+        message.put("data", data);
+        try {
+            return new TextMessage(mapper.writeValueAsString(message));
+        } catch (JsonProcessingException e) {
+            log.warn("ws.serialize-failed topic={}", topic, e);
+            return null;
+        }
+    }
+
+    private void sendError(Client client, String error) {
+        try {
+            send(client, new TextMessage(mapper.writeValueAsString(Map.of("type", "error", "error", error))));
+        } catch (JsonProcessingException ignored) {
+            // Map of two strings always serialises
+        }
+    }
+
+    private void send(Client client, TextMessage frame) {
+        try {
+            if (client.session.isOpen()) client.session.sendMessage(frame);
+        } catch (Exception e) {
+            // Send timeout or buffer overflow: the decorator has already closed the session
+            log.debug("ws.send-failed session={} error={}", client.session.getId(), e.toString());
+        }
+    }
+
+    static boolean isValidTopic(String topic) {
+        return switch (topic) {
+            case "fleet-summary", "charging-stations", "alerts", VEHICLES -> true;
+            default -> (topic.startsWith("vehicle:") && topic.length() > 8) || (topic.startsWith("booking:") && topic.length() > 8);
+        };
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package com.neurofleet.websocket;
+
+import com.neurofleet.util.VehicleStreamFilter;
+
+/**
+ * Current state of a topic, sent to a client when it subscribes so it doesn't have to fetch it
+ * over REST first. Returns null for topics that only carry events.
+ */
+public interface TopicSnapshotProvider {
+    Object snapshot(String topic, VehicleStreamFilter vehiclesFilter);
+
+    /** Called once a topic has no subscribers left, to drop whatever was kept about what they were sent. */
+    default void lastSubscriberLeft(String topic) {
+    }
+}
@@ -18,6 +18,7 @@ import RouteOptimization from './RouteOptimization';
 import AdminPanel from './AdminPanel';
 import Profile from './Profile';
 import { API_BASE_URL } from './config';
+import usePushTopic from './hooks/usePushTopic';
 
 function AppContent() {
   const [refreshList, setRefreshList] = useState(false);
@@ -42,6 +43,11 @@ function AppContent() {
     };
   }, []);
 
+  // Pushed whenever the counts change; polling below only runs while the push connection is down
+  const pushConnected = usePushTopic(currentUser ? 'fleet-summary' : null, (data) => {
+    setFleetMetrics({ loading: false, error: null, data });
+  });
+
   useEffect(() => {
     let cancel = false;
     const fetchMetrics = async () => {
@@ -68,6 +74,8 @@ function AppContent() {
       }
     };
 
+    if (pushConnected && currentUser) return undefined;
+
     fetchMetrics();
     const interval = setInterval(fetchMetrics, 60000);
 
@@ -75,7 +83,7 @@ function AppContent() {
       cancel = true;
       clearInterval(interval);
     };
-  }, [currentUser]);
+  }, [currentUser, pushConnected]);
 
   const handleVehicleAdded = () => {
     setRefreshList(prev => !prev);
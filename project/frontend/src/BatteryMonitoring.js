@@ -2,6 +2,7 @@ import React, { useState, useEffect, useContext } from 'react';
 import axios from 'axios';
 import { AuthContext } from './AuthContext';
 import { API_BASE_URL } from './config';
+import usePushTopic from './hooks/usePushTopic';
 
 // Safe number formatting function
 const formatNumber = (value, decimals = 2) => {
@@ -10,6 +11,26 @@ const formatNumber = (value, decimals = 2) => {
   return isNaN(num) ? 0 : parseFloat(num.toFixed(decimals));
 };
 
+const formatStation = (station) => ({
+  ...station,
+  location: {
+    latitude: formatNumber(station.location?.latitude, 6),
+    longitude: formatNumber(station.location?.longitude, 6)
+  },
+  waitTime: formatNumber(station.waitTime || 0),
+  pricePerKwh: formatNumber(station.pricePerKwh || 0)
+});
+
+// Charging stations with live connector occupancy from the backend registry
+const fetchChargingStations = async (setChargingStations) => {
+  try {
+    const response = await axios.get(`${API_BASE_URL}/api/charging/stations`);
+    setChargingStations(response.data.map(formatStation));
+  } catch (err) {
+    console.error('Failed to fetch charging stations:', err);
+  }
+};
+
 function BatteryMonitoring() {
   const { currentUser } = useContext(AuthContext);
   const [vehicles, setVehicles] = useState([]);
@@ -73,99 +94,22 @@ function BatteryMonitoring() {
       }
     };
     
-    // Mock charging stations data with real-time updates and formatted values
-    const fetchChargingStations = () => {
-      // In a real implementation, this would be an API call
-      const mockStations = [
-        {
-          id: 'cs-001',
-          name: 'Central Hub Station',
-          location: { 
-            latitude: formatNumber(28.6139, 6), 
-            longitude: formatNumber(77.2090, 6) 
-          },
-          totalPorts: 8,
-          availablePorts: Math.floor(Math.random() * 9), // 0-8
-          chargingType: ['level2', 'dcFast'],
-          status: Math.random() > 0.1 ? 'operational' : 'maintenance',
-          currentlyCharging: Array.from({length: Math.floor(Math.random() * 9)}, (_, i) => `vehicle-${Math.floor(Math.random() * 100)}`),
-          waitTime: formatNumber(Math.floor(Math.random() * 60)), // 0-60 minutes
-          pricePerKwh: formatNumber(8.5) // Rupees per kWh
-        },
-        {
-          id: 'cs-002',
-          name: 'North District Station',
-          location: { 
-            latitude: formatNumber(28.7041, 6), 
-            longitude: formatNumber(77.1025, 6) 
-          },
-          totalPorts: 4,
-          availablePorts: Math.floor(Math.random() * 5), // 0-4
-          chargingType: ['level2'],
-          status: Math.random() > 0.1 ? 'operational' : 'maintenance',
-          currentlyCharging: Array.from({length: Math.floor(Math.random() * 5)}, (_, i) => `vehicle-${Math.floor(Math.random() * 100)}`),
-          waitTime: formatNumber(Math.floor(Math.random() * 30)), // 0-30 minutes
-          pricePerKwh: formatNumber(7.2) // Rupees per kWh
-        },
-        {
-          id: 'cs-003',
-          name: 'South Express Station',
-          location: { 
-            latitude: formatNumber(28.5355, 6), 
-            longitude: formatNumber(77.2410, 6) 
-          },
-          totalPorts: 6,
-          availablePorts: Math.floor(Math.random() * 7), // 0-6
-          chargingType: ['level2', 'dcFast', 'supercharger'],
-          status: Math.random() > 0.2 ? 'operational' : (Math.random() > 0.5 ? 'full' : 'maintenance'),
-          currentlyCharging: Array.from({length: Math.floor(Math.random() * 7)}, (_, i) => `vehicle-${Math.floor(Math.random() * 100)}`),
-          waitTime: formatNumber(Math.floor(Math.random() * 45)), // 0-45 minutes
-          pricePerKwh: formatNumber(10.0) // Rupees per kWh
-        },
-        {
-          id: 'cs-004',
-          name: 'East Side Station',
-          location: { 
-            latitude: formatNumber(28.6129, 6), 
-            longitude: formatNumber(77.2295, 6) 
-          },
-          totalPorts: 4,
-          availablePorts: Math.floor(Math.random() * 5), // 0-4
-          chargingType: ['level2'],
-          status: Math.random() > 0.1 ? 'operational' : 'maintenance',
-          currentlyCharging: Array.from({length: Math.floor(Math.random() * 5)}, (_, i) => `vehicle-${Math.floor(Math.random() * 100)}`),
-          waitTime: formatNumber(Math.floor(Math.random() * 20)), // 0-20 minutes
-          pricePerKwh: formatNumber(6.8) // Rupees per kWh
-        },
-        {
-          id: 'cs-005',
-          name: 'West End Station',
-          location: { 
-            latitude: formatNumber(28.4595, 6), 
-            longitude: formatNumber(77.0266, 6) 
-          },
-          totalPorts: 2,
-          availablePorts: Math.floor(Math.random() * 3), // 0-2
-          chargingType: ['level1', 'level2'],
-          status: Math.random() > 0.1 ? 'operational' : 'maintenance',
-          currentlyCharging: Array.from({length: Math.floor(Math.random() * 3)}, (_, i) => `vehicle-${Math.floor(Math.random() * 100)}`),
-          waitTime: formatNumber(Math.floor(Math.random() * 15)), // 0-15 minutes
-          pricePerKwh: formatNumber(7.5) // Rupees per kWh
-        }
-      ];
-      
-      setChargingStations(mockStations);
-    };
-    
     fetchVehicles();
-    fetchChargingStations();
-    
-    // Set up interval to update charging station data
-    const interval = setInterval(fetchChargingStations, 30000); // Update every 30 seconds
-    
-    return () => clearInterval(interval);
   }, [currentUser]);
 
+  // Station occupancy is pushed as it changes, starting with the current list
+  const pushConnected = usePushTopic('charging-stations', (stations) => {
+    setChargingStations(stations.map(formatStation));
+  });
+
+  // Poll only while the push connection is down
+  useEffect(() => {
+    if (pushConnected) return undefined;
+    fetchChargingStations(setChargingStations);
+    const interval = setInterval(() => fetchChargingStations(setChargingStations), 30000); // Update every 30 seconds
+    return () => clearInterval(interval);
+  }, [pushConnected]);
+
   // Generate mock battery history when a vehicle is selected
   useEffect(() => {
     if (!selectedVehicle) {
@@ -981,6 +981,22 @@ function CustomerBooking() {
       setEstimatedDistance(parseFloat(distance.toFixed(2)));
       setEstimatedDuration(duration);
       
+      // Server quote uses fleet speed profiles and is the price the booking will be charged
+      try {
+        const quote = await axios.post(`${API_BASE_URL}/api/quotes`, {
+          pickup: pickupCoords,
+          dropoff: dropoffCoords,
+          vehicleType: data.vehicleType,
+          duration: data.duration
+        });
+        setEstimatedDistance(parseFloat(quote.data.distanceKm.toFixed(2)));
+        if (!parseInt(data.duration)) setEstimatedDuration(Math.round(quote.data.durationMinutes));
+        setEstimatedCost(quote.data.estimatedCost);
+        return;
+      } catch (quoteError) {
+        console.error('Quote service unavailable, using local estimate:', quoteError);
+      }
+      
       // Calculate cost: base rate + distance rate + time rate
       const baseCost = vehicleType.baseRate;
       const distanceCost = distance * 20; // ₹20 per km
@@ -2,6 +2,7 @@ import React, { useState, useEffect, useContext } from 'react';
 import axios from 'axios';
 import { AuthContext } from './AuthContext';
 import { API_BASE_URL } from './config';
+import usePushTopic from './hooks/usePushTopic';
 
 const DashboardMap = () => {
   const { currentUser } = useContext(AuthContext);
@@ -10,6 +11,16 @@ const DashboardMap = () => {
   const [loading, setLoading] = useState(true);
   const [selectedVehicle, setSelectedVehicle] = useState(null);
 
+  // Fleet counts are pushed as they change
+  const pushConnected = usePushTopic(currentUser ? 'fleet-summary' : null, (data) => {
+    setFleetMetrics({
+      total: data.totalVehicles || 0,
+      active: data.activeTrips || 0,
+      available: data.availableVehicles || 0,
+      charging: data.chargingVehicles || 0
+    });
+  });
+
   useEffect(() => {
     const fetchDashboardData = async () => {
       if (!currentUser) return;
@@ -55,12 +66,13 @@ const DashboardMap = () => {
     };
     
     fetchDashboardData();
+    if (pushConnected) return undefined;
     
-    // Set up polling for real-time updates
+    // Poll only while the push connection is down
     const interval = setInterval(fetchDashboardData, 30000); // Update every 30 seconds
     
     return () => clearInterval(interval);
-  }, [currentUser]);
+  }, [currentUser, pushConnected]);
 
   // Function to get battery level class
   const getBatteryLevelClass = (level) => {
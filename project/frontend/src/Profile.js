@@ -105,6 +105,19 @@ function Profile() {
     }
   };
 
+  // Trip locations are display strings; older trips stored them as { lat, lng } objects
+  const formatLocation = (location) => {
+    if (!location) {
+      return 'Unknown';
+    }
+    if (typeof location === 'object') {
+      const lat = parseFloat(location.lat);
+      const lng = parseFloat(location.lng);
+      return isNaN(lat) || isNaN(lng) ? 'Unknown' : `${lat.toFixed(5)}, ${lng.toFixed(5)}`;
+    }
+    return String(location);
+  };
+
   // Validation function - making experienceYears optional
   const validateProfile = (data) => {
     const errors = {};
@@ -809,7 +822,7 @@ function Profile() {
             {recentTrips.items.map(trip => (
               <div key={trip.id} className="trip-card">
                 <div className="trip-header">
-                  <h3>{trip.startLocation} → {trip.endLocation}</h3>
+                  <h3>{formatLocation(trip.startLocation)} → {formatLocation(trip.endLocation)}</h3>
                   <span className={`status-badge ${trip.status?.toLowerCase() || 'completed'}`}>
                     {trip.status || 'Completed'}
                   </span>
@@ -70,37 +70,69 @@ function VehicleList({ refreshTrigger, onEdit }) {
     // Set up WebSocket for real-time updates
     const ws = new WebSocket(`${WS_BASE_URL}`);
 
+    const applyUpdate = (data) => {
+      setTelemetryData(prev => ({
+        ...prev,
+        [data.id]: { 
+          ...prev[data.id], 
+          ...data,
+          batteryLevel: data.batteryLevel !== undefined ? parseFloat(data.batteryLevel.toFixed(2)) : (prev[data.id]?.batteryLevel || 0),
+          fuelLevel: data.fuelLevel !== undefined ? parseFloat(data.fuelLevel.toFixed(2)) : (prev[data.id]?.fuelLevel || 0),
+          speed: data.speed !== undefined ? parseFloat(data.speed.toFixed(2)) : (prev[data.id]?.speed || 0),
+          engineTemp: data.engineTemp !== undefined ? parseFloat(data.engineTemp.toFixed(2)) : (prev[data.id]?.engineTemp || 0),
+          tirePressure: data.tirePressure !== undefined ? parseFloat(data.tirePressure.toFixed(2)) : (prev[data.id]?.tirePressure || 0),
+          mileage: data.mileage !== undefined ? parseFloat(data.mileage.toFixed(2)) : (prev[data.id]?.mileage || 0),
+          latitude: data.latitude !== undefined ? parseFloat(data.latitude.toFixed(6)) : (prev[data.id]?.latitude || 0),
+          longitude: data.longitude !== undefined ? parseFloat(data.longitude.toFixed(6)) : (prev[data.id]?.longitude || 0)
+        }
+      }));
+    };
+
     ws.onmessage = (event) => {
       try {
         const data = JSON.parse(event.data);
         if (data.type === 'vehicle_update') {
-          setTelemetryData(prev => ({
-            ...prev,
-            [data.id]: { 
-              ...prev[data.id], 
-              ...data,
-              batteryLevel: data.batteryLevel !== undefined ? parseFloat(data.batteryLevel.toFixed(2)) : (prev[data.id]?.batteryLevel || 0),
-              fuelLevel: data.fuelLevel !== undefined ? parseFloat(data.fuelLevel.toFixed(2)) : (prev[data.id]?.fuelLevel || 0),
-              speed: data.speed !== undefined ? parseFloat(data.speed.toFixed(2)) : (prev[data.id]?.speed || 0),
-              engineTemp: data.engineTemp !== undefined ? parseFloat(data.engineTemp.toFixed(2)) : (prev[data.id]?.engineTemp || 0),
-              tirePressure: data.tirePressure !== undefined ? parseFloat(data.tirePressure.toFixed(2)) : (prev[data.id]?.tirePressure || 0),
-              mileage: data.mileage !== undefined ? parseFloat(data.mileage.toFixed(2)) : (prev[data.id]?.mileage || 0),
-              latitude: data.latitude !== undefined ? parseFloat(data.latitude.toFixed(6)) : (prev[data.id]?.latitude || 0),
-              longitude: data.longitude !== undefined ? parseFloat(data.longitude.toFixed(6)) : (prev[data.id]?.longitude || 0)
-            }
-          }));
+          applyUpdate(data);
         }
       } catch (error) {
         console.error('Error parsing WebSocket message:', error);
       }
     };
 
-    // Set up polling as fallback
-    const interval = setInterval(fetchTelemetry, 10000); // Every 10 seconds
+    // Fall back to the SSE stream if the WebSocket can't connect or drops.
+    // EventSource reconnects by itself and resumes from the last event it saw.
+    let source = null;
+    let interval = null;
+    const startFallback = () => {
+      if (source || interval) return;
+      if (typeof EventSource === 'undefined') {
+        interval = setInterval(fetchTelemetry, 10000); // Every 10 seconds
+        return;
+      }
+      source = new EventSource(`${API_BASE_URL}/api/vehicles/telemetry/stream`);
+      source.addEventListener('snapshot', (event) => {
+        try {
+          JSON.parse(event.data).vehicles.forEach(applyUpdate);
+        } catch (error) {
+          console.error('Error parsing telemetry snapshot:', error);
+        }
+      });
+      source.addEventListener('vehicle_update', (event) => {
+        try {
+          applyUpdate(JSON.parse(event.data));
+        } catch (error) {
+          console.error('Error parsing telemetry event:', error);
+        }
+      });
+    };
+    ws.onerror = startFallback;
+    ws.onclose = startFallback;
 
     return () => {
+      ws.onclose = null;
       ws.close();
-      clearInterval(interval);
+      if (source) source.close();
+      if (interval) clearInterval(interval);
     };
   }, [vehicles, currentUser]);
 
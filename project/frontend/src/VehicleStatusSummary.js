@@ -2,12 +2,19 @@ import React, { useState, useEffect, useContext } from 'react';
 import axios from 'axios';
 import { AuthContext } from './AuthContext';
 import { API_BASE_URL } from './config';
+import usePushTopic from './hooks/usePushTopic';
 
 function VehicleStatusSummary() {
   const { currentUser } = useContext(AuthContext);
   const [vehicles, setVehicles] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
+  const [summaryVersion, setSummaryVersion] = useState(0);
+
+  // The list is only refetched when the pushed status counts change
+  const pushConnected = usePushTopic(currentUser ? 'fleet-summary' : null, () => {
+    setSummaryVersion(v => v + 1);
+  });
 
   useEffect(() => {
     const fetchVehicles = async () => {
@@ -29,12 +36,13 @@ function VehicleStatusSummary() {
     };
     
     fetchVehicles();
+    if (pushConnected) return undefined;
     
-    // Set up polling for real-time updates
+    // Poll only while the push connection is down
     const interval = setInterval(fetchVehicles, 30000); // Update every 30 seconds
     
     return () => clearInterval(interval);
-  }, [currentUser]);
+  }, [currentUser, pushConnected, summaryVersion]);
 
   // Group vehicles by status
   const groupVehiclesByStatus = () => {
@@ -0,0 +1,109 @@
+// frontend/src/hooks/usePushTopic.js
+// Subscribes components to server push topics over one shared WebSocket.
+import { useEffect, useRef, useState } from 'react';
+import { WS_BASE_URL } from '../config';
+
+// topic -> Set of handlers; shared by every component on the page
+const handlers = new Map();
+const connectionListeners = new Set();
+let socket = null;
+let connected = false;
+let retryDelay = 1000;
+let retryTimer = null;
+
+const setConnected = (value) => {
+  connected = value;
+  connectionListeners.forEach(listener => listener(value));
+};
+
+const send = (action, topics) => {
+  if (socket && socket.readyState === WebSocket.OPEN && topics.length) {
+    socket.send(JSON.stringify({ action, topics }));
+  }
+};
+
+const connect = () => {
+  if (socket || !handlers.size) return;
+  socket = new WebSocket(`${WS_BASE_URL}`);
+
+  socket.onopen = () => {
+    retryDelay = 1000;
+    setConnected(true);
+    // Resubscribe after every reconnect; the server answers each topic with its current state
+    send('subscribe', [...handlers.keys()]);
+  };
+
+  socket.onmessage = (event) => {
+    try {
+      const message = JSON.parse(event.data);
+      if (message.type === 'topic') {
+        (handlers.get(message.topic) || []).forEach(handler => handler(message.data));
+      } else if (message.type === 'error') {
+        console.error('Push subscription error:', message.error);
+      }
+    } catch (error) {
+      console.error('Error parsing push message:', error);
+    }
+  };
+
+  socket.onclose = () => {
+    socket = null;
+    setConnected(false);
+    if (handlers.size && !retryTimer) {
+      retryTimer = setTimeout(() => {
+        retryTimer = null;
+        connect();
+      }, retryDelay);
+      retryDelay = Math.min(retryDelay * 2, 30000);
+    }
+  };
+};
+
+const subscribe = (topic, handler) => {
+  let set = handlers.get(topic);
+  if (!set) {
+    set = new Set();
+    handlers.set(topic, set);
+    send('subscribe', [topic]);
+  }
+  set.add(handler);
+  connect();
+
+  return () => {
+    set.delete(handler);
+    if (!set.size) {
+      handlers.delete(topic);
+      send('unsubscribe', [topic]);
+    }
+    if (!handlers.size && socket) {
+      socket.close();
+    }
+  };
+};
+
+/**
+ * Calls onData with every message published on a topic such as 'fleet-summary' or
+ * 'vehicle:abc', starting with its current state. Pass a falsy topic to subscribe to nothing.
+ * @param {string} topic
+ * @param {(data: object) => void} onData
+ * @returns {boolean} whether the push connection is up; poll as a fallback only while it isn't
+ */
+const usePushTopic = (topic, onData) => {
+  const [isConnected, setIsConnected] = useState(connected);
+  const callback = useRef(onData);
+  callback.current = onData;
+
+  useEffect(() => {
+    connectionListeners.add(setIsConnected);
+    return () => connectionListeners.delete(setIsConnected);
+  }, []);
+
+  useEffect(() => {
+    if (!topic) return undefined;
+    return subscribe(topic, data => callback.current(data));
+  }, [topic]);
+
+  return isConnected;
+};
+
+export default usePushTopic;